@@ -0,0 +1,198 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.benchmark;
+
+import com.amazon.s3.TestingHelpers;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Records and schema configurations shared by the benchmarks.
+ * <p>
+ * Besides the hand-written events in {@link TestingHelpers}, this generates a 'wide' event shaped like the output of
+ * the extraction Lambdas for a busy image: many Rekognition labels with bounding box instances, and a large EXIF
+ * block mixing integers, strings and rationals.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String SAMPLE = "sample";
+    public static final String ALL_METADATA_TYPES = "allMetadataTypes";
+    public static final String WIDE = "wide";
+    public static final String DELETE = "delete";
+
+    static final int WIDE_LABEL_COUNT = 50;
+    static final int WIDE_EXIF_TAG_COUNT = 200;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static Record record(String fixture) {
+        switch (fixture) {
+            case SAMPLE: return TestingHelpers.loadSampleEventAsRecord("CreateEvent");
+            case ALL_METADATA_TYPES: return TestingHelpers.loadSampleEventAsRecord("CreateEvent_AllMetadataTypes");
+            case DELETE: return TestingHelpers.loadSampleEventAsRecord("DeleteEvent");
+            case WIDE: return wideRecord(WIDE_LABEL_COUNT, WIDE_EXIF_TAG_COUNT);
+            default: throw new IllegalArgumentException("Unknown fixture: " + fixture);
+        }
+    }
+
+    /**
+     * Builds the application configuration with the requested number of custom metadata fields.
+     * <p>
+     * The first three fields match the sample deployment (labels, width and height); any further fields promote
+     * generated EXIF tags, cycling through integer, string and nested rational values.
+     */
+    public static Map<String, Properties> properties(int customFieldCount) {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        Properties schema = properties.get("schema");
+
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < customFieldCount; i++) {
+            String name;
+            String type;
+            String jpath;
+            switch (i) {
+                case 0: name = "labels"; type = "ARRAY<STRING>"; jpath = "$.labels[*].Name"; break;
+                case 1: name = "image_width"; type = "INTEGER"; jpath = "$.exif.ImageWidth"; break;
+                case 2: name = "image_height"; type = "INTEGER"; jpath = "$.exif.ImageLength"; break;
+                default:
+                    int tag = i - 3;
+                    name = String.format("exif_tag_%03d", tag);
+                    switch (tag % 3) {
+                        case 0: type = "INTEGER"; jpath = String.format("$.exif.Tag%03d", tag); break;
+                        case 1: type = "STRING"; jpath = String.format("$.exif.Tag%03d", tag); break;
+                        default: type = "INTEGER"; jpath = String.format("$.exif.Tag%03d.numerator", tag); break;
+                    }
+            }
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(name);
+            schema.setProperty(String.format("field.%s.type", name), type);
+            schema.setProperty(String.format("field.%s.jpath", name), jpath);
+        }
+        if (customFieldCount > 0) {
+            schema.setProperty("custom_metadata_fields", names.toString());
+        }
+        return properties;
+    }
+
+    public static Record wideRecord(int labelCount, int exifTagCount) {
+        String metadata = wideMetadata(new Random(42), labelCount, exifTagCount);
+        return Record.builder()
+                .eventID("5f1c2a7f6e0a4b5f9a3e0c1d2b3a4f5e")
+                .eventName("MODIFY")
+                .eventVersion("1.1")
+                .eventSource("aws:dynamodb")
+                .awsRegion("us-east-1")
+                .dynamodb(builder -> builder
+                        .approximateCreationDateTime(Instant.ofEpochMilli(1731675048000L))
+                        .keys(Map.of("s3key", AttributeValue.fromS("d2lkZS9pbWFnZS5qcGc=-0")))
+                        .newImage(Map.of(
+                                "bucket", AttributeValue.fromS("foo"),
+                                "metadata", AttributeValue.fromS(metadata),
+                                "s3key", AttributeValue.fromS("d2lkZS9pbWFnZS5qcGc=-0"),
+                                "etag", AttributeValue.fromS("0c4e1ad2a0f2f0a1d2b1e8e5c7d5a3b9"),
+                                "latest_event_time", AttributeValue.fromS("2024-11-15T12:50:40+00:00"),
+                                "version_id", AttributeValue.fromNul(true),
+                                "key", AttributeValue.fromS("wide/image.jpg"),
+                                "sequencer", AttributeValue.fromS("00673743A054CE73CC")
+                        ))
+                        .sequenceNumber("14055600003598882686763476")
+                        .sizeBytes((long) metadata.length())
+                        .streamViewType("NEW_IMAGE")
+                )
+                .build();
+    }
+
+    static String wideMetadata(Random random, int labelCount, int exifTagCount) {
+        JsonArray labels = new JsonArray();
+        for (int i = 0; i < labelCount; i++) {
+            JsonObject label = new JsonObject();
+            label.addProperty("Name", "Label" + i);
+            label.addProperty("Confidence", 50 + random.nextDouble() * 50);
+
+            JsonArray instances = new JsonArray();
+            for (int j = 0; j < i % 5; j++) {
+                JsonObject boundingBox = new JsonObject();
+                boundingBox.addProperty("Width", random.nextDouble());
+                boundingBox.addProperty("Height", random.nextDouble());
+                boundingBox.addProperty("Left", random.nextDouble());
+                boundingBox.addProperty("Top", random.nextDouble());
+                JsonObject instance = new JsonObject();
+                instance.add("BoundingBox", boundingBox);
+                instance.addProperty("Confidence", 50 + random.nextDouble() * 50);
+                instances.add(instance);
+            }
+            label.add("Instances", instances);
+
+            JsonArray parents = new JsonArray();
+            for (int j = 0; j < i % 3; j++) {
+                JsonObject parent = new JsonObject();
+                parent.addProperty("Name", "Parent" + (i + j));
+                parents.add(parent);
+            }
+            label.add("Parents", parents);
+            label.add("Aliases", new JsonArray());
+
+            JsonArray categories = new JsonArray();
+            JsonObject category = new JsonObject();
+            category.addProperty("Name", "Category" + (i % 7));
+            categories.add(category);
+            label.add("Categories", categories);
+            labels.add(label);
+        }
+
+        JsonObject exif = new JsonObject();
+        exif.addProperty("ImageWidth", 4000);
+        exif.addProperty("ImageLength", 2252);
+        exif.addProperty("Make", "samsung");
+        exif.addProperty("Model", "SM-G998B");
+        exif.addProperty("DateTime", "2024:07:24 12:31:07");
+        for (int i = 0; i < exifTagCount; i++) {
+            String tag = String.format("Tag%03d", i);
+            switch (i % 3) {
+                case 0:
+                    exif.addProperty(tag, random.nextInt(10_000));
+                    break;
+                case 1:
+                    exif.addProperty(tag, Long.toHexString(random.nextLong()));
+                    break;
+                default:
+                    JsonObject rational = new JsonObject();
+                    rational.addProperty("type", "IFDRational");
+                    rational.addProperty("denominator", 1 + random.nextInt(1000));
+                    rational.addProperty("imag", 0);
+                    rational.addProperty("numerator", random.nextInt(1000));
+                    exif.add(tag, rational);
+            }
+        }
+
+        JsonObject metadata = new JsonObject();
+        metadata.add("labels", labels);
+        metadata.add("exif", exif);
+        return metadata.toString();
+    }
+}
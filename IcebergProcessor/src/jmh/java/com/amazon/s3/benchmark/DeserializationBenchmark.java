@@ -0,0 +1,76 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.benchmark;
+
+import com.amazon.s3.model.EventDeserializationSchema;
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.util.Collector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first stage of the pipeline: turning a DynamoDB stream {@link Record} into an {@link ImageRecord}.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeserializationBenchmark {
+
+    @Param({BenchmarkFixtures.SAMPLE, BenchmarkFixtures.WIDE})
+    public String fixture;
+
+    private final EventDeserializationSchema deserializationSchema = new EventDeserializationSchema();
+    private Record record;
+    private Map<String, AttributeValue> newImage;
+    private Collector<ImageRecord> collector;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        record = BenchmarkFixtures.record(fixture);
+        newImage = record.dynamodb().newImage();
+        collector = new BlackholeCollector<>(blackhole);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void deserialize() throws IOException {
+        deserializationSchema.deserialize(record, "BenchmarkStream", "BenchmarkShard", collector);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void deserializeLatency() throws IOException {
+        deserializationSchema.deserialize(record, "BenchmarkStream", "BenchmarkShard", collector);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public ImageRecord imageRecord() {
+        return new ImageRecord(newImage);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.benchmark;
+
+import com.amazon.s3.model.EventDeserializationSchema;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.model.ImageToRowDataMapper;
+import com.amazon.s3.model.RowDataDeserializationSchema;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Collector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways of turning a DynamoDB stream {@link Record} into a table row: deserializing into an
+ * {@link ImageRecord} and mapping it, or reading it directly with the {@link RowDataDeserializationSchema}.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FusedDeserializationBenchmark {
+
+    @Param({BenchmarkFixtures.SAMPLE, BenchmarkFixtures.WIDE})
+    public String fixture;
+
+    @Param({"0", "3", "30"})
+    public int customFields;
+
+    private final EventDeserializationSchema eventDeserializationSchema = new EventDeserializationSchema();
+    private ImageToRowDataMapper mapper;
+    private RowDataDeserializationSchema rowDataDeserializationSchema;
+    private Record record;
+    private Collector<ImageRecord> mappingCollector;
+    private Collector<RowData> collector;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        Map<String, Properties> properties = BenchmarkFixtures.properties(customFields);
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        Schema tableSchema = TableSchemaGenerator.generate(properties, schemaEntries);
+        mapper = new ImageToRowDataMapper(tableSchema, schemaEntries);
+        rowDataDeserializationSchema = new RowDataDeserializationSchema(tableSchema, schemaEntries);
+        record = BenchmarkFixtures.record(fixture);
+        collector = new BlackholeCollector<>(blackhole);
+        mappingCollector = new Collector<>() {
+            @Override
+            public void collect(ImageRecord image) {
+                collector.collect(mapper.map(image));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void deserializeAndMap() throws IOException {
+        eventDeserializationSchema.deserialize(record, "BenchmarkStream", "BenchmarkShard", mappingCollector);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void fused() throws IOException {
+        rowDataDeserializationSchema.deserialize(record, "BenchmarkStream", "BenchmarkShard", collector);
+    }
+}
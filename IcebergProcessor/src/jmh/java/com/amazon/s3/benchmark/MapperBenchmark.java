@@ -0,0 +1,71 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.benchmark;
+
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.model.ImageToRowDataMapper;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.table.data.RowData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of an {@link ImageRecord} into the {@link RowData} handed to the Iceberg sink, for a
+ * growing number of promoted metadata columns.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+
+    @Param({BenchmarkFixtures.SAMPLE, BenchmarkFixtures.WIDE})
+    public String fixture;
+
+    @Param({"0", "3", "30"})
+    public int customFields;
+
+    private ImageToRowDataMapper mapper;
+    private ImageRecord image;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Properties> properties = BenchmarkFixtures.properties(customFields);
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        mapper = new ImageToRowDataMapper(TableSchemaGenerator.generate(properties, schemaEntries), schemaEntries);
+        image = new ImageRecord(BenchmarkFixtures.record(fixture).dynamodb().newImage());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public RowData map() throws Exception {
+        return mapper.map(image);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RowData mapLatency() throws Exception {
+        return mapper.map(image);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.benchmark;
+
+import com.amazon.s3.DataStreamJob;
+import com.amazon.s3.source.EventSources;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.JobStatus;
+import org.apache.flink.runtime.checkpoint.CheckpointStatsSnapshot;
+import org.apache.flink.runtime.checkpoint.StatsSummarySnapshot;
+import org.apache.flink.runtime.executiongraph.ArchivedExecutionGraph;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobmaster.JobResult;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.CatalogProperties;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.SnapshotSummary;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.flink.CatalogLoader;
+import org.apache.iceberg.metrics.CommitReport;
+import org.apache.iceberg.metrics.MetricsReport;
+import org.apache.iceberg.metrics.MetricsReporter;
+import org.apache.iceberg.metrics.TimerResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Runs the {@link DataStreamJob} pipeline end to end on a local {@link MiniCluster}, reading records from the
+ * synthetic source and writing them to an Iceberg table in a temporary directory, and reports the sustained
+ * throughput, the checkpoint and commit latencies, and the files of the table.
+ * <p>
+ * Options, each followed by its value: {@code --records} (1000000), {@code --keys} number of distinct objects
+ * (100000), {@code --rate} records per second (unlimited), {@code --parallelism} of the job (4),
+ * {@code --checkpoint-interval} in milliseconds (10000), {@code --custom-fields} promoted metadata fields (3), and
+ * {@code --set group.property=value}, repeatable, to set any other application property, for instance
+ * {@code --set stream.fused_deserialization=true} or {@code --set generator.reorder_ratio=0.1}.
+ */
+public class PipelineThroughputBenchmark {
+    private static final String CATALOG = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        long records = 1_000_000;
+        int parallelism = 4;
+        long checkpointInterval = 10_000;
+        int customFields = 3;
+        String keys = "100000";
+        String rate = null;
+        List<String> overrides = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--records": records = Long.parseLong(args[i + 1]); break;
+                case "--keys": keys = args[i + 1]; break;
+                case "--rate": rate = args[i + 1]; break;
+                case "--parallelism": parallelism = Integer.parseInt(args[i + 1]); break;
+                case "--checkpoint-interval": checkpointInterval = Long.parseLong(args[i + 1]); break;
+                case "--custom-fields": customFields = Integer.parseInt(args[i + 1]); break;
+                case "--set": overrides.add(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Map<String, Properties> config = BenchmarkFixtures.properties(customFields);
+        config.put("generator", new Properties());
+        config.get("stream").setProperty("source", EventSources.GENERATOR);
+        config.get("generator").setProperty("records", Long.toString(records));
+        config.get("generator").setProperty("keys", keys);
+        if (rate != null) {
+            config.get("generator").setProperty("records_per_second", rate);
+        }
+        config.get("catalog").setProperty("name", CATALOG);
+        for (String override : overrides) {
+            int dot = override.indexOf('.');
+            int equals = override.indexOf('=');
+            if (dot < 0 || equals < dot) {
+                throw new IllegalArgumentException("Expected group.property=value: " + override);
+            }
+            config.computeIfAbsent(override.substring(0, dot), x -> new Properties())
+                    .setProperty(override.substring(dot + 1, equals), override.substring(equals + 1));
+        }
+
+        Path warehouse = Files.createTempDirectory("pipeline-throughput-benchmark");
+        CatalogLoader catalogLoader = CatalogLoader.hadoop(CATALOG, new Configuration(), Map.of(
+                CatalogProperties.WAREHOUSE_LOCATION, warehouse.toUri().toString(),
+                CatalogProperties.METRICS_REPORTER_IMPL, CommitReportCollector.class.getName()));
+        System.out.printf("Writing %d records of %s objects with parallelism %d to %s%n", records, keys, parallelism, warehouse);
+
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.setParallelism(parallelism);
+        env.enableCheckpointing(checkpointInterval);
+        DataStreamJob.buildPipeline(env, config, catalogLoader);
+        JobGraph jobGraph = env.getStreamGraph().getJobGraph();
+
+        MiniClusterConfiguration clusterConfiguration = new MiniClusterConfiguration.Builder()
+                .setNumTaskManagers(1)
+                .setNumSlotsPerTaskManager(parallelism)
+                .build();
+        ArchivedExecutionGraph executionGraph;
+        try (MiniCluster cluster = new MiniCluster(clusterConfiguration)) {
+            cluster.start();
+            JobID jobId = cluster.submitJob(jobGraph).get().getJobID();
+            JobResult result = cluster.requestJobResult(jobId).get();
+            if (result.getSerializedThrowable().isPresent()) {
+                throw new RuntimeException("Benchmark job failed", result.getSerializedThrowable().get());
+            }
+            executionGraph = cluster.getArchivedExecutionGraph(jobId).get();
+        }
+
+        Table table = catalogLoader.loadCatalog().loadTable(TableIdentifier.of(DATABASE_NAME.get(config), TABLE_NAME.get(config)));
+        reportThroughput(executionGraph, records);
+        reportCheckpoints(executionGraph.getCheckpointStatsSnapshot());
+        reportCommits(new ArrayList<>(CommitReportCollector.REPORTS));
+        reportFiles(table);
+    }
+
+    private static void reportThroughput(ArchivedExecutionGraph executionGraph, long records) {
+        long runningMillis = executionGraph.getStatusTimestamp(JobStatus.FINISHED) - executionGraph.getStatusTimestamp(JobStatus.RUNNING);
+        System.out.printf("%nThroughput: %d records in %.1f s, %.0f records/s%n",
+                records, runningMillis / 1000.0, runningMillis == 0 ? 0.0 : records * 1000.0 / runningMillis);
+    }
+
+    private static void reportCheckpoints(CheckpointStatsSnapshot checkpoints) {
+        if (checkpoints == null) {
+            System.out.printf("Checkpoints: none%n");
+            return;
+        }
+        StatsSummarySnapshot duration = checkpoints.getSummaryStats().getEndToEndDurationStats();
+        StatsSummarySnapshot size = checkpoints.getSummaryStats().getStateSizeStats();
+        System.out.printf("Checkpoints: %d completed, %d failed, duration avg %d ms, p50 %.0f ms, p99 %.0f ms, max %d ms, state avg %d bytes%n",
+                checkpoints.getCounts().getNumberOfCompletedCheckpoints(),
+                checkpoints.getCounts().getNumberOfFailedCheckpoints(),
+                duration.getAverage(),
+                duration.getQuantile(0.5),
+                duration.getQuantile(0.99),
+                duration.getMaximum(),
+                size.getAverage());
+    }
+
+    private static void reportCommits(List<CommitReport> commits) {
+        List<Long> durations = new ArrayList<>();
+        long attempts = 0;
+        for (CommitReport commit : commits) {
+            TimerResult duration = commit.commitMetrics().totalDuration();
+            if (duration != null) {
+                durations.add(duration.totalDuration().toMillis());
+            }
+            attempts += commit.commitMetrics().attempts() == null ? 1 : commit.commitMetrics().attempts().value();
+        }
+        Collections.sort(durations);
+        System.out.printf("Commits: %d, %d attempts, duration avg %.0f ms, p50 %d ms, p99 %d ms, max %d ms%n",
+                commits.size(),
+                attempts,
+                durations.stream().mapToLong(x -> x).average().orElse(0),
+                percentile(durations, 0.5),
+                percentile(durations, 0.99),
+                durations.isEmpty() ? 0 : durations.get(durations.size() - 1));
+    }
+
+    private static void reportFiles(Table table) {
+        Snapshot current = table.currentSnapshot();
+        if (current == null) {
+            System.out.printf("Files: none%n");
+            return;
+        }
+        Map<String, String> summary = current.summary();
+        long snapshots = 0;
+        for (Snapshot ignored : table.snapshots()) {
+            snapshots++;
+        }
+        long dataFiles = summaryValue(summary, SnapshotSummary.TOTAL_DATA_FILES_PROP);
+        long deleteFiles = summaryValue(summary, SnapshotSummary.TOTAL_DELETE_FILES_PROP);
+        System.out.printf("Files: %d data files, %d delete files (%.1f per commit over %d snapshots), %d rows, %d equality deletes, %d bytes%n",
+                dataFiles,
+                deleteFiles,
+                snapshots == 0 ? 0.0 : (double) (dataFiles + deleteFiles) / snapshots,
+                snapshots,
+                summaryValue(summary, SnapshotSummary.TOTAL_RECORDS_PROP),
+                summaryValue(summary, SnapshotSummary.TOTAL_EQ_DELETES_PROP),
+                summaryValue(summary, SnapshotSummary.TOTAL_FILE_SIZE_PROP));
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+    }
+
+    private static long summaryValue(Map<String, String> summary, String property) {
+        String value = summary.get(property);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /**
+     * Collects the commit reports of the table, as the MiniCluster runs the Iceberg committer in this JVM.
+     */
+    public static class CommitReportCollector implements MetricsReporter {
+        static final Queue<CommitReport> REPORTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void report(MetricsReport report) {
+            if (report instanceof CommitReport) {
+                REPORTS.add((CommitReport) report);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.benchmark;
+
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.api.connector.source.util.ratelimit.RateLimiterStrategy;
+import org.apache.flink.connector.datagen.source.DataGeneratorSource;
+import org.apache.flink.connector.datagen.source.GeneratorFunction;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.api.bridge.java.StreamTableEnvironment;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DistributionMode;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.SnapshotSummary;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.catalog.Namespace;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.flink.CatalogLoader;
+import org.apache.iceberg.flink.FlinkCatalog;
+import org.apache.iceberg.flink.FlinkWriteOptions;
+import org.apache.iceberg.flink.TableLoader;
+import org.apache.iceberg.flink.sink.FlinkSink;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Writes the same stream of synthetic upserts to a local Iceberg table once per sink distribution mode, and reports
+ * the number and size of the data and delete files of every commit.
+ * <p>
+ * Unlike the JMH benchmarks this measures the table layout the sink produces rather than CPU time.  Options, each
+ * followed by its value: {@code --records} (200000), {@code --keys} number of distinct objects updated (5000),
+ * {@code --rate} records per second (20000), {@code --parallelism} of the job (4), {@code --modes} comma separated
+ * distribution modes (none,hash), {@code --write-parallelism} and {@code --target-file-size-bytes} (sink defaults).
+ */
+public class SinkLayoutBenchmark {
+    private static final String CATALOG = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        long records = 200_000;
+        int keys = 5_000;
+        double rate = 20_000;
+        int parallelism = 4;
+        String modes = "none,hash";
+        Integer writeParallelism = null;
+        String targetFileSizeBytes = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--records": records = Long.parseLong(args[i + 1]); break;
+                case "--keys": keys = Integer.parseInt(args[i + 1]); break;
+                case "--rate": rate = Double.parseDouble(args[i + 1]); break;
+                case "--parallelism": parallelism = Integer.parseInt(args[i + 1]); break;
+                case "--modes": modes = args[i + 1]; break;
+                case "--write-parallelism": writeParallelism = Integer.parseInt(args[i + 1]); break;
+                case "--target-file-size-bytes": targetFileSizeBytes = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Path warehouse = Files.createTempDirectory("sink-layout-benchmark");
+        CatalogLoader catalogLoader = CatalogLoader.hadoop(
+                CATALOG, new Configuration(), Map.of("warehouse", warehouse.toUri().toString()));
+        System.out.printf("Writing %d upserts of %d objects at %.0f records/s to %s%n", records, keys, rate, warehouse);
+
+        for (String mode : modes.split(",")) {
+            DistributionMode distributionMode = DistributionMode.fromName(mode.trim());
+            Table table = run(catalogLoader, distributionMode, records, keys, rate, parallelism, writeParallelism, targetFileSizeBytes);
+            report(distributionMode, table);
+        }
+    }
+
+    private static Table run(CatalogLoader catalogLoader, DistributionMode distributionMode, long records, int keys,
+                             double rate, int parallelism, Integer writeParallelism, String targetFileSizeBytes) throws Exception {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.setParallelism(parallelism);
+        env.enableCheckpointing(5_000);
+
+        Map<String, Properties> config = BenchmarkFixtures.properties(0);
+        config.get("schema").setProperty("include_raw_metadata", "false");
+        config.get("catalog").setProperty("name", CATALOG);
+        config.get("catalog").setProperty("table", "layout_" + distributionMode.modeName());
+        Schema tableSchema = TableSchemaGenerator.generate(config, TableSchemaGenerator.parseCustomMetadataFields(config));
+
+        StreamTableEnvironment tableEnv = StreamTableEnvironment.create(env);
+        tableEnv.registerCatalog(CATALOG, new FlinkCatalog(CATALOG, DATABASE_NAME.get(config), Namespace.empty(), catalogLoader, true, -1));
+        tableEnv.executeSql(String.format("CREATE DATABASE IF NOT EXISTS `%s`.`%s`", CATALOG, DATABASE_NAME.get(config)));
+        tableEnv.executeSql(TableSchemaGenerator.generateTableSQL(config, tableSchema));
+
+        DataStream<RowData> upserts = env.fromSource(
+                new DataGeneratorSource<>(
+                        new UpsertGenerator(keys),
+                        records,
+                        RateLimiterStrategy.perSecond(rate),
+                        InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema))),
+                WatermarkStrategy.noWatermarks(),
+                "Synthetic Upserts");
+
+        TableIdentifier identifier = TableIdentifier.of(DATABASE_NAME.get(config), TABLE_NAME.get(config));
+        FlinkSink.Builder sinkBuilder = FlinkSink.forRowData(upserts)
+                .tableLoader(TableLoader.fromCatalog(catalogLoader, identifier))
+                .upsert(true)
+                .distributionMode(distributionMode);
+        if (writeParallelism != null) {
+            sinkBuilder.writeParallelism(writeParallelism);
+        }
+        if (targetFileSizeBytes != null) {
+            sinkBuilder.set(FlinkWriteOptions.TARGET_FILE_SIZE_BYTES.key(), targetFileSizeBytes);
+        }
+        sinkBuilder.append();
+
+        env.execute("Sink layout benchmark (" + distributionMode.modeName() + ")");
+        return catalogLoader.loadCatalog().loadTable(identifier);
+    }
+
+    private static void report(DistributionMode distributionMode, Table table) {
+        System.out.printf("%nDistribution mode: %s%n", distributionMode.modeName());
+        System.out.printf("%8s %12s %12s %12s %14s %16s%n",
+                "commit", "records", "data files", "delete files", "bytes", "bytes per file");
+        long commits = 0;
+        long files = 0;
+        long bytes = 0;
+        for (Snapshot snapshot : table.snapshots()) {
+            Map<String, String> summary = snapshot.summary();
+            long dataFiles = summaryValue(summary, SnapshotSummary.ADDED_FILES_PROP);
+            long deleteFiles = summaryValue(summary, SnapshotSummary.ADDED_DELETE_FILES_PROP);
+            long addedBytes = summaryValue(summary, SnapshotSummary.ADDED_FILE_SIZE_PROP);
+            long addedFiles = dataFiles + deleteFiles;
+            System.out.printf("%8d %12d %12d %12d %14d %16d%n",
+                    snapshot.sequenceNumber(),
+                    summaryValue(summary, SnapshotSummary.ADDED_RECORDS_PROP),
+                    dataFiles,
+                    deleteFiles,
+                    addedBytes,
+                    addedFiles == 0 ? 0 : addedBytes / addedFiles);
+            commits++;
+            files += addedFiles;
+            bytes += addedBytes;
+        }
+        System.out.printf("%d commits, %.1f files and %d bytes per commit, %d bytes per file%n",
+                commits,
+                commits == 0 ? 0.0 : (double) files / commits,
+                commits == 0 ? 0 : bytes / commits,
+                files == 0 ? 0 : bytes / files);
+    }
+
+    private static long summaryValue(Map<String, String> summary, String property) {
+        String value = summary.get(property);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /**
+     * Generates successive updates of a fixed set of objects, each with a higher sequencer than the last.
+     */
+    private static class UpsertGenerator implements GeneratorFunction<Long, RowData> {
+        private static final long serialVersionUID = 1L;
+
+        private final int keys;
+
+        UpsertGenerator(int keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public RowData map(Long index) {
+            return GenericRowData.of(
+                    StringData.fromString("benchmark-bucket"),
+                    StringData.fromString(String.format("images/%08d.jpg", index % keys)),
+                    null,
+                    StringData.fromString(String.format("%018X", index)),
+                    StringData.fromString(Long.toHexString(index)),
+                    TimestampData.fromLocalDateTime(LocalDateTime.now()));
+        }
+    }
+}
@@ -19,30 +19,76 @@
 
 package com.amazon.s3;
 
+import com.amazon.s3.enrichment.ObjectEnricher;
+import com.amazon.s3.extraction.RawMetadataFormat;
+import com.amazon.s3.model.DeadLetter;
+import com.amazon.s3.model.DeadLetterPolicy;
+import com.amazon.s3.model.DeadLetteringRowMapper;
 import com.amazon.s3.model.EventDeserializationSchema;
 import com.amazon.s3.model.ImageRecord;
 import com.amazon.s3.model.ImageToRowDataMapper;
+import com.amazon.s3.model.ReloadableImageToRowDataMapper;
+import com.amazon.s3.model.RowDataDeserializationSchema;
+import com.amazon.s3.pipeline.AdaptiveCommitOperator;
+import com.amazon.s3.pipeline.CommitPolicy;
+import com.amazon.s3.pipeline.DeadLetterSplitter;
+import com.amazon.s3.pipeline.LabelIndexer;
+import com.amazon.s3.pipeline.LateEventSplitter;
+import com.amazon.s3.pipeline.ObjectKeySelector;
+import com.amazon.s3.pipeline.PrimaryKeySelector;
+import com.amazon.s3.pipeline.Route;
+import com.amazon.s3.pipeline.RouteSplitter;
+import com.amazon.s3.pipeline.StaleEventFilter;
+import com.amazon.s3.pipeline.UnchangedRowFilter;
+import com.amazon.s3.pipeline.UpsertCoalescingOperator;
+import com.amazon.s3.schema.DeadLetterTable;
+import com.amazon.s3.schema.FieldsFile;
+import com.amazon.s3.schema.FieldsFileValidator;
+import com.amazon.s3.schema.LabelTable;
+import com.amazon.s3.schema.SchemaEvolution;
+import com.amazon.s3.schema.TableLayout;
 import com.amazon.s3.schema.TableSchemaGenerator;
+import com.amazon.s3.schema.WriteProperties;
+import com.amazon.s3.source.DynamoDbExport;
+import com.amazon.s3.source.EventSources;
+import com.amazon.s3.source.EventTimeWatermarks;
+import com.amazon.s3.source.ExportItemDeserializer;
 import com.amazonaws.services.kinesisanalytics.runtime.KinesisAnalyticsRuntime;
-import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.RuntimeExecutionMode;
+import org.apache.flink.api.common.eventtime.Watermark;
+import org.apache.flink.api.common.eventtime.WatermarkGenerator;
+import org.apache.flink.api.common.eventtime.WatermarkOutput;
 import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.api.common.serialization.SimpleStringEncoder;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
-import org.apache.flink.connector.dynamodb.source.DynamoDbStreamsSource;
-import org.apache.flink.connector.dynamodb.source.DynamoDbStreamsSourceBuilder;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.connector.source.util.ratelimit.RateLimiterStrategy;
+import org.apache.flink.connector.datagen.source.DataGeneratorSource;
+import org.apache.flink.connector.file.sink.FileSink;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.streaming.api.datastream.AsyncDataStream;
+import org.apache.flink.streaming.api.datastream.BroadcastStream;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.DataStreamUtils;
+import org.apache.flink.streaming.api.datastream.KeyedStream;
 import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.environment.LocalStreamEnvironment;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
-import org.apache.flink.streaming.connectors.kinesis.config.AWSConfigConstants;
-import org.apache.flink.streaming.connectors.kinesis.config.ConsumerConfigConstants;
+import org.apache.flink.streaming.api.functions.sink.filesystem.rollingpolicies.OnCheckpointRollingPolicy;
 import org.apache.flink.table.api.Schema;
 import org.apache.flink.table.api.TableException;
 import org.apache.flink.table.api.bridge.java.StreamTableEnvironment;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.util.TimeUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DistributionMode;
+import org.apache.iceberg.Table;
 import org.apache.iceberg.catalog.Namespace;
 import org.apache.iceberg.catalog.TableIdentifier;
 import org.apache.iceberg.flink.CatalogLoader;
 import org.apache.iceberg.flink.FlinkCatalog;
+import org.apache.iceberg.flink.FlinkWriteOptions;
 import org.apache.iceberg.flink.TableLoader;
 import org.apache.iceberg.flink.sink.FlinkSink;
 import org.apache.logging.log4j.LogManager;
@@ -51,10 +97,12 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import static com.amazon.s3.configuration.ConfigurationProperties.*;
 
@@ -65,51 +113,472 @@ public class DataStreamJob {
         final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
         Map<String, Properties> config = loadProperties(env, args);
 
-        ExecutionConfig executionConfig = env.getConfig();
-        executionConfig.setAutoWatermarkInterval(Duration.ofMinutes(1).toMillis());
+        buildPipeline(env, config, getCatalogLoader(config, false));
 
-        CatalogLoader catalogLoader = getCatalogLoader(config);
-        FlinkCatalog catalog = configureCatalog(catalogLoader, config);
-        List<TableSchemaGenerator.SchemaEntry> customMetadataEntries = TableSchemaGenerator.parseCustomMetadataFields(config);
-        Schema tableSchema = TableSchemaGenerator.generate(config, customMetadataEntries);
-        createTable(env, config, tableSchema, catalog);
+        env.execute("Iceberg Processor");
+    }
+
+    /**
+     * Creates or updates the table, and adds the pipeline from the configured source to the Iceberg sink to the
+     * environment.
+     */
+    public static void buildPipeline(StreamExecutionEnvironment env, Map<String, Properties> config, CatalogLoader catalogLoader)
+            throws IOException {
+        env.getConfig().setAutoWatermarkInterval(EventTimeWatermarks.interval(config).toMillis());
+        List<Route> routes = Route.fromConfig(config);
+        String fieldsFile = FIELDS_FILE.get(config);
+        if (fieldsFile != null) {
+            if (!routes.isEmpty()) {
+                throw new IllegalArgumentException("A fields file can't be used with routes, configure the fields of each route instead");
+            }
+            LOG.info("Loading the custom metadata fields from {}", fieldsFile);
+            config = FieldsFile.applyTo(config, FieldsFile.parse(FieldsFile.read(fieldsFile)));
+        }
+        if (!routes.isEmpty()) {
+            buildRoutedPipeline(env, config, catalogLoader, routes);
+            return;
+        }
+
+        List<TableSchemaGenerator.SchemaEntry> configuredEntries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        Schema configuredSchema = TableSchemaGenerator.generate(config, configuredEntries);
+        SchemaEvolution schemaEvolution = prepareTable(env, config, configuredSchema, configuredEntries, catalogLoader);
+        Schema tableSchema = schemaEvolution.getTableSchema();
+        List<TableSchemaGenerator.SchemaEntry> customMetadataEntries = schemaEvolution.getCustomMetadataEntries();
+        RawMetadataFormat rawMetadata = RawMetadataFormat.fromConfig(config);
+        TableLoader tableLoader = tableLoader(config, catalogLoader);
+
+        if (BACKFILL_EXPORT_PATH.get(config) != null) {
+            buildBackfill(env, config, tableSchema, customMetadataEntries, rawMetadata, tableLoader);
+            return;
+        }
 
-        SingleOutputStreamOperator<RowData> ddbChangeStream = env.fromSource(
-                        createEventSource(config),
-                        WatermarkStrategy.forMonotonousTimestamps(),
+        DeadLetterPolicy deadLetters = DeadLetterPolicy.fromConfig(config);
+        boolean labelTable = LABEL_TABLE.get(config) != null;
+        boolean enrichment = ENRICHMENT_COLUMNS.get(config) != null;
+        boolean fusedDeserialization = Boolean.parseBoolean(FUSED_DESERIALIZATION.get(config));
+        if (fusedDeserialization && fieldsFile != null) {
+            LOG.warn("Fused deserialization is not used with a fields file, as the row mapper receives the new versions of the file");
+        }
+        if (fusedDeserialization && labelTable) {
+            LOG.warn("Fused deserialization is not used with a label table, which is written from the deserialized records");
+        }
+        if (fusedDeserialization && enrichment) {
+            LOG.warn("Fused deserialization is not used with enriched columns, as the records are enriched before they are mapped to rows");
+        }
+        if (fusedDeserialization && deadLetters != null) {
+            LOG.warn("Fused deserialization is not used with dead letters, as a source can't send records to a side output");
+        }
+
+        List<DataStream<DeadLetter>> deadLetterStreams = new ArrayList<>();
+        SingleOutputStreamOperator<RowData> ddbChangeStream;
+        if (fusedDeserialization && fieldsFile == null && !labelTable && !enrichment && deadLetters == null) {
+            ddbChangeStream = splitLateEvents(env.fromSource(
+                    EventSources.create(config, new RowDataDeserializationSchema(tableSchema, customMetadataEntries, rawMetadata)),
+                    EventTimeWatermarks.forRows(config, tableSchema),
+                    "DDB Change Stream"
+            ).uid("ddb-change-stream"));
+        } else {
+            SingleOutputStreamOperator<ImageRecord> images = readImages(env, config, deadLetters, deadLetterStreams);
+            if (labelTable) {
+                writeLabels(images, config, catalogLoader, deadLetters != null);
+            }
+            DataStream<ImageRecord> enrichedImages = enrich(images, config);
+            ImageToRowDataMapper mapper = new ImageToRowDataMapper(tableSchema, customMetadataEntries, rawMetadata,
+                    Integer.parseInt(METADATA_CACHE_SIZE.get(config)), Long.parseLong(METADATA_CACHE_BYTES.get(config)));
+            if (fieldsFile == null) {
+                ddbChangeStream = mapToRows(enrichedImages, mapper, deadLetters, deadLetterStreams)
+                        .name("Row Mapper")
+                        .uid("row-mapper");
+            } else {
+                ReloadableImageToRowDataMapper reloadableMapper = new ReloadableImageToRowDataMapper(mapper, deadLetters);
+                ddbChangeStream = enrichedImages
+                        .connect(watchFieldsFile(env, config, tableSchema))
+                        .process(reloadableMapper, reloadableMapper.getProducedType())
+                        .name("Row Mapper")
+                        .uid("row-mapper");
+                if (deadLetters != null) {
+                    deadLetterStreams.add(ddbChangeStream.getSideOutput(DeadLetter.OUTPUT_TAG));
+                }
+            }
+        }
+
+        writeUpserts(ddbChangeStream, config, tableSchema, tableLoader, null);
+        writeDeadLetters(deadLetterStreams, config, catalogLoader);
+    }
+
+    /**
+     * Reads the records of the stream, in event time.  With dead letters, the records the source couldn't read are
+     * split off into the dead letter streams.
+     */
+    private static SingleOutputStreamOperator<ImageRecord> readImages(StreamExecutionEnvironment env, Map<String, Properties> config,
+                                                                      DeadLetterPolicy deadLetters,
+                                                                      List<DataStream<DeadLetter>> deadLetterStreams) {
+        SingleOutputStreamOperator<ImageRecord> images = env.fromSource(
+                        EventSources.create(config, new EventDeserializationSchema(deadLetters)),
+                        EventTimeWatermarks.forImages(config),
                         "DDB Change Stream"
                 )
-                .returns(TypeInformation.of(ImageRecord.class))
-                .map(new ImageToRowDataMapper(tableSchema, customMetadataEntries));
+                .uid("ddb-change-stream")
+                .returns(TypeInformation.of(ImageRecord.class));
+        if (deadLetters == null) {
+            return splitLateEvents(images);
+        }
+        SingleOutputStreamOperator<ImageRecord> readableImages = images
+                .process(new DeadLetterSplitter())
+                .name("Dead Letter Splitter")
+                .uid("dead-letter-splitter");
+        deadLetterStreams.add(readableImages.getSideOutput(DeadLetter.OUTPUT_TAG));
+        return splitLateEvents(readableImages);
+    }
 
-        TableLoader tableLoader = TableLoader.fromCatalog(
-                catalogLoader,
-                TableIdentifier.of(
-                        DATABASE_NAME.get(config),
-                        TABLE_NAME.get(config)));
+    /**
+     * Counts the events that arrive behind the watermark, and sends them to the late event output as well, whose tag
+     * is {@link LateEventSplitter#outputTag} of the type of the events.
+     */
+    private static <T> SingleOutputStreamOperator<T> splitLateEvents(SingleOutputStreamOperator<T> events) {
+        return events
+                .process(new LateEventSplitter<>(events.getType()), events.getType())
+                .name("Late Event Splitter")
+                .uid("late-event-splitter");
+    }
 
-        FlinkSink.forRowData(ddbChangeStream)
-            .tableLoader(tableLoader)
-                .upsert(true)
+    /**
+     * Maps the records to table rows.  With dead letters, the records that can't be mapped are split off into the dead
+     * letter streams.
+     */
+    private static SingleOutputStreamOperator<RowData> mapToRows(DataStream<ImageRecord> images, ImageToRowDataMapper mapper,
+                                                                 DeadLetterPolicy deadLetters,
+                                                                 List<DataStream<DeadLetter>> deadLetterStreams) {
+        if (deadLetters == null) {
+            return images.map(mapper);
+        }
+        SingleOutputStreamOperator<RowData> rows = images.process(new DeadLetteringRowMapper(mapper, deadLetters));
+        deadLetterStreams.add(rows.getSideOutput(DeadLetter.OUTPUT_TAG));
+        return rows;
+    }
+
+    /**
+     * Writes the dead letters of every stage either to the {@link DeadLetterTable} or, as JSON lines, to files under
+     * {@code dead_letters.path}, which are completed at every checkpoint.
+     */
+    private static void writeDeadLetters(List<DataStream<DeadLetter>> deadLetterStreams, Map<String, Properties> config,
+                                         CatalogLoader catalogLoader) {
+        if (deadLetterStreams.isEmpty()) {
+            return;
+        }
+        DataStream<DeadLetter> deadLetters = deadLetterStreams.get(0);
+        for (DataStream<DeadLetter> stream : deadLetterStreams.subList(1, deadLetterStreams.size())) {
+            deadLetters = deadLetters.union(stream);
+        }
+
+        if (DEAD_LETTER_TABLE.get(config) != null) {
+            TableIdentifier deadLetterTable = DeadLetterTable.prepare(catalogLoader.loadCatalog(), config);
+            LOG.info("Writing the records that fail to table {}", deadLetterTable);
+            DataStream<RowData> rows = deadLetters
+                    .map(DeadLetter::toRow, InternalTypeInfo.of(DeadLetterTable.ROW_TYPE))
+                    .name("Dead Letter Rows")
+                    .uid("dead-letter-rows");
+            FlinkSink.forRowData(rows)
+                    .tableLoader(TableLoader.fromCatalog(catalogLoader, deadLetterTable))
+                    .uidPrefix("dead-letter-sink")
+                    .append();
+        } else {
+            LOG.info("Writing the records that fail to {}", DEAD_LETTER_PATH.get(config));
+            deadLetters
+                    .map(DeadLetter::toJson, Types.STRING)
+                    .name("Dead Letter Lines")
+                    .uid("dead-letter-lines")
+                    .sinkTo(FileSink.forRowFormat(new Path(DEAD_LETTER_PATH.get(config)), new SimpleStringEncoder<String>())
+                            .withRollingPolicy(OnCheckpointRollingPolicy.build())
+                            .build())
+                    .name("Dead Letter Files")
+                    .uid("dead-letter-files");
+        }
+    }
+
+    /**
+     * Looks up the attributes of the objects for the enriched columns, if any are configured, with at most
+     * {@code enrichment.capacity} lookups in flight per subtask.  The records keep their order, as without the stale
+     * event filter the events of an object must reach the sink in the order they were read.
+     */
+    private static DataStream<ImageRecord> enrich(DataStream<ImageRecord> images, Map<String, Properties> config) {
+        if (ENRICHMENT_COLUMNS.get(config) == null) {
+            return images;
+        }
+        return AsyncDataStream.orderedWait(
+                        images,
+                        ObjectEnricher.fromConfig(config),
+                        ObjectEnricher.getTimeout(config).toMillis(),
+                        TimeUnit.MILLISECONDS,
+                        ObjectEnricher.getCapacity(config))
+                .name("Object Enricher")
+                .uid("object-enricher");
+    }
+
+    /**
+     * Polls the fields file, and broadcasts to the row mappers each new version they can apply while the job runs.
+     * <p>
+     * The poller emits no event time, and holds back no watermark, as its watermark is always the maximum one.
+     */
+    private static BroadcastStream<String> watchFieldsFile(StreamExecutionEnvironment env, Map<String, Properties> config,
+                                                           Schema tableSchema) {
+        Duration pollInterval = TimeUtils.parseDuration(FIELDS_FILE_POLL_INTERVAL.get(config));
+        WatermarkStrategy<String> noHoldBack = WatermarkStrategy.forGenerator(context -> new WatermarkGenerator<>() {
+            @Override
+            public void onEvent(String event, long eventTimestamp, WatermarkOutput output) {
+            }
+
+            @Override
+            public void onPeriodicEmit(WatermarkOutput output) {
+                output.emitWatermark(Watermark.MAX_WATERMARK);
+            }
+        });
+
+        return env.fromSource(
+                        new DataGeneratorSource<>(
+                                new FieldsFile.Poller(FIELDS_FILE.get(config)),
+                                Long.MAX_VALUE,
+                                RateLimiterStrategy.perSecond(1000.0 / pollInterval.toMillis()),
+                                Types.STRING),
+                        noHoldBack,
+                        "Fields File")
+                .setParallelism(1)
+                .uid("fields-file")
+                .flatMap(new FieldsFileValidator(config, tableSchema))
+                .setParallelism(1)
+                .name("Fields File Validator")
+                .uid("fields-file-validator")
+                .broadcast(ReloadableImageToRowDataMapper.FIELDS_FILE_STATE);
+    }
+
+    /**
+     * Reads the stream once, and writes the records of each {@link Route} to its own table.  Every table has its own
+     * schema, so the records are deserialized into {@link ImageRecord}s and only mapped to rows once routed.
+     */
+    private static void buildRoutedPipeline(StreamExecutionEnvironment env, Map<String, Properties> config,
+                                            CatalogLoader catalogLoader, List<Route> routes) throws IOException {
+        if (BACKFILL_EXPORT_PATH.get(config) != null) {
+            throw new IllegalArgumentException("A backfill writes a single table, run it once per route with the route's table and schema settings");
+        }
+        if (Boolean.parseBoolean(FUSED_DESERIALIZATION.get(config))) {
+            LOG.warn("Fused deserialization is not used with routes, as the tables of the routes have different schemas");
+        }
+
+        DeadLetterPolicy deadLetters = DeadLetterPolicy.fromConfig(config);
+        List<DataStream<DeadLetter>> deadLetterStreams = new ArrayList<>();
+        SingleOutputStreamOperator<ImageRecord> images = readImages(env, config, deadLetters, deadLetterStreams);
+        SingleOutputStreamOperator<ImageRecord> routedStream = enrich(images, config)
+                .process(new RouteSplitter(routes))
+                .name("Route Splitter")
+                .uid("route-splitter");
+
+        for (Route route : routes) {
+            Map<String, Properties> routeConfig = route.tableConfig(config);
+            List<TableSchemaGenerator.SchemaEntry> configuredEntries = TableSchemaGenerator.parseCustomMetadataFields(routeConfig);
+            Schema configuredSchema = TableSchemaGenerator.generate(routeConfig, configuredEntries);
+            SchemaEvolution schemaEvolution = prepareTable(env, routeConfig, configuredSchema, configuredEntries, catalogLoader);
+            Schema tableSchema = schemaEvolution.getTableSchema();
+            List<TableSchemaGenerator.SchemaEntry> customMetadataEntries = schemaEvolution.getCustomMetadataEntries();
+            TableLoader tableLoader = tableLoader(routeConfig, catalogLoader);
+            LOG.info("Writing route {} to table {}", route, TABLE_NAME.get(routeConfig));
+
+            ImageToRowDataMapper mapper =
+                    new ImageToRowDataMapper(tableSchema, customMetadataEntries, RawMetadataFormat.fromConfig(routeConfig),
+                            Integer.parseInt(METADATA_CACHE_SIZE.get(routeConfig)), Long.parseLong(METADATA_CACHE_BYTES.get(routeConfig)));
+            SingleOutputStreamOperator<RowData> rows = mapToRows(
+                            routedStream.getSideOutput(RouteSplitter.outputTag(route)), mapper, deadLetters, deadLetterStreams)
+                    .name("Row Mapper (" + route.getName() + ")")
+                    .uid("row-mapper-" + route.getName());
+            writeUpserts(rows, routeConfig, tableSchema, tableLoader, route);
+        }
+
+        if (LABEL_TABLE.get(config) != null) {
+            // The labels of all the routes' objects go to one table, created once the routes' databases exist.
+            writeLabels(images, config, catalogLoader, deadLetters != null);
+        }
+        writeDeadLetters(deadLetterStreams, config, catalogLoader);
+    }
+
+    /**
+     * Writes the labels of every object to the {@link LabelTable}, keeping the rows of an object in line with its
+     * latest event.
+     *
+     * @param deadLetters whether the job has dead letters, which the labels of unreadable metadata are left out for.
+     */
+    private static void writeLabels(DataStream<ImageRecord> images, Map<String, Properties> config, CatalogLoader catalogLoader,
+                                    boolean deadLetters) {
+        TableIdentifier labelTable = LabelTable.prepare(catalogLoader.loadCatalog(), config);
+        LOG.info("Writing the labels of the objects to table {}", labelTable);
+
+        SingleOutputStreamOperator<RowData> labels = images
+                .keyBy(new ObjectKeySelector())
+                .process(new LabelIndexer(
+                        LABEL_JPATH.get(config),
+                        TimeUtils.parseDuration(SEQUENCER_STATE_TTL.get(config)),
+                        LABEL_STATE_TTL.get(config) == null ? null : TimeUtils.parseDuration(LABEL_STATE_TTL.get(config)),
+                        deadLetters))
+                .name("Label Indexer")
+                .uid("label-indexer");
+
+        // Rows carry their own change kind, so the sink deletes by the label table's key rather than upserting.
+        FlinkSink.forRowData(labels)
+                .tableLoader(TableLoader.fromCatalog(catalogLoader, labelTable))
+                .equalityFieldColumns(LabelTable.KEY_COLUMNS)
+                .upsert(false)
+                .distributionMode(DistributionMode.HASH)
+                .uidPrefix("label-sink")
                 .append();
+    }
 
-        env.execute("Iceberg Processor");
+    /**
+     * Creates the table if needed, and brings its columns, layout and write properties in line with the configuration.
+     *
+     * @return the columns of the table, which the rows written to it must have.
+     */
+    private static SchemaEvolution prepareTable(StreamExecutionEnvironment env, Map<String, Properties> config,
+                                                Schema configuredSchema, List<TableSchemaGenerator.SchemaEntry> configuredEntries,
+                                                CatalogLoader catalogLoader) {
+        FlinkCatalog catalog = configureCatalog(catalogLoader, config);
+        TableLayout tableLayout = TableLayout.fromConfig(config);
+        Map<String, String> writeProperties = WriteProperties.fromConfig(config, configuredSchema);
+        createTable(env, config, configuredSchema, catalog);
+        Table table = catalogLoader.loadCatalog().loadTable(tableIdentifier(config));
+        // A table created by an earlier run keeps its columns and properties, so they are brought in line with the
+        // configuration.
+        SchemaEvolution schemaEvolution = SchemaEvolution.apply(table, configuredSchema, configuredEntries);
+        tableLayout.apply(table);
+        WriteProperties.apply(table, writeProperties);
+        return schemaEvolution;
     }
 
-    private static DynamoDbStreamsSource<ImageRecord> createEventSource(Map<String, Properties> config) {
-        org.apache.flink.configuration.Configuration dynamodbStreamsConsumerConfig =
-                new org.apache.flink.configuration.Configuration();
-        dynamodbStreamsConsumerConfig.setString(AWSConfigConstants.AWS_REGION, AWS_REGION.get(config));
-        dynamodbStreamsConsumerConfig.setString(ConsumerConfigConstants.SHARD_IDLE_INTERVAL_MILLIS, "60_000");
+    private static TableIdentifier tableIdentifier(Map<String, Properties> config) {
+        return TableIdentifier.of(DATABASE_NAME.get(config), TABLE_NAME.get(config));
+    }
 
-        return new DynamoDbStreamsSourceBuilder<ImageRecord>()
-                .setStreamArn(STREAM_ARN.get(config))
-                .setDeserializationSchema(new EventDeserializationSchema())
-                .setSourceConfig(dynamodbStreamsConsumerConfig)
-                .build();
+    private static TableLoader tableLoader(Map<String, Properties> config, CatalogLoader catalogLoader) {
+        return TableLoader.fromCatalog(catalogLoader, tableIdentifier(config));
     }
 
-    private static Map<String, Properties> loadProperties(StreamExecutionEnvironment env, String[] args) throws IOException {
+    /**
+     * Upserts the rows into the table, after dropping stale events and unchanged rows, coalescing upserts and holding
+     * rows back for a later commit as configured.
+     *
+     * @param route the route the rows belong to, which names the operators, or null when the job writes one table.
+     */
+    private static void writeUpserts(SingleOutputStreamOperator<RowData> ddbChangeStream, Map<String, Properties> config,
+                                     Schema tableSchema, TableLoader tableLoader, Route route) {
+        String uidSuffix = route == null ? "" : "-" + route.getName();
+        String nameSuffix = route == null ? "" : " (" + route.getName() + ")";
+
+        boolean filterStaleEvents = Boolean.parseBoolean(STALE_EVENT_FILTER.get(config));
+        if (filterStaleEvents) {
+            ddbChangeStream = ddbChangeStream
+                    .keyBy(new PrimaryKeySelector(tableSchema))
+                    .filter(new StaleEventFilter(tableSchema, TimeUtils.parseDuration(SEQUENCER_STATE_TTL.get(config))))
+                    .name("Stale Event Filter" + nameSuffix)
+                    .uid("stale-event-filter" + uidSuffix);
+        }
+
+        UnchangedRowFilter unchangedRowFilter = UnchangedRowFilter.fromConfig(config, tableSchema);
+        boolean filterUnchangedRows = unchangedRowFilter != null;
+        if (filterUnchangedRows) {
+            // Rows that passed the stale event filter are still partitioned by primary key, so aren't shuffled again.
+            KeyedStream<RowData, String> keyedStream = filterStaleEvents
+                    ? DataStreamUtils.reinterpretAsKeyedStream(ddbChangeStream, new PrimaryKeySelector(tableSchema))
+                    : ddbChangeStream.keyBy(new PrimaryKeySelector(tableSchema));
+            ddbChangeStream = keyedStream
+                    .filter(unchangedRowFilter)
+                    .name("Unchanged Row Filter" + nameSuffix)
+                    .uid("unchanged-row-filter" + uidSuffix);
+        }
+
+        // The filters already partition the stream by primary key, which the coalescer and the commit policy require.
+        boolean partitioned = filterStaleEvents || filterUnchangedRows;
+        boolean coalesceUpserts = Boolean.parseBoolean(COALESCE_UPSERTS.get(config));
+        if (coalesceUpserts) {
+            DataStream<RowData> partitionedStream = partitioned
+                    ? ddbChangeStream
+                    : ddbChangeStream.keyBy(new PrimaryKeySelector(tableSchema));
+            ddbChangeStream = partitionedStream
+                    .transform(
+                            "Upsert Coalescer" + nameSuffix,
+                            ddbChangeStream.getType(),
+                            new UpsertCoalescingOperator(tableSchema, Integer.parseInt(COALESCE_MAX_BUFFERED_ROWS.get(config))))
+                    .uid("upsert-coalescer" + uidSuffix);
+        }
+
+        CommitPolicy commitPolicy = CommitPolicy.fromConfig(config);
+        if (commitPolicy != null) {
+            // The held rows are kept in keyed state, so the stream is keyed even when it is already partitioned.
+            KeyedStream<RowData, String> keyedStream = partitioned || coalesceUpserts
+                    ? DataStreamUtils.reinterpretAsKeyedStream(ddbChangeStream, new PrimaryKeySelector(tableSchema))
+                    : ddbChangeStream.keyBy(new PrimaryKeySelector(tableSchema));
+            ddbChangeStream = keyedStream
+                    .transform("Adaptive Commit" + nameSuffix, ddbChangeStream.getType(), new AdaptiveCommitOperator(tableSchema, commitPolicy))
+                    .uid("adaptive-commit" + uidSuffix);
+        }
+
+        // Fixed ids keep the committer's state restorable whichever of the operators above are enabled.
+        createSink(ddbChangeStream, config, tableLoader)
+                .upsert(true)
+                .uidPrefix("iceberg-sink" + uidSuffix)
+                .append();
+    }
+
+    /**
+     * Reads a DynamoDB table export in batch mode, and writes the current state of every object it holds to the table
+     * with plain inserts, so no equality deletes are written.  With {@code backfill.overwrite}, the export replaces the
+     * rows of the table, or of the partitions it writes to.  The streaming job can then be started from
+     * the {@code TRIM_HORIZON} of the stream: replaying the events from before the export still leaves every object at
+     * its latest event, as long as the export was taken within the stream's retention.
+     */
+    private static void buildBackfill(StreamExecutionEnvironment env, Map<String, Properties> config, Schema tableSchema,
+                                      List<TableSchemaGenerator.SchemaEntry> customMetadataEntries,
+                                      RawMetadataFormat rawMetadata, TableLoader tableLoader) {
+        env.setRuntimeMode(RuntimeExecutionMode.BATCH);
+        if (LABEL_TABLE.get(config) != null) {
+            LOG.warn("The label table is not backfilled, it only receives the labels of objects changed by the stream");
+        }
+        if (ENRICHMENT_COLUMNS.get(config) != null) {
+            LOG.warn("Objects are not enriched by a backfill, their enriched columns are filled once the stream changes them");
+        }
+        if (DeadLetterPolicy.fromConfig(config) != null) {
+            LOG.warn("A backfill writes no dead letters, an item it can't read fails it");
+        }
+
+        DataStream<RowData> exportedRows = env.fromSource(
+                        DynamoDbExport.createSource(config),
+                        WatermarkStrategy.noWatermarks(),
+                        "DDB Export")
+                .flatMap(new ExportItemDeserializer(new RowDataDeserializationSchema(tableSchema, customMetadataEntries, rawMetadata)))
+                .name("Export Item Deserializer");
+
+        createSink(exportedRows, config, tableLoader)
+                .upsert(false)
+                .overwrite(Boolean.parseBoolean(BACKFILL_OVERWRITE.get(config)))
+                .append();
+    }
+
+    private static FlinkSink.Builder createSink(DataStream<RowData> rows, Map<String, Properties> config, TableLoader tableLoader) {
+        FlinkSink.Builder sinkBuilder = FlinkSink.forRowData(rows)
+                .tableLoader(tableLoader);
+        // Without a mode, the table's write.distribution-mode applies, as it did before the mode was configurable.
+        String distributionMode = DISTRIBUTION_MODE.get(config);
+        if (distributionMode != null) {
+            sinkBuilder.distributionMode(DistributionMode.fromName(distributionMode));
+        }
+        String writeParallelism = WRITE_PARALLELISM.get(config);
+        if (writeParallelism != null) {
+            sinkBuilder.writeParallelism(Integer.parseInt(writeParallelism));
+        }
+        String targetFileSizeBytes = TARGET_FILE_SIZE_BYTES.get(config);
+        if (targetFileSizeBytes != null) {
+            sinkBuilder.set(FlinkWriteOptions.TARGET_FILE_SIZE_BYTES.key(), targetFileSizeBytes);
+        }
+        return sinkBuilder;
+    }
+
+    static Map<String, Properties> loadProperties(StreamExecutionEnvironment env, String[] args) throws IOException {
         if(isLocal(env)) {
             env.enableCheckpointing(5000);
             env.setParallelism(2);
@@ -144,7 +613,10 @@ public class DataStreamJob {
                 -1);
     }
 
-    private static CatalogLoader getCatalogLoader(Map<String, Properties> config) {
+    /**
+     * @param deleteEnabled whether the catalog's FileIO may delete files, which only table maintenance needs to do.
+     */
+    static CatalogLoader getCatalogLoader(Map<String, Properties> config, boolean deleteEnabled) {
         Configuration hadoopConf = new Configuration(false);
         Map<String, String> catalogProperties = new HashMap<>();
         catalogProperties.put("warehouse", WAREHOUSE_PATH.get(config));
@@ -154,7 +626,11 @@ public class DataStreamJob {
         if (endpointOverride != null) {
             catalogProperties.put("s3tables.endpoint", endpointOverride);
         }
-        catalogProperties.put("s3.delete-enabled", "false");
+        String uri = CATALOG_URI.get(config);
+        if (uri != null) {
+            catalogProperties.put("uri", uri);
+        }
+        catalogProperties.put("s3.delete-enabled", Boolean.toString(deleteEnabled));
 
 
         return CatalogLoader.custom(
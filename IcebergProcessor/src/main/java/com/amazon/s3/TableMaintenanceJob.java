@@ -0,0 +1,82 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3;
+
+import com.amazon.s3.maintenance.TableMaintenance;
+import com.amazon.s3.pipeline.Route;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.flink.CatalogLoader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Bounded companion to the {@link DataStreamJob}, which runs the {@link TableMaintenance} of the table it writes to
+ * and exits.  It reads the same configuration, so it can be scheduled alongside the streaming application, and
+ * maintains the table of every route when the job writes several, and the label and dead letter tables when it writes
+ * them.
+ */
+public class TableMaintenanceJob {
+    private static final Logger LOG = LogManager.getLogger(TableMaintenanceJob.class);
+
+    public static void main(String[] args) throws Exception {
+        final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        Map<String, Properties> config = DataStreamJob.loadProperties(env, args);
+
+        CatalogLoader catalogLoader = DataStreamJob.getCatalogLoader(config, true);
+        List<Route> routes = Route.fromConfig(config);
+        if (routes.isEmpty()) {
+            maintain(env, catalogLoader, config);
+        }
+        for (Route route : routes) {
+            maintain(env, catalogLoader, route.tableConfig(config));
+        }
+        String labelTable = LABEL_TABLE.get(config);
+        if (labelTable != null) {
+            maintain(env, catalogLoader, withTable(config, labelTable));
+        }
+        String deadLetterTable = DEAD_LETTER_TABLE.get(config);
+        if (deadLetterTable != null) {
+            maintain(env, catalogLoader, withTable(config, deadLetterTable));
+        }
+    }
+
+    private static Map<String, Properties> withTable(Map<String, Properties> config, String table) {
+        Map<String, Properties> tableConfig = new HashMap<>(config);
+        tableConfig.put("catalog", new Properties());
+        tableConfig.get("catalog").putAll(config.get("catalog"));
+        tableConfig.get("catalog").setProperty("table", table);
+        return tableConfig;
+    }
+
+    private static void maintain(StreamExecutionEnvironment env, CatalogLoader catalogLoader, Map<String, Properties> config) {
+        TableIdentifier identifier = TableIdentifier.of(DATABASE_NAME.get(config), TABLE_NAME.get(config));
+        Table table = catalogLoader.loadCatalog().loadTable(identifier);
+
+        LOG.info("Running maintenance of table {}", identifier);
+        new TableMaintenance(table, config).run(env);
+    }
+}
@@ -29,6 +29,18 @@ public enum ConfigurationProperties {
     AWS_REGION("sdk", "region"),
     AWS_ENDPOINT("sdk", "endpoint", null, false),
     STREAM_ARN("stream", "arn"),
+    SOURCE("stream", "source", "dynamodb"),
+    STREAM_INITIAL_POSITION("stream", "initial_position", null, false),
+    FUSED_DESERIALIZATION("stream", "fused_deserialization", "false"),
+    STALE_EVENT_FILTER("stream", "stale_event_filter", "false"),
+    SEQUENCER_STATE_TTL("stream", "sequencer_state_ttl", "7 d"),
+    UNCHANGED_ROW_FILTER("stream", "unchanged_row_filter", "false"),
+    UNCHANGED_ROW_IGNORED_COLUMNS("stream", "unchanged_row_ignored_columns", "sequencer,lastModified"),
+    UNCHANGED_ROW_STATE_TTL("stream", "unchanged_row_state_ttl", "7 d"),
+    EVENT_TIME("stream", "event_time", "latest_event_time"),
+    MAX_OUT_OF_ORDERNESS("stream", "max_out_of_orderness", "30 s"),
+    IDLE_TIMEOUT("stream", "idle_timeout", "1 min"),
+    WATERMARK_INTERVAL("stream", "watermark_interval", "1 s"),
 
     CATALOG_NAME("catalog", "name", "S3"),
     DATABASE_NAME("catalog", "database", "default"),
@@ -36,11 +48,91 @@ public enum ConfigurationProperties {
     CATALOG_IMPL("catalog", "impl"),
     IO_IMPL("catalog", "io_impl", "org.apache.iceberg.aws.s3.S3FileIO"),
     WAREHOUSE_PATH("catalog", "warehousePath"),
+    CATALOG_URI("catalog", "uri", null, false),
+    COMPRESSION_CODEC("catalog", "compression_codec", null, false),
+    COMPRESSION_LEVEL("catalog", "compression_level", null, false),
+    ROW_GROUP_SIZE_BYTES("catalog", "row_group_size_bytes", null, false),
+    PAGE_SIZE_BYTES("catalog", "page_size_bytes", null, false),
+    TABLE_TARGET_FILE_SIZE_BYTES("catalog", "target_file_size_bytes", null, false),
+
+    GENERATOR_RECORDS("generator", "records", null, false),
+    GENERATOR_RECORDS_PER_SECOND("generator", "records_per_second", null, false),
+    GENERATOR_KEYS("generator", "keys", "100000"),
+    GENERATOR_DELETE_RATIO("generator", "delete_ratio", "0.05"),
+    GENERATOR_REORDER_RATIO("generator", "reorder_ratio", "0.01"),
+    GENERATOR_LABELS("generator", "labels", "10"),
+    GENERATOR_EXIF_TAGS("generator", "exif_tags", "40"),
+
+    ROUTE_NAMES("routes", "names", null, false),
+    ROUTE_BUCKETS("routes", "%s.buckets", null, false),
+    ROUTE_KEY_PREFIX("routes", "%s.key_prefix", null, false),
+    ROUTE_KEY_SUFFIX("routes", "%s.key_suffix", null, false),
+    ROUTE_TABLE("routes", "%s.table"),
+
+    LABEL_TABLE("labels", "table", null, false),
+    LABEL_JPATH("labels", "jpath", "$.labels"),
+    LABEL_PARTITION_SPEC("labels", "partition_spec", ""),
+    LABEL_SORT_ORDER("labels", "sort_order", "label, confidence DESC"),
+    LABEL_STATE_TTL("labels", "state_ttl", null, false),
+
+    ENRICHMENT_COLUMNS("enrichment", "columns", null, false),
+    ENRICHMENT_ATTRIBUTE("enrichment", "column.%s.attribute"),
+    ENRICHMENT_TYPE("enrichment", "column.%s.type", "STRING"),
+    ENRICHMENT_CAPACITY("enrichment", "capacity", "100"),
+    ENRICHMENT_TIMEOUT("enrichment", "timeout", "10 s"),
+    ENRICHMENT_RETRIES("enrichment", "retries", "3"),
+    ENRICHMENT_CACHE_SIZE("enrichment", "cache_size", "10000"),
+    ENRICHMENT_CACHE_TTL("enrichment", "cache_ttl", "1 h"),
+
+    DEAD_LETTER_TABLE("dead_letters", "table", null, false),
+    DEAD_LETTER_PATH("dead_letters", "path", null, false),
+    DEAD_LETTER_MAX_FAILURE_RATE("dead_letters", "max_failure_rate", "0.1"),
+    DEAD_LETTER_FAILURE_RATE_WINDOW("dead_letters", "failure_rate_window", "1000"),
+
+    BACKFILL_EXPORT_PATH("backfill", "export_path", null, false),
+    BACKFILL_EXPORT_FORMAT("backfill", "export_format", "json"),
+    BACKFILL_OVERWRITE("backfill", "overwrite", "false"),
+
+    DISTRIBUTION_MODE("sink", "distribution_mode", null, false),
+    WRITE_PARALLELISM("sink", "write_parallelism", null, false),
+    TARGET_FILE_SIZE_BYTES("sink", "target_file_size_bytes", null, false),
+    COALESCE_UPSERTS("sink", "coalesce_upserts", "false"),
+    COALESCE_MAX_BUFFERED_ROWS("sink", "coalesce_max_buffered_rows", "100000"),
+    COMMIT_POLICY("sink", "commit_policy", "checkpoint"),
+    COMMIT_INTERVAL("sink", "commit_interval", "0 ms"),
+    COMMIT_CATCH_UP_LAG("sink", "commit_catch_up_lag", "5 min"),
+    COMMIT_STEADY_LAG("sink", "commit_steady_lag", "1 min"),
+    COMMIT_MAX_DELAY("sink", "commit_max_delay", "10 min"),
+    COMMIT_MAX_ROWS("sink", "commit_max_rows", "1000000"),
+    COMMIT_MAX_BYTES("sink", "commit_max_bytes", "134217728"),
+
+    MAINTENANCE_TARGET_FILE_SIZE_BYTES("maintenance", "target_file_size_bytes", "134217728"),
+    MAINTENANCE_MIN_INPUT_FILES("maintenance", "min_input_files", "5"),
+    MAINTENANCE_DELETE_FILE_THRESHOLD("maintenance", "delete_file_threshold", "10"),
+    MAINTENANCE_SNAPSHOT_MAX_AGE("maintenance", "snapshot_max_age", "5 d"),
+    MAINTENANCE_MIN_SNAPSHOTS_TO_KEEP("maintenance", "min_snapshots_to_keep", "1"),
+    MAINTENANCE_REMOVE_ORPHAN_FILES("maintenance", "remove_orphan_files", "true"),
+    MAINTENANCE_ORPHAN_FILE_MIN_AGE("maintenance", "orphan_file_min_age", "3 d"),
 
     INCLUDE_RAW_METADATA("schema", "include_raw_metadata", "true"),
+    RAW_METADATA_INCLUDE("schema", "raw_metadata_include", null, false),
+    RAW_METADATA_EXCLUDE("schema", "raw_metadata_exclude", null, false),
+    RAW_METADATA_COMPRESSION("schema", "raw_metadata_compression", "none"),
+    RAW_METADATA_COMPRESSION_LEVEL("schema", "raw_metadata_compression_level", "3"),
+    RAW_METADATA_DICTIONARY("schema", "raw_metadata_dictionary", null, false),
+    METADATA_CACHE_SIZE("schema", "metadata_cache_size", "0"),
+    METADATA_CACHE_BYTES("schema", "metadata_cache_bytes", "67108864"),
     CUSTOM_METADATA_FIELDS("schema", "custom_metadata_fields", null, false),
     FIELD_JPATH("schema", "field.%s.jpath"),
     FIELD_TYPE("schema", "field.%s.type"),
+    FIELDS_FILE("schema", "fields_file", null, false),
+    FIELDS_FILE_POLL_INTERVAL("schema", "fields_file_poll_interval", "30 s"),
+    PARTITION_SPEC("schema", "partition_spec", null, false),
+    SORT_ORDER("schema", "sort_order", null, false),
+    METRICS_MODE("schema", "metrics_mode", null, false),
+    COLUMN_METRICS_MODE("schema", "column.%s.metrics_mode", null, false),
+    COLUMN_BLOOM_FILTER("schema", "column.%s.bloom_filter", "false"),
+    COLUMN_BLOOM_FILTER_FPP("schema", "column.%s.bloom_filter_fpp", null, false),
     ;
 
     private final String namespace;
@@ -0,0 +1,94 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.enrichment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A size bounded cache of object lookups, which evicts the least recently used lookup, and expires a lookup a fixed
+ * time after it was started.
+ * <p>
+ * Lookups are cached while in flight, so records of the same object arriving close together share one request.  The
+ * cache is used from the task thread and from the threads completing the requests, so access is synchronized.
+ */
+final class EnrichmentCache {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+
+    EnrichmentCache(int maxSize, long ttlMillis) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Cache size and time to live must not be negative: " + maxSize + ", " + ttlMillis);
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > EnrichmentCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the lookup of the key started less than the time to live before {@code nowMillis}, or null.
+     */
+    synchronized CompletableFuture<Map<String, String>> get(String key, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nowMillis - entry.startedMillis >= ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.lookup;
+    }
+
+    synchronized void put(String key, CompletableFuture<Map<String, String>> lookup, long nowMillis) {
+        if (maxSize > 0) {
+            entries.put(key, new Entry(lookup, nowMillis));
+        }
+    }
+
+    /**
+     * Removes the lookup of the key, unless it has already been replaced by another one.
+     */
+    synchronized void invalidate(String key, CompletableFuture<Map<String, String>> lookup) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.lookup == lookup) {
+            entries.remove(key);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Map<String, String>> lookup;
+        final long startedMillis;
+
+        Entry(CompletableFuture<Map<String, String>> lookup, long startedMillis) {
+            this.lookup = lookup;
+            this.startedMillis = startedMillis;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.enrichment;
+
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.Tag;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The attributes of an S3 object the {@link ObjectEnricher} can look up, by the names used in the
+ * {@code enrichment.column.<name>.attribute} properties:
+ * <ul>
+ *     <li>{@code content_type}, {@code content_length}, {@code content_encoding}, {@code cache_control},
+ *     {@code storage_class}, {@code last_modified} and {@code server_side_encryption}, from a HEAD request;
+ *     <li>{@code metadata.<name>}, the user metadata {@code x-amz-meta-<name>}, from a HEAD request as well;
+ *     <li>{@code tag.<key>}, the value of an object tag, from a GetObjectTagging request.
+ * </ul>
+ * Values are kept as text, and converted to the column's type like JSON strings are.
+ */
+public final class ObjectAttributes {
+    public static final String METADATA_PREFIX = "metadata.";
+    public static final String TAG_PREFIX = "tag.";
+
+    private static final Set<String> HEAD_ATTRIBUTES = Set.of(
+            "content_type", "content_length", "content_encoding", "cache_control", "storage_class", "last_modified",
+            "server_side_encryption");
+
+    private ObjectAttributes() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the attribute is not one that can be looked up.
+     */
+    public static void validate(String attribute) {
+        boolean prefixed = (attribute.startsWith(METADATA_PREFIX) && attribute.length() > METADATA_PREFIX.length())
+                || (attribute.startsWith(TAG_PREFIX) && attribute.length() > TAG_PREFIX.length());
+        if (!prefixed && !HEAD_ATTRIBUTES.contains(attribute)) {
+            throw new IllegalArgumentException("Unknown object attribute: " + attribute + ", expected one of "
+                    + HEAD_ATTRIBUTES + ", " + METADATA_PREFIX + "<name> or " + TAG_PREFIX + "<key>");
+        }
+    }
+
+    public static boolean needsHead(Collection<String> attributes) {
+        return attributes.stream().anyMatch(x -> !x.startsWith(TAG_PREFIX));
+    }
+
+    public static boolean needsTags(Collection<String> attributes) {
+        return attributes.stream().anyMatch(x -> x.startsWith(TAG_PREFIX));
+    }
+
+    /**
+     * @param head the response to the HEAD request, or null if none was made.
+     * @param tags the tags of the object, empty if they weren't requested.
+     * @return the value of each of the attributes the object has.
+     */
+    public static Map<String, String> extract(Collection<String> attributes, HeadObjectResponse head, List<Tag> tags) {
+        Map<String, String> result = new HashMap<>();
+        for (String attribute : attributes) {
+            String value = attribute.startsWith(TAG_PREFIX)
+                    ? tagValue(tags, attribute.substring(TAG_PREFIX.length()))
+                    : head == null ? null : headValue(head, attribute);
+            if (value != null) {
+                result.put(attribute, value);
+            }
+        }
+        return result;
+    }
+
+    private static String headValue(HeadObjectResponse head, String attribute) {
+        if (attribute.startsWith(METADATA_PREFIX)) {
+            return head.metadata().get(attribute.substring(METADATA_PREFIX.length()));
+        }
+        switch (attribute) {
+            case "content_type": return head.contentType();
+            case "content_length": return head.contentLength() == null ? null : head.contentLength().toString();
+            case "content_encoding": return head.contentEncoding();
+            case "cache_control": return head.cacheControl();
+            // S3 only returns the storage class of objects that aren't in the STANDARD class.
+            case "storage_class": return head.storageClassAsString() == null ? "STANDARD" : head.storageClassAsString();
+            case "last_modified": return head.lastModified() == null ? null : head.lastModified().toString();
+            case "server_side_encryption": return head.serverSideEncryptionAsString();
+            default: return null;
+        }
+    }
+
+    private static String tagValue(List<Tag> tags, String key) {
+        for (Tag tag : tags) {
+            if (tag.key().equals(key)) {
+                return tag.value();
+            }
+        }
+        return null;
+    }
+}
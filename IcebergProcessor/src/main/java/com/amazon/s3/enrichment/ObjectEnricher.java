@@ -0,0 +1,255 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.enrichment;
+
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.model.ImageRecordSerializer;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
+import org.apache.flink.util.TimeUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.model.GetObjectTaggingResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.Tag;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Looks up the configured {@link ObjectAttributes} of the object of every record in S3, and passes the record on with
+ * the attributes as its {@link ImageRecord#enrichment}.  Meant to be applied with {@code AsyncDataStream.orderedWait},
+ * which bounds the number of lookups in flight.
+ * <p>
+ * Lookups are cached by bucket, key and ETag, for the configured time to live, as the tags of an object can change
+ * without its ETag changing.  Requests are retried by the S3 client.  A record whose lookup still fails, or times out,
+ * is passed on without attributes, so its enriched columns are null, and counted as {@code enrichmentFailures} or
+ * {@code enrichmentTimeouts}.  An object deleted, or overwritten, before it is looked up has none of the attributes.
+ * Deletes are passed on as they are.
+ */
+public class ObjectEnricher extends RichAsyncFunction<ImageRecord, ImageRecord> {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LogManager.getLogger(ObjectEnricher.class);
+
+    private final List<String> attributes;
+    private final String region;
+    private final String endpoint;
+    private final int capacity;
+    private final Duration timeout;
+    private final int retries;
+    private final int cacheSize;
+    private final Duration cacheTtl;
+
+    private transient S3AsyncClient client;
+    private transient EnrichmentCache cache;
+    private transient Counter cacheHits;
+    private transient Counter cacheMisses;
+    private transient Counter failures;
+    private transient Counter timeouts;
+
+    /**
+     * @param attributes the {@link ObjectAttributes} to look up.
+     * @param endpoint   the endpoint of S3, or null for the region's.
+     * @param capacity   the number of lookups in flight, which bounds the connections to S3.
+     */
+    public ObjectEnricher(List<String> attributes, String region, String endpoint, int capacity, Duration timeout,
+                          int retries, int cacheSize, Duration cacheTtl) {
+        if (attributes.isEmpty()) {
+            throw new IllegalArgumentException("No object attributes to look up");
+        }
+        if (capacity < 1 || retries < 0) {
+            throw new IllegalArgumentException("Capacity must be positive and retries not negative: " + capacity + ", " + retries);
+        }
+        attributes.forEach(ObjectAttributes::validate);
+        this.attributes = new ArrayList<>(attributes);
+        this.region = region;
+        this.endpoint = endpoint;
+        this.capacity = capacity;
+        this.timeout = timeout;
+        this.retries = retries;
+        this.cacheSize = cacheSize;
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * @return an enricher of the attributes of the enriched columns, see
+     * {@link TableSchemaGenerator#parseCustomMetadataFields}, as configured in the {@code enrichment} property group.
+     */
+    public static ObjectEnricher fromConfig(Map<String, Properties> config) {
+        List<String> attributes = TableSchemaGenerator.parseCustomMetadataFields(config)
+                .stream()
+                .map(x -> x.enrichment)
+                .filter(x -> x != null)
+                .distinct()
+                .collect(Collectors.toList());
+        return new ObjectEnricher(
+                attributes,
+                AWS_REGION.get(config),
+                AWS_ENDPOINT.get(config),
+                getCapacity(config),
+                getTimeout(config),
+                Integer.parseInt(ENRICHMENT_RETRIES.get(config)),
+                Integer.parseInt(ENRICHMENT_CACHE_SIZE.get(config)),
+                TimeUtils.parseDuration(ENRICHMENT_CACHE_TTL.get(config)));
+    }
+
+    public static int getCapacity(Map<String, Properties> config) {
+        return Integer.parseInt(ENRICHMENT_CAPACITY.get(config));
+    }
+
+    public static Duration getTimeout(Map<String, Properties> config) {
+        return TimeUtils.parseDuration(ENRICHMENT_TIMEOUT.get(config));
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        client = createClient();
+        cache = new EnrichmentCache(cacheSize, cacheTtl.toMillis());
+        cacheHits = getRuntimeContext().getMetricGroup().counter("enrichmentCacheHits");
+        cacheMisses = getRuntimeContext().getMetricGroup().counter("enrichmentCacheMisses");
+        failures = getRuntimeContext().getMetricGroup().counter("enrichmentFailures");
+        timeouts = getRuntimeContext().getMetricGroup().counter("enrichmentTimeouts");
+    }
+
+    @Override
+    public void close() {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private S3AsyncClient createClient() {
+        // Both requests of a lookup can be in flight at once.
+        int requestsPerLookup = ObjectAttributes.needsHead(attributes) && ObjectAttributes.needsTags(attributes) ? 2 : 1;
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .region(Region.of(region))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(capacity * requestsPerLookup))
+                .overrideConfiguration(x -> x
+                        .apiCallTimeout(timeout)
+                        .retryStrategy(AwsRetryStrategy.standardRetryStrategy().toBuilder().maxAttempts(retries + 1).build()));
+        if (endpoint != null) {
+            // A local stand-in for S3 usually can't resolve buckets from host names.
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void asyncInvoke(ImageRecord image, ResultFuture<ImageRecord> resultFuture) {
+        if (image.isDelete || image.isDeleteMarker) {
+            resultFuture.complete(Collections.singleton(image));
+            return;
+        }
+
+        // Without an ETag, records of different versions of the object can't be told apart.
+        String cacheKey = image.etag == null ? null : image.bucket + '/' + image.userKey + '/' + image.etag;
+        long now = System.currentTimeMillis();
+        CompletableFuture<Map<String, String>> cached = cacheKey == null ? null : cache.get(cacheKey, now);
+        CompletableFuture<Map<String, String>> lookup;
+        if (cached != null) {
+            cacheHits.inc();
+            lookup = cached;
+        } else {
+            cacheMisses.inc();
+            lookup = lookup(image);
+            if (cacheKey != null) {
+                cache.put(cacheKey, lookup, now);
+            }
+        }
+
+        lookup.whenComplete((values, error) -> {
+            if (error != null) {
+                if (cacheKey != null) {
+                    cache.invalidate(cacheKey, lookup);
+                }
+                failures.inc();
+                LOG.warn("Could not look up s3://{}/{}, writing it without its attributes", image.bucket, image.userKey, error);
+                resultFuture.complete(Collections.singleton(image));
+                return;
+            }
+            ImageRecord enriched = ImageRecordSerializer.INSTANCE.copy(image);
+            enriched.enrichment = values;
+            resultFuture.complete(Collections.singleton(enriched));
+        });
+    }
+
+    @Override
+    public void timeout(ImageRecord image, ResultFuture<ImageRecord> resultFuture) {
+        timeouts.inc();
+        resultFuture.complete(Collections.singleton(image));
+    }
+
+    /**
+     * @return the attributes of the version of the object the record is about, which are none if it no longer exists.
+     */
+    protected CompletableFuture<Map<String, String>> lookup(ImageRecord image) {
+        CompletableFuture<HeadObjectResponse> head = !ObjectAttributes.needsHead(attributes)
+                ? CompletableFuture.completedFuture(null)
+                : client.headObject(request -> {
+                    request.bucket(image.bucket).key(image.userKey);
+                    if (image.versionId != null) {
+                        request.versionId(image.versionId);
+                    } else if (image.etag != null) {
+                        request.ifMatch(image.etag);
+                    }
+                });
+        CompletableFuture<List<Tag>> tags = !ObjectAttributes.needsTags(attributes)
+                ? CompletableFuture.completedFuture(Collections.emptyList())
+                : client.getObjectTagging(request -> request.bucket(image.bucket).key(image.userKey).versionId(image.versionId))
+                        .thenApply(GetObjectTaggingResponse::tagSet);
+        return head
+                .thenCombine(tags, (headResponse, tagSet) -> ObjectAttributes.extract(attributes, headResponse, tagSet))
+                .exceptionally(error -> {
+                    if (isGone(error)) {
+                        return Collections.emptyMap();
+                    }
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                });
+    }
+
+    /**
+     * @return whether the request failed because the object, or the version of it, no longer exists.
+     */
+    private static boolean isGone(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof S3Exception)) {
+            return false;
+        }
+        int status = ((S3Exception) cause).statusCode();
+        return status == 404 || status == 412;
+    }
+}
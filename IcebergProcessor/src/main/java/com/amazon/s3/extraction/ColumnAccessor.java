@@ -0,0 +1,48 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.model.ImageRecord;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Produces the value of a single table column, in Flink's internal data format, for one record.
+ */
+public interface ColumnAccessor extends Serializable {
+
+    /**
+     * @param image the record being converted
+     * @param metadataValues the custom metadata values extracted by the {@link MetadataExtractor}, indexed by slot,
+     *                       or null if the record has no metadata to read (e.g. deletes)
+     * @return the column value, in the internal representation expected by {@link org.apache.flink.table.data.RowData}
+     */
+    Object extract(ImageRecord image, Object[] metadataValues);
+
+    /**
+     * Same as {@link #extract(ImageRecord, Object[])}, but reads straight from the DynamoDB stream image the
+     * {@link ImageRecord} would have been built from.
+     *
+     * @param image the new image of the DynamoDB stream record
+     * @param metadataValues the custom metadata values, as above
+     * @return the column value
+     */
+    Object extract(Map<String, AttributeValue> image, Object[] metadataValues);
+}
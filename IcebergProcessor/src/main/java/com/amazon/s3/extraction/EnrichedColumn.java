@@ -0,0 +1,51 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.model.ImageRecord;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * A column filled with an attribute of the object looked up by the
+ * {@link com.amazon.s3.enrichment.ObjectEnricher}, converted to the column's type like a JSON string would be.  The
+ * column is null for records that weren't enriched, which includes every record read straight from a DynamoDB image.
+ */
+final class EnrichedColumn implements ColumnAccessor {
+    private static final long serialVersionUID = 1L;
+
+    private final String attribute;
+    private final ValueConverter converter;
+
+    EnrichedColumn(String attribute, ValueConverter converter) {
+        this.attribute = attribute;
+        this.converter = converter;
+    }
+
+    @Override
+    public Object extract(ImageRecord image, Object[] metadataValues) {
+        String value = image.enrichment == null ? null : image.enrichment.get(attribute);
+        return value == null ? null : converter.convert(value);
+    }
+
+    @Override
+    public Object extract(Map<String, AttributeValue> image, Object[] metadataValues) {
+        return null;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.types.DataType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable, index based description of how to populate each column of a table row from an {@link ImageRecord}.
+ * <p>
+ * The plan is resolved once from the table schema and the custom metadata field definitions, so converting a record
+ * is a single loop over the column accessors.  Custom metadata columns are filled from the values the
+ * {@link MetadataExtractor} pulls out of the metadata JSON in one pass.  The columns of a plan are fixed, but
+ * {@link #withJsonPaths} derives a plan that extracts them with other expressions.
+ */
+public class ExtractionPlan implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ColumnAccessor[] accessors;
+    private final List<String> metadataColumns;
+    private final List<String> jpaths;
+    private final List<ValueConverter> converters;
+    private final MetadataPruner pruner;
+    private final MetadataExtractor metadataExtractor;
+
+    private ExtractionPlan(ColumnAccessor[] accessors, List<String> metadataColumns, List<String> jpaths,
+                           List<ValueConverter> converters, MetadataPruner pruner) {
+        this.accessors = accessors;
+        this.metadataColumns = metadataColumns;
+        this.jpaths = jpaths;
+        this.converters = converters;
+        this.pruner = pruner;
+        this.metadataExtractor = MetadataExtractor.compile(jpaths, converters, pruner);
+    }
+
+    /**
+     * @param tableSchema the columns of the rows.
+     * @param customSchemaElements the definition of every column that isn't an {@link ImageColumn}.  A definition
+     *                             with an enrichment attribute fills its column from the record's
+     *                             {@link ImageRecord#enrichment}, one without a JsonPath expression leaves its column
+     *                             null, even an {@link ImageColumn}.
+     * @throws IllegalArgumentException if a column is neither an {@link ImageColumn} nor defined.
+     */
+    public static ExtractionPlan compile(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements) {
+        return compile(tableSchema, customSchemaElements, RawMetadataFormat.UNCHANGED);
+    }
+
+    /**
+     * @param rawMetadata how the raw metadata column stores the document; a pruned document is written while the
+     *                    custom metadata columns are extracted, in the same pass.
+     */
+    public static ExtractionPlan compile(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements,
+                                         RawMetadataFormat rawMetadata) {
+        ColumnAccessor rawMetadataColumn = rawMetadata.columnAccessor();
+        Map<String, TableSchemaGenerator.SchemaEntry> customEntryMap =
+                customSchemaElements.stream().collect(Collectors.toMap((x) -> x.name, Function.identity()));
+
+        List<String> metadataColumns = new ArrayList<>();
+        List<String> jpaths = new ArrayList<>();
+        List<ValueConverter> converters = new ArrayList<>();
+        ColumnAccessor[] accessors = tableSchema
+                .getColumns()
+                .stream()
+                .map(x -> (Schema.UnresolvedPhysicalColumn) x)
+                .map(col -> {
+                    TableSchemaGenerator.SchemaEntry entry = customEntryMap.get(col.getName());
+                    if (entry != null && entry.enrichment != null) {
+                        DataType type = (DataType) col.getDataType();
+                        return new EnrichedColumn(entry.enrichment, ValueConverters.forType(type.getLogicalType()));
+                    }
+                    if (entry != null && entry.jpath == null) {
+                        return NullColumn.INSTANCE;
+                    }
+                    ImageColumn imageColumn = ImageColumn.forColumnName(col.getName());
+                    if (imageColumn == ImageColumn.METADATA && rawMetadataColumn != null) {
+                        return rawMetadataColumn;
+                    }
+                    if (imageColumn != null) {
+                        return imageColumn;
+                    }
+                    if (entry == null) {
+                        throw new IllegalArgumentException("No metadata field definition for column: " + col.getName());
+                    }
+                    DataType type = (DataType) col.getDataType();
+                    metadataColumns.add(col.getName());
+                    jpaths.add(entry.jpath);
+                    converters.add(ValueConverters.forType(type.getLogicalType()));
+                    return new MetadataColumn(jpaths.size() - 1);
+                })
+                .toArray(ColumnAccessor[]::new);
+        // Only prune when the table has the column to store the pruned document in.
+        boolean pruned = rawMetadataColumn != null && Arrays.asList(accessors).contains(rawMetadataColumn);
+        return new ExtractionPlan(accessors, metadataColumns, jpaths, converters, pruned ? rawMetadata.getPruner() : null);
+    }
+
+    /**
+     * @param jpathsByColumn JsonPath expressions by custom metadata column name.
+     * @return a plan that extracts the given columns with the given expressions, converted to the same types, and
+     * every other column as this plan does.  Names of columns the plan doesn't have are ignored.
+     */
+    public ExtractionPlan withJsonPaths(Map<String, String> jpathsByColumn) {
+        List<String> updatedJpaths = new ArrayList<>(jpaths);
+        for (int i = 0; i < metadataColumns.size(); i++) {
+            String jpath = jpathsByColumn.get(metadataColumns.get(i));
+            if (jpath != null) {
+                updatedJpaths.set(i, jpath);
+            }
+        }
+        return new ExtractionPlan(accessors, metadataColumns, updatedJpaths, converters, pruner);
+    }
+
+    /**
+     * @return the names of the custom metadata columns, in column order.
+     */
+    public List<String> getMetadataColumns() {
+        return metadataColumns;
+    }
+
+    /**
+     * @return the JsonPath expression of the custom metadata column, or null if the plan has no such column.
+     */
+    public String getJsonPath(String column) {
+        int index = metadataColumns.indexOf(column);
+        return index < 0 ? null : jpaths.get(index);
+    }
+
+    public int getArity() {
+        return accessors.length;
+    }
+
+    /**
+     * Populates every column of the row from the given record.
+     *
+     * @param image the source record
+     * @param includeMetadata whether custom metadata columns should be extracted, false leaves them null.
+     * @param row the row to populate, with an arity matching this plan
+     */
+    public void populate(ImageRecord image, boolean includeMetadata, GenericRowData row) {
+        populate(image, includeMetadata, row, null);
+    }
+
+    /**
+     * Populates every column of the row from the given record, taking the custom metadata columns from the cache when
+     * the same metadata was extracted before.
+     *
+     * @param cache the values extracted by this plan, or null to always extract them.
+     */
+    public void populate(ImageRecord image, boolean includeMetadata, GenericRowData row, MetadataCache cache) {
+        Object[] metadataValues = null;
+        if (includeMetadata && !metadataExtractor.isEmpty() && image.metadata != null) {
+            metadataValues = cache == null
+                    ? metadataExtractor.extract(image.metadata)
+                    : cache.get(image.metadata, metadataExtractor::extract);
+        }
+
+        for (int fieldIndex = 0; fieldIndex < accessors.length; fieldIndex++) {
+            row.setField(fieldIndex, accessors[fieldIndex].extract(image, metadataValues));
+        }
+    }
+
+    /**
+     * Populates every column of the row straight from a DynamoDB stream image, without building an
+     * {@link ImageRecord}.  Attributes that have no column in the table, e.g. the raw metadata when it isn't
+     * included, are never converted.
+     *
+     * @param image the new image of the DynamoDB stream record
+     * @param includeMetadata whether custom metadata columns should be extracted, false leaves them null.
+     * @param row the row to populate, with an arity matching this plan
+     */
+    public void populate(Map<String, AttributeValue> image, boolean includeMetadata, GenericRowData row) {
+        Object[] metadataValues = null;
+        if (includeMetadata && !metadataExtractor.isEmpty()) {
+            AttributeValue metadata = image.get(ImageColumn.METADATA.attributeName);
+            if (metadata != null && metadata.s() != null) {
+                metadataValues = metadataExtractor.extract(metadata.s());
+            }
+        }
+
+        for (int fieldIndex = 0; fieldIndex < accessors.length; fieldIndex++) {
+            row.setField(fieldIndex, accessors[fieldIndex].extract(image, metadataValues));
+        }
+    }
+}
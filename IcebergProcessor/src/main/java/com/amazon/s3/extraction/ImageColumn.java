@@ -0,0 +1,142 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * The fixed columns of the table, which are copied straight from the {@link ImageRecord}, or the DynamoDB attribute
+ * it is built from, rather than extracted from the metadata JSON.
+ *
+ * @see com.amazon.s3.schema.TableSchemaGenerator#generate
+ */
+public enum ImageColumn implements ColumnAccessor {
+    BUCKET("bucket", "bucket") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return StringData.fromString(image.bucket);
+        }
+    },
+    KEY("key", "key") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return StringData.fromString(image.userKey);
+        }
+    },
+    VERSION_ID("versionId", "version_id") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return StringData.fromString(image.versionId);
+        }
+    },
+    SEQUENCER("sequencer", "sequencer") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return StringData.fromString(image.sequencer);
+        }
+    },
+    ETAG("etag", "etag") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return StringData.fromString(image.etag);
+        }
+    },
+    METADATA("metadata", "metadata") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return StringData.fromString(image.metadata);
+        }
+    },
+    LAST_MODIFIED("lastModified", "latest_event_time") {
+        @Override
+        public Object extract(ImageRecord image, Object[] metadataValues) {
+            return fromString(image.latestEventTime);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the value is not an ISO date time, so the record goes to the dead letters.
+         */
+        @Override
+        Object fromString(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return TimestampData.fromLocalDateTime(LocalDateTime.parse(value, DateTimeFormatter.ISO_DATE_TIME));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid " + attributeName + ": " + value, e);
+            }
+        }
+    };
+
+    public final String columnName;
+    public final String attributeName;
+
+    ImageColumn(String columnName, String attributeName) {
+        this.columnName = columnName;
+        this.attributeName = attributeName;
+    }
+
+    /**
+     * Reads the column from the string attribute of the item.  An attribute of any other type reads as null, as the
+     * {@link ValueConverters} do with mismatched types.
+     */
+    @Override
+    public Object extract(Map<String, AttributeValue> image, Object[] metadataValues) {
+        AttributeValue value = image.get(attributeName);
+        return value == null || value.s() == null ? null : fromString(value.s());
+    }
+
+    Object fromString(String value) {
+        return StringData.fromString(value);
+    }
+
+    /**
+     * @return the position of this column in the given table schema.
+     * @throws IllegalArgumentException if the schema doesn't have the column
+     */
+    public int indexIn(Schema tableSchema) {
+        for (int i = 0; i < tableSchema.getColumns().size(); i++) {
+            if (tableSchema.getColumns().get(i).getName().equals(columnName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Table schema has no column: " + columnName);
+    }
+
+    /**
+     * @return the fixed column with the given name, or null if the name refers to a custom metadata column.
+     */
+    public static ImageColumn forColumnName(String columnName) {
+        for (ImageColumn column : values()) {
+            if (column.columnName.equals(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+}
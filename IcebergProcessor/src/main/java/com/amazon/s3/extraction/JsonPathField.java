@@ -0,0 +1,56 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.ReadContext;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * A custom metadata field read from a parsed metadata document with a precompiled JsonPath expression.  This is the
+ * fallback for expressions the streaming {@link PathTrie} can't evaluate.
+ */
+final class JsonPathField implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int slot;
+    private final String jpath;
+    private final ValueConverter converter;
+    // JsonPath isn't serializable, so it is recompiled when the operator is deserialized on the task manager.
+    private transient JsonPath path;
+
+    JsonPathField(int slot, String jpath, ValueConverter converter) {
+        this.slot = slot;
+        this.jpath = jpath;
+        this.converter = converter;
+        this.path = JsonPath.compile(jpath);
+    }
+
+    void extract(ReadContext metadata, Object[] values) {
+        Object value = metadata.read(path);
+        values[slot] = value == null ? null : converter.convert(value);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        path = JsonPath.compile(jpath);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of the values extracted from metadata documents, for images that are copied under many keys and
+ * buckets with the same metadata, which then only pay for parsing the document once.
+ * <p>
+ * The document itself is the key, so a hit costs hashing and comparing it, but never returns the values of another
+ * document.  The least recently used documents are evicted once the cache holds more than its maximum number of
+ * documents, or more than its maximum bytes.  The size of an entry is estimated from the length of its document,
+ * which bounds the size of the values taken from it, and a document too large to fit is never cached.
+ * <p>
+ * The cached values are shared by every row built from the same document, which is safe as rows are not modified once
+ * built.  The cache is not thread safe, each subtask of the mapper holds its own.
+ */
+public final class MetadataCache {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Object[]> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private long bytes;
+
+    public MetadataCache(int maxEntries, long maxBytes, MetricGroup group) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("The metadata cache must hold at least one entry and byte: " + maxEntries + ", " + maxBytes);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = group.counter("metadataCacheHits");
+        this.misses = group.counter("metadataCacheMisses");
+        this.evictions = group.counter("metadataCacheEvictions");
+        group.gauge("metadataCacheSize", entries::size);
+        group.gauge("metadataCacheBytes", () -> bytes);
+    }
+
+    /**
+     * @return the values extracted from the document, by the given extraction unless they are cached.
+     */
+    public Object[] get(String metadata, Function<String, Object[]> extraction) {
+        Object[] values = entries.get(metadata);
+        if (values != null) {
+            hits.inc();
+            return values;
+        }
+        misses.inc();
+        values = extraction.apply(metadata);
+
+        long size = estimateSize(metadata, values);
+        if (size <= maxBytes) {
+            entries.put(metadata, values);
+            bytes += size;
+            // The entry just added is the most recently used, so it is never evicted here.
+            Iterator<Map.Entry<String, Object[]>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries || bytes > maxBytes) {
+                Map.Entry<String, Object[]> entry = eldest.next();
+                bytes -= estimateSize(entry.getKey(), entry.getValue());
+                eldest.remove();
+                evictions.inc();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Drops every entry, e.g. when the values are to be extracted with other expressions.
+     */
+    public void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the size of the document's characters, doubled for the values taken from it, plus a reference per value.
+     */
+    static long estimateSize(String metadata, Object[] values) {
+        return 64 + 4L * metadata.length() + 8L * values.length;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.model.ImageRecord;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * A custom metadata column, whose value has already been pulled out of the metadata JSON by the
+ * {@link MetadataExtractor}.
+ */
+final class MetadataColumn implements ColumnAccessor {
+    private static final long serialVersionUID = 1L;
+
+    private final int slot;
+
+    MetadataColumn(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public Object extract(ImageRecord image, Object[] metadataValues) {
+        return metadataValues == null ? null : metadataValues[slot];
+    }
+
+    @Override
+    public Object extract(Map<String, AttributeValue> image, Object[] metadataValues) {
+        return metadataValues == null ? null : metadataValues[slot];
+    }
+}
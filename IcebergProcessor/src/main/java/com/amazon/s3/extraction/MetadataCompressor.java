@@ -0,0 +1,74 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compresses raw metadata documents with zstd, optionally with a dictionary trained on sample documents, which
+ * compresses small documents far better than zstd can on its own.  Each value is a complete zstd frame, which
+ * records the ID of its dictionary, so readers know which dictionary to decompress it with.
+ * <p>
+ * Not thread safe: the compression context is reused across values.
+ */
+public final class MetadataCompressor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int level;
+    private final byte[] dictionary;
+
+    private transient ZstdCompressCtx context;
+
+    /**
+     * @param dictionary a zstd dictionary, e.g. trained with {@link MetadataDictionary}, or null.
+     */
+    public MetadataCompressor(int level, byte[] dictionary) {
+        this.level = level;
+        this.dictionary = dictionary;
+    }
+
+    public byte[] compress(String json) {
+        if (context == null) {
+            context = new ZstdCompressCtx();
+            context.setLevel(level);
+            context.setContentSize(true);
+            if (dictionary != null) {
+                context.loadDict(dictionary);
+            }
+        }
+        return context.compress(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param dictionary the dictionary the value was compressed with, or null.
+     */
+    public static String decompress(byte[] compressed, byte[] dictionary) {
+        try (ZstdDecompressCtx context = new ZstdDecompressCtx()) {
+            if (dictionary != null) {
+                context.loadDict(dictionary);
+            }
+            int size = (int) Zstd.getFrameContentSize(compressed);
+            return new String(context.decompress(compressed, size), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.source.DynamoDbExport;
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.core.fs.FileStatus;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Trains and loads the zstd dictionaries the {@link MetadataCompressor} uses.  Files are read and written with Flink's
+ * file systems, so they can be on S3 as well as local.
+ * <p>
+ * Run as a program to train a dictionary on the metadata of the items of a DynamoDB table export, pruned as the raw
+ * metadata column will be: {@code --samples <export directory> --output <dictionary file>}, and optionally
+ * {@code --size <dictionary size in bytes>} (112640), {@code --max-samples} (100000), {@code --include} and
+ * {@code --exclude}, which take the same comma separated expressions as the {@code raw_metadata_include} and
+ * {@code raw_metadata_exclude} properties.  A dictionary should be retrained when the shape of the metadata changes,
+ * under a new name, as values already written need the dictionary they were compressed with.
+ */
+public final class MetadataDictionary {
+    public static final int DEFAULT_SIZE = 112_640;
+
+    private MetadataDictionary() {
+    }
+
+    public static byte[] load(String path) throws IOException {
+        Path file = new Path(path);
+        try (FSDataInputStream in = file.getFileSystem().open(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * @param samples the metadata documents, as they will be compressed.
+     * @throws IllegalArgumentException if there are too few samples to train a dictionary of the size.
+     */
+    public static byte[] train(List<String> samples, int size) {
+        List<byte[]> encoded = new ArrayList<>(samples.size());
+        long totalSize = 0;
+        for (String sample : samples) {
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            totalSize += bytes.length;
+        }
+        if (totalSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The samples hold " + totalSize + " bytes, use fewer samples");
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) totalSize, size);
+        encoded.forEach(trainer::addSample);
+        try {
+            return trainer.trainSamples();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Could not train a dictionary of " + size + " bytes on " + samples.size()
+                    + " samples, use more samples or a smaller size", e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String samplesPath = null;
+        String outputPath = null;
+        int size = DEFAULT_SIZE;
+        int maxSamples = 100_000;
+        List<String> includes = Collections.emptyList();
+        List<String> excludes = Collections.emptyList();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--samples": samplesPath = args[i + 1]; break;
+                case "--output": outputPath = args[i + 1]; break;
+                case "--size": size = Integer.parseInt(args[i + 1]); break;
+                case "--max-samples": maxSamples = Integer.parseInt(args[i + 1]); break;
+                case "--include": includes = RawMetadataFormat.parsePaths(args[i + 1]); break;
+                case "--exclude": excludes = RawMetadataFormat.parsePaths(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (samplesPath == null || outputPath == null) {
+            throw new IllegalArgumentException("Usage: --samples <export directory> --output <dictionary file> [--size <bytes>]");
+        }
+
+        MetadataPruner pruner = MetadataPruner.compile(includes, excludes);
+        MetadataExtractor pruning = pruner == null
+                ? null
+                : MetadataExtractor.compile(Collections.emptyList(), Collections.emptyList(), pruner);
+        List<String> samples = new ArrayList<>();
+        Path root = new Path(samplesPath);
+        for (Path file : listFiles(root.getFileSystem(), root)) {
+            readSamples(file, pruning, samples, maxSamples);
+        }
+        byte[] dictionary = train(samples, size);
+
+        Path output = new Path(outputPath);
+        try (FSDataOutputStream out = output.getFileSystem().create(output, FileSystem.WriteMode.NO_OVERWRITE)) {
+            out.write(dictionary);
+        }
+        System.out.printf("Trained a dictionary of %d bytes on %d samples, written to %s%n", dictionary.length, samples.size(), output);
+    }
+
+    private static List<Path> listFiles(FileSystem fileSystem, Path path) throws IOException {
+        FileStatus status = fileSystem.getFileStatus(path);
+        if (!status.isDir()) {
+            return Collections.singletonList(path);
+        }
+        List<Path> files = new ArrayList<>();
+        FileStatus[] children = fileSystem.listStatus(path);
+        Arrays.sort(children, (a, b) -> a.getPath().getName().compareTo(b.getPath().getName()));
+        for (FileStatus child : children) {
+            String name = child.getPath().getName();
+            // Skip the manifests and markers an export writes next to its data files, as the backfill does.
+            if (!name.startsWith(".") && !name.startsWith("_") && !name.startsWith("manifest-")) {
+                files.addAll(listFiles(fileSystem, child.getPath()));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @param pruning the extractor of the pruned document, or null to keep the whole document.
+     */
+    private static void readSamples(Path file, MetadataExtractor pruning, List<String> samples, int maxSamples) throws IOException {
+        try (FSDataInputStream in = file.getFileSystem().open(file);
+             InputStream content = file.getName().endsWith(".gz") ? new GZIPInputStream(in) : in;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            String line;
+            while (samples.size() < maxSamples && (line = reader.readLine()) != null) {
+                Map<String, AttributeValue> item = DynamoDbExport.parseItem(line);
+                AttributeValue metadata = item == null ? null : item.get(ImageColumn.METADATA.attributeName);
+                if (metadata != null && metadata.s() != null) {
+                    samples.add(pruning == null ? metadata.s() : (String) pruning.extract(metadata.s())[0]);
+                }
+            }
+        }
+    }
+}
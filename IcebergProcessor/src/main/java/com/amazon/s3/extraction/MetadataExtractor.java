@@ -0,0 +1,141 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.ParseContext;
+import com.jayway.jsonpath.ReadContext;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls the values of all custom metadata fields out of a record's metadata JSON.
+ * <p>
+ * Expressions within the {@link PathExpression} subset are compiled into a single {@link PathTrie} and filled in one
+ * streaming pass, without building a document tree.  Expressions outside that subset, or that overlap an expression
+ * already in the trie, are evaluated by JsonPath against a parsed document, which is only built when at least one such
+ * field exists.
+ * <p>
+ * With a {@link MetadataPruner}, the same pass also writes the pruned document, which is stored in the slot after the
+ * fields'.
+ */
+public class MetadataExtractor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final ParseContext JSON_PARSER = JsonPath.using(
+            Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS));
+
+    private final int fieldCount;
+    private final PathTrie trie;
+    private final JsonPathField[] fallbackFields;
+    private final MetadataPruner pruner;
+
+    private MetadataExtractor(int fieldCount, PathTrie trie, JsonPathField[] fallbackFields, MetadataPruner pruner) {
+        this.fieldCount = fieldCount;
+        this.trie = trie;
+        this.fallbackFields = fallbackFields;
+        this.pruner = pruner;
+    }
+
+    /**
+     * @param jpaths the JsonPath expression of each field; the index of a field is its slot in the extracted values.
+     * @param converters the converter for each field's column type.
+     */
+    public static MetadataExtractor compile(List<String> jpaths, List<ValueConverter> converters) {
+        return compile(jpaths, converters, null);
+    }
+
+    /**
+     * @param pruner what to keep of the document, or null to leave it out of the extracted values.
+     */
+    public static MetadataExtractor compile(List<String> jpaths, List<ValueConverter> converters, MetadataPruner pruner) {
+        PathTrie trie = new PathTrie();
+        List<List<PathExpression.Step>> streamed = new ArrayList<>();
+        List<JsonPathField> fallbackFields = new ArrayList<>();
+
+        for (int slot = 0; slot < jpaths.size(); slot++) {
+            String jpath = jpaths.get(slot);
+            ValueConverter converter = converters.get(slot);
+            List<PathExpression.Step> steps = PathExpression.parse(jpath);
+            ValueConverter leafConverter = steps == null ? null : leafConverter(steps, converter);
+
+            if (leafConverter != null && streamed.stream().noneMatch(x -> PathExpression.overlaps(x, steps))) {
+                trie.add(steps, slot, leafConverter);
+                streamed.add(steps);
+            } else {
+                fallbackFields.add(new JsonPathField(slot, jpath, converter));
+            }
+        }
+        return new MetadataExtractor(jpaths.size(), trie, fallbackFields.toArray(new JsonPathField[0]), pruner);
+    }
+
+    private static ValueConverter leafConverter(List<PathExpression.Step> steps, ValueConverter columnConverter) {
+        if (PathExpression.isDefinite(steps)) {
+            return columnConverter;
+        }
+        // Indefinite expressions produce a list of matches, which only an array column can hold.
+        return columnConverter instanceof ValueConverters.ArrayConverter
+                ? ((ValueConverters.ArrayConverter) columnConverter).getElementConverter()
+                : null;
+    }
+
+    public boolean isEmpty() {
+        return fieldCount == 0 && pruner == null;
+    }
+
+    /**
+     * @return the value of each field, indexed by slot, in Flink's internal representation, followed by the pruned
+     * document, as a JSON string, if there is a pruner.
+     */
+    public Object[] extract(String metadataJson) {
+        Object[] values = new Object[pruner == null ? fieldCount : fieldCount + 1];
+        if (pruner != null) {
+            StringWriter pruned = new StringWriter(metadataJson.length() / 2);
+            try (JsonReader reader = new JsonReader(new StringReader(metadataJson));
+                 JsonWriter writer = new JsonWriter(pruned)) {
+                trie.extract(reader, values, pruner, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read metadata JSON", e);
+            }
+            values[fieldCount] = pruned.toString();
+        } else if (!trie.isEmpty()) {
+            try (JsonReader reader = new JsonReader(new StringReader(metadataJson))) {
+                trie.extract(reader, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read metadata JSON", e);
+            }
+        }
+        if (fallbackFields.length > 0) {
+            ReadContext document = JSON_PARSER.parse(metadataJson);
+            for (JsonPathField field : fallbackFields) {
+                field.extract(document, values);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which parts of the metadata JSON the raw metadata column keeps: the subtrees selected by the include expressions,
+ * or the whole document if there are none, less the subtrees selected by the exclude expressions.  Expressions must
+ * be in the {@link PathExpression} subset, e.g. {@code $.exif.ImageWidth} or {@code $.labels[*].Instances}.
+ * <p>
+ * Where a member or index is selected both by name and by a wildcard, the named expression decides, e.g. excluding
+ * {@code $.labels[*]} and including {@code $.labels[0]} keeps the first label only.  The containers leading to a
+ * kept value are kept, with only the members and elements that lead to kept values, so array indexes can shift.
+ */
+public final class MetadataPruner implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Node root;
+    private final boolean keepRoot;
+
+    private MetadataPruner(Node root, boolean keepRoot) {
+        this.root = root;
+        this.keepRoot = keepRoot;
+    }
+
+    /**
+     * @return the pruner, or null if the expressions keep the whole document.
+     * @throws IllegalArgumentException if an expression is outside the streaming subset of JsonPath.
+     */
+    public static MetadataPruner compile(List<String> includes, List<String> excludes) {
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return null;
+        }
+        Node root = new Node();
+        for (String include : includes) {
+            node(root, include).keep = Boolean.TRUE;
+        }
+        for (String exclude : excludes) {
+            node(root, exclude).keep = Boolean.FALSE;
+        }
+        return new MetadataPruner(root, includes.isEmpty());
+    }
+
+    private static Node node(Node root, String jpath) {
+        List<PathExpression.Step> steps = PathExpression.parse(jpath);
+        if (steps == null || steps.isEmpty()) {
+            throw new IllegalArgumentException("Can't prune the raw metadata by " + jpath
+                    + ", only member names, indexes and wildcards below the root are supported");
+        }
+        Node node = root;
+        for (PathExpression.Step step : steps) {
+            node = node.child(step);
+        }
+        return node;
+    }
+
+    Node getRoot() {
+        return root;
+    }
+
+    boolean keepsRoot() {
+        return keepRoot;
+    }
+
+    /**
+     * @return the node of the member of the given node's object, or null if no expression goes through it.
+     */
+    static Node member(Node node, String name) {
+        if (node == null) {
+            return null;
+        }
+        Node member = node.members == null ? null : node.members.get(name);
+        return member != null ? member : node.wildcard;
+    }
+
+    /**
+     * @return the node of the element of the given node's array, or null if no expression goes through it.
+     */
+    static Node element(Node node, int index) {
+        if (node == null) {
+            return null;
+        }
+        Node element = node.elements == null || index >= node.elements.length ? null : node.elements[index];
+        return element != null ? element : node.wildcard;
+    }
+
+    /**
+     * @return whether the value of the node is kept, unless an expression below it says otherwise.
+     */
+    static boolean keeps(Node node, boolean parentKeeps) {
+        return node == null || node.keep == null ? parentKeeps : node.keep;
+    }
+
+    /**
+     * @return whether expressions below the node decide on parts of its value, so it can't be copied or skipped whole.
+     */
+    static boolean hasChildren(Node node) {
+        return node != null && (node.members != null || node.elements != null || node.wildcard != null);
+    }
+
+    /**
+     * Writes the kept parts of a value already read from the document.
+     *
+     * @param keep whether the value itself is kept; if not, a value without kept parts is written as null.
+     */
+    @SuppressWarnings("unchecked")
+    static void write(Object value, Node node, boolean keep, JsonWriter writer) throws IOException {
+        if (!hasChildren(node) || !(value instanceof Map || value instanceof List)) {
+            JsonValues.write(keep ? value : null, writer);
+        } else if (value instanceof Map) {
+            writer.beginObject();
+            for (Map.Entry<String, Object> member : ((Map<String, Object>) value).entrySet()) {
+                Node child = member(node, member.getKey());
+                boolean childKeeps = keeps(child, keep);
+                if (childKeeps || (hasChildren(child) && isContainer(member.getValue()))) {
+                    writer.name(member.getKey());
+                    write(member.getValue(), child, childKeeps, writer);
+                }
+            }
+            writer.endObject();
+        } else {
+            writer.beginArray();
+            List<Object> elements = (List<Object>) value;
+            for (int index = 0; index < elements.size(); index++) {
+                Node child = element(node, index);
+                boolean childKeeps = keeps(child, keep);
+                if (childKeeps || (hasChildren(child) && isContainer(elements.get(index)))) {
+                    write(elements.get(index), child, childKeeps, writer);
+                }
+            }
+            writer.endArray();
+        }
+    }
+
+    private static boolean isContainer(Object value) {
+        return value instanceof Map || value instanceof List;
+    }
+
+    static final class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        Map<String, Node> members;
+        Node[] elements;
+        Node wildcard;
+        // Whether an expression ends here, and keeps or drops the value; null if the value inherits its parent's.
+        Boolean keep;
+
+        Node child(PathExpression.Step step) {
+            switch (step.kind) {
+                case MEMBER:
+                    if (members == null) {
+                        members = new HashMap<>();
+                    }
+                    return members.computeIfAbsent(step.name, x -> new Node());
+                case INDEX:
+                    if (elements == null || elements.length <= step.index) {
+                        elements = elements == null
+                                ? new Node[step.index + 1]
+                                : Arrays.copyOf(elements, step.index + 1);
+                    }
+                    if (elements[step.index] == null) {
+                        elements[step.index] = new Node();
+                    }
+                    return elements[step.index];
+                default:
+                    if (wildcard == null) {
+                        wildcard = new Node();
+                    }
+                    return wildcard;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The subset of JsonPath that can be evaluated in a single streaming pass: a root '$' followed by member names
+ * ({@code .name} or {@code ['name']}), non-negative array indexes ({@code [0]}) and wildcards ({@code .*} or
+ * {@code [*]}).
+ * <p>
+ * Anything else, e.g. filters, deep scans, slices or functions, is left to JsonPath itself.
+ */
+final class PathExpression {
+
+    enum StepKind { MEMBER, INDEX, WILDCARD }
+
+    static final class Step implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final StepKind kind;
+        final String name;
+        final int index;
+
+        private Step(StepKind kind, String name, int index) {
+            this.kind = kind;
+            this.name = name;
+            this.index = index;
+        }
+
+        static Step member(String name) {
+            return new Step(StepKind.MEMBER, name, -1);
+        }
+
+        static Step index(int index) {
+            return new Step(StepKind.INDEX, null, index);
+        }
+
+        static Step wildcard() {
+            return new Step(StepKind.WILDCARD, null, -1);
+        }
+
+        /**
+         * @return true if there is some JSON location both steps could select.
+         */
+        boolean overlaps(Step other) {
+            if (kind == StepKind.WILDCARD || other.kind == StepKind.WILDCARD) {
+                return true;
+            }
+            return kind == other.kind && (kind == StepKind.MEMBER ? name.equals(other.name) : index == other.index);
+        }
+    }
+
+    private PathExpression() {
+    }
+
+    /**
+     * @return the steps of the expression, or null if the expression uses syntax outside the supported subset.
+     */
+    static List<Step> parse(String jpath) {
+        if (jpath == null || !jpath.startsWith("$")) {
+            return null;
+        }
+
+        List<Step> steps = new ArrayList<>();
+        int position = 1;
+        while (position < jpath.length()) {
+            char c = jpath.charAt(position);
+            if (c == '.') {
+                position++;
+                if (position >= jpath.length() || jpath.charAt(position) == '.') {
+                    return null; // Deep scan or trailing dot.
+                }
+                if (jpath.charAt(position) == '*') {
+                    steps.add(Step.wildcard());
+                    position++;
+                    continue;
+                }
+                int end = position;
+                while (end < jpath.length() && jpath.charAt(end) != '.' && jpath.charAt(end) != '[') {
+                    end++;
+                }
+                String name = jpath.substring(position, end);
+                if (name.isEmpty() || name.indexOf('(') >= 0 || name.indexOf(')') >= 0) {
+                    return null; // Functions such as length().
+                }
+                steps.add(Step.member(name));
+                position = end;
+            } else if (c == '[') {
+                int end = jpath.indexOf(']', position);
+                if (end < 0) {
+                    return null;
+                }
+                String selector = jpath.substring(position + 1, end).trim();
+                Step step = parseBracketSelector(selector);
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+                position = end + 1;
+            } else {
+                return null;
+            }
+        }
+        return Collections.unmodifiableList(steps);
+    }
+
+    private static Step parseBracketSelector(String selector) {
+        if (selector.equals("*")) {
+            return Step.wildcard();
+        }
+        if (selector.length() >= 2) {
+            char quote = selector.charAt(0);
+            if ((quote == '\'' || quote == '"') && selector.charAt(selector.length() - 1) == quote) {
+                String name = selector.substring(1, selector.length() - 1);
+                if (name.isEmpty() || name.indexOf(quote) >= 0 || name.indexOf('\\') >= 0) {
+                    return null; // Unions and escapes are left to JsonPath.
+                }
+                return Step.member(name);
+            }
+        }
+        for (int i = 0; i < selector.length(); i++) {
+            if (!Character.isDigit(selector.charAt(i))) {
+                return null; // Filters, slices, unions and negative indexes.
+            }
+        }
+        if (selector.isEmpty() || selector.length() > 9) {
+            return null;
+        }
+        return Step.index(Integer.parseInt(selector));
+    }
+
+    static boolean isDefinite(List<Step> steps) {
+        for (Step step : steps) {
+            if (step.kind == StepKind.WILDCARD) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if one of the expressions could select a value that is, or contains, a value selected by the
+     * other.  Such expressions can't both be served by the same streaming pass.
+     */
+    static boolean overlaps(List<Step> a, List<Step> b) {
+        int length = Math.min(a.size(), b.size());
+        for (int i = 0; i < length; i++) {
+            if (!a.get(i).overlaps(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
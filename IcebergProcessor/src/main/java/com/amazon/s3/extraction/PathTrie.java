@@ -0,0 +1,355 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.apache.flink.table.data.GenericArrayData;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All streaming-compatible {@link PathExpression}s of a table merged into one trie, so that every custom metadata
+ * field can be filled in a single pass over the metadata JSON.
+ * <p>
+ * Members and elements that no expression refers to are skipped by the parser without being materialized.  The
+ * expressions in a trie never overlap (see {@link PathExpression#overlaps}), so a JSON value is either the target of
+ * exactly one field, or is a container walked on behalf of one or more fields, never both.
+ */
+final class PathTrie implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Node root = new Node();
+    private final List<Leaf> indefiniteLeaves = new ArrayList<>();
+    private int definiteLeafCount;
+
+    boolean isEmpty() {
+        return definiteLeafCount == 0 && indefiniteLeaves.isEmpty();
+    }
+
+    /**
+     * Adds an expression to the trie.  The caller is responsible for checking it doesn't overlap those already added.
+     *
+     * @param converter for definite expressions, the converter of the selected value, otherwise the converter of
+     *                  each selected element of the resulting array.
+     */
+    void add(List<PathExpression.Step> steps, int slot, ValueConverter converter) {
+        Node node = root;
+        for (PathExpression.Step step : steps) {
+            node = node.child(step);
+        }
+        boolean definite = PathExpression.isDefinite(steps);
+        node.leaf = new Leaf(slot, definite, converter);
+        if (definite) {
+            definiteLeafCount++;
+        } else {
+            indefiniteLeaves.add(node.leaf);
+        }
+    }
+
+    /**
+     * Reads the document and stores the value of every field in the trie into its slot.  Definite fields that aren't
+     * present are left null; indefinite fields always produce an array, empty if nothing matched.
+     */
+    void extract(JsonReader reader, Object[] values) throws IOException {
+        Extraction extraction = new Extraction(values, indefiniteLeaves.isEmpty() ? definiteLeafCount : -1);
+        visit(reader, Collections.singletonList(root), extraction);
+        collectIndefiniteLeaves(values);
+    }
+
+    /**
+     * Same as {@link #extract(JsonReader, Object[])}, and also writes the parts of the document the pruner keeps, in
+     * the same pass.  The whole document is read.
+     */
+    void extract(JsonReader reader, Object[] values, MetadataPruner pruner, JsonWriter writer) throws IOException {
+        Extraction extraction = new Extraction(values, -1);
+        List<Node> active = isEmpty() ? Collections.emptyList() : Collections.singletonList(root);
+        copy(reader, active, pruner.getRoot(), pruner.keepsRoot(), writer, extraction);
+        collectIndefiniteLeaves(values);
+    }
+
+    private void collectIndefiniteLeaves(Object[] values) {
+        for (Leaf leaf : indefiniteLeaves) {
+            Object collected = values[leaf.slot];
+            values[leaf.slot] = collected == null
+                    ? new GenericArrayData(new Object[0])
+                    : new GenericArrayData(((List<?>) collected).toArray());
+        }
+    }
+
+    /**
+     * @return true once every field has been found and the rest of the document can be ignored.
+     */
+    private static boolean visit(JsonReader reader, List<Node> active, Extraction extraction) throws IOException {
+        Node first = active.get(0);
+        if (first.leaf != null) {
+            first.leaf.accept(reader, extraction.values);
+            return --extraction.remaining == 0;
+        }
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                List<Node> next = memberChildren(active, name);
+                if (next.isEmpty()) {
+                    reader.skipValue();
+                } else if (visit(reader, next, extraction)) {
+                    return true;
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                List<Node> next = elementChildren(active, index);
+                if (next.isEmpty()) {
+                    reader.skipValue();
+                } else if (visit(reader, next, extraction)) {
+                    return true;
+                }
+            }
+            reader.endArray();
+        } else {
+            // A scalar where the expressions expected a container, so nothing below it can match.
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * Walks a value that is, or contains, a part of the document the pruner keeps, writing the kept parts, and
+     * extracting the fields below it as {@link #visit} does.
+     *
+     * @param keep whether the value is kept, apart from what the expressions below {@code prune} decide.
+     */
+    private static void copy(JsonReader reader, List<Node> active, MetadataPruner.Node prune, boolean keep,
+                             JsonWriter writer, Extraction extraction) throws IOException {
+        boolean partial = MetadataPruner.hasChildren(prune);
+        if (!active.isEmpty() && active.get(0).leaf != null) {
+            Leaf leaf = active.get(0).leaf;
+            Object value = JsonValues.read(reader);
+            leaf.accept(value, extraction.values);
+            MetadataPruner.write(value, prune, keep, writer);
+            return;
+        }
+        if (active.isEmpty() && !partial) {
+            if (keep) {
+                JsonValues.copy(reader, writer);
+            } else {
+                reader.skipValue();
+                writer.nullValue();
+            }
+            return;
+        }
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            writer.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                List<Node> next = active.isEmpty() ? active : memberChildren(active, name);
+                MetadataPruner.Node child = MetadataPruner.member(prune, name);
+                boolean childKeeps = MetadataPruner.keeps(child, keep);
+                if (childKeeps || (MetadataPruner.hasChildren(child) && isContainer(reader.peek()))) {
+                    writer.name(name);
+                    copy(reader, next, child, childKeeps, writer, extraction);
+                } else if (next.isEmpty()) {
+                    reader.skipValue();
+                } else {
+                    visit(reader, next, extraction);
+                }
+            }
+            reader.endObject();
+            writer.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            writer.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                List<Node> next = active.isEmpty() ? active : elementChildren(active, index);
+                MetadataPruner.Node child = MetadataPruner.element(prune, index);
+                boolean childKeeps = MetadataPruner.keeps(child, keep);
+                if (childKeeps || (MetadataPruner.hasChildren(child) && isContainer(reader.peek()))) {
+                    copy(reader, next, child, childKeeps, writer, extraction);
+                } else if (next.isEmpty()) {
+                    reader.skipValue();
+                } else {
+                    visit(reader, next, extraction);
+                }
+            }
+            reader.endArray();
+            writer.endArray();
+        } else if (keep) {
+            JsonValues.copy(reader, writer);
+        } else {
+            // Only a document that is a scalar, rather than an object, gets here.
+            reader.skipValue();
+            writer.nullValue();
+        }
+    }
+
+    private static boolean isContainer(JsonToken token) {
+        return token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY;
+    }
+
+    private static List<Node> memberChildren(List<Node> active, String name) {
+        if (active.size() == 1) {
+            Node node = active.get(0);
+            Node member = node.members == null ? null : node.members.get(name);
+            return single(member, node.wildcard);
+        }
+        List<Node> children = new ArrayList<>();
+        for (Node node : active) {
+            Node member = node.members == null ? null : node.members.get(name);
+            if (member != null) {
+                children.add(member);
+            }
+            if (node.wildcard != null) {
+                children.add(node.wildcard);
+            }
+        }
+        return children;
+    }
+
+    private static List<Node> elementChildren(List<Node> active, int index) {
+        if (active.size() == 1) {
+            Node node = active.get(0);
+            Node element = node.elements == null || index >= node.elements.length ? null : node.elements[index];
+            return single(element, node.wildcard);
+        }
+        List<Node> children = new ArrayList<>();
+        for (Node node : active) {
+            Node element = node.elements == null || index >= node.elements.length ? null : node.elements[index];
+            if (element != null) {
+                children.add(element);
+            }
+            if (node.wildcard != null) {
+                children.add(node.wildcard);
+            }
+        }
+        return children;
+    }
+
+    private static List<Node> single(Node specific, Node wildcard) {
+        if (specific == null) {
+            return wildcard == null ? Collections.emptyList() : wildcard.self;
+        }
+        return wildcard == null ? specific.self : Arrays.asList(specific, wildcard);
+    }
+
+    private static final class Extraction {
+        final Object[] values;
+        // Definite fields still to be found, or negative if the whole document must be read.
+        int remaining;
+
+        Extraction(Object[] values, int remaining) {
+            this.values = values;
+            this.remaining = remaining;
+        }
+    }
+
+    private static final class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // Cached singleton list, to avoid allocating one for the common case of a single active node.
+        final List<Node> self = Collections.singletonList(this);
+        Map<String, Node> members;
+        Node[] elements;
+        Node wildcard;
+        Leaf leaf;
+
+        Node child(PathExpression.Step step) {
+            switch (step.kind) {
+                case MEMBER:
+                    if (members == null) {
+                        members = new HashMap<>();
+                    }
+                    return members.computeIfAbsent(step.name, x -> new Node());
+                case INDEX:
+                    if (elements == null || elements.length <= step.index) {
+                        elements = elements == null
+                                ? new Node[step.index + 1]
+                                : Arrays.copyOf(elements, step.index + 1);
+                    }
+                    if (elements[step.index] == null) {
+                        elements[step.index] = new Node();
+                    }
+                    return elements[step.index];
+                default:
+                    if (wildcard == null) {
+                        wildcard = new Node();
+                    }
+                    return wildcard;
+            }
+        }
+    }
+
+    private static final class Leaf implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final boolean definite;
+        final ValueConverter converter;
+
+        Leaf(int slot, boolean definite, ValueConverter converter) {
+            this.slot = slot;
+            this.definite = definite;
+            this.converter = converter;
+        }
+
+        void accept(JsonReader reader, Object[] values) throws IOException {
+            Object value;
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                value = null;
+            } else {
+                value = converter.read(reader);
+            }
+            store(value, values);
+        }
+
+        /**
+         * @param jsonValue a value already read with {@link JsonValues#read}.
+         */
+        void accept(Object jsonValue, Object[] values) {
+            store(jsonValue == null ? null : converter.convert(jsonValue), values);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void store(Object value, Object[] values) {
+            if (definite) {
+                values[slot] = value;
+            } else {
+                if (values[slot] == null) {
+                    values[slot] = new ArrayList<>();
+                }
+                ((List<Object>) values[slot]).add(value);
+            }
+        }
+    }
+}
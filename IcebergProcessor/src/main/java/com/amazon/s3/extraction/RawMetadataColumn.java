@@ -0,0 +1,64 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.table.data.StringData;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * The raw metadata column, when it is pruned or compressed: the pruned document comes from the last slot of the
+ * extracted values, the full one straight from the record.
+ */
+final class RawMetadataColumn implements ColumnAccessor {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean pruned;
+    private final MetadataCompressor compressor;
+
+    /**
+     * @param compressor the compressor of the values of a BYTES column, or null for a STRING column.
+     */
+    RawMetadataColumn(boolean pruned, MetadataCompressor compressor) {
+        this.pruned = pruned;
+        this.compressor = compressor;
+    }
+
+    @Override
+    public Object extract(ImageRecord image, Object[] metadataValues) {
+        return toColumnValue(image.metadata, metadataValues);
+    }
+
+    @Override
+    public Object extract(Map<String, AttributeValue> image, Object[] metadataValues) {
+        AttributeValue metadata = image.get(ImageColumn.METADATA.attributeName);
+        return toColumnValue(metadata == null ? null : metadata.s(), metadataValues);
+    }
+
+    private Object toColumnValue(String metadata, Object[] metadataValues) {
+        String json = pruned
+                ? metadataValues == null ? null : (String) metadataValues[metadataValues.length - 1]
+                : metadata;
+        if (json == null) {
+            return null;
+        }
+        return compressor == null ? StringData.fromString(json) : compressor.compress(json);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.types.DataType;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * How the raw metadata column stores the metadata JSON: pruned by the {@code raw_metadata_include} and
+ * {@code raw_metadata_exclude} expressions of the {@code schema} property group, and, with
+ * {@code raw_metadata_compression} set to {@code zstd}, compressed into a BYTES column, with the dictionary in the
+ * {@code raw_metadata_dictionary} file if one is set.
+ */
+public final class RawMetadataFormat implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String NONE = "none";
+    public static final String ZSTD = "zstd";
+
+    public static final RawMetadataFormat UNCHANGED = new RawMetadataFormat(null, null);
+
+    private final MetadataPruner pruner;
+    private final MetadataCompressor compressor;
+
+    public RawMetadataFormat(MetadataPruner pruner, MetadataCompressor compressor) {
+        this.pruner = pruner;
+        this.compressor = compressor;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the compression is unknown or an expression can't be used for pruning.
+     * @throws IOException if the dictionary can't be read.
+     */
+    public static RawMetadataFormat fromConfig(Map<String, Properties> config) throws IOException {
+        MetadataPruner pruner = MetadataPruner.compile(
+                parsePaths(RAW_METADATA_INCLUDE.get(config)),
+                parsePaths(RAW_METADATA_EXCLUDE.get(config)));
+        MetadataCompressor compressor = null;
+        if (isCompressed(config)) {
+            String dictionary = RAW_METADATA_DICTIONARY.get(config);
+            compressor = new MetadataCompressor(
+                    Integer.parseInt(RAW_METADATA_COMPRESSION_LEVEL.get(config)),
+                    dictionary == null ? null : MetadataDictionary.load(dictionary));
+        }
+        return new RawMetadataFormat(pruner, compressor);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the compression is unknown.
+     */
+    public static boolean isCompressed(Map<String, Properties> config) {
+        String compression = RAW_METADATA_COMPRESSION.get(config).trim().toLowerCase(Locale.ROOT);
+        switch (compression) {
+            case NONE: return false;
+            case ZSTD: return true;
+            default: throw new IllegalArgumentException("Unknown raw metadata compression: " + compression
+                    + ", expected " + NONE + " or " + ZSTD);
+        }
+    }
+
+    /**
+     * @return the type of the raw metadata column.
+     */
+    public static DataType columnType(Map<String, Properties> config) {
+        return isCompressed(config) ? DataTypes.BYTES() : DataTypes.STRING();
+    }
+
+    static List<String> parsePaths(String paths) {
+        if (paths == null || paths.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(paths.split(","))
+                .map(String::trim)
+                .filter(x -> !x.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    MetadataPruner getPruner() {
+        return pruner;
+    }
+
+    /**
+     * @return the accessor of the raw metadata column, or null if the column holds the metadata as it is.
+     */
+    ColumnAccessor columnAccessor() {
+        return pruner == null && compressor == null ? null : new RawMetadataColumn(pruner != null, compressor);
+    }
+}
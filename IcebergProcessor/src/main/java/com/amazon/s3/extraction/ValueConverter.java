@@ -0,0 +1,47 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Converts a value read from the metadata JSON into the internal representation Flink expects for a column type.
+ * <p>
+ * A converter is chosen once per column, when the extraction plan is built, so no type dispatch happens per record.
+ *
+ * @see ValueConverters#forType
+ */
+public interface ValueConverter extends Serializable {
+
+    /**
+     * @param jsonValue the value as produced by the JSON provider; never null.
+     * @return the converted value.
+     */
+    Object convert(Object jsonValue);
+
+    /**
+     * Reads one value straight from a streaming parser.
+     *
+     * @param reader positioned at a value that is not JSON null; the whole value is consumed.
+     * @return the converted value.
+     */
+    Object read(JsonReader reader) throws IOException;
+}
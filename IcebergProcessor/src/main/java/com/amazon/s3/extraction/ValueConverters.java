@@ -0,0 +1,507 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.GenericMapData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.ArrayType;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
+import org.apache.flink.table.types.logical.MapType;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Type specialised {@link ValueConverter} implementations for the column types supported by the schema.
+ * <p>
+ * A JSON value of another type than the column's is coerced when that can be done without losing information, and
+ * otherwise converted to null, as if the field were missing:
+ * <ul>
+ *     <li>numeric columns accept numbers and numeric strings; integral columns only accept integral values within
+ *     their range, and DECIMAL values are rounded half-up to the column's scale, or null if they exceed its precision.
+ *     <li>BOOLEAN columns accept booleans and the strings {@code "true"} and {@code "false"}, in any case.
+ *     <li>STRING columns accept any value; numbers and booleans are converted to their JSON text, as are objects and
+ *     arrays, so a whole subdocument can be promoted to a column.
+ *     <li>TIMESTAMP and TIMESTAMP_LTZ columns accept epoch milliseconds, ISO-8601 strings and EXIF
+ *     ({@code yyyy:MM:dd HH:mm:ss}) strings; values without an offset are read as UTC.
+ *     <li>ROW columns accept objects, whose members are matched to fields by name, exact first, then ignoring case,
+ *     and arrays, whose elements are matched to fields by position (e.g. an EXIF rational as
+ *     {@code [numerator, denominator]}).
+ *     <li>MAP columns accept objects, keyed by member name.
+ *     <li>ARRAY columns accept arrays; any other value becomes an array of that single element.
+ * </ul>
+ *
+ * @see com.amazon.s3.schema.TableSchemaGenerator
+ */
+public final class ValueConverters {
+
+    // Serializes objects and arrays produced by the JsonPath provider back to JSON text for STRING columns.
+    private static final JsonProvider JSON_PROVIDER = Configuration.defaultConfiguration().jsonProvider();
+    private static final DateTimeFormatter EXIF_DATE_TIME = DateTimeFormatter.ofPattern("uuuu:MM:dd HH:mm:ss", Locale.ROOT);
+
+    private ValueConverters() {
+    }
+
+    public static ValueConverter forType(LogicalType type) {
+        switch (type.getTypeRoot()) {
+            case INTEGER: return ScalarConverter.INTEGER;
+            case BIGINT: return ScalarConverter.BIGINT;
+            case DOUBLE: return ScalarConverter.DOUBLE;
+            case BOOLEAN: return ScalarConverter.BOOLEAN;
+            case CHAR:
+            case VARCHAR: return ScalarConverter.STRING;
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE: return ScalarConverter.TIMESTAMP;
+            case DECIMAL: return new DecimalConverter((DecimalType) type);
+            case ARRAY: return new ArrayConverter(forType(((ArrayType) type).getElementType()));
+            case MAP:
+                MapType mapType = (MapType) type;
+                if (!mapType.getKeyType().is(LogicalTypeFamily.CHARACTER_STRING)) {
+                    throw new RuntimeException("Unsupported column type, map keys must be strings: " + type);
+                }
+                return new MapConverter(forType(mapType.getValueType()));
+            case ROW: return new RowConverter((RowType) type);
+            default: throw new RuntimeException("Unsupported column type: " + type);
+        }
+    }
+
+    enum ScalarConverter implements ValueConverter {
+        INTEGER {
+            @Override
+            public Object convert(Object jsonValue) {
+                if (jsonValue instanceof Integer) {
+                    return jsonValue;
+                }
+                Long value = toLong(jsonValue);
+                return value == null || value != value.intValue() ? null : value.intValue();
+            }
+
+            @Override
+            public Object read(JsonReader reader) throws IOException {
+                if (!isNumeric(reader.peek())) {
+                    return skip(reader);
+                }
+                try {
+                    return reader.nextInt();
+                } catch (NumberFormatException e) {
+                    return skip(reader);
+                }
+            }
+        },
+        BIGINT {
+            @Override
+            public Object convert(Object jsonValue) {
+                return toLong(jsonValue);
+            }
+
+            @Override
+            public Object read(JsonReader reader) throws IOException {
+                if (!isNumeric(reader.peek())) {
+                    return skip(reader);
+                }
+                try {
+                    return reader.nextLong();
+                } catch (NumberFormatException e) {
+                    return skip(reader);
+                }
+            }
+        },
+        DOUBLE {
+            @Override
+            public Object convert(Object jsonValue) {
+                if (jsonValue instanceof Number) {
+                    return ((Number) jsonValue).doubleValue();
+                }
+                return jsonValue instanceof String ? parseDouble((String) jsonValue) : null;
+            }
+
+            @Override
+            public Object read(JsonReader reader) throws IOException {
+                switch (reader.peek()) {
+                    case NUMBER: return reader.nextDouble();
+                    // Read as text, as the reader rejects NaN and infinite values in strict mode.
+                    case STRING: return parseDouble(reader.nextString());
+                    default: return skip(reader);
+                }
+            }
+        },
+        BOOLEAN {
+            @Override
+            public Object convert(Object jsonValue) {
+                if (jsonValue instanceof Boolean) {
+                    return jsonValue;
+                }
+                return jsonValue instanceof String ? parseBoolean((String) jsonValue) : null;
+            }
+
+            @Override
+            public Object read(JsonReader reader) throws IOException {
+                switch (reader.peek()) {
+                    case BOOLEAN: return reader.nextBoolean();
+                    case STRING: return parseBoolean(reader.nextString());
+                    default: return skip(reader);
+                }
+            }
+        },
+        STRING {
+            @Override
+            public Object convert(Object jsonValue) {
+                if (jsonValue instanceof String) {
+                    return StringData.fromString((String) jsonValue);
+                }
+                if (jsonValue instanceof Map || jsonValue instanceof List) {
+                    return StringData.fromString(JSON_PROVIDER.toJson(jsonValue));
+                }
+                return StringData.fromString(jsonValue.toString());
+            }
+
+            @Override
+            public Object read(JsonReader reader) throws IOException {
+                switch (reader.peek()) {
+                    case STRING:
+                    case NUMBER: return StringData.fromString(reader.nextString());
+                    case BOOLEAN: return StringData.fromString(Boolean.toString(reader.nextBoolean()));
+                    default: return StringData.fromString(JsonParser.parseReader(reader).toString());
+                }
+            }
+        },
+        TIMESTAMP {
+            @Override
+            public Object convert(Object jsonValue) {
+                Long epochMillis = jsonValue instanceof Number ? toLong(jsonValue) : null;
+                if (epochMillis != null) {
+                    return TimestampData.fromEpochMillis(epochMillis);
+                }
+                return jsonValue instanceof String ? parseTimestamp((String) jsonValue) : null;
+            }
+
+            @Override
+            public Object read(JsonReader reader) throws IOException {
+                switch (reader.peek()) {
+                    case NUMBER:
+                        try {
+                            return TimestampData.fromEpochMillis(reader.nextLong());
+                        } catch (NumberFormatException e) {
+                            return skip(reader);
+                        }
+                    case STRING: return parseTimestamp(reader.nextString());
+                    default: return skip(reader);
+                }
+            }
+        }
+    }
+
+    static final class DecimalConverter implements ValueConverter {
+        private static final long serialVersionUID = 1L;
+
+        private final int precision;
+        private final int scale;
+
+        DecimalConverter(DecimalType type) {
+            this.precision = type.getPrecision();
+            this.scale = type.getScale();
+        }
+
+        @Override
+        public Object convert(Object jsonValue) {
+            BigDecimal value;
+            if (jsonValue instanceof BigDecimal) {
+                value = (BigDecimal) jsonValue;
+            } else if (jsonValue instanceof Integer || jsonValue instanceof Long) {
+                value = BigDecimal.valueOf(((Number) jsonValue).longValue());
+            } else if (jsonValue instanceof BigInteger) {
+                value = new BigDecimal((BigInteger) jsonValue);
+            } else if (jsonValue instanceof Number || jsonValue instanceof String) {
+                value = parseDecimal(jsonValue.toString());
+            } else {
+                value = null;
+            }
+            return value == null ? null : DecimalData.fromBigDecimal(value, precision, scale);
+        }
+
+        @Override
+        public Object read(JsonReader reader) throws IOException {
+            if (!isNumeric(reader.peek())) {
+                return skip(reader);
+            }
+            // The literal is read as text so that it is converted exactly, rather than through a double.
+            BigDecimal value = parseDecimal(reader.nextString());
+            return value == null ? null : DecimalData.fromBigDecimal(value, precision, scale);
+        }
+    }
+
+    static final class ArrayConverter implements ValueConverter {
+        private static final long serialVersionUID = 1L;
+
+        private final ValueConverter elementConverter;
+
+        ArrayConverter(ValueConverter elementConverter) {
+            this.elementConverter = elementConverter;
+        }
+
+        ValueConverter getElementConverter() {
+            return elementConverter;
+        }
+
+        @Override
+        public Object convert(Object jsonValue) {
+            if (!(jsonValue instanceof List)) {
+                return new GenericArrayData(new Object[]{elementConverter.convert(jsonValue)});
+            }
+            List<?> elements = (List<?>) jsonValue;
+            Object[] converted = new Object[elements.size()];
+            for (int i = 0; i < converted.length; i++) {
+                converted[i] = convertNullable(elementConverter, elements.get(i));
+            }
+            return new GenericArrayData(converted);
+        }
+
+        @Override
+        public Object read(JsonReader reader) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                return new GenericArrayData(new Object[]{elementConverter.read(reader)});
+            }
+            List<Object> elements = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                elements.add(readNullable(elementConverter, reader));
+            }
+            reader.endArray();
+            return new GenericArrayData(elements.toArray());
+        }
+    }
+
+    static final class MapConverter implements ValueConverter {
+        private static final long serialVersionUID = 1L;
+
+        private final ValueConverter valueConverter;
+
+        MapConverter(ValueConverter valueConverter) {
+            this.valueConverter = valueConverter;
+        }
+
+        @Override
+        public Object convert(Object jsonValue) {
+            if (!(jsonValue instanceof Map)) {
+                return null;
+            }
+            Map<StringData, Object> converted = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) jsonValue).entrySet()) {
+                converted.put(StringData.fromString(entry.getKey().toString()), convertNullable(valueConverter, entry.getValue()));
+            }
+            return new GenericMapData(converted);
+        }
+
+        @Override
+        public Object read(JsonReader reader) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return skip(reader);
+            }
+            Map<StringData, Object> converted = new LinkedHashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                StringData key = StringData.fromString(reader.nextName());
+                converted.put(key, readNullable(valueConverter, reader));
+            }
+            reader.endObject();
+            return new GenericMapData(converted);
+        }
+    }
+
+    static final class RowConverter implements ValueConverter {
+        private static final long serialVersionUID = 1L;
+
+        private final ValueConverter[] fieldConverters;
+        // Field positions by exact name, and by lower case name for members whose case differs.
+        private final HashMap<String, Integer> fieldIndices = new HashMap<>();
+
+        RowConverter(RowType type) {
+            this.fieldConverters = new ValueConverter[type.getFieldCount()];
+            for (int i = 0; i < fieldConverters.length; i++) {
+                fieldConverters[i] = forType(type.getTypeAt(i));
+                fieldIndices.putIfAbsent(type.getFieldNames().get(i).toLowerCase(Locale.ROOT), i);
+            }
+            for (int i = 0; i < fieldConverters.length; i++) {
+                fieldIndices.put(type.getFieldNames().get(i), i);
+            }
+        }
+
+        private int fieldIndex(String name) {
+            Integer index = fieldIndices.get(name);
+            if (index == null) {
+                index = fieldIndices.get(name.toLowerCase(Locale.ROOT));
+            }
+            return index == null ? -1 : index;
+        }
+
+        @Override
+        public Object convert(Object jsonValue) {
+            GenericRowData row = new GenericRowData(fieldConverters.length);
+            if (jsonValue instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) jsonValue).entrySet()) {
+                    int index = fieldIndex(entry.getKey().toString());
+                    if (index >= 0) {
+                        row.setField(index, convertNullable(fieldConverters[index], entry.getValue()));
+                    }
+                }
+            } else if (jsonValue instanceof List) {
+                List<?> elements = (List<?>) jsonValue;
+                for (int i = 0; i < fieldConverters.length && i < elements.size(); i++) {
+                    row.setField(i, convertNullable(fieldConverters[i], elements.get(i)));
+                }
+            } else {
+                return null;
+            }
+            return row;
+        }
+
+        @Override
+        public Object read(JsonReader reader) throws IOException {
+            JsonToken token = reader.peek();
+            GenericRowData row = new GenericRowData(fieldConverters.length);
+            if (token == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    int index = fieldIndex(reader.nextName());
+                    if (index < 0) {
+                        reader.skipValue();
+                    } else {
+                        row.setField(index, readNullable(fieldConverters[index], reader));
+                    }
+                }
+                reader.endObject();
+            } else if (token == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                for (int index = 0; reader.hasNext(); index++) {
+                    if (index < fieldConverters.length) {
+                        row.setField(index, readNullable(fieldConverters[index], reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+            } else {
+                return skip(reader);
+            }
+            return row;
+        }
+    }
+
+    static Object convertNullable(ValueConverter converter, Object jsonValue) {
+        return jsonValue == null ? null : converter.convert(jsonValue);
+    }
+
+    static Object readNullable(ValueConverter converter, JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return converter.read(reader);
+    }
+
+    /**
+     * Consumes a value that can't be coerced to the column type.
+     *
+     * @return null, the value of the column.
+     */
+    private static Object skip(JsonReader reader) throws IOException {
+        reader.skipValue();
+        return null;
+    }
+
+    private static boolean isNumeric(JsonToken token) {
+        return token == JsonToken.NUMBER || token == JsonToken.STRING;
+    }
+
+    private static Long toLong(Object jsonValue) {
+        if (jsonValue instanceof Integer || jsonValue instanceof Long) {
+            return ((Number) jsonValue).longValue();
+        }
+        if (!(jsonValue instanceof Number) && !(jsonValue instanceof String)) {
+            return null;
+        }
+        BigDecimal value = parseDecimal(jsonValue.toString());
+        try {
+            return value == null ? null : value.longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        return value.equalsIgnoreCase("false") ? false : null;
+    }
+
+    private static TimestampData parseTimestamp(String value) {
+        try {
+            // EXIF date times separate the date fields with colons, e.g. 2024:07:24 12:31:07
+            if (value.length() > 4 && value.charAt(4) == ':') {
+                return TimestampData.fromLocalDateTime(LocalDateTime.parse(value, EXIF_DATE_TIME));
+            }
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(value, ZonedDateTime::from, LocalDateTime::from);
+            return parsed instanceof ZonedDateTime
+                    ? TimestampData.fromInstant(((ZonedDateTime) parsed).toInstant())
+                    : TimestampData.fromLocalDateTime((LocalDateTime) parsed);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
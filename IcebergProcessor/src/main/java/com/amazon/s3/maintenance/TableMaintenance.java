@@ -0,0 +1,281 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.maintenance;
+
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.util.TimeUtils;
+import org.apache.iceberg.ContentFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.ManifestContent;
+import org.apache.iceberg.ManifestFile;
+import org.apache.iceberg.ManifestFiles;
+import org.apache.iceberg.ManifestReader;
+import org.apache.iceberg.PartitionStatisticsFile;
+import org.apache.iceberg.ReachableFileUtil;
+import org.apache.iceberg.RewriteFiles;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.actions.RewriteDataFilesActionResult;
+import org.apache.iceberg.flink.actions.Actions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.FileInfo;
+import org.apache.iceberg.io.SupportsPrefixOperations;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Keeps a continuously upserted table readable: compacts small data files, applying the position and equality
+ * deletes accumulated against them, drops the delete files that no longer apply to any data file, expires old
+ * snapshots and removes files no snapshot references any more.
+ * <p>
+ * Each step is driven by the thresholds of the {@code maintenance} property group, and only uses the Iceberg core
+ * APIs and the table's {@link org.apache.iceberg.io.FileIO}, apart from compaction which runs as a Flink job.
+ */
+public class TableMaintenance {
+    private static final Logger LOG = LogManager.getLogger(TableMaintenance.class);
+
+    private final Table table;
+    private final long targetFileSizeBytes;
+    private final int minInputFiles;
+    private final int deleteFileThreshold;
+    private final Duration snapshotMaxAge;
+    private final int minSnapshotsToKeep;
+    private final boolean removeOrphanFiles;
+    private final Duration orphanFileMinAge;
+
+    public TableMaintenance(Table table, Map<String, Properties> config) {
+        this.table = table;
+        this.targetFileSizeBytes = Long.parseLong(MAINTENANCE_TARGET_FILE_SIZE_BYTES.get(config));
+        this.minInputFiles = Integer.parseInt(MAINTENANCE_MIN_INPUT_FILES.get(config));
+        this.deleteFileThreshold = Integer.parseInt(MAINTENANCE_DELETE_FILE_THRESHOLD.get(config));
+        this.snapshotMaxAge = TimeUtils.parseDuration(MAINTENANCE_SNAPSHOT_MAX_AGE.get(config));
+        this.minSnapshotsToKeep = Integer.parseInt(MAINTENANCE_MIN_SNAPSHOTS_TO_KEEP.get(config));
+        this.removeOrphanFiles = Boolean.parseBoolean(MAINTENANCE_REMOVE_ORPHAN_FILES.get(config));
+        this.orphanFileMinAge = TimeUtils.parseDuration(MAINTENANCE_ORPHAN_FILE_MIN_AGE.get(config));
+    }
+
+    /**
+     * Runs every maintenance step whose threshold is met, in an order where each step can clean up after the last.
+     */
+    public void run(StreamExecutionEnvironment env) {
+        if (needsCompaction()) {
+            LOG.info("Rewrote {} data files", compact(env));
+            LOG.info("Removed {} dangling delete files", removeDanglingDeleteFiles());
+        }
+        long now = System.currentTimeMillis();
+        LOG.info("Expired {} snapshots", expireSnapshots(now));
+        if (removeOrphanFiles) {
+            LOG.info("Removed {} orphan files", removeOrphanFiles(now));
+        }
+    }
+
+    /**
+     * @return true if the current snapshot has at least {@code min_input_files} data files smaller than three
+     * quarters of the target file size, or at least {@code delete_file_threshold} delete files.
+     */
+    public boolean needsCompaction() {
+        int smallFiles = 0;
+        Set<String> deleteFiles = new HashSet<>();
+        try (CloseableIterable<FileScanTask> tasks = table.newScan().planFiles()) {
+            for (FileScanTask task : tasks) {
+                if (task.file().fileSizeInBytes() < targetFileSizeBytes / 4 * 3) {
+                    smallFiles++;
+                }
+                task.deletes().forEach(x -> deleteFiles.add(x.location()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.info("Table {} has {} small data files and {} delete files", table.name(), smallFiles, deleteFiles.size());
+        return smallFiles >= minInputFiles || deleteFiles.size() >= deleteFileThreshold;
+    }
+
+    /**
+     * Bin-packs the table's data files into files of the target size.  Rows are read with their deletes applied, so
+     * the rewritten files no longer need them.
+     * <p>
+     * The rewritten files keep the sequence number of the snapshot the compaction read, so equality deletes committed
+     * by the streaming job while it runs still apply to them, rather than failing the commit.
+     *
+     * @return the number of data files that were replaced
+     */
+    public int compact(StreamExecutionEnvironment env) {
+        RewriteDataFilesActionResult result = Actions.forTable(env, table)
+                .rewriteDataFiles()
+                .targetSizeInBytes(targetFileSizeBytes)
+                .useStartingSequenceNumber(true)
+                .execute();
+        table.refresh();
+        return result.deletedDataFiles().size();
+    }
+
+    /**
+     * Removes the delete files of the current snapshot that no longer apply to any of its data files, typically
+     * because those have been rewritten by {@link #compact}.
+     *
+     * @return the number of delete files removed
+     */
+    public int removeDanglingDeleteFiles() {
+        table.refresh();
+        Snapshot current = table.currentSnapshot();
+        if (current == null) {
+            return 0;
+        }
+
+        Set<String> appliedDeleteFiles = new HashSet<>();
+        try (CloseableIterable<FileScanTask> tasks = table.newScan().useSnapshot(current.snapshotId()).planFiles()) {
+            for (FileScanTask task : tasks) {
+                task.deletes().forEach(x -> appliedDeleteFiles.add(x.location()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<DeleteFile> danglingDeleteFiles = new ArrayList<>();
+        for (ManifestFile manifest : current.deleteManifests(table.io())) {
+            try (ManifestReader<DeleteFile> reader = ManifestFiles.readDeleteManifest(manifest, table.io(), table.specs())) {
+                for (DeleteFile deleteFile : reader) {
+                    if (!appliedDeleteFiles.contains(deleteFile.location())) {
+                        danglingDeleteFiles.add(deleteFile.copyWithoutStats());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        if (!danglingDeleteFiles.isEmpty()) {
+            RewriteFiles rewrite = table.newRewrite().validateFromSnapshot(current.snapshotId());
+            danglingDeleteFiles.forEach(rewrite::deleteFile);
+            rewrite.commit();
+        }
+        return danglingDeleteFiles.size();
+    }
+
+    /**
+     * Expires the snapshots older than {@code snapshot_max_age}, always keeping the latest
+     * {@code min_snapshots_to_keep}, and deletes the files only they referenced.
+     *
+     * @return the number of snapshots expired
+     */
+    public int expireSnapshots(long nowMillis) {
+        table.refresh();
+        int before = countSnapshots();
+        table.expireSnapshots()
+                .expireOlderThan(nowMillis - snapshotMaxAge.toMillis())
+                .retainLast(minSnapshotsToKeep)
+                .commit();
+        table.refresh();
+        return before - countSnapshots();
+    }
+
+    /**
+     * Deletes the files under the table's location that aren't referenced by its metadata, such as the output of
+     * failed writes or commits.  Files younger than {@code orphan_file_min_age} are left alone, as they may belong to
+     * a commit in progress.
+     *
+     * @return the number of files removed, zero if the table's FileIO can't list files
+     */
+    public int removeOrphanFiles(long nowMillis) {
+        if (!(table.io() instanceof SupportsPrefixOperations)) {
+            LOG.warn("Not removing orphan files, {} can't list files", table.io().getClass().getName());
+            return 0;
+        }
+
+        table.refresh();
+        Set<String> reachableFiles = reachableFiles();
+        long cutoff = nowMillis - orphanFileMinAge.toMillis();
+        List<String> orphanFiles = new ArrayList<>();
+        for (FileInfo file : ((SupportsPrefixOperations) table.io()).listPrefix(table.location())) {
+            if (file.createdAtMillis() < cutoff && !reachableFiles.contains(normalize(file.location()))) {
+                orphanFiles.add(file.location());
+            }
+        }
+
+        orphanFiles.forEach(table.io()::deleteFile);
+        return orphanFiles.size();
+    }
+
+    private Set<String> reachableFiles() {
+        Set<String> files = new HashSet<>();
+        ReachableFileUtil.metadataFileLocations(table, false).forEach(x -> files.add(normalize(x)));
+        files.add(normalize(ReachableFileUtil.versionHintLocation(table)));
+        ReachableFileUtil.manifestListLocations(table).forEach(x -> files.add(normalize(x)));
+        ReachableFileUtil.statisticsFilesLocations(table).forEach(x -> files.add(normalize(x)));
+        for (PartitionStatisticsFile statisticsFile : table.partitionStatisticsFiles()) {
+            files.add(normalize(statisticsFile.path()));
+        }
+
+        Set<String> manifests = new HashSet<>();
+        for (Snapshot snapshot : table.snapshots()) {
+            for (ManifestFile manifest : snapshot.allManifests(table.io())) {
+                if (manifests.add(manifest.path())) {
+                    files.add(normalize(manifest.path()));
+                    addContentFiles(manifest, files);
+                }
+            }
+        }
+        return files;
+    }
+
+    private void addContentFiles(ManifestFile manifest, Set<String> files) {
+        try (ManifestReader<? extends ContentFile<?>> reader = manifest.content() == ManifestContent.DATA
+                ? ManifestFiles.read(manifest, table.io(), table.specs())
+                : ManifestFiles.readDeleteManifest(manifest, table.io(), table.specs())) {
+            for (ContentFile<?> file : reader) {
+                files.add(normalize(file.location()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Listed and referenced locations of the same file can differ in scheme and authority (e.g. {@code file:/x}
+     * and {@code /x}), so they are compared by path alone.
+     */
+    private static String normalize(String location) {
+        try {
+            return URI.create(location).getPath();
+        } catch (IllegalArgumentException e) {
+            return location;
+        }
+    }
+
+    private int countSnapshots() {
+        int count = 0;
+        for (Snapshot ignored : table.snapshots()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.metrics;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics of the records sent to the dead letter output: {@code deadLetters} in total, and per error class, under the
+ * {@code errorClass} group named by the class's simple name.
+ */
+public class DeadLetterMetrics {
+
+    private final MetricGroup group;
+    private final Counter deadLetters;
+    private final Map<String, Counter> deadLettersByError = new HashMap<>();
+
+    public DeadLetterMetrics(MetricGroup group) {
+        this.group = group;
+        this.deadLetters = group.counter("deadLetters");
+    }
+
+    /**
+     * @return metrics that are recorded but not reported, for use until the function is opened.
+     */
+    public static DeadLetterMetrics unregistered() {
+        return new DeadLetterMetrics(new UnregisteredMetricsGroup());
+    }
+
+    /**
+     * @param errorClass the name of the class of the error the record failed with.
+     */
+    public void deadLetter(String errorClass) {
+        deadLetters.inc();
+        // Counters are registered as errors first occur, as the errors a job can run into aren't known up front.
+        deadLettersByError.computeIfAbsent(errorClass, x -> group
+                        .addGroup("errorClass", x.substring(x.lastIndexOf('.') + 1))
+                        .counter("deadLetters"))
+                .inc();
+    }
+
+    public long getDeadLetters() {
+        return deadLetters.getCount();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.metrics;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+
+/**
+ * Metrics of the DynamoDB stream records received by a deserialization schema, before they are converted.
+ */
+public class DeserializationMetrics {
+    public static final int HISTOGRAM_WINDOW_SIZE = 1024;
+
+    private final Meter recordsReceived;
+    private final Counter removeEventsSkipped;
+    private final Histogram metadataSize;
+
+    public DeserializationMetrics(MetricGroup group) {
+        this.recordsReceived = group.meter("recordsReceivedPerSecond", new MeterView(group.counter("recordsReceived")));
+        this.removeEventsSkipped = group.counter("removeEventsSkipped");
+        this.metadataSize = group.histogram("metadataSize", new DescriptiveStatisticsHistogram(HISTOGRAM_WINDOW_SIZE));
+    }
+
+    /**
+     * @return metrics that are recorded but not reported, for use until the schema is opened.
+     */
+    public static DeserializationMetrics unregistered() {
+        return new DeserializationMetrics(new UnregisteredMetricsGroup());
+    }
+
+    public void recordReceived() {
+        recordsReceived.markEvent();
+    }
+
+    public void removeEventSkipped() {
+        removeEventsSkipped.inc();
+    }
+
+    /**
+     * @param metadata the raw metadata JSON of a record, whose length in characters is recorded if present.
+     */
+    public void metadata(String metadata) {
+        if (metadata != null) {
+            metadataSize.update(metadata.length());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.metrics;
+
+import com.amazon.s3.extraction.ImageColumn;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.types.RowKind;
+
+/**
+ * Metrics of the table rows produced from the stream records: their rate and kind, the time taken to build each one,
+ * how often each column ends up null, and how long ago the latest event happened.
+ * <p>
+ * Null rates are only measured over inserted rows, as deleted rows never carry the metadata columns.
+ */
+public class RowMetrics {
+
+    private final Meter rowsEmitted;
+    private final Counter insertRows;
+    private final Counter deleteRows;
+    private final Histogram conversionTimeNanos;
+    private final Counter[] columnNulls;
+    private final int lastModifiedIndex;
+    private final int lastModifiedPrecision;
+
+    private volatile long latestEventTimeMillis = -1;
+
+    public RowMetrics(MetricGroup group, RowType rowType) {
+        this.rowsEmitted = group.meter("rowsEmittedPerSecond", new MeterView(group.counter("rowsEmitted")));
+        this.insertRows = group.counter("insertRows");
+        this.deleteRows = group.counter("deleteRows");
+        this.conversionTimeNanos = group.histogram(
+                "conversionTimeNanos", new DescriptiveStatisticsHistogram(DeserializationMetrics.HISTOGRAM_WINDOW_SIZE));
+
+        this.columnNulls = new Counter[rowType.getFieldCount()];
+        MetricGroup columns = group.addGroup("column");
+        for (int i = 0; i < columnNulls.length; i++) {
+            MetricGroup column = columns.addGroup(rowType.getFieldNames().get(i));
+            Counter nulls = column.counter("nulls");
+            column.gauge("nullRate", () -> insertRows.getCount() == 0 ? 0.0 : (double) nulls.getCount() / insertRows.getCount());
+            columnNulls[i] = nulls;
+        }
+
+        this.lastModifiedIndex = rowType.getFieldIndex(ImageColumn.LAST_MODIFIED.columnName);
+        this.lastModifiedPrecision = ((TimestampType) rowType.getTypeAt(lastModifiedIndex)).getPrecision();
+        group.gauge("eventFreshnessMillis", () -> latestEventTimeMillis < 0 ? 0L : System.currentTimeMillis() - latestEventTimeMillis);
+    }
+
+    /**
+     * @return metrics that are recorded but not reported, for use until the function is opened.
+     */
+    public static RowMetrics unregistered(RowType rowType) {
+        return new RowMetrics(new UnregisteredMetricsGroup(), rowType);
+    }
+
+    /**
+     * @param row a row that was just produced
+     * @param conversionTimeNanos the time it took to produce it
+     */
+    public void rowEmitted(RowData row, long conversionTimeNanos) {
+        rowsEmitted.markEvent();
+        this.conversionTimeNanos.update(conversionTimeNanos);
+        if (!row.isNullAt(lastModifiedIndex)) {
+            latestEventTimeMillis = row.getTimestamp(lastModifiedIndex, lastModifiedPrecision).getMillisecond();
+        }
+
+        if (row.getRowKind() == RowKind.DELETE) {
+            deleteRows.inc();
+            return;
+        }
+        insertRows.inc();
+        for (int i = 0; i < columnNulls.length; i++) {
+            if (row.isNullAt(i)) {
+                columnNulls[i].inc();
+            }
+        }
+    }
+}
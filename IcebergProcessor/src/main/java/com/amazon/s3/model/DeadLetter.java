@@ -0,0 +1,115 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.source.DynamoDbExport;
+import com.google.gson.JsonObject;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.util.OutputTag;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.time.Instant;
+
+/**
+ * A stream record that couldn't be written to the table, with the error it failed with.  The record is kept as a line
+ * of a DynamoDB export, which {@link DynamoDbExport#parseItem} reads back.
+ * <p>
+ * A Flink POJO, as dead letters are rare and only travel to their own sink.
+ */
+public class DeadLetter {
+    public static final OutputTag<DeadLetter> OUTPUT_TAG = new OutputTag<>("dead-letters", TypeInformation.of(DeadLetter.class));
+
+    /** The stream record couldn't be read into an {@link ImageRecord}. */
+    public static final String DESERIALIZATION = "deserialization";
+    /** The record couldn't be mapped to a table row. */
+    public static final String MAPPING = "mapping";
+
+    public long failedAt;
+    public String stage;
+    public String errorClass;
+    public String errorMessage;
+    public String shardId;
+    public String sequenceNumber;
+    public String record;
+
+    public DeadLetter() {
+    }
+
+    public DeadLetter(String stage, Throwable error, String shardId, String sequenceNumber, String record) {
+        this.failedAt = System.currentTimeMillis();
+        this.stage = stage;
+        this.errorClass = error.getClass().getName();
+        this.errorMessage = error.getMessage();
+        this.shardId = shardId;
+        this.sequenceNumber = sequenceNumber;
+        this.record = record;
+    }
+
+    /**
+     * @param shardId the shard the record was read from.
+     */
+    public static DeadLetter ofStreamRecord(Record record, String shardId, Throwable error) {
+        boolean hasImage = record.dynamodb() != null && record.dynamodb().hasNewImage();
+        return new DeadLetter(
+                DESERIALIZATION,
+                error,
+                shardId,
+                record.dynamodb() == null ? null : record.dynamodb().sequenceNumber(),
+                hasImage ? DynamoDbExport.formatItem(record.dynamodb().newImage()) : record.toString());
+    }
+
+    /**
+     * The shard of a record is only known to the source, so it is left out once the record has been read.
+     */
+    public static DeadLetter ofImage(ImageRecord image, Throwable error) {
+        return new DeadLetter(MAPPING, error, null, null, DynamoDbExport.formatItem(image.toItem()));
+    }
+
+    /**
+     * @return the dead letter as a row of the {@link com.amazon.s3.schema.DeadLetterTable}.
+     */
+    public RowData toRow() {
+        return GenericRowData.of(
+                TimestampData.fromEpochMillis(failedAt),
+                StringData.fromString(stage),
+                StringData.fromString(errorClass),
+                StringData.fromString(errorMessage),
+                StringData.fromString(shardId),
+                StringData.fromString(sequenceNumber),
+                StringData.fromString(record));
+    }
+
+    /**
+     * @return the dead letter as a single line JSON object, with the column names of the table.
+     */
+    public String toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("failed_at", Instant.ofEpochMilli(failedAt).toString());
+        json.addProperty("stage", stage);
+        json.addProperty("error_class", errorClass);
+        json.addProperty("error_message", errorMessage);
+        json.addProperty("shard_id", shardId);
+        json.addProperty("sequence_number", sequenceNumber);
+        json.addProperty("record", record);
+        return json.toString();
+    }
+}
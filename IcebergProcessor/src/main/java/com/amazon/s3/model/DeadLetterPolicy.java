@@ -0,0 +1,112 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.metrics.DeadLetterMetrics;
+import org.apache.flink.metrics.MetricGroup;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Decides what happens to a record that fails: it is sent to the dead letter output, configured by the
+ * {@code dead_letters} property group, rather than failing the job, unless too many records fail.
+ * <p>
+ * The circuit breaker counts the failures of each block of {@code failure_rate_window} consecutive records, and fails
+ * the job once more than {@code max_failure_rate} of a block have failed, as a failure rate that high points at a
+ * problem with the job or its configuration rather than with the data.  Every operator instance counts its own records.
+ */
+public class DeadLetterPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double maxFailureRate;
+    private final int window;
+    private final int maxFailures;
+
+    private transient DeadLetterMetrics metrics;
+    private transient int records;
+    private transient int failures;
+
+    /**
+     * @param maxFailureRate the fraction of a window's records that may fail, 1 to never fail the job.
+     * @param window the number of records over which the failure rate is measured.
+     */
+    public DeadLetterPolicy(double maxFailureRate, int window) {
+        if (!(maxFailureRate >= 0 && maxFailureRate <= 1)) {
+            throw new IllegalArgumentException("The maximum failure rate must be between 0 and 1: " + maxFailureRate);
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("The failure rate window must hold at least one record: " + window);
+        }
+        this.maxFailureRate = maxFailureRate;
+        this.window = window;
+        // With a tolerance, as e.g. 0.29 * 100 comes out slightly below 29.
+        this.maxFailures = (int) Math.floor(maxFailureRate * window + 1e-9);
+    }
+
+    /**
+     * @return the policy, or null if no dead letter table or path is configured, in which case records that fail
+     * fail the job.
+     * @throws IllegalArgumentException if both a table and a path are configured.
+     */
+    public static DeadLetterPolicy fromConfig(Map<String, Properties> config) {
+        if (DEAD_LETTER_TABLE.get(config) == null && DEAD_LETTER_PATH.get(config) == null) {
+            return null;
+        }
+        if (DEAD_LETTER_TABLE.get(config) != null && DEAD_LETTER_PATH.get(config) != null) {
+            throw new IllegalArgumentException("Dead letters are written either to a table or to files, not both");
+        }
+        return new DeadLetterPolicy(
+                Double.parseDouble(DEAD_LETTER_MAX_FAILURE_RATE.get(config)),
+                Integer.parseInt(DEAD_LETTER_FAILURE_RATE_WINDOW.get(config)));
+    }
+
+    public void open(MetricGroup group) {
+        metrics = new DeadLetterMetrics(group);
+    }
+
+    public void succeeded() {
+        countRecord();
+    }
+
+    /**
+     * @throws IllegalStateException if the failure trips the circuit breaker, with the error of the record.
+     */
+    public void failed(DeadLetter deadLetter, Throwable error) {
+        if (metrics == null) {
+            metrics = DeadLetterMetrics.unregistered();
+        }
+        metrics.deadLetter(deadLetter.errorClass);
+        if (++failures > maxFailures) {
+            throw new IllegalStateException(String.format(
+                    "%d of the last %d records failed, more than the maximum failure rate of %s allows, the last one in %s",
+                    failures, records + 1, maxFailureRate, deadLetter.stage), error);
+        }
+        countRecord();
+    }
+
+    private void countRecord() {
+        if (++records >= window) {
+            records = 0;
+            failures = 0;
+        }
+    }
+}
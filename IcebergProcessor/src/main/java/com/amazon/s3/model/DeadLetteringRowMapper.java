@@ -0,0 +1,72 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Collector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An {@link ImageToRowDataMapper} that sends the records it can't map, e.g. those with malformed metadata JSON, to the
+ * {@link DeadLetter#OUTPUT_TAG dead letter output} as its {@link DeadLetterPolicy} allows, rather than failing the job.
+ */
+public class DeadLetteringRowMapper extends ProcessFunction<ImageRecord, RowData> implements ResultTypeQueryable<RowData> {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LogManager.getLogger(DeadLetteringRowMapper.class);
+
+    private final ImageToRowDataMapper mapper;
+    private final DeadLetterPolicy deadLetters;
+
+    public DeadLetteringRowMapper(ImageToRowDataMapper mapper, DeadLetterPolicy deadLetters) {
+        this.mapper = mapper;
+        this.deadLetters = deadLetters;
+    }
+
+    @Override
+    public void open(OpenContext openContext) throws Exception {
+        mapper.setRuntimeContext(getRuntimeContext());
+        mapper.open(openContext);
+        deadLetters.open(getRuntimeContext().getMetricGroup());
+    }
+
+    @Override
+    public void processElement(ImageRecord image, Context context, Collector<RowData> output) {
+        RowData row;
+        try {
+            row = mapper.map(image);
+        } catch (RuntimeException e) {
+            LOG.warn("Sending the record of s3://{}/{} at sequencer {} to the dead letters", image.bucket, image.userKey, image.sequencer, e);
+            DeadLetter deadLetter = DeadLetter.ofImage(image, e);
+            deadLetters.failed(deadLetter, e);
+            context.output(DeadLetter.OUTPUT_TAG, deadLetter);
+            return;
+        }
+        deadLetters.succeeded();
+        output.collect(row);
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return mapper.getProducedType();
+    }
+}
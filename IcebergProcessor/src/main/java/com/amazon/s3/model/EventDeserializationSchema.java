@@ -17,6 +17,8 @@
  */
 package com.amazon.s3.model;
 
+import com.amazon.s3.metrics.DeserializationMetrics;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.connector.dynamodb.source.serialization.DynamoDbStreamsDeserializationSchema;
 import org.apache.flink.util.Collector;
@@ -31,15 +33,64 @@ public class EventDeserializationSchema implements DynamoDbStreamsDeserializatio
     private static final Logger LOG = LogManager.getLogger(EventDeserializationSchema.class);
     private static final long serialVersionUID = 1L;
 
+    private final DeadLetterPolicy deadLetters;
+
+    private transient DeserializationMetrics metrics;
+
+    public EventDeserializationSchema() {
+        this(null);
+    }
+
+    /**
+     * @param deadLetters what to do with records that can't be read, or null to fail the job.  A record that can't be
+     * read is emitted as an {@link ImageRecord} with only its {@link ImageRecord#deadLetter} set.
+     */
+    public EventDeserializationSchema(DeadLetterPolicy deadLetters) {
+        this.deadLetters = deadLetters;
+    }
+
+    @Override
+    public void open(DeserializationSchema.InitializationContext context) {
+        metrics = new DeserializationMetrics(context.getMetricGroup());
+        if (deadLetters != null) {
+            deadLetters.open(context.getMetricGroup());
+        }
+    }
+
     @Override
     public void deserialize(Record record, String stream, String shardId, Collector<ImageRecord> output) throws IOException {
         LOG.trace(record);
+        if (metrics == null) {
+            // The source may hand records over without having opened the schema.
+            metrics = DeserializationMetrics.unregistered();
+        }
+        metrics.recordReceived();
 
         // Elements bring removed from the DDB table don't have a semantic value, so we ignore them here.
         if(record.eventName() == OperationType.REMOVE) {
+            metrics.removeEventSkipped();
             return;
         }
-        output.collect(new ImageRecord(record.dynamodb().newImage()));
+        ImageRecord image;
+        try {
+            image = new ImageRecord(record.dynamodb().newImage());
+        } catch (RuntimeException e) {
+            if (deadLetters == null) {
+                throw e;
+            }
+            DeadLetter deadLetter = DeadLetter.ofStreamRecord(record, shardId, e);
+            LOG.warn("Sending record {} of shard {} to the dead letters", deadLetter.sequenceNumber, shardId, e);
+            deadLetters.failed(deadLetter, e);
+            image = new ImageRecord();
+            image.deadLetter = deadLetter;
+            output.collect(image);
+            return;
+        }
+        if (deadLetters != null) {
+            deadLetters.succeeded();
+        }
+        metrics.metadata(image.metadata);
+        output.collect(image);
     }
 
     @Override
@@ -17,13 +17,18 @@
  */
 package com.amazon.s3.model;
 
+import org.apache.flink.api.common.typeinfo.TypeInfo;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents the pre/post image of a DDB Transaction.  This is the first level of content specific to our application.
+ * <p>
+ * Serialized by Flink with the {@link ImageRecordSerializer}.
  */
+@TypeInfo(ImageRecordTypeInfo.Factory.class)
 public class ImageRecord {
 
     public String bucket;
@@ -37,15 +42,68 @@ public class ImageRecord {
 
     public String metadata;
 
+    /**
+     * Attributes of the object looked up in S3 by the {@link com.amazon.s3.enrichment.ObjectEnricher}, by attribute
+     * name, or null if the record wasn't enriched.  The map is never modified once set.
+     */
+    public Map<String, String> enrichment;
+
+    /**
+     * Why the stream record couldn't be read, in which case none of the other fields are set, or null.  Such records
+     * only travel from the source to the {@link com.amazon.s3.pipeline.DeadLetterSplitter}.
+     */
+    public DeadLetter deadLetter;
+
+    public ImageRecord() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the {@code bucket}, {@code key} or {@code sequencer} is not a string, such as
+     *                                  when it is missing or NULL, as every row needs its primary key.
+     */
     public ImageRecord(Map<String, AttributeValue> values) {
-        this.bucket = values.get("bucket").s();
-        this.userKey = values.get("key").s();
+        this.bucket = requiredString(values, "bucket");
+        this.userKey = requiredString(values, "key");
         this.etag = values.get("etag") != null ? values.get("etag").s() : null;
         this.versionId = values.get("version_id") != null ? values.get("version_id").s() : null;
-        this.sequencer = values.get("sequencer").s();
+        this.sequencer = requiredString(values, "sequencer");
         this.latestEventTime = values.get("latest_event_time").s();
         this.isDelete = values.get("deleted") != null ? values.get("deleted").bool() : false;
         this.isDeleteMarker = false; // TODO handle properly.
         this.metadata = values.get("metadata") != null ? values.get("metadata").s() : null;
     }
+
+    /**
+     * @return the attributes of the DynamoDB item this record was read from, as far as the record holds them.
+     */
+    public Map<String, AttributeValue> toItem() {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("bucket", stringOrNull(bucket));
+        item.put("key", stringOrNull(userKey));
+        if (etag != null) {
+            item.put("etag", AttributeValue.fromS(etag));
+        }
+        item.put("version_id", stringOrNull(versionId));
+        item.put("sequencer", stringOrNull(sequencer));
+        item.put("latest_event_time", stringOrNull(latestEventTime));
+        if (isDelete) {
+            item.put("deleted", AttributeValue.fromBool(true));
+        }
+        if (metadata != null) {
+            item.put("metadata", AttributeValue.fromS(metadata));
+        }
+        return item;
+    }
+
+    private static String requiredString(Map<String, AttributeValue> values, String name) {
+        AttributeValue value = values.get(name);
+        if (value == null || value.s() == null) {
+            throw new IllegalArgumentException("Item has no string " + name + ": " + value);
+        }
+        return value.s();
+    }
+
+    private static AttributeValue stringOrNull(String value) {
+        return value == null ? AttributeValue.fromNul(true) : AttributeValue.fromS(value);
+    }
 }
@@ -0,0 +1,284 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dedicated serializer for {@link ImageRecord}, so records crossing a network boundary or held in state don't fall
+ * back to Kryo.
+ * <p>
+ * The wire format is a 16 bit header, holding the two boolean flags and a presence bit for each nullable string,
+ * followed by the present strings in declaration order, and the enrichment attributes, if any, as their count
+ * followed by alternating names and values, and the dead letter, if any, as its time followed by its nullable
+ * strings.
+ */
+public final class ImageRecordSerializer extends TypeSerializerSingleton<ImageRecord> {
+    private static final long serialVersionUID = 1L;
+
+    public static final ImageRecordSerializer INSTANCE = new ImageRecordSerializer();
+
+    private static final int IS_DELETE = 1;
+    private static final int IS_DELETE_MARKER = 1 << 1;
+    private static final int HAS_BUCKET = 1 << 2;
+    private static final int HAS_USER_KEY = 1 << 3;
+    private static final int HAS_ETAG = 1 << 4;
+    private static final int HAS_VERSION_ID = 1 << 5;
+    private static final int HAS_SEQUENCER = 1 << 6;
+    private static final int HAS_LATEST_EVENT_TIME = 1 << 7;
+    private static final int HAS_METADATA = 1 << 8;
+    private static final int HAS_ENRICHMENT = 1 << 9;
+    private static final int HAS_DEAD_LETTER = 1 << 10;
+    private static final int DEAD_LETTER_STRINGS = 6;
+
+    private ImageRecordSerializer() {
+    }
+
+    @Override
+    public boolean isImmutableType() {
+        return false;
+    }
+
+    @Override
+    public ImageRecord createInstance() {
+        return new ImageRecord();
+    }
+
+    @Override
+    public ImageRecord copy(ImageRecord from) {
+        return copy(from, new ImageRecord());
+    }
+
+    @Override
+    public ImageRecord copy(ImageRecord from, ImageRecord reuse) {
+        reuse.bucket = from.bucket;
+        reuse.userKey = from.userKey;
+        reuse.etag = from.etag;
+        reuse.versionId = from.versionId;
+        reuse.sequencer = from.sequencer;
+        reuse.latestEventTime = from.latestEventTime;
+        reuse.isDelete = from.isDelete;
+        reuse.isDeleteMarker = from.isDeleteMarker;
+        reuse.metadata = from.metadata;
+        reuse.enrichment = from.enrichment;
+        reuse.deadLetter = from.deadLetter;
+        return reuse;
+    }
+
+    @Override
+    public int getLength() {
+        return -1;
+    }
+
+    @Override
+    public void serialize(ImageRecord record, DataOutputView target) throws IOException {
+        int header = (record.isDelete ? IS_DELETE : 0)
+                | (record.isDeleteMarker ? IS_DELETE_MARKER : 0)
+                | (record.bucket != null ? HAS_BUCKET : 0)
+                | (record.userKey != null ? HAS_USER_KEY : 0)
+                | (record.etag != null ? HAS_ETAG : 0)
+                | (record.versionId != null ? HAS_VERSION_ID : 0)
+                | (record.sequencer != null ? HAS_SEQUENCER : 0)
+                | (record.latestEventTime != null ? HAS_LATEST_EVENT_TIME : 0)
+                | (record.metadata != null ? HAS_METADATA : 0)
+                | (record.enrichment != null ? HAS_ENRICHMENT : 0)
+                | (record.deadLetter != null ? HAS_DEAD_LETTER : 0);
+        target.writeShort(header);
+
+        writeIfPresent(record.bucket, target);
+        writeIfPresent(record.userKey, target);
+        writeIfPresent(record.etag, target);
+        writeIfPresent(record.versionId, target);
+        writeIfPresent(record.sequencer, target);
+        writeIfPresent(record.latestEventTime, target);
+        writeIfPresent(record.metadata, target);
+        if (record.enrichment != null) {
+            target.writeInt(record.enrichment.size());
+            for (Map.Entry<String, String> attribute : record.enrichment.entrySet()) {
+                StringValue.writeString(attribute.getKey(), target);
+                writeNullable(attribute.getValue(), target);
+            }
+        }
+        if (record.deadLetter != null) {
+            DeadLetter deadLetter = record.deadLetter;
+            target.writeLong(deadLetter.failedAt);
+            writeNullable(deadLetter.stage, target);
+            writeNullable(deadLetter.errorClass, target);
+            writeNullable(deadLetter.errorMessage, target);
+            writeNullable(deadLetter.shardId, target);
+            writeNullable(deadLetter.sequenceNumber, target);
+            writeNullable(deadLetter.record, target);
+        }
+    }
+
+    @Override
+    public ImageRecord deserialize(DataInputView source) throws IOException {
+        return deserialize(new ImageRecord(), source);
+    }
+
+    @Override
+    public ImageRecord deserialize(ImageRecord reuse, DataInputView source) throws IOException {
+        int header = source.readUnsignedShort();
+        reuse.isDelete = (header & IS_DELETE) != 0;
+        reuse.isDeleteMarker = (header & IS_DELETE_MARKER) != 0;
+        reuse.bucket = readIfPresent(header, HAS_BUCKET, source);
+        reuse.userKey = readIfPresent(header, HAS_USER_KEY, source);
+        reuse.etag = readIfPresent(header, HAS_ETAG, source);
+        reuse.versionId = readIfPresent(header, HAS_VERSION_ID, source);
+        reuse.sequencer = readIfPresent(header, HAS_SEQUENCER, source);
+        reuse.latestEventTime = readIfPresent(header, HAS_LATEST_EVENT_TIME, source);
+        reuse.metadata = readIfPresent(header, HAS_METADATA, source);
+        if ((header & HAS_ENRICHMENT) != 0) {
+            int size = source.readInt();
+            Map<String, String> enrichment = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                enrichment.put(StringValue.readString(source), readNullable(source));
+            }
+            reuse.enrichment = enrichment;
+        } else {
+            reuse.enrichment = null;
+        }
+        if ((header & HAS_DEAD_LETTER) != 0) {
+            DeadLetter deadLetter = new DeadLetter();
+            deadLetter.failedAt = source.readLong();
+            deadLetter.stage = readNullable(source);
+            deadLetter.errorClass = readNullable(source);
+            deadLetter.errorMessage = readNullable(source);
+            deadLetter.shardId = readNullable(source);
+            deadLetter.sequenceNumber = readNullable(source);
+            deadLetter.record = readNullable(source);
+            reuse.deadLetter = deadLetter;
+        } else {
+            reuse.deadLetter = null;
+        }
+        return reuse;
+    }
+
+    @Override
+    public void copy(DataInputView source, DataOutputView target) throws IOException {
+        int header = source.readUnsignedShort();
+        target.writeShort(header);
+        for (int flag = HAS_BUCKET; flag <= HAS_METADATA; flag <<= 1) {
+            if ((header & flag) != 0) {
+                StringValue.copyString(source, target);
+            }
+        }
+        if ((header & HAS_ENRICHMENT) != 0) {
+            int size = source.readInt();
+            target.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                StringValue.copyString(source, target);
+                copyNullable(source, target);
+            }
+        }
+        if ((header & HAS_DEAD_LETTER) != 0) {
+            target.writeLong(source.readLong());
+            for (int i = 0; i < DEAD_LETTER_STRINGS; i++) {
+                copyNullable(source, target);
+            }
+        }
+    }
+
+    @Override
+    public TypeSerializerSnapshot<ImageRecord> snapshotConfiguration() {
+        return new ImageRecordSerializerSnapshot();
+    }
+
+    private static void writeIfPresent(String value, DataOutputView target) throws IOException {
+        if (value != null) {
+            StringValue.writeString(value, target);
+        }
+    }
+
+    private static String readIfPresent(int header, int flag, DataInputView source) throws IOException {
+        return (header & flag) != 0 ? StringValue.readString(source) : null;
+    }
+
+    private static void writeNullable(String value, DataOutputView target) throws IOException {
+        target.writeBoolean(value != null);
+        writeIfPresent(value, target);
+    }
+
+    private static String readNullable(DataInputView source) throws IOException {
+        return source.readBoolean() ? StringValue.readString(source) : null;
+    }
+
+    private static void copyNullable(DataInputView source, DataOutputView target) throws IOException {
+        boolean present = source.readBoolean();
+        target.writeBoolean(present);
+        if (present) {
+            StringValue.copyString(source, target);
+        }
+    }
+
+    /**
+     * Records the version of the wire format, so that a job restored from a savepoint taken with a different layout
+     * can be detected, and state migrated, rather than silently misread.  Version 2 added the enrichment attributes,
+     * and version 3 the dead letter, which records of earlier versions never have, so they are read by the current
+     * serializer.
+     */
+    public static final class ImageRecordSerializerSnapshot implements TypeSerializerSnapshot<ImageRecord> {
+        private static final int CURRENT_VERSION = 3;
+
+        private int readVersion = CURRENT_VERSION;
+
+        @Override
+        public int getCurrentVersion() {
+            return CURRENT_VERSION;
+        }
+
+        @Override
+        public void writeSnapshot(DataOutputView out) {
+            // The format is fully described by the snapshot version.
+        }
+
+        @Override
+        public void readSnapshot(int readVersion, DataInputView in, ClassLoader userCodeClassLoader) throws IOException {
+            if (readVersion > CURRENT_VERSION) {
+                throw new IOException("Unrecognized ImageRecord serializer snapshot version: " + readVersion);
+            }
+            this.readVersion = readVersion;
+        }
+
+        @Override
+        public TypeSerializer<ImageRecord> restoreSerializer() {
+            return INSTANCE;
+        }
+
+        @Override
+        public TypeSerializerSchemaCompatibility<ImageRecord> resolveSchemaCompatibility(
+                TypeSerializerSnapshot<ImageRecord> oldSerializerSnapshot) {
+            if (!(oldSerializerSnapshot instanceof ImageRecordSerializerSnapshot)) {
+                return TypeSerializerSchemaCompatibility.incompatible();
+            }
+            return ((ImageRecordSerializerSnapshot) oldSerializerSnapshot).readVersion == CURRENT_VERSION
+                    ? TypeSerializerSchemaCompatibility.compatibleAsIs()
+                    : TypeSerializerSchemaCompatibility.compatibleAfterMigration();
+        }
+    }
+}
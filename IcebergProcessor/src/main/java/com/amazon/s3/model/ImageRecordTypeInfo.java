@@ -0,0 +1,105 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.serialization.SerializerConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Type information for {@link ImageRecord}, bound to the class through its {@code @TypeInfo} annotation so that
+ * {@code TypeInformation.of(ImageRecord.class)} resolves to the dedicated {@link ImageRecordSerializer}.
+ */
+public final class ImageRecordTypeInfo extends TypeInformation<ImageRecord> {
+    private static final long serialVersionUID = 1L;
+
+    public static final ImageRecordTypeInfo INSTANCE = new ImageRecordTypeInfo();
+
+    @Override
+    public boolean isBasicType() {
+        return false;
+    }
+
+    @Override
+    public boolean isTupleType() {
+        return false;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public int getTotalFields() {
+        return 1;
+    }
+
+    @Override
+    public Class<ImageRecord> getTypeClass() {
+        return ImageRecord.class;
+    }
+
+    @Override
+    public boolean isKeyType() {
+        return false;
+    }
+
+    @Override
+    public TypeSerializer<ImageRecord> createSerializer(SerializerConfig config) {
+        return ImageRecordSerializer.INSTANCE;
+    }
+
+    @Override
+    @Deprecated
+    public TypeSerializer<ImageRecord> createSerializer(ExecutionConfig config) {
+        return ImageRecordSerializer.INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageRecord";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ImageRecordTypeInfo;
+    }
+
+    @Override
+    public int hashCode() {
+        return ImageRecordTypeInfo.class.hashCode();
+    }
+
+    @Override
+    public boolean canEqual(Object obj) {
+        return obj instanceof ImageRecordTypeInfo;
+    }
+
+    public static class Factory extends TypeInfoFactory<ImageRecord> {
+        @Override
+        public TypeInformation<ImageRecord> createTypeInfo(Type t, Map<String, TypeInformation<?>> genericParameters) {
+            return INSTANCE;
+        }
+    }
+}
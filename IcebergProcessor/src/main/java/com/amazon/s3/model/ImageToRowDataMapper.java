@@ -17,117 +17,110 @@
  */
 package com.amazon.s3.model;
 
+import com.amazon.s3.extraction.ExtractionPlan;
+import com.amazon.s3.extraction.MetadataCache;
+import com.amazon.s3.extraction.RawMetadataFormat;
+import com.amazon.s3.metrics.RowMetrics;
 import com.amazon.s3.schema.TableSchemaGenerator;
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.DocumentContext;
-import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.Option;
-import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.functions.RichMapFunction;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
 import org.apache.flink.table.api.Schema;
-import org.apache.flink.table.data.*;
-import org.apache.flink.table.types.AtomicDataType;
-import org.apache.flink.table.types.CollectionDataType;
-import org.apache.flink.table.types.DataType;
-import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.types.RowKind;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Manages the translation from a ChangeEvent into a Row as understood by Flink's Table APIs.
+ * <p>
+ * The per-column work is resolved up front into an {@link ExtractionPlan}, so mapping a record doesn't look up
+ * column names, JsonPath expressions or target types.
+ * <p>
+ * Reports the {@link RowMetrics} of the rows it produces.  Optionally, the values extracted from a metadata document
+ * are cached, as the same image is often copied under many keys.
  */
-public class ImageToRowDataMapper implements MapFunction<ImageRecord, RowData>, ResultTypeQueryable<RowData> {
+public class ImageToRowDataMapper extends RichMapFunction<ImageRecord, RowData> implements ResultTypeQueryable<RowData> {
+    private static final long serialVersionUID = 1L;
 
-    private final List<TableSchemaGenerator.SchemaEntry> schemaEntries;
+    private ExtractionPlan plan;
+    private final InternalTypeInfo<RowData> producedType;
+    private final int metadataCacheSize;
+    private final long metadataCacheBytes;
+
+    private transient RowMetrics metrics;
+    private transient MetadataCache metadataCache;
 
     public ImageToRowDataMapper(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements) {
-        Map<String, TableSchemaGenerator.SchemaEntry> customEntryMap =
-                customSchemaElements.stream().collect(Collectors.toMap((x) -> x.name, (x) -> x));
-        schemaEntries = tableSchema
-                .getColumns()
-                .stream()
-                .map(x -> (Schema.UnresolvedPhysicalColumn)x)
-                .map(col ->
-                        new TableSchemaGenerator.SchemaEntry(
-                            col.getName(),
-                                (DataType)col.getDataType(),
-                            customEntryMap.containsKey(col.getName()) ? customEntryMap.get(col.getName()).jpath : null
-                        ))
-                .collect(Collectors.toList());
+        this(tableSchema, customSchemaElements, RawMetadataFormat.UNCHANGED);
     }
 
-    @Override
-    public RowData map(ImageRecord image) {
-        GenericRowData row;
-        DocumentContext parsedMetadata = null;
-        if (image.isDelete || image.isDeleteMarker) {
-            row = new GenericRowData(RowKind.DELETE, schemaEntries.size());
-        } else {
-            row = new GenericRowData(RowKind.INSERT, schemaEntries.size());
-            parsedMetadata = JsonPath.parse(
-                    image.metadata,
-                    Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS));
-        }
+    public ImageToRowDataMapper(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements,
+                                RawMetadataFormat rawMetadata) {
+        this(tableSchema, customSchemaElements, rawMetadata, 0, 0);
+    }
 
-        for (int fieldIndex = 0; fieldIndex < schemaEntries.size(); fieldIndex++) {
-            TableSchemaGenerator.SchemaEntry column = schemaEntries.get(fieldIndex);
+    /**
+     * @param metadataCacheSize  how many metadata documents each subtask caches the extracted values of, 0 for none.
+     * @param metadataCacheBytes the estimated size the cache of each subtask is bounded by.
+     * @see MetadataCache
+     */
+    public ImageToRowDataMapper(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements,
+                                RawMetadataFormat rawMetadata, int metadataCacheSize, long metadataCacheBytes) {
+        if (metadataCacheSize < 0 || (metadataCacheSize > 0 && metadataCacheBytes < 1)) {
+            throw new IllegalArgumentException("Invalid metadata cache bounds: " + metadataCacheSize + " entries, " + metadataCacheBytes + " bytes");
+        }
+        this.plan = ExtractionPlan.compile(tableSchema, customSchemaElements, rawMetadata);
+        this.producedType = InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema));
+        this.metadataCacheSize = metadataCacheSize;
+        this.metadataCacheBytes = metadataCacheBytes;
+        this.metrics = RowMetrics.unregistered(producedType.toRowType());
+    }
 
-            switch (column.name) {
-                case "bucket": row.setField(fieldIndex, StringData.fromString(image.bucket)); break;
-                case "key": row.setField(fieldIndex, StringData.fromString(image.userKey)); break;
-                case "versionId": row.setField(fieldIndex, StringData.fromString(image.versionId)); break;
-                case "sequencer": row.setField(fieldIndex, StringData.fromString(image.sequencer)); break;
-                case "etag": row.setField(fieldIndex, StringData.fromString(image.etag)); break;
-                case "metadata": row.setField(fieldIndex, StringData.fromString(image.metadata)); break;
-                case "lastModified": row.setField(fieldIndex, TimestampData.fromLocalDateTime(LocalDateTime.parse(image.latestEventTime, DateTimeFormatter.ISO_DATE_TIME))); break;
-                default: row.setField(fieldIndex, extractColumnValue(column, parsedMetadata)); break;
-            }
+    @Override
+    public void open(OpenContext openContext) {
+        metrics = new RowMetrics(getRuntimeContext().getMetricGroup(), producedType.toRowType());
+        if (metadataCacheSize > 0) {
+            metadataCache = new MetadataCache(metadataCacheSize, metadataCacheBytes, getRuntimeContext().getMetricGroup());
         }
-        return row;
     }
 
-    /*
-        Clearly this approach is broken.  Need to do the hard bit eventually...
+    public ExtractionPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Switches to another plan for the same columns, e.g. {@link ExtractionPlan#withJsonPaths one with new paths}.
      */
-    private static Object extractColumnValue(TableSchemaGenerator.SchemaEntry column, DocumentContext metadataJson) {
-        if (metadataJson == null) {
-            return null;
+    public void setPlan(ExtractionPlan plan) {
+        if (plan.getArity() != this.plan.getArity()) {
+            throw new IllegalArgumentException("The plan has " + plan.getArity() + " columns, expected " + this.plan.getArity());
         }
-
-        if (column.type instanceof AtomicDataType) {
-            if(column.type.getLogicalType().supportsOutputConversion(Integer.class)) {
-                return metadataJson.<Integer>read(column.jpath);
-            } else if (column.type.getLogicalType().supportsOutputConversion(Boolean.class)) {
-                return metadataJson.<Boolean>read(column.jpath);
-            } else if (column.type.getLogicalType().supportsOutputConversion(String.class)) {
-                return StringData.fromString(metadataJson.<String>read(column.jpath));
-            } else {
-                throw new RuntimeException("Unsupported column type: " + column.type);
-            }
-        } else if (column.type instanceof CollectionDataType) {
-            LogicalType logicalType = ((CollectionDataType) column.type).getElementDataType().getLogicalType();
-            if(logicalType.supportsOutputConversion(Integer.class)) {
-                return new GenericArrayData(metadataJson.<List<Integer>>read(column.jpath).toArray());
-            } else if (logicalType.supportsOutputConversion(Boolean.class)) {
-                return new GenericArrayData(metadataJson.<List<Boolean>>read(column.jpath).toArray());
-            } else if (logicalType.supportsOutputConversion(String.class)) {
-                return new GenericArrayData(metadataJson.<List<String>>read(column.jpath).stream().map(StringData::fromString).toArray());
-            } else {
-                return new GenericArrayData(metadataJson.<List<Object>>read(column.jpath).toArray());
-            }
-        } else {
-            throw new RuntimeException("Unsupported column type: " + column.type);
+        this.plan = plan;
+        if (metadataCache != null) {
+            metadataCache.clear();
         }
     }
 
+    @Override
+    public RowData map(ImageRecord image) {
+        long start = System.nanoTime();
+        boolean isDelete = image.isDelete || image.isDeleteMarker;
+        GenericRowData row = new GenericRowData(isDelete ? RowKind.DELETE : RowKind.INSERT, plan.getArity());
+        plan.populate(image, !isDelete, row, metadataCache);
+        metrics.rowEmitted(row, System.nanoTime() - start);
+        return row;
+    }
+
+    /**
+     * @return type information derived from the table schema, so rows are serialized with a RowDataSerializer, not
+     * Kryo, wherever the stream crosses a network boundary.
+     */
     @Override
     public TypeInformation<RowData> getProducedType() {
-        return TypeInformation.of(RowData.class);
+        return producedType;
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.extraction.ExtractionPlan;
+import com.amazon.s3.schema.FieldsFile;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.streaming.api.functions.co.BroadcastProcessFunction;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Collector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * An {@link ImageToRowDataMapper} whose custom metadata fields follow the {@link FieldsFile} broadcast to it.
+ * <p>
+ * The latest version of the file is kept in broadcast state, but isn't applied when the job is restored: the job reads
+ * the current file when it starts, which the mapper's plan already follows, and the validator broadcasts it again.  The
+ * columns of the rows are fixed when the job starts, as the Iceberg sink writes a fixed schema, so a new version only
+ * changes the JsonPath expressions of the columns the rows already have: the
+ * {@link com.amazon.s3.schema.FieldsFileValidator} only broadcasts versions that add no fields and change no types.
+ * Fields a version removes keep being extracted with the expression they had when the job started.
+ */
+public class ReloadableImageToRowDataMapper extends BroadcastProcessFunction<ImageRecord, String, RowData>
+        implements ResultTypeQueryable<RowData> {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LogManager.getLogger(ReloadableImageToRowDataMapper.class);
+
+    public static final MapStateDescriptor<String, String> FIELDS_FILE_STATE =
+            new MapStateDescriptor<>("fields-file", Types.STRING, Types.STRING);
+    private static final String CURRENT = "current";
+
+    private final ImageToRowDataMapper mapper;
+    private final ExtractionPlan initialPlan;
+    private final DeadLetterPolicy deadLetters;
+
+    private transient String appliedFieldsFile;
+
+    public ReloadableImageToRowDataMapper(ImageToRowDataMapper mapper) {
+        this(mapper, null);
+    }
+
+    /**
+     * @param deadLetters what to do with records that can't be mapped, as by the {@link DeadLetteringRowMapper}, or
+     * null to fail the job.
+     */
+    public ReloadableImageToRowDataMapper(ImageToRowDataMapper mapper, DeadLetterPolicy deadLetters) {
+        this.mapper = mapper;
+        this.initialPlan = mapper.getPlan();
+        this.deadLetters = deadLetters;
+    }
+
+    @Override
+    public void open(OpenContext openContext) throws Exception {
+        mapper.setRuntimeContext(getRuntimeContext());
+        mapper.open(openContext);
+        if (deadLetters != null) {
+            deadLetters.open(getRuntimeContext().getMetricGroup());
+        }
+    }
+
+    @Override
+    public void processElement(ImageRecord image, ReadOnlyContext context, Collector<RowData> output) throws Exception {
+        if (deadLetters == null) {
+            output.collect(mapper.map(image));
+            return;
+        }
+        RowData row;
+        try {
+            row = mapper.map(image);
+        } catch (RuntimeException e) {
+            LOG.warn("Sending the record of s3://{}/{} at sequencer {} to the dead letters", image.bucket, image.userKey, image.sequencer, e);
+            DeadLetter deadLetter = DeadLetter.ofImage(image, e);
+            deadLetters.failed(deadLetter, e);
+            context.output(DeadLetter.OUTPUT_TAG, deadLetter);
+            return;
+        }
+        deadLetters.succeeded();
+        output.collect(row);
+    }
+
+    @Override
+    public void processBroadcastElement(String fieldsFile, Context context, Collector<RowData> output) throws Exception {
+        context.getBroadcastState(FIELDS_FILE_STATE).put(CURRENT, fieldsFile);
+        if (!fieldsFile.equals(appliedFieldsFile)) {
+            apply(fieldsFile);
+        }
+    }
+
+    private void apply(String fieldsFile) {
+        appliedFieldsFile = fieldsFile;
+        Map<String, Properties> config = new HashMap<>();
+        config.put("schema", FieldsFile.parse(fieldsFile));
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        Map<String, String> jpaths = entries.stream().collect(Collectors.toMap(x -> x.name, x -> x.jpath));
+        mapper.setPlan(initialPlan.withJsonPaths(jpaths));
+
+        // The validator holds back versions with new fields, so only a version it didn't check can have fields the rows don't.
+        List<String> ignored = entries.stream()
+                .map(x -> x.name)
+                .filter(x -> !initialPlan.getMetadataColumns().contains(x))
+                .collect(Collectors.toList());
+        LOG.info("Applied a new version of the fields file{}", ignored.isEmpty() ? ""
+                : ", ignoring fields " + ignored + " the rows have no columns for");
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return mapper.getProducedType();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.extraction.ExtractionPlan;
+import com.amazon.s3.extraction.RawMetadataFormat;
+import com.amazon.s3.metrics.DeserializationMetrics;
+import com.amazon.s3.metrics.RowMetrics;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.connector.dynamodb.source.serialization.DynamoDbStreamsDeserializationSchema;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fuses the {@link EventDeserializationSchema} and the {@link ImageToRowDataMapper}: DynamoDB stream records are
+ * read straight into the table's rows, without the intermediate {@link ImageRecord}.
+ * <p>
+ * Reports the metrics of both: {@link DeserializationMetrics} and {@link RowMetrics}.
+ */
+public class RowDataDeserializationSchema implements DynamoDbStreamsDeserializationSchema<RowData> {
+    private static final Logger LOG = LogManager.getLogger(RowDataDeserializationSchema.class);
+    private static final long serialVersionUID = 1L;
+
+    private final ExtractionPlan plan;
+    private final InternalTypeInfo<RowData> producedType;
+
+    private transient DeserializationMetrics deserializationMetrics;
+    private transient RowMetrics rowMetrics;
+
+    public RowDataDeserializationSchema(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements) {
+        this(tableSchema, customSchemaElements, RawMetadataFormat.UNCHANGED);
+    }
+
+    public RowDataDeserializationSchema(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customSchemaElements,
+                                        RawMetadataFormat rawMetadata) {
+        this.plan = ExtractionPlan.compile(tableSchema, customSchemaElements, rawMetadata);
+        this.producedType = InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema));
+    }
+
+    @Override
+    public void open(DeserializationSchema.InitializationContext context) {
+        deserializationMetrics = new DeserializationMetrics(context.getMetricGroup());
+        rowMetrics = new RowMetrics(context.getMetricGroup(), producedType.toRowType());
+    }
+
+    @Override
+    public void deserialize(Record record, String stream, String shardId, Collector<RowData> output) throws IOException {
+        LOG.trace(record);
+        if (deserializationMetrics == null) {
+            // The source may hand records over without having opened the schema.
+            deserializationMetrics = DeserializationMetrics.unregistered();
+            rowMetrics = RowMetrics.unregistered(producedType.toRowType());
+        }
+        deserializationMetrics.recordReceived();
+
+        // Elements bring removed from the DDB table don't have a semantic value, so we ignore them here.
+        if(record.eventName() == OperationType.REMOVE) {
+            deserializationMetrics.removeEventSkipped();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<String, AttributeValue> image = record.dynamodb().newImage();
+        AttributeValue deleted = image.get("deleted");
+        boolean isDelete = deleted != null && Boolean.TRUE.equals(deleted.bool());
+        GenericRowData row = new GenericRowData(isDelete ? RowKind.DELETE : RowKind.INSERT, plan.getArity());
+        plan.populate(image, !isDelete, row);
+        rowMetrics.rowEmitted(row, System.nanoTime() - start);
+
+        AttributeValue metadata = image.get("metadata");
+        deserializationMetrics.metadata(metadata == null ? null : metadata.s());
+        output.collect(row);
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return producedType;
+    }
+}
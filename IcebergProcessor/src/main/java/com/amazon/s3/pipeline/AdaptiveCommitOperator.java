@@ -0,0 +1,191 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.extraction.ImageColumn;
+import com.amazon.s3.metrics.DeserializationMetrics;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.BoundedOneInput;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds rows back from the Iceberg sink across checkpoints, releasing them just before the checkpoint barrier when the
+ * {@link CommitPolicy} decides it is time to commit.  The sink only commits the rows it received since the previous
+ * checkpoint, so a checkpoint at which nothing is released commits nothing, and the rows held back end up in one
+ * larger commit later.
+ * <p>
+ * The lag is taken at every checkpoint, as the time elapsed since the {@code latest_event_time} of the last row
+ * received since the previous one, or as zero when no row was received, the source being idle.
+ * <p>
+ * Held rows are part of the operator's state, as they were already read from the source.  All rows for a key must
+ * reach the same subtask, so that they are released in order, so the operator must be applied to a stream keyed with
+ * the {@link PrimaryKeySelector}.  The held rows are kept in keyed state, in the order they arrived, so they can spill
+ * to disk with the RocksDB state backend, and a rescaled job only restores the rows of its own key groups.  Rows are
+ * emitted without their timestamps, which the sink doesn't use.
+ */
+public class AdaptiveCommitOperator extends AbstractStreamOperator<RowData>
+        implements OneInputStreamOperator<RowData, RowData>, BoundedOneInput {
+    private static final Logger LOG = LogManager.getLogger(AdaptiveCommitOperator.class);
+    private static final long serialVersionUID = 1L;
+
+    private final CommitPolicy policy;
+    private final RowType rowType;
+    private final int lastModifiedIndex;
+    private final int lastModifiedPrecision;
+
+    private transient RowDataSerializer serializer;
+    private transient ListStateDescriptor<RowData> heldDescriptor;
+    private transient ListState<RowData> held;
+    private transient boolean restored;
+    private transient long heldRows;
+    private transient long heldBytes;
+    private transient long releasedRows;
+    private transient long releasedBytes;
+    private transient boolean commitDue;
+    private transient long lastCommitTime;
+    private transient long latestEventTimeMillis;
+    private transient long lagMillis;
+    private transient boolean catchingUp;
+    private transient Counter modeSwitches;
+    private transient Histogram commitRows;
+    private transient Histogram commitBytes;
+
+    public AdaptiveCommitOperator(Schema tableSchema, CommitPolicy policy) {
+        this.policy = policy;
+        this.rowType = TableSchemaGenerator.toRowType(tableSchema);
+        this.lastModifiedIndex = rowType.getFieldIndex(ImageColumn.LAST_MODIFIED.columnName);
+        this.lastModifiedPrecision = ((TimestampType) rowType.getTypeAt(lastModifiedIndex)).getPrecision();
+    }
+
+    @Override
+    public void initializeState(StateInitializationContext context) throws Exception {
+        super.initializeState(context);
+        serializer = InternalTypeInfo.of(rowType).toRowSerializer();
+        heldDescriptor = new ListStateDescriptor<>("held-rows", serializer);
+        held = getPartitionedState(heldDescriptor);
+        restored = context.isRestored();
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        lastCommitTime = getProcessingTimeService().getCurrentProcessingTime();
+        latestEventTimeMillis = -1;
+        modeSwitches = getMetricGroup().counter("commitModeSwitches");
+        commitRows = getMetricGroup().histogram("commitRows", new DescriptiveStatisticsHistogram(DeserializationMetrics.HISTOGRAM_WINDOW_SIZE));
+        commitBytes = getMetricGroup().histogram("commitBytes", new DescriptiveStatisticsHistogram(DeserializationMetrics.HISTOGRAM_WINDOW_SIZE));
+        getMetricGroup().gauge("catchingUp", () -> catchingUp ? 1 : 0);
+        getMetricGroup().gauge("sourceLagMillis", () -> lagMillis);
+        getMetricGroup().gauge("heldRows", () -> heldRows);
+        getMetricGroup().gauge("heldBytes", () -> heldBytes);
+        if (restored) {
+            this.<String>getKeyedStateBackend().applyToAllKeys(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, heldDescriptor,
+                    (String key, ListState<RowData> rows) -> {
+                        for (RowData row : rows.get()) {
+                            heldRows++;
+                            heldBytes += ((BinaryRowData) row).getSizeInBytes();
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) throws Exception {
+        // Held rows are copied in their binary form anyway, which is what they are measured and checkpointed in.
+        BinaryRowData row = serializer.toBinaryRow(element.getValue()).copy();
+        if (!row.isNullAt(lastModifiedIndex)) {
+            latestEventTimeMillis = row.getTimestamp(lastModifiedIndex, lastModifiedPrecision).getMillisecond();
+        }
+        held.add(row);
+        heldRows++;
+        heldBytes += row.getSizeInBytes();
+
+        if (policy.isFull(heldRows, heldBytes)) {
+            commitDue = true;
+            release();
+        }
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        super.prepareSnapshotPreBarrier(checkpointId);
+        long now = getProcessingTimeService().getCurrentProcessingTime();
+        lagMillis = latestEventTimeMillis < 0 ? 0 : Math.max(0, now - latestEventTimeMillis);
+        latestEventTimeMillis = -1;
+
+        boolean wasCatchingUp = catchingUp;
+        catchingUp = policy.isCatchingUp(catchingUp, lagMillis);
+        if (catchingUp != wasCatchingUp) {
+            modeSwitches.inc();
+            LOG.info("{} at a lag of {} ms", catchingUp ? "Catching up, committing less often" : "Caught up, committing as configured", lagMillis);
+        }
+
+        if (commitDue || policy.shouldCommit(catchingUp, heldRows, heldBytes, now - lastCommitTime)) {
+            release();
+            if (releasedRows > 0) {
+                commitRows.update(releasedRows);
+                commitBytes.update(releasedBytes);
+            }
+            releasedRows = 0;
+            releasedBytes = 0;
+            commitDue = false;
+            lastCommitTime = now;
+        }
+    }
+
+    @Override
+    public void endInput() throws Exception {
+        release();
+    }
+
+    private void release() throws Exception {
+        if (heldRows == 0) {
+            return;
+        }
+        this.<String>getKeyedStateBackend().applyToAllKeys(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, heldDescriptor,
+                (String key, ListState<RowData> rows) -> {
+                    for (RowData row : rows.get()) {
+                        output.collect(new StreamRecord<>(row));
+                    }
+                    rows.clear();
+                });
+        releasedRows += heldRows;
+        releasedBytes += heldBytes;
+        heldRows = 0;
+        heldBytes = 0;
+    }
+}
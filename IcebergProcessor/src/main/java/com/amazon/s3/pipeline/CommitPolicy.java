@@ -0,0 +1,113 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import org.apache.flink.util.TimeUtils;
+
+import java.io.Serializable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Decides when the rows held by an {@link AdaptiveCommitOperator} are released to the Iceberg sink, and so how often
+ * the table is committed to, depending on how far the job lags behind the events it reads.
+ * <p>
+ * While the job keeps up, rows are released at the first checkpoint at least {@code sink.commit_interval} after the
+ * previous release, which is every checkpoint by default.  Once the lag exceeds {@code sink.commit_catch_up_lag} the
+ * job is catching up, and rows are only released at the first checkpoint {@code sink.commit_max_delay} after the
+ * previous release, so a backlog is drained in a few large commits, until the lag drops below
+ * {@code sink.commit_steady_lag}.  In either mode, rows are released as soon as {@code sink.commit_max_rows} rows or
+ * {@code sink.commit_max_bytes} bytes are held, which bounds the memory and checkpoint size of the operator.
+ */
+public class CommitPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String CHECKPOINT = "checkpoint";
+    public static final String ADAPTIVE = "adaptive";
+
+    private final long intervalMillis;
+    private final long catchUpLagMillis;
+    private final long steadyLagMillis;
+    private final long maxDelayMillis;
+    private final long maxRows;
+    private final long maxBytes;
+
+    public CommitPolicy(long intervalMillis, long catchUpLagMillis, long steadyLagMillis, long maxDelayMillis,
+                        long maxRows, long maxBytes) {
+        if (intervalMillis < 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Commit interval and delay must not be negative: " + intervalMillis + ", " + maxDelayMillis);
+        }
+        if (steadyLagMillis < 0 || steadyLagMillis > catchUpLagMillis) {
+            throw new IllegalArgumentException("The steady lag must be between 0 and the catch up lag: " + steadyLagMillis + ", " + catchUpLagMillis);
+        }
+        if (maxRows < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("A commit must be allowed at least one row and byte: " + maxRows + ", " + maxBytes);
+        }
+        this.intervalMillis = intervalMillis;
+        this.catchUpLagMillis = catchUpLagMillis;
+        this.steadyLagMillis = steadyLagMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the policy selected by {@code sink.commit_policy}, or null when the table is committed to at every
+     * checkpoint.
+     * @throws IllegalArgumentException if the policy is unknown.
+     */
+    public static CommitPolicy fromConfig(Map<String, Properties> config) {
+        String policy = COMMIT_POLICY.get(config).trim().toLowerCase(Locale.ROOT);
+        switch (policy) {
+            case CHECKPOINT: return null;
+            case ADAPTIVE: return new CommitPolicy(
+                    TimeUtils.parseDuration(COMMIT_INTERVAL.get(config)).toMillis(),
+                    TimeUtils.parseDuration(COMMIT_CATCH_UP_LAG.get(config)).toMillis(),
+                    TimeUtils.parseDuration(COMMIT_STEADY_LAG.get(config)).toMillis(),
+                    TimeUtils.parseDuration(COMMIT_MAX_DELAY.get(config)).toMillis(),
+                    Long.parseLong(COMMIT_MAX_ROWS.get(config)),
+                    Long.parseLong(COMMIT_MAX_BYTES.get(config)));
+            default: throw new IllegalArgumentException("Unknown commit policy: " + policy + ", expected " + CHECKPOINT + " or " + ADAPTIVE);
+        }
+    }
+
+    /**
+     * @return whether the job is catching up after observing the given lag, which only changes once the lag crosses
+     * the threshold of the other mode, so that a lag hovering around one threshold doesn't flip the mode back and forth.
+     */
+    public boolean isCatchingUp(boolean catchingUp, long lagMillis) {
+        return catchingUp ? lagMillis > steadyLagMillis : lagMillis > catchUpLagMillis;
+    }
+
+    /**
+     * @return whether the held rows should be released right away, to be committed at the next checkpoint.
+     */
+    public boolean isFull(long heldRows, long heldBytes) {
+        return heldRows >= maxRows || heldBytes >= maxBytes;
+    }
+
+    /**
+     * @return whether the held rows should be released at the checkpoint about to be taken.
+     */
+    public boolean shouldCommit(boolean catchingUp, long heldRows, long heldBytes, long millisSinceCommit) {
+        return isFull(heldRows, heldBytes) || millisSinceCommit >= (catchingUp ? maxDelayMillis : intervalMillis);
+    }
+}
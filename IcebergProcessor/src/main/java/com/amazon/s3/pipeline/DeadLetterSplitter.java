@@ -0,0 +1,41 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.model.DeadLetter;
+import com.amazon.s3.model.EventDeserializationSchema;
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+
+/**
+ * Sends the records the {@link EventDeserializationSchema} couldn't read to the {@link DeadLetter#OUTPUT_TAG dead
+ * letter output}, as a source can't emit side outputs itself, and passes the others on.
+ */
+public class DeadLetterSplitter extends ProcessFunction<ImageRecord, ImageRecord> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void processElement(ImageRecord image, Context context, Collector<ImageRecord> output) {
+        if (image.deadLetter != null) {
+            context.output(DeadLetter.OUTPUT_TAG, image.deadLetter);
+        } else {
+            output.collect(image);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.extraction.MetadataExtractor;
+import com.amazon.s3.extraction.ValueConverters;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.LabelTable;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.ArrayData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns the events of each object into changes of the object's rows in the {@link LabelTable}: a row per label and
+ * parent of the label, from the Rekognition labels in the metadata.
+ * <p>
+ * Must be applied to a stream keyed with the {@link ObjectKeySelector}.  The rows last written for an object are kept
+ * in state for as long as the object exists, so an update deletes the labels the object no longer has, replaces those
+ * whose confidence changed and inserts the new ones, and a delete removes all of them.  The highest sequencer of the
+ * object, which drops reordered events like the {@link StaleEventFilter} does, is kept for the sequencer's time to
+ * live after the object last changed.
+ * <p>
+ * The rows in state may also be given a time to live, which bounds the state but breaks the consistency of the table:
+ * as an object whose rows expired may still have rows in the table, its rows are then written as replacements of any
+ * row with the same key, but the rows of labels it lost since, or all of them when it is deleted, remain in the table.
+ * <p>
+ * When the job has dead letters, an event whose metadata can't be read leaves the object's rows as they were, and is
+ * counted as {@code unreadableMetadataSkipped}, as the row mapper sends the event to the dead letters.
+ */
+public class LabelIndexer extends KeyedProcessFunction<String, ImageRecord, RowData> implements ResultTypeQueryable<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private static final LogicalType LABELS_TYPE = DataTypes.ARRAY(DataTypes.ROW(
+            DataTypes.FIELD("name", DataTypes.STRING()),
+            DataTypes.FIELD("confidence", DataTypes.DOUBLE()),
+            DataTypes.FIELD("parents", DataTypes.ARRAY(DataTypes.ROW(DataTypes.FIELD("name", DataTypes.STRING()))))
+    )).getLogicalType();
+    private static final char PARENT_SEPARATOR = '\n';
+
+    private final MetadataExtractor labelExtractor;
+    private final Duration sequencerStateTtl;
+    private final Duration labelStateTtl;
+    private final boolean skipUnreadableMetadata;
+
+    private transient ValueState<byte[]> highestSequencer;
+    private transient MapState<String, Double> labels;
+    private transient Counter staleEvents;
+    private transient Counter unreadableMetadataSkipped;
+
+    /**
+     * @param jpath the JsonPath expression of the labels in the metadata, an array of objects with a {@code Name}, a
+     *              {@code Confidence} and {@code Parents}, objects with a {@code Name}.
+     * @param labelStateTtl the time to live of the rows in state, or null to keep them as long as the object exists.
+     */
+    public LabelIndexer(String jpath, Duration sequencerStateTtl, Duration labelStateTtl) {
+        this(jpath, sequencerStateTtl, labelStateTtl, false);
+    }
+
+    /**
+     * @param skipUnreadableMetadata whether to skip events whose metadata can't be read, rather than fail the job.
+     */
+    public LabelIndexer(String jpath, Duration sequencerStateTtl, Duration labelStateTtl, boolean skipUnreadableMetadata) {
+        this.labelExtractor = MetadataExtractor.compile(List.of(jpath), List.of(ValueConverters.forType(LABELS_TYPE)));
+        this.sequencerStateTtl = sequencerStateTtl;
+        this.labelStateTtl = labelStateTtl;
+        this.skipUnreadableMetadata = skipUnreadableMetadata;
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        ValueStateDescriptor<byte[]> sequencerDescriptor =
+                new ValueStateDescriptor<>("highestSequencer", PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO);
+        sequencerDescriptor.enableTimeToLive(StateTtlConfig.newBuilder(sequencerStateTtl).build());
+        highestSequencer = getRuntimeContext().getState(sequencerDescriptor);
+        MapStateDescriptor<String, Double> labelsDescriptor = new MapStateDescriptor<>("labels", Types.STRING, Types.DOUBLE);
+        if (labelStateTtl != null) {
+            labelsDescriptor.enableTimeToLive(StateTtlConfig.newBuilder(labelStateTtl).build());
+        }
+        labels = getRuntimeContext().getMapState(labelsDescriptor);
+        staleEvents = getRuntimeContext().getMetricGroup().counter("staleEventsDropped");
+        unreadableMetadataSkipped = getRuntimeContext().getMetricGroup().counter("unreadableMetadataSkipped");
+    }
+
+    @Override
+    public void processElement(ImageRecord image, Context context, Collector<RowData> output) throws Exception {
+        if (image.sequencer != null) {
+            byte[] sequencer = Sequencers.encode(image.sequencer);
+            byte[] highest = highestSequencer.value();
+            if (highest != null && Sequencers.compare(sequencer, highest) <= 0) {
+                staleEvents.inc();
+                return;
+            }
+            highestSequencer.update(sequencer);
+        }
+
+        Map<String, Double> current;
+        try {
+            current = image.isDelete || image.isDeleteMarker ? Collections.emptyMap() : extract(image.metadata);
+        } catch (RuntimeException e) {
+            if (!skipUnreadableMetadata) {
+                throw e;
+            }
+            unreadableMetadataSkipped.inc();
+            return;
+        }
+        Map<String, Double> previous = new HashMap<>();
+        for (Map.Entry<String, Double> entry : labels.entries()) {
+            previous.put(entry.getKey(), entry.getValue());
+        }
+        if (current.equals(previous)) {
+            return;
+        }
+
+        for (Map.Entry<String, Double> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                output.collect(row(RowKind.DELETE, image, entry.getKey(), entry.getValue()));
+            } else if (!Objects.equals(current.get(entry.getKey()), entry.getValue())) {
+                output.collect(row(RowKind.UPDATE_BEFORE, image, entry.getKey(), entry.getValue()));
+                output.collect(row(RowKind.UPDATE_AFTER, image, entry.getKey(), current.get(entry.getKey())));
+            }
+        }
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            if (previous.isEmpty() && labelStateTtl != null) {
+                // New to the state, which may have expired, so the row replaces one the table may already have.
+                output.collect(row(RowKind.DELETE, image, entry.getKey(), entry.getValue()));
+            }
+            if (!previous.containsKey(entry.getKey())) {
+                output.collect(row(RowKind.INSERT, image, entry.getKey(), entry.getValue()));
+            }
+        }
+
+        labels.clear();
+        labels.putAll(current);
+    }
+
+    /**
+     * @return the confidence of each label and parent of the label, the highest one if a label is repeated.
+     */
+    private Map<String, Double> extract(String metadata) {
+        if (metadata == null) {
+            return Collections.emptyMap();
+        }
+        ArrayData extracted = (ArrayData) labelExtractor.extract(metadata)[0];
+        if (extracted == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Double> result = new HashMap<>();
+        for (int i = 0; i < extracted.size(); i++) {
+            if (extracted.isNullAt(i)) {
+                continue;
+            }
+            RowData label = extracted.getRow(i, 3);
+            if (label.isNullAt(0)) {
+                continue;
+            }
+            String name = label.getString(0).toString();
+            Double confidence = label.isNullAt(1) ? null : label.getDouble(1);
+
+            List<String> parents = new ArrayList<>();
+            ArrayData parentArray = label.isNullAt(2) ? null : label.getArray(2);
+            for (int j = 0; parentArray != null && j < parentArray.size(); j++) {
+                if (!parentArray.isNullAt(j) && !parentArray.getRow(j, 1).isNullAt(0)) {
+                    parents.add(name + PARENT_SEPARATOR + parentArray.getRow(j, 1).getString(0));
+                }
+            }
+            if (parents.isEmpty()) {
+                parents.add(name);
+            }
+            for (String key : parents) {
+                Double seen = result.get(key);
+                if (!result.containsKey(key) || (confidence != null && (seen == null || confidence > seen))) {
+                    result.put(key, confidence);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static RowData row(RowKind kind, ImageRecord image, String labelAndParent, Double confidence) {
+        int separator = labelAndParent.indexOf(PARENT_SEPARATOR);
+        String label = separator < 0 ? labelAndParent : labelAndParent.substring(0, separator);
+        String parent = separator < 0 ? LabelTable.NO_PARENT : labelAndParent.substring(separator + 1);
+        return GenericRowData.ofKind(kind,
+                StringData.fromString(image.bucket),
+                StringData.fromString(image.userKey),
+                StringData.fromString(label),
+                StringData.fromString(parent),
+                confidence);
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return InternalTypeInfo.of(LabelTable.ROW_TYPE);
+    }
+}
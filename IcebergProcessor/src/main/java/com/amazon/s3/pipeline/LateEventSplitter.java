@@ -0,0 +1,74 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.metrics.DeserializationMetrics;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+/**
+ * Counts the events whose event time is behind the current watermark, i.e. that arrived out of order by more than the
+ * watermarks allow for, and sends them to the late event output, for anything downstream that works on event time.
+ * <p>
+ * Late events are passed on along with all others, as the table holds the latest state of every object, whenever its
+ * events arrive.
+ */
+public class LateEventSplitter<T> extends ProcessFunction<T, T> {
+    private static final long serialVersionUID = 1L;
+
+    private final OutputTag<T> lateEvents;
+
+    private transient Counter lateEventCount;
+    private transient Histogram latenessMillis;
+
+    public LateEventSplitter(TypeInformation<T> type) {
+        this.lateEvents = outputTag(type);
+    }
+
+    /**
+     * @return the tag of the late event output of a splitter of events of the given type.
+     */
+    public static <T> OutputTag<T> outputTag(TypeInformation<T> type) {
+        return new OutputTag<>("late-events", type);
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        lateEventCount = getRuntimeContext().getMetricGroup().counter("lateEvents");
+        latenessMillis = getRuntimeContext().getMetricGroup().histogram(
+                "eventLatenessMillis", new DescriptiveStatisticsHistogram(DeserializationMetrics.HISTOGRAM_WINDOW_SIZE));
+    }
+
+    @Override
+    public void processElement(T event, Context context, Collector<T> output) {
+        Long timestamp = context.timestamp();
+        long watermark = context.timerService().currentWatermark();
+        if (timestamp != null && timestamp <= watermark) {
+            lateEventCount.inc();
+            latenessMillis.update(watermark - timestamp);
+            context.output(lateEvents, event);
+        }
+        output.collect(event);
+    }
+}
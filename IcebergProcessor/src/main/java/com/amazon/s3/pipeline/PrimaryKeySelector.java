@@ -0,0 +1,45 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.extraction.ImageColumn;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+
+/**
+ * Keys table rows by the table's primary key, the object's bucket and key.
+ *
+ * @see com.amazon.s3.schema.TableSchemaGenerator#generateTableSQL
+ */
+public class PrimaryKeySelector implements KeySelector<RowData, String> {
+    private static final long serialVersionUID = 1L;
+
+    private final int bucketIndex;
+    private final int keyIndex;
+
+    public PrimaryKeySelector(Schema tableSchema) {
+        this.bucketIndex = ImageColumn.BUCKET.indexIn(tableSchema);
+        this.keyIndex = ImageColumn.KEY.indexIn(tableSchema);
+    }
+
+    @Override
+    public String getKey(RowData row) {
+        return row.getString(bucketIndex) + "/" + row.getString(keyIndex);
+    }
+}
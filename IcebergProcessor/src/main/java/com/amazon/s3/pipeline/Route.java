@@ -0,0 +1,140 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * A named subset of the objects, by bucket and key prefix or suffix, that is written to a table of its own.
+ * <p>
+ * Routes are listed in the {@code names} property of the {@code routes} property group, and each is configured by the
+ * properties of that group starting with its name: {@code <name>.buckets} (comma separated, any bucket if unset),
+ * {@code <name>.key_prefix}, {@code <name>.key_suffix} and {@code <name>.table}.  Any other {@code <name>.<property>}
+ * overrides the {@code schema} property of that name for the route's table, e.g.
+ * {@code images.custom_metadata_fields} or {@code images.field.labels.jpath}.
+ */
+public class Route implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final Set<String> MATCHING_PROPERTIES = Set.of("buckets", "key_prefix", "key_suffix", "table");
+
+    private final String name;
+    private final Set<String> buckets;
+    private final String keyPrefix;
+    private final String keySuffix;
+
+    public Route(String name, Set<String> buckets, String keyPrefix, String keySuffix) {
+        this.name = name;
+        this.buckets = buckets;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.keySuffix = keySuffix == null ? "" : keySuffix;
+    }
+
+    /**
+     * @return the configured routes in their configured order, or an empty list if the job writes a single table.
+     * @throws IllegalArgumentException if a route name is repeated or two routes write to the same table.
+     */
+    public static List<Route> fromConfig(Map<String, Properties> config) {
+        String names = ROUTE_NAMES.get(config);
+        if (names == null || names.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        List<String> routeNames = Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(x -> !x.isEmpty())
+                .collect(Collectors.toList());
+        if (new HashSet<>(routeNames).size() != routeNames.size()) {
+            throw new IllegalArgumentException("Route names must be unique: " + names);
+        }
+        Set<String> tables = new HashSet<>();
+        for (String name : routeNames) {
+            if (!tables.add(ROUTE_TABLE.getParameterized(config, name))) {
+                throw new IllegalArgumentException("Routes must write to different tables, " + name + " writes to "
+                        + ROUTE_TABLE.getParameterized(config, name) + " as well");
+            }
+        }
+
+        return routeNames.stream()
+                .map(name -> {
+                    String buckets = ROUTE_BUCKETS.getParameterized(config, name);
+                    return new Route(
+                            name,
+                            buckets == null ? Collections.emptySet() : Arrays.stream(buckets.split(","))
+                                    .map(String::trim)
+                                    .filter(x -> !x.isEmpty())
+                                    .collect(Collectors.toSet()),
+                            ROUTE_KEY_PREFIX.getParameterized(config, name),
+                            ROUTE_KEY_SUFFIX.getParameterized(config, name));
+                })
+                .collect(Collectors.toList());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean matches(String bucket, String key) {
+        return (buckets.isEmpty() || buckets.contains(bucket)) && key.startsWith(keyPrefix) && key.endsWith(keySuffix);
+    }
+
+    /**
+     * Derives the configuration of the route's table: the route's table name, and the {@code schema} property group
+     * with the route's overrides applied.  Other property groups are shared with the job's configuration.
+     */
+    public Map<String, Properties> tableConfig(Map<String, Properties> config) {
+        Map<String, Properties> result = new HashMap<>(config);
+
+        Properties catalog = new Properties();
+        if (config.containsKey("catalog")) {
+            catalog.putAll(config.get("catalog"));
+        }
+        catalog.setProperty("table", ROUTE_TABLE.getParameterized(config, name));
+        result.put("catalog", catalog);
+
+        Properties schema = new Properties();
+        if (config.containsKey("schema")) {
+            schema.putAll(config.get("schema"));
+        }
+        Properties routes = config.get("routes");
+        String prefix = name + ".";
+        for (String property : routes.stringPropertyNames()) {
+            if (property.startsWith(prefix) && !MATCHING_PROPERTIES.contains(property.substring(prefix.length()))) {
+                schema.setProperty(property.substring(prefix.length()), routes.getProperty(property));
+            }
+        }
+        result.put("schema", schema);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
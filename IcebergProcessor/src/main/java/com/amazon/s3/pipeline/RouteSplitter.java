@@ -0,0 +1,68 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Sends every record to the side output of the first {@link Route} that matches its bucket and key, so the stream is
+ * read once for all the routes' tables.  Records that match no route are dropped, and counted as
+ * {@code unroutedRecords}.
+ */
+public class RouteSplitter extends ProcessFunction<ImageRecord, ImageRecord> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Route> routes;
+    private final List<OutputTag<ImageRecord>> outputTags;
+
+    private transient Counter unroutedRecords;
+
+    public RouteSplitter(List<Route> routes) {
+        this.routes = routes;
+        this.outputTags = routes.stream().map(RouteSplitter::outputTag).collect(Collectors.toList());
+    }
+
+    public static OutputTag<ImageRecord> outputTag(Route route) {
+        return new OutputTag<>("route-" + route.getName(), TypeInformation.of(ImageRecord.class));
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        unroutedRecords = getRuntimeContext().getMetricGroup().counter("unroutedRecords");
+    }
+
+    @Override
+    public void processElement(ImageRecord image, Context context, Collector<ImageRecord> output) {
+        for (int i = 0; i < routes.size(); i++) {
+            if (routes.get(i).matches(image.bucket, image.userKey)) {
+                context.output(outputTags.get(i), image);
+                return;
+            }
+        }
+        unroutedRecords.inc();
+    }
+}
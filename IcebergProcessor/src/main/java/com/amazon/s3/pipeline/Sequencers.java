@@ -0,0 +1,65 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+/**
+ * Compact encoding and ordering of S3 event {@code sequencer} values.
+ * <p>
+ * Sequencers are hexadecimal strings of varying length.  To order two of them S3 specifies that the shorter one is
+ * right-padded with zeros, and then the two are compared lexicographically.  Packing two hex digits per byte, and
+ * treating missing trailing bytes as zero, preserves that order at half the size of the string.
+ */
+public final class Sequencers {
+
+    private Sequencers() {
+    }
+
+    /**
+     * @param sequencer a hexadecimal sequencer, of any case
+     * @return the packed sequencer, an odd number of digits being padded with a trailing zero
+     * @throws IllegalArgumentException if the sequencer contains a non hexadecimal character
+     */
+    public static byte[] encode(String sequencer) {
+        byte[] encoded = new byte[(sequencer.length() + 1) / 2];
+        for (int i = 0; i < sequencer.length(); i++) {
+            int digit = Character.digit(sequencer.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid sequencer: " + sequencer);
+            }
+            encoded[i / 2] |= (byte) ((i % 2 == 0) ? digit << 4 : digit);
+        }
+        return encoded;
+    }
+
+    /**
+     * Compares two encoded sequencers, as S3 specifies for the original strings.
+     *
+     * @return a negative value, zero, or a positive value if the first sequencer is lower, equal or greater.
+     */
+    public static int compare(byte[] first, byte[] second) {
+        int length = Math.max(first.length, second.length);
+        for (int i = 0; i < length; i++) {
+            int a = i < first.length ? first[i] & 0xFF : 0;
+            int b = i < second.length ? second[i] & 0xFF : 0;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+}
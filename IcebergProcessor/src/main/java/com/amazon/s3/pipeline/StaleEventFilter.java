@@ -0,0 +1,79 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.extraction.ImageColumn;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.functions.RichFilterFunction;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+
+import java.time.Duration;
+
+/**
+ * Drops rows whose sequencer is not newer than the highest sequencer already seen for the same primary key, i.e.
+ * reordered or replayed events that would otherwise overwrite newer data in the table.
+ * <p>
+ * Must be applied to a stream keyed with the {@link PrimaryKeySelector}.  The highest sequencer is kept, encoded by
+ * {@link Sequencers}, for the configured time to live after it was last written, so events older than that can no
+ * longer be recognized as stale.
+ */
+public class StaleEventFilter extends RichFilterFunction<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private final int sequencerIndex;
+    private final Duration stateTtl;
+
+    private transient ValueState<byte[]> highestSequencer;
+    private transient Counter staleEvents;
+
+    public StaleEventFilter(Schema tableSchema, Duration stateTtl) {
+        this.sequencerIndex = ImageColumn.SEQUENCER.indexIn(tableSchema);
+        this.stateTtl = stateTtl;
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        ValueStateDescriptor<byte[]> descriptor =
+                new ValueStateDescriptor<>("highestSequencer", PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO);
+        descriptor.enableTimeToLive(StateTtlConfig.newBuilder(stateTtl).build());
+        highestSequencer = getRuntimeContext().getState(descriptor);
+        staleEvents = getRuntimeContext().getMetricGroup().counter("staleEventsDropped");
+    }
+
+    @Override
+    public boolean filter(RowData row) throws Exception {
+        if (row.isNullAt(sequencerIndex)) {
+            return true;
+        }
+
+        byte[] sequencer = Sequencers.encode(row.getString(sequencerIndex).toString());
+        byte[] highest = highestSequencer.value();
+        if (highest != null && Sequencers.compare(sequencer, highest) <= 0) {
+            staleEvents.inc();
+            return false;
+        }
+        highestSequencer.update(sequencer);
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.functions.RichFilterFunction;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.binary.BinarySegmentUtils;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.TimeUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Drops rows that would write exactly what the table already holds for their primary key, such as an item rewritten
+ * by the extraction Lambda after reprocessing an object that hasn't changed, which would otherwise cost an equality
+ * delete and an insert each.
+ * <p>
+ * A 64-bit fingerprint of the last row written for each key is kept, taken over every column but the ignored ones,
+ * for the configured time to live after it was last written.  The {@code sequencer} and {@code lastModified} are
+ * ignored by default, as every event moves them forward, so that an object notified again without changing is
+ * dropped, which leaves the table with the sequencer and event time of the first of those events.  A delete is always
+ * passed on, and forgets the fingerprint, so that the object is written again when it is recreated.
+ * <p>
+ * Must be applied to a stream keyed with the {@link PrimaryKeySelector}.
+ */
+public class UnchangedRowFilter extends RichFilterFunction<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private final RowType fingerprintType;
+    private final RowData.FieldGetter[] fieldGetters;
+    private final Duration stateTtl;
+
+    private transient ValueState<Long> fingerprint;
+    private transient RowDataSerializer serializer;
+    private transient GenericRowData fingerprinted;
+    private transient Counter unchangedRows;
+
+    /**
+     * @param ignoredColumns the columns whose changes alone don't make a row worth writing.
+     * @throws IllegalArgumentException if the table has no such column.
+     */
+    public UnchangedRowFilter(Schema tableSchema, Set<String> ignoredColumns, Duration stateTtl) {
+        RowType rowType = TableSchemaGenerator.toRowType(tableSchema);
+        for (String column : ignoredColumns) {
+            if (!rowType.getFieldNames().contains(column)) {
+                throw new IllegalArgumentException("Table schema has no column: " + column);
+            }
+        }
+
+        List<RowType.RowField> fields = new ArrayList<>();
+        List<RowData.FieldGetter> getters = new ArrayList<>();
+        for (int i = 0; i < rowType.getFieldCount(); i++) {
+            RowType.RowField field = rowType.getFields().get(i);
+            if (!ignoredColumns.contains(field.getName())) {
+                fields.add(field);
+                getters.add(RowData.createFieldGetter(field.getType(), i));
+            }
+        }
+        this.fingerprintType = new RowType(fields);
+        this.fieldGetters = getters.toArray(RowData.FieldGetter[]::new);
+        this.stateTtl = stateTtl;
+    }
+
+    /**
+     * @return the filter configured by the {@code stream} property group, or null if unchanged rows are written.
+     * @throws IllegalArgumentException if an ignored column is not in the table.
+     */
+    public static UnchangedRowFilter fromConfig(Map<String, Properties> config, Schema tableSchema) {
+        if (!Boolean.parseBoolean(UNCHANGED_ROW_FILTER.get(config))) {
+            return null;
+        }
+        return new UnchangedRowFilter(
+                tableSchema,
+                Arrays.stream(UNCHANGED_ROW_IGNORED_COLUMNS.get(config).split(","))
+                        .map(String::trim)
+                        .filter(x -> !x.isEmpty())
+                        .collect(Collectors.toSet()),
+                TimeUtils.parseDuration(UNCHANGED_ROW_STATE_TTL.get(config)));
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        ValueStateDescriptor<Long> descriptor = new ValueStateDescriptor<>("fingerprint", Types.LONG);
+        descriptor.enableTimeToLive(StateTtlConfig.newBuilder(stateTtl).build());
+        fingerprint = getRuntimeContext().getState(descriptor);
+        serializer = InternalTypeInfo.of(fingerprintType).toRowSerializer();
+        fingerprinted = new GenericRowData(fieldGetters.length);
+        unchangedRows = getRuntimeContext().getMetricGroup().counter("unchangedRowsDropped");
+    }
+
+    @Override
+    public boolean filter(RowData row) throws Exception {
+        if (row.getRowKind() == RowKind.DELETE) {
+            fingerprint.clear();
+            return true;
+        }
+
+        long current = fingerprint(row);
+        Long previous = fingerprint.value();
+        if (previous != null && previous == current) {
+            unchangedRows.inc();
+            return false;
+        }
+        fingerprint.update(current);
+        return true;
+    }
+
+    private long fingerprint(RowData row) {
+        for (int i = 0; i < fieldGetters.length; i++) {
+            fingerprinted.setField(i, fieldGetters[i].getFieldOrNull(row));
+        }
+        // The binary form of a row only depends on its values, whatever form it arrived in.
+        BinaryRowData binary = serializer.toBinaryRow(fingerprinted);
+        return hash(BinarySegmentUtils.copyToBytes(binary.getSegments(), binary.getOffset(), binary.getSizeInBytes()));
+    }
+
+    /**
+     * @return a 64-bit hash of the bytes, which mixes in each 8 byte word in turn with the finalizer of SplitMix64.
+     */
+    static long hash(byte[] bytes) {
+        ByteBuffer words = ByteBuffer.wrap(bytes);
+        long hash = bytes.length;
+        int i = 0;
+        for (; i + Long.BYTES <= bytes.length; i += Long.BYTES) {
+            hash = mix(hash ^ words.getLong(i));
+        }
+        long tail = 0;
+        for (; i < bytes.length; i++) {
+            tail = tail << 8 | (bytes[i] & 0xFF);
+        }
+        return mix(hash ^ tail);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
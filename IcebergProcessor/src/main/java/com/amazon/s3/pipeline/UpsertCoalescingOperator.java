@@ -0,0 +1,116 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.BoundedOneInput;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Buffers rows by primary key between checkpoints, so that an object updated many times within a checkpoint interval
+ * results in a single upsert (one equality delete and one insert) rather than one per update.
+ * <p>
+ * The latest row for each key replaces any buffered one, and the buffer is emitted just before each checkpoint
+ * barrier, so it never needs to be part of the operator's state.  It is also emitted early when it reaches its
+ * maximum size, and at the end of input.
+ * <p>
+ * All rows for a key must reach the same subtask, so the input has to be partitioned with the
+ * {@link PrimaryKeySelector}.  Rows are emitted behind the watermark, which is of no consequence to the Iceberg sink
+ * this operator feeds.
+ */
+public class UpsertCoalescingOperator extends AbstractStreamOperator<RowData>
+        implements OneInputStreamOperator<RowData, RowData>, BoundedOneInput {
+    private static final long serialVersionUID = 1L;
+
+    private final PrimaryKeySelector keySelector;
+    private final RowType rowType;
+    private final int maxBufferedRows;
+
+    private transient Map<String, StreamRecord<RowData>> buffer;
+    private transient TypeSerializer<RowData> copier;
+    private transient Counter coalescedRows;
+    private transient Counter earlyFlushes;
+
+    public UpsertCoalescingOperator(Schema tableSchema, int maxBufferedRows) {
+        if (maxBufferedRows < 1) {
+            throw new IllegalArgumentException("The coalescing buffer must hold at least one row");
+        }
+        this.keySelector = new PrimaryKeySelector(tableSchema);
+        this.rowType = TableSchemaGenerator.toRowType(tableSchema);
+        this.maxBufferedRows = maxBufferedRows;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        buffer = new LinkedHashMap<>();
+        if (getExecutionConfig().isObjectReuseEnabled()) {
+            copier = InternalTypeInfo.of(rowType).toRowSerializer();
+        }
+        coalescedRows = getMetricGroup().counter("coalescedRows");
+        earlyFlushes = getMetricGroup().counter("coalescingBufferEarlyFlushes");
+        getMetricGroup().gauge("coalescingBufferSize", () -> buffer.size());
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) throws Exception {
+        RowData row = copier == null ? element.getValue() : copier.copy(element.getValue());
+        StreamRecord<RowData> record = element.hasTimestamp()
+                ? new StreamRecord<>(row, element.getTimestamp())
+                : new StreamRecord<>(row);
+
+        // Removing first moves the key to the end, so rows are emitted in the order of their last update.
+        String key = keySelector.getKey(row);
+        if (buffer.remove(key) != null) {
+            coalescedRows.inc();
+        }
+        buffer.put(key, record);
+
+        if (buffer.size() >= maxBufferedRows) {
+            earlyFlushes.inc();
+            flush();
+        }
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        super.prepareSnapshotPreBarrier(checkpointId);
+        flush();
+    }
+
+    @Override
+    public void endInput() {
+        flush();
+    }
+
+    private void flush() {
+        buffer.values().forEach(output::collect);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.flink.FlinkSchemaUtil;
+import org.apache.iceberg.types.Types;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * The optional table of the {@link com.amazon.s3.model.DeadLetter}s of the job, named by {@code dead_letters.table}.
+ * Rows are only ever appended, and partitioned by the day they failed on, so old dead letters can be dropped by
+ * partition.
+ */
+public final class DeadLetterTable {
+    private static final Logger LOG = LogManager.getLogger(DeadLetterTable.class);
+
+    public static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "failed_at", Types.TimestampType.withZone()),
+            Types.NestedField.required(2, "stage", Types.StringType.get()),
+            Types.NestedField.required(3, "error_class", Types.StringType.get()),
+            Types.NestedField.optional(4, "error_message", Types.StringType.get()),
+            Types.NestedField.optional(5, "shard_id", Types.StringType.get()),
+            Types.NestedField.optional(6, "sequence_number", Types.StringType.get()),
+            Types.NestedField.optional(7, "record", Types.StringType.get()));
+    public static final RowType ROW_TYPE = FlinkSchemaUtil.convert(SCHEMA);
+
+    private DeadLetterTable() {
+    }
+
+    /**
+     * Creates the table if needed, in the database of the job's table.
+     *
+     * @return the identifier of the table.
+     */
+    public static TableIdentifier prepare(Catalog catalog, Map<String, Properties> config) {
+        TableIdentifier identifier = TableIdentifier.of(DATABASE_NAME.get(config), DEAD_LETTER_TABLE.get(config));
+        if (!catalog.tableExists(identifier)) {
+            LOG.info("Creating the dead letter table {}", identifier);
+            catalog.createTable(identifier, SCHEMA, PartitionSpec.builderFor(SCHEMA).day("failed_at").build(),
+                    Map.of(TableProperties.FORMAT_VERSION, "2"));
+        }
+        return identifier;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.flink.connector.datagen.source.GeneratorFunction;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.Path;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A JSON object of {@code schema} properties, e.g. {@code custom_metadata_fields} and the {@code field.<name>.type} and
+ * {@code field.<name>.jpath} of each field, kept in a file outside of the application properties so that fields can be
+ * changed while the job runs.  The file is read with Flink's file systems, so it can be on S3 as well as local.
+ */
+public final class FieldsFile {
+    private static final Logger LOG = LogManager.getLogger(FieldsFile.class);
+
+    private FieldsFile() {
+    }
+
+    public static String read(String path) throws IOException {
+        Path file = new Path(path);
+        try (FSDataInputStream in = file.getFileSystem().open(file)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the content is not a JSON object of scalar values.
+     */
+    public static Properties parse(String content) {
+        JsonElement json = JsonParser.parseString(content);
+        if (!json.isJsonObject()) {
+            throw new IllegalArgumentException("The fields file must hold a JSON object of schema properties");
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, JsonElement> property : json.getAsJsonObject().entrySet()) {
+            if (!property.getValue().isJsonPrimitive()) {
+                throw new IllegalArgumentException("Schema property " + property.getKey() + " must be a string: " + property.getValue());
+            }
+            properties.setProperty(property.getKey(), property.getValue().getAsString());
+        }
+        return properties;
+    }
+
+    /**
+     * @return a copy of the configuration with the given properties overriding those of the {@code schema} group.
+     */
+    public static Map<String, Properties> applyTo(Map<String, Properties> config, Properties schemaProperties) {
+        Map<String, Properties> result = new HashMap<>(config);
+        Properties schema = new Properties();
+        if (config.containsKey("schema")) {
+            schema.putAll(config.get("schema"));
+        }
+        schema.putAll(schemaProperties);
+        result.put("schema", schema);
+        return result;
+    }
+
+    /**
+     * Reads the file every time it is asked for an element, for a generator source polling it at a fixed rate.  Emits
+     * an empty string while the file can't be read, so a missing file or a failing read doesn't fail the job.
+     */
+    public static class Poller implements GeneratorFunction<Long, String> {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        public Poller(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public String map(Long index) {
+            try {
+                return read(path);
+            } catch (IOException e) {
+                LOG.warn("Could not read the fields file {}", path, e);
+                return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.amazon.s3.extraction.ExtractionPlan;
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.util.Collector;
+import org.apache.iceberg.flink.FlinkSchemaUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Checks each new version of the {@link FieldsFile} against the columns the job writes, and passes it on to the row
+ * mappers when they can apply it.
+ * <p>
+ * The Iceberg sink writes the columns the table had when the job started, so while the job runs a version can only
+ * change the JsonPath expressions of its fields.  A version that adds a field, or changes the type of one, is rejected
+ * rather than adding a column the job would leave null or promoting a column under the running writers.  The next
+ * restart reads the file again and brings the table in line with it, see {@link SchemaEvolution}.
+ * <p>
+ * A version that is rejected, or can't be parsed, is logged, counted as {@code rejectedFieldsFiles} and not passed on,
+ * so a mistake in the file leaves the job running with the fields it had.  Must run with a parallelism of 1.
+ */
+public class FieldsFileValidator extends RichFlatMapFunction<String, String> {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LogManager.getLogger(FieldsFileValidator.class);
+
+    private final HashMap<String, Properties> config;
+    private final HashMap<String, LogicalType> columnTypes = new HashMap<>();
+
+    private transient String current;
+    private transient Counter rejectedFieldsFiles;
+
+    /**
+     * @param config the configuration the job started with.
+     * @param tableSchema the columns the job writes, as given by {@link SchemaEvolution#getTableSchema}.
+     */
+    public FieldsFileValidator(Map<String, Properties> config, Schema tableSchema) {
+        this.config = new HashMap<>(config);
+        for (Schema.UnresolvedColumn column : tableSchema.getColumns()) {
+            columnTypes.put(column.getName(), tableType(column));
+        }
+    }
+
+    @Override
+    public void open(OpenContext openContext) {
+        rejectedFieldsFiles = getRuntimeContext().getMetricGroup().counter("rejectedFieldsFiles");
+    }
+
+    @Override
+    public void flatMap(String content, Collector<String> output) {
+        if (content.isBlank() || content.equals(current)) {
+            return;
+        }
+        current = content;
+
+        try {
+            validate(content);
+        } catch (RuntimeException e) {
+            LOG.error("Ignoring the new version of the fields file, keeping the current fields", e);
+            rejectedFieldsFiles.inc();
+            return;
+        }
+        output.collect(content);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the version adds a field or changes the type of one.
+     * @throws RuntimeException if the version can't be parsed, or one of its expressions compiled.
+     */
+    void validate(String content) {
+        Map<String, Properties> updated = FieldsFile.applyTo(config, FieldsFile.parse(content));
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(updated);
+        Schema configuredSchema = TableSchemaGenerator.generate(updated, entries);
+        // Compiling the plan validates the expressions before any mapper sees them.
+        ExtractionPlan.compile(configuredSchema, entries);
+
+        List<String> changes = new ArrayList<>();
+        for (Schema.UnresolvedColumn column : configuredSchema.getColumns()) {
+            LogicalType current = columnTypes.get(column.getName());
+            LogicalType configured = tableType(column);
+            if (current == null) {
+                changes.add("adds " + column.getName());
+            } else if (!current.equals(configured)) {
+                changes.add("changes " + column.getName() + " from " + current.asSummaryString() + " to " + configured.asSummaryString());
+            }
+        }
+        if (!changes.isEmpty()) {
+            throw new IllegalArgumentException("The fields file " + String.join(", ", changes)
+                    + ", but only JsonPath expressions can change while the job runs, restart it to apply the new version");
+        }
+    }
+
+    /**
+     * @return the type of the column as the table stores it, nullable, so configured and table types compare equal.
+     */
+    private static LogicalType tableType(Schema.UnresolvedColumn column) {
+        LogicalType type = ((DataType) ((Schema.UnresolvedPhysicalColumn) column).getDataType()).getLogicalType();
+        return FlinkSchemaUtil.convert(FlinkSchemaUtil.convert(type)).copy(true);
+    }
+}
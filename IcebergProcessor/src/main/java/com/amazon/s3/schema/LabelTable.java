@@ -0,0 +1,90 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.flink.FlinkSchemaUtil;
+import org.apache.iceberg.types.Types;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * The optional table of the labels of the objects, with a row per object, label and parent of the label, configured by
+ * the {@code labels} property group.  It serves as an index of the objects by label, sorted by label by default, so
+ * label queries don't have to scan and explode the labels of every object.
+ * <p>
+ * Rows are replaced and deleted by {@link #KEY_COLUMNS}, the table's primary key.  A label without parents has the
+ * {@link #NO_PARENT} parent rather than a null one, as equality deletes need every key column to have a value.
+ */
+public final class LabelTable {
+    private static final Logger LOG = LogManager.getLogger(LabelTable.class);
+
+    public static final List<String> KEY_COLUMNS = List.of("bucket", "key", "label", "parent");
+    public static final String NO_PARENT = "";
+    public static final Schema SCHEMA = new Schema(
+            List.of(
+                    Types.NestedField.required(1, "bucket", Types.StringType.get()),
+                    Types.NestedField.required(2, "key", Types.StringType.get()),
+                    Types.NestedField.required(3, "label", Types.StringType.get()),
+                    Types.NestedField.required(4, "parent", Types.StringType.get()),
+                    Types.NestedField.optional(5, "confidence", Types.DoubleType.get())),
+            Set.of(1, 2, 3, 4));
+    public static final RowType ROW_TYPE = FlinkSchemaUtil.convert(SCHEMA);
+
+    private LabelTable() {
+    }
+
+    /**
+     * Creates the table if needed, in the database of the job's table, and applies the configured layout.
+     *
+     * @return the identifier of the table.
+     * @throws IllegalArgumentException if an existing table allows null parents, as tables written before parents
+     * were required do.
+     */
+    public static TableIdentifier prepare(Catalog catalog, Map<String, Properties> config) {
+        TableIdentifier identifier = TableIdentifier.of(DATABASE_NAME.get(config), LABEL_TABLE.get(config));
+        TableLayout layout = TableLayout.of(LABEL_PARTITION_SPEC.get(config), LABEL_SORT_ORDER.get(config), KEY_COLUMNS);
+
+        Table table;
+        if (catalog.tableExists(identifier)) {
+            table = catalog.loadTable(identifier);
+            if (table.schema().findField("parent").isOptional()) {
+                throw new IllegalArgumentException("The label table " + identifier + " has null parents, which its rows "
+                        + "can't be deleted by, drop it to have it created again with required parents");
+            }
+        } else {
+            LOG.info("Creating the label table {}", identifier);
+            table = catalog.createTable(identifier, SCHEMA, PartitionSpec.unpartitioned(), Map.of(TableProperties.FORMAT_VERSION, "2"));
+        }
+        layout.apply(table);
+        return identifier;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.utils.LogicalTypeDataTypeConverter;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.UpdateSchema;
+import org.apache.iceberg.flink.FlinkSchemaUtil;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.TypeUtil;
+import org.apache.iceberg.types.Types;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings the columns of an existing table in line with the configured schema, which {@code CREATE TABLE IF NOT EXISTS}
+ * leaves alone, and describes the rows to write to the table once it has been updated.
+ * <p>
+ * Missing columns are added as optional columns, and columns whose type can be promoted in place, such as
+ * {@code INTEGER} to {@code BIGINT}, {@code FLOAT} to {@code DOUBLE} or a wider {@code DECIMAL}, are promoted.  Columns
+ * the configuration no longer has are kept and left null, so no data is ever dropped.  The Iceberg sink writes rows
+ * with every column of the table in table order, which {@link #getTableSchema} gives.
+ */
+public class SchemaEvolution {
+    private static final Logger LOG = LogManager.getLogger(SchemaEvolution.class);
+
+    private final Schema tableSchema;
+    private final List<TableSchemaGenerator.SchemaEntry> customMetadataEntries;
+    private final List<String> changes;
+
+    private SchemaEvolution(Schema tableSchema, List<TableSchemaGenerator.SchemaEntry> customMetadataEntries, List<String> changes) {
+        this.tableSchema = tableSchema;
+        this.customMetadataEntries = customMetadataEntries;
+        this.changes = changes;
+    }
+
+    /**
+     * @param table the table to update.
+     * @param configuredSchema the configured schema, as produced by {@link TableSchemaGenerator#generate}.
+     * @param configuredEntries the configured custom metadata fields.
+     * @throws ValidationException if a column of the table has a type that can't be changed to the configured one.
+     */
+    public static SchemaEvolution apply(Table table, Schema configuredSchema, List<TableSchemaGenerator.SchemaEntry> configuredEntries) {
+        org.apache.iceberg.Schema current = table.schema();
+        UpdateSchema update = table.updateSchema();
+        List<String> changes = new ArrayList<>();
+        Set<String> configuredColumns = new HashSet<>();
+
+        for (Schema.UnresolvedColumn column : configuredSchema.getColumns()) {
+            String name = column.getName();
+            configuredColumns.add(name);
+            LogicalType configuredType = ((DataType) ((Schema.UnresolvedPhysicalColumn) column).getDataType()).getLogicalType();
+            Type targetType = FlinkSchemaUtil.convert(configuredType);
+            Types.NestedField existing = current.findField(name);
+
+            if (existing == null) {
+                update.addColumn(name, targetType);
+                changes.add("added column " + name + " " + configuredType.copy(true).asSummaryString());
+            } else if (!sameType(existing.type(), targetType)) {
+                if (!existing.type().isPrimitiveType() || !targetType.isPrimitiveType()
+                        || !TypeUtil.isPromotionAllowed(existing.type(), targetType.asPrimitiveType())) {
+                    throw new ValidationException(String.format(
+                            "Column %s of table %s is %s, which can't be changed to %s", name, table.name(), existing.type(), targetType));
+                }
+                update.updateColumn(name, targetType.asPrimitiveType());
+                changes.add("promoted column " + name + " from " + existing.type() + " to " + targetType);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            update.commit();
+            table.refresh();
+            LOG.info("Updated the schema of table {}: {}", table.name(), String.join(", ", changes));
+        }
+
+        Schema.Builder tableSchema = Schema.newBuilder();
+        List<TableSchemaGenerator.SchemaEntry> entries = new ArrayList<>(configuredEntries);
+        for (Types.NestedField field : table.schema().columns()) {
+            DataType type = LogicalTypeDataTypeConverter.toDataType(FlinkSchemaUtil.convert(field.type()).copy(field.isOptional()));
+            tableSchema.column(field.name(), type);
+            if (!configuredColumns.contains(field.name())) {
+                entries.add(new TableSchemaGenerator.SchemaEntry(field.name(), type, null));
+            }
+        }
+        return new SchemaEvolution(tableSchema.build(), entries, changes);
+    }
+
+    /**
+     * @return the columns of the table, in table order, with their types in the table.
+     */
+    public Schema getTableSchema() {
+        return tableSchema;
+    }
+
+    /**
+     * @return the configured custom metadata fields, and a field without a JsonPath expression for each column of the
+     * table the configuration doesn't have, which leaves it null.
+     */
+    public List<TableSchemaGenerator.SchemaEntry> getCustomMetadataEntries() {
+        return customMetadataEntries;
+    }
+
+    /**
+     * @return a description of each change made to the table, empty if it already had every column.
+     */
+    public List<String> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Compares types through their Flink equivalents, as the field ids of nested Iceberg types differ between a table
+     * and a freshly converted type.
+     */
+    private static boolean sameType(Type existing, Type target) {
+        return FlinkSchemaUtil.convert(existing).copy(true).equals(FlinkSchemaUtil.convert(target).copy(true));
+    }
+}
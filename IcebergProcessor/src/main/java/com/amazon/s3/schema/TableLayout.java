@@ -0,0 +1,267 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.amazon.s3.extraction.ImageColumn;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.iceberg.NullOrder;
+import org.apache.iceberg.PartitionField;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.SortOrder;
+import org.apache.iceberg.SortOrderBuilder;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.UpdatePartitionSpec;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.expressions.Term;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.PARTITION_SPEC;
+import static com.amazon.s3.configuration.ConfigurationProperties.SORT_ORDER;
+
+/**
+ * The partition spec and write sort order of the table, which Flink's CREATE TABLE statement can't express, applied
+ * through the Iceberg API once the table exists.
+ * <p>
+ * Both are given as comma separated lists of terms, each a column name or an Iceberg transform of one:
+ * {@code identity(col)}, {@code bucket(N, col)}, {@code truncate(W, col)}, {@code years(col)}, {@code months(col)},
+ * {@code days(col)} or {@code hours(col)}.  Sort order terms may be followed by {@code ASC} or {@code DESC} and
+ * {@code NULLS FIRST} or {@code NULLS LAST}, e.g. {@code "bucket, key DESC NULLS LAST"}.
+ * <p>
+ * Rows are upserted by primary key, and the sink only deletes the previous version of a row within the partition of the
+ * new one, so partitions can only be derived from primary key columns.
+ */
+public class TableLayout {
+    private static final Logger LOG = LogManager.getLogger(TableLayout.class);
+
+    private static final List<String> PRIMARY_KEY = List.of(ImageColumn.BUCKET.columnName, ImageColumn.KEY.columnName);
+    private static final Pattern TERM = Pattern.compile(
+            "(?:(\\w+)\\(\\s*(?:(\\d+)\\s*,\\s*)?(\\w+)\\s*\\)|(\\w+))" +
+            "(?:\\s+(ASC|DESC))?(?:\\s+NULLS\\s+(FIRST|LAST))?",
+            Pattern.CASE_INSENSITIVE);
+
+    private final List<Field> partitionFields;
+    private final List<Field> sortFields;
+
+    TableLayout(List<Field> partitionFields, List<Field> sortFields) {
+        this.partitionFields = partitionFields;
+        this.sortFields = sortFields;
+    }
+
+    /**
+     * @return the configured layout; null lists mean the corresponding property isn't set and is left as it is.
+     * @throws ValidationException if a term can't be parsed, or partitions the table by a non primary key column.
+     */
+    public static TableLayout fromConfig(Map<String, Properties> config) {
+        return of(PARTITION_SPEC.get(config), SORT_ORDER.get(config), PRIMARY_KEY);
+    }
+
+    /**
+     * @param partitionSpec the partition spec terms, or null to leave the spec as it is.
+     * @param sortOrder the sort order terms, or null to leave the sort order as it is.
+     * @param keyColumns the columns rows are replaced and deleted by, which partitions must be derived from.
+     * @throws ValidationException if a term can't be parsed, or partitions the table by a column not in the key.
+     */
+    public static TableLayout of(String partitionSpec, String sortOrder, List<String> keyColumns) {
+        List<Field> partitionFields = parse(partitionSpec, false);
+        if (partitionFields != null) {
+            for (Field field : partitionFields) {
+                if (!keyColumns.contains(field.column)) {
+                    throw new ValidationException(String.format(
+                            "Can't partition by %s: partitions can only be derived from the primary key columns %s, " +
+                            "as upserts only replace rows within the partition of the new row", field, keyColumns));
+                }
+            }
+        }
+        return new TableLayout(partitionFields, parse(sortOrder, true));
+    }
+
+    static List<Field> parse(String terms, boolean ordered) {
+        if (terms == null) {
+            return null;
+        }
+        if (terms.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(terms.split(",(?![^(]*\\))"))
+                .map(String::trim)
+                .map(x -> Field.parse(x, ordered))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Evolves the table's partition spec and replaces its sort order, where they differ from the configured ones.
+     * Existing data files keep the layout they were written with.
+     */
+    public void apply(Table table) {
+        if (partitionFields != null) {
+            applyPartitionSpec(table);
+        }
+        if (sortFields != null) {
+            applySortOrder(table);
+        }
+    }
+
+    private void applyPartitionSpec(Table table) {
+        PartitionSpec.Builder builder = PartitionSpec.builderFor(table.schema());
+        partitionFields.forEach(x -> x.addTo(builder));
+        PartitionSpec target = builder.build();
+        if (sameFields(table.spec(), target)) {
+            return;
+        }
+
+        LOG.info("Evolving the partition spec of {} from {} to {}", table.name(), table.spec(), target);
+        UpdatePartitionSpec update = table.updateSpec();
+        for (PartitionField current : table.spec().fields()) {
+            if (target.fields().stream().noneMatch(x -> sameField(current, x))) {
+                update.removeField(current.name());
+            }
+        }
+        for (int i = 0; i < target.fields().size(); i++) {
+            PartitionField wanted = target.fields().get(i);
+            if (table.spec().fields().stream().noneMatch(x -> sameField(wanted, x))) {
+                update.addField(partitionFields.get(i).term());
+            }
+        }
+        update.commit();
+    }
+
+    private void applySortOrder(Table table) {
+        SortOrder target = addTo(SortOrder.builderFor(table.schema())).build();
+        if (table.sortOrder().sameOrder(target)) {
+            return;
+        }
+
+        LOG.info("Replacing the sort order of {} from {} to {}", table.name(), table.sortOrder(), target);
+        addTo(table.replaceSortOrder()).commit();
+    }
+
+    private <T extends SortOrderBuilder<T>> T addTo(T builder) {
+        for (Field field : sortFields) {
+            builder = field.descending
+                    ? builder.desc(field.term(), field.nullOrder)
+                    : builder.asc(field.term(), field.nullOrder);
+        }
+        return builder;
+    }
+
+    private static boolean sameFields(PartitionSpec current, PartitionSpec target) {
+        if (current.fields().size() != target.fields().size()) {
+            return false;
+        }
+        for (int i = 0; i < current.fields().size(); i++) {
+            if (!sameField(current.fields().get(i), target.fields().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameField(PartitionField a, PartitionField b) {
+        return a.sourceId() == b.sourceId() && a.transform().toString().equals(b.transform().toString());
+    }
+
+    /**
+     * A single, possibly transformed, column of a partition spec or sort order.
+     */
+    static final class Field {
+        final String transform;
+        final Integer argument;
+        final String column;
+        final boolean descending;
+        final NullOrder nullOrder;
+
+        Field(String transform, Integer argument, String column, boolean descending, NullOrder nullOrder) {
+            this.transform = transform;
+            this.argument = argument;
+            this.column = column;
+            this.descending = descending;
+            this.nullOrder = nullOrder;
+        }
+
+        static Field parse(String term, boolean ordered) {
+            Matcher matcher = TERM.matcher(term);
+            if (!matcher.matches() || (!ordered && (matcher.group(5) != null || matcher.group(6) != null))) {
+                throw new ValidationException("Invalid " + (ordered ? "sort order" : "partition") + " term: " + term);
+            }
+            if (matcher.group(4) != null) {
+                return new Field("identity", null, matcher.group(4), isDescending(matcher), nullOrder(matcher));
+            }
+
+            String transform = matcher.group(1).toLowerCase(Locale.ROOT);
+            boolean takesArgument = transform.equals("bucket") || transform.equals("truncate");
+            boolean known = takesArgument || List.of("identity", "years", "months", "days", "hours").contains(transform);
+            if (!known || takesArgument != (matcher.group(2) != null)) {
+                throw new ValidationException("Invalid transform: " + term);
+            }
+            Integer argument = takesArgument ? Integer.valueOf(matcher.group(2)) : null;
+            return new Field(transform, argument, matcher.group(3), isDescending(matcher), nullOrder(matcher));
+        }
+
+        private static boolean isDescending(Matcher matcher) {
+            return "DESC".equalsIgnoreCase(matcher.group(5));
+        }
+
+        private static NullOrder nullOrder(Matcher matcher) {
+            if (matcher.group(6) == null) {
+                // Iceberg's default: nulls are smallest.
+                return isDescending(matcher) ? NullOrder.NULLS_LAST : NullOrder.NULLS_FIRST;
+            }
+            return "FIRST".equalsIgnoreCase(matcher.group(6)) ? NullOrder.NULLS_FIRST : NullOrder.NULLS_LAST;
+        }
+
+        Term term() {
+            switch (transform) {
+                case "bucket": return Expressions.bucket(column, argument);
+                case "truncate": return Expressions.truncate(column, argument);
+                case "years": return Expressions.year(column);
+                case "months": return Expressions.month(column);
+                case "days": return Expressions.day(column);
+                case "hours": return Expressions.hour(column);
+                default: return Expressions.ref(column);
+            }
+        }
+
+        void addTo(PartitionSpec.Builder builder) {
+            switch (transform) {
+                case "bucket": builder.bucket(column, argument); break;
+                case "truncate": builder.truncate(column, argument); break;
+                case "years": builder.year(column); break;
+                case "months": builder.month(column); break;
+                case "days": builder.day(column); break;
+                case "hours": builder.hour(column); break;
+                default: builder.identity(column);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return argument == null ? transform + "(" + column + ")" : transform + "(" + argument + ", " + column + ")";
+        }
+    }
+}
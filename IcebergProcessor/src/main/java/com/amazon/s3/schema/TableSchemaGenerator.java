@@ -17,6 +17,8 @@
  */
 package com.amazon.s3.schema;
 
+import com.amazon.s3.enrichment.ObjectAttributes;
+import com.amazon.s3.extraction.RawMetadataFormat;
 import org.apache.flink.table.api.DataTypes;
 import org.apache.flink.table.api.Schema;
 import org.apache.flink.table.types.DataType;
@@ -41,7 +43,7 @@ public class TableSchemaGenerator {
                 .column("etag", DataTypes.STRING());
 
         if (INCLUDE_RAW_METADATA.get(config).equalsIgnoreCase("true")) {
-            builder.column("metadata", DataTypes.STRING());
+            builder.column("metadata", RawMetadataFormat.columnType(config));
         }
         builder.column("lastModified", DataTypes.TIMESTAMP());
 
@@ -55,25 +57,63 @@ public class TableSchemaGenerator {
      * Fields names are defined by a comma-delimited list in the 'custom_metadata_fields' property entry.  Then, for
      * each custom metadata field defined in that list, two properties are expected: field.<name>.type and
      * field.<name>.jpath.
+     * <p>
+     * The columns filled by the {@link com.amazon.s3.enrichment.ObjectEnricher} follow: their names are listed in the
+     * 'columns' property of the 'enrichment' group, and each has an enrichment.column.<name>.attribute and an
+     * optional enrichment.column.<name>.type, STRING by default.
      *
      * @param config
-     * @return a list of the elevated metadata fields
+     * @return a list of the elevated metadata fields, followed by the enriched columns
+     * @throws IllegalArgumentException if an enriched column has the name of a field, or an unknown attribute.
      */
     public static List<SchemaEntry> parseCustomMetadataFields(Map<String, Properties> config) {
+        List<SchemaEntry> entries = new ArrayList<>();
         String namesString = CUSTOM_METADATA_FIELDS.get(config);
-        if (namesString == null || namesString.isEmpty()) {
-            return Collections.emptyList();
+        if (namesString != null && !namesString.isEmpty()) {
+            Arrays.stream(namesString.split(","))
+                    .map(String::trim)
+                    .map((x) -> {
+                        String jpath = FIELD_JPATH.getParameterized(config, x);
+                        String dataTypeString = FIELD_TYPE.getParameterized(config, x);
+                        DataType type = determineDataType(dataTypeString);
+                        return new SchemaEntry(x, type, jpath);
+                    })
+                    .forEach(entries::add);
         }
 
-        return Arrays.stream(namesString.split(","))
-                .map(String::trim)
-                .map((x) -> {
-                    String jpath = FIELD_JPATH.getParameterized(config, x);
-                    String dataTypeString = FIELD_TYPE.getParameterized(config, x);
-                    DataType type = determineDataType(dataTypeString);
-                    return new SchemaEntry(x, type, jpath);
-                })
-                .collect(Collectors.toList());
+        String enrichedColumns = ENRICHMENT_COLUMNS.get(config);
+        if (enrichedColumns != null && !enrichedColumns.isEmpty()) {
+            Set<String> fieldNames = entries.stream().map(x -> x.name).collect(Collectors.toSet());
+            Arrays.stream(enrichedColumns.split(","))
+                    .map(String::trim)
+                    .filter(x -> !x.isEmpty())
+                    .map((x) -> {
+                        if (fieldNames.contains(x)) {
+                            throw new IllegalArgumentException("Column " + x + " is both a custom metadata field and an enriched column");
+                        }
+                        String attribute = ENRICHMENT_ATTRIBUTE.getParameterized(config, x);
+                        ObjectAttributes.validate(attribute);
+                        DataType type = determineDataType(ENRICHMENT_TYPE.getParameterized(config, x));
+                        return new SchemaEntry(x, type, null, attribute);
+                    })
+                    .forEach(entries::add);
+        }
+        return entries;
+    }
+
+    /**
+     * Derives the logical row type of the table, i.e. the shape of the RowData written to it, from the schema.
+     *
+     * @param schema a schema produced by {@link #generate}
+     * @return the row type, with one field per column in schema order.
+     */
+    public static RowType toRowType(Schema schema) {
+        DataTypes.Field[] fields = schema.getColumns()
+                .stream()
+                .map(x -> (Schema.UnresolvedPhysicalColumn) x)
+                .map(x -> DataTypes.FIELD(x.getName(), (DataType) x.getDataType()))
+                .toArray(DataTypes.Field[]::new);
+        return (RowType) DataTypes.ROW(fields).getLogicalType();
     }
 
     private static DataType determineDataType(String datatypeName) throws RuntimeException {
@@ -96,8 +136,10 @@ public class TableSchemaGenerator {
         builder.append("  PRIMARY KEY(`bucket`, `key`) NOT ENFORCED\n)\n")
                 .append("WITH (\n")
                 .append("  'format-version'='2',\n")
-                .append("  'write.upsert.enabled'='true'\n")
-                .append(");");
+                .append("  'write.upsert.enabled'='true'");
+        WriteProperties.fromConfig(config, schema).forEach((key, value) ->
+                builder.append(String.format(",\n  '%s'='%s'", key, value)));
+        builder.append("\n);");
 
         return builder.toString();
     }
@@ -106,11 +148,20 @@ public class TableSchemaGenerator {
         public final String name;
         public final DataType type;
         public final String jpath;
+        /**
+         * The {@link ObjectAttributes object attribute} the column is filled with, or null for a metadata field.
+         */
+        public final String enrichment;
 
         public SchemaEntry(String name, DataType type, String jpath) {
+            this(name, type, jpath, null);
+        }
+
+        public SchemaEntry(String name, DataType type, String jpath, String enrichment) {
             this.name = name;
             this.type = type;
             this.jpath = jpath;
+            this.enrichment = enrichment;
         }
     }
 }
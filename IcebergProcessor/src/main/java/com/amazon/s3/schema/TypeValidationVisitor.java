@@ -22,9 +22,11 @@ import org.apache.flink.table.types.logical.*;
 import org.apache.flink.table.types.logical.utils.LogicalTypeDefaultVisitor;
 
 /**
- * The metadata conversion code only handles a small subset of the SQL type system.  In particular, it only supports
- * STRING, BOOLEAN, and INTEGER scalar types and the ARRAY container type.  This visitor is used to validate that the
- * custom schema configuration at least pays lip-service to this restriction.
+ * The metadata conversion code only handles a subset of the SQL type system: the STRING, BOOLEAN, INTEGER, BIGINT,
+ * DOUBLE, DECIMAL, TIMESTAMP and TIMESTAMP_LTZ scalar types, and the ARRAY, ROW and MAP (with string keys) container
+ * types.  This visitor is used to validate that the custom schema configuration stays within that subset.
+ *
+ * @see com.amazon.s3.extraction.ValueConverters
  */
 class TypeValidationVisitor extends LogicalTypeDefaultVisitor<Boolean> {
 
@@ -38,16 +40,56 @@ class TypeValidationVisitor extends LogicalTypeDefaultVisitor<Boolean> {
         return true;
     }
 
+    @Override
+    public Boolean visit(BigIntType bigIntType) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(DoubleType doubleType) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(DecimalType decimalType) {
+        return true;
+    }
+
     @Override
     public Boolean visit(VarCharType varCharType) {
         return true;
     }
 
+    @Override
+    public Boolean visit(TimestampType timestampType) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(LocalZonedTimestampType localZonedTimestampType) {
+        return true;
+    }
+
     @Override
     public Boolean visit(ArrayType arrayType) {
         return arrayType.getElementType().accept(this);
     }
 
+    @Override
+    public Boolean visit(RowType rowType) {
+        rowType.getChildren().forEach(x -> x.accept(this));
+        return true;
+    }
+
+    @Override
+    public Boolean visit(MapType mapType) {
+        // Map values are read from JSON objects, whose member names are always strings.
+        if (!mapType.getKeyType().is(LogicalTypeFamily.CHARACTER_STRING)) {
+            throw new ValidationException("Unsupported map key type, must be STRING: " + mapType);
+        }
+        return mapType.getValueType().accept(this);
+    }
+
     @Override
     protected Boolean defaultMethod(LogicalType logicalType) {
         throw new ValidationException("Unsupported data type: " + logicalType.toString());
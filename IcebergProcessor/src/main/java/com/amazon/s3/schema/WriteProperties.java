@@ -0,0 +1,189 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.iceberg.MetricsModes;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.UpdateProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * The Iceberg table properties controlling how data files are written: the Parquet codec, row group and page sizes,
+ * the target file size, and per column bloom filters and metrics modes.
+ * <p>
+ * Per column settings are given as {@code column.<name>.bloom_filter}, {@code column.<name>.bloom_filter_fpp} and
+ * {@code column.<name>.metrics_mode} in the {@code schema} property group, file settings in the {@code catalog} group.
+ */
+public class WriteProperties {
+    private static final Logger LOG = LogManager.getLogger(WriteProperties.class);
+
+    private static final String COLUMN_PREFIX = "column.";
+    private static final Set<String> CODECS = Set.of("zstd", "gzip", "snappy", "lz4", "brotli", "uncompressed");
+    private static final Set<LogicalTypeRoot> NESTED_TYPES = Set.of(LogicalTypeRoot.ARRAY, LogicalTypeRoot.MAP, LogicalTypeRoot.ROW);
+
+    private WriteProperties() {
+    }
+
+    /**
+     * @param tableSchema the schema of the table, which per column settings must refer to.
+     * @return the table properties to set, in a stable order.
+     * @throws ValidationException if a setting refers to an unknown column or has an invalid value.
+     */
+    public static Map<String, String> fromConfig(Map<String, Properties> config, Schema tableSchema) {
+        Map<String, String> properties = new LinkedHashMap<>();
+
+        String codec = COMPRESSION_CODEC.get(config);
+        if (codec != null) {
+            codec = codec.trim().toLowerCase(Locale.ROOT);
+            if (!CODECS.contains(codec)) {
+                throw new ValidationException("Unsupported compression codec: " + codec + ", expected one of " + CODECS);
+            }
+            properties.put(TableProperties.PARQUET_COMPRESSION, codec);
+        }
+        putNumber(properties, TableProperties.PARQUET_COMPRESSION_LEVEL, COMPRESSION_LEVEL.get(config), Integer.MIN_VALUE);
+        putNumber(properties, TableProperties.PARQUET_ROW_GROUP_SIZE_BYTES, ROW_GROUP_SIZE_BYTES.get(config), 1);
+        putNumber(properties, TableProperties.PARQUET_PAGE_SIZE_BYTES, PAGE_SIZE_BYTES.get(config), 1);
+        putNumber(properties, TableProperties.WRITE_TARGET_FILE_SIZE_BYTES, TABLE_TARGET_FILE_SIZE_BYTES.get(config), 1);
+        putMetricsMode(properties, TableProperties.DEFAULT_WRITE_METRICS_MODE, METRICS_MODE.get(config));
+
+        validateColumnSettings(config, tableSchema);
+        for (Schema.UnresolvedColumn column : tableSchema.getColumns()) {
+            String name = column.getName();
+            putMetricsMode(properties, TableProperties.METRICS_MODE_COLUMN_CONF_PREFIX + name, COLUMN_METRICS_MODE.getParameterized(config, name));
+
+            boolean bloomFilter = parseBoolean(COLUMN_PREFIX + name + ".bloom_filter",
+                    COLUMN_BLOOM_FILTER.getParameterized(config, name));
+            String fpp = COLUMN_BLOOM_FILTER_FPP.getParameterized(config, name);
+            if (!bloomFilter) {
+                if (fpp != null) {
+                    throw new ValidationException("A bloom filter false positive probability is set for column " + name + ", which has no bloom filter");
+                }
+                continue;
+            }
+            DataType type = (DataType) ((Schema.UnresolvedPhysicalColumn) column).getDataType();
+            if (NESTED_TYPES.contains(type.getLogicalType().getTypeRoot())) {
+                throw new ValidationException("Bloom filters are only supported on primitive columns, not on " + name + " " + type);
+            }
+            properties.put(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_ENABLED_PREFIX + name, "true");
+            if (fpp != null) {
+                double probability;
+                try {
+                    probability = Double.parseDouble(fpp.trim());
+                } catch (NumberFormatException e) {
+                    probability = Double.NaN;
+                }
+                if (!(probability > 0 && probability < 1)) {
+                    throw new ValidationException("Bloom filter false positive probability must be between 0 and 1, exclusive: " + fpp);
+                }
+                properties.put(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_FPP_PREFIX + name, fpp.trim());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Sets the given properties on an existing table, when they differ from its current ones.  Properties that are no
+     * longer configured are left as they are.
+     */
+    public static void apply(Table table, Map<String, String> properties) {
+        Map<String, String> changed = properties.entrySet()
+                .stream()
+                .filter(x -> !Objects.equals(table.properties().get(x.getKey()), x.getValue()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        LOG.info("Updating the write properties of {}: {}", table.name(), changed);
+        UpdateProperties update = table.updateProperties();
+        changed.forEach(update::set);
+        update.commit();
+    }
+
+    private static void validateColumnSettings(Map<String, Properties> config, Schema tableSchema) {
+        Properties schemaProperties = config.get("schema");
+        if (schemaProperties == null) {
+            return;
+        }
+        List<String> columns = tableSchema.getColumns().stream().map(Schema.UnresolvedColumn::getName).collect(Collectors.toList());
+        for (String property : schemaProperties.stringPropertyNames()) {
+            if (property.startsWith(COLUMN_PREFIX)) {
+                String column = property.substring(COLUMN_PREFIX.length(), Math.max(COLUMN_PREFIX.length(), property.lastIndexOf('.')));
+                if (!columns.contains(column)) {
+                    throw new ValidationException("Setting " + property + " refers to an unknown column, expected one of " + columns);
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws ValidationException if the value is neither {@code true} nor {@code false}, in any case.
+     */
+    private static boolean parseBoolean(String key, String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true": return true;
+            case "false": return false;
+            default: throw new ValidationException("Invalid value for " + key + ": " + value + ", expected true or false");
+        }
+    }
+
+    private static void putNumber(Map<String, String> properties, String key, String value, long minimum) {
+        if (value == null) {
+            return;
+        }
+        long number;
+        try {
+            number = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid value for " + key + ": " + value, e);
+        }
+        if (number < minimum) {
+            throw new ValidationException("Invalid value for " + key + ", must be at least " + minimum + ": " + value);
+        }
+        properties.put(key, Long.toString(number));
+    }
+
+    private static void putMetricsMode(Map<String, String> properties, String key, String mode) {
+        if (mode == null) {
+            return;
+        }
+        try {
+            MetricsModes.fromString(mode.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid metrics mode for " + key + ": " + mode + ", expected none, counts, truncate(N) or full", e);
+        }
+        properties.put(key, mode.trim());
+    }
+}
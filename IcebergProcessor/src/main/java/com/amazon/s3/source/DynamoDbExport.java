@@ -0,0 +1,200 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.flink.connector.file.src.FileSource;
+import org.apache.flink.connector.file.src.enumerate.NonSplittingRecursiveEnumerator;
+import org.apache.flink.connector.file.src.reader.TextLineInputFormat;
+import org.apache.flink.core.fs.Path;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Reads the items of a DynamoDB table export, in the DynamoDB JSON format, for backfilling the table.
+ * <p>
+ * An export is a directory of gzipped files, each holding one {@code {"Item": {...}}} object per line, next to the
+ * export's manifests.  Every file is read as one split, so the files are read in parallel.
+ */
+public final class DynamoDbExport {
+    public static final String JSON = "json";
+
+    private DynamoDbExport() {
+    }
+
+    /**
+     * @return a bounded source of the lines of the files under the comma separated {@code backfill.export_path}.
+     * @throws IllegalArgumentException if the export is not in the DynamoDB JSON format.
+     */
+    public static FileSource<String> createSource(Map<String, Properties> config) {
+        String format = BACKFILL_EXPORT_FORMAT.get(config).trim().toLowerCase(Locale.ROOT);
+        if (!JSON.equals(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format + ", only the DynamoDB JSON format ("
+                    + JSON + ") can be read, export the table with --export-format DYNAMODB_JSON");
+        }
+
+        Path[] paths = Arrays.stream(BACKFILL_EXPORT_PATH.get(config).split(","))
+                .map(String::trim)
+                .filter(x -> !x.isEmpty())
+                .map(Path::new)
+                .toArray(Path[]::new);
+        return FileSource.forRecordStreamFormat(new TextLineInputFormat(), paths)
+                .setFileEnumerator(() -> new NonSplittingRecursiveEnumerator(new ExportFileFilter()))
+                .build();
+    }
+
+    /**
+     * @param line a line of an export data file.
+     * @return the attributes of the item, or null for a blank line.
+     * @throws IllegalArgumentException if the line is not an exported item.
+     */
+    public static Map<String, AttributeValue> parseItem(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        JsonElement item = JsonParser.parseString(line).getAsJsonObject().get("Item");
+        if (item == null || !item.isJsonObject()) {
+            throw new IllegalArgumentException("Not an exported DynamoDB item: " + line);
+        }
+        return toMap(item.getAsJsonObject());
+    }
+
+    /**
+     * @param item the attributes of an item.
+     * @return the item as a line of an export data file, which {@link #parseItem} reads back.
+     */
+    public static String formatItem(Map<String, AttributeValue> item) {
+        JsonObject line = new JsonObject();
+        line.add("Item", toJson(item));
+        return line.toString();
+    }
+
+    private static Map<String, AttributeValue> toMap(JsonObject attributes) {
+        Map<String, AttributeValue> result = new HashMap<>();
+        for (Map.Entry<String, JsonElement> attribute : attributes.entrySet()) {
+            result.put(attribute.getKey(), toAttributeValue(attribute.getValue().getAsJsonObject()));
+        }
+        return result;
+    }
+
+    private static AttributeValue toAttributeValue(JsonObject value) {
+        Map.Entry<String, JsonElement> typed = value.entrySet().iterator().next();
+        JsonElement content = typed.getValue();
+        switch (typed.getKey()) {
+            case "S": return AttributeValue.fromS(content.getAsString());
+            case "N": return AttributeValue.fromN(content.getAsString());
+            case "B": return AttributeValue.fromB(SdkBytes.fromByteArray(Base64.getDecoder().decode(content.getAsString())));
+            case "BOOL": return AttributeValue.fromBool(content.getAsBoolean());
+            case "NULL": return AttributeValue.fromNul(content.getAsBoolean());
+            case "M": return AttributeValue.fromM(toMap(content.getAsJsonObject()));
+            case "L": {
+                List<AttributeValue> list = new ArrayList<>();
+                content.getAsJsonArray().forEach(x -> list.add(toAttributeValue(x.getAsJsonObject())));
+                return AttributeValue.fromL(list);
+            }
+            case "SS": {
+                List<String> set = new ArrayList<>();
+                content.getAsJsonArray().forEach(x -> set.add(x.getAsString()));
+                return AttributeValue.fromSs(set);
+            }
+            case "NS": {
+                List<String> set = new ArrayList<>();
+                content.getAsJsonArray().forEach(x -> set.add(x.getAsString()));
+                return AttributeValue.fromNs(set);
+            }
+            case "BS": {
+                List<SdkBytes> set = new ArrayList<>();
+                content.getAsJsonArray().forEach(x -> set.add(SdkBytes.fromByteArray(Base64.getDecoder().decode(x.getAsString()))));
+                return AttributeValue.fromBs(set);
+            }
+            default: throw new IllegalArgumentException("Unknown DynamoDB attribute type: " + typed.getKey());
+        }
+    }
+
+    private static JsonObject toJson(Map<String, AttributeValue> attributes) {
+        JsonObject result = new JsonObject();
+        for (Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            result.add(attribute.getKey(), toJson(attribute.getValue()));
+        }
+        return result;
+    }
+
+    private static JsonObject toJson(AttributeValue value) {
+        JsonObject typed = new JsonObject();
+        switch (value.type()) {
+            case S: typed.addProperty("S", value.s()); break;
+            case N: typed.addProperty("N", value.n()); break;
+            case B: typed.addProperty("B", Base64.getEncoder().encodeToString(value.b().asByteArray())); break;
+            case BOOL: typed.addProperty("BOOL", value.bool()); break;
+            case NUL: typed.addProperty("NULL", value.nul()); break;
+            case M: typed.add("M", toJson(value.m())); break;
+            case L: {
+                JsonArray list = new JsonArray();
+                value.l().forEach(x -> list.add(toJson(x)));
+                typed.add("L", list);
+                break;
+            }
+            case SS: {
+                JsonArray set = new JsonArray();
+                value.ss().forEach(set::add);
+                typed.add("SS", set);
+                break;
+            }
+            case NS: {
+                JsonArray set = new JsonArray();
+                value.ns().forEach(set::add);
+                typed.add("NS", set);
+                break;
+            }
+            case BS: {
+                JsonArray set = new JsonArray();
+                value.bs().forEach(x -> set.add(Base64.getEncoder().encodeToString(x.asByteArray())));
+                typed.add("BS", set);
+                break;
+            }
+            default: throw new IllegalArgumentException("Unknown DynamoDB attribute type: " + value.type());
+        }
+        return typed;
+    }
+
+    /**
+     * Skips the manifests and markers an export writes next to its data files, as well as hidden files.
+     */
+    static class ExportFileFilter implements Predicate<Path> {
+        @Override
+        public boolean test(Path path) {
+            String name = path.getName();
+            return !name.startsWith(".") && !name.startsWith("_") && !name.startsWith("manifest-");
+        }
+    }
+}
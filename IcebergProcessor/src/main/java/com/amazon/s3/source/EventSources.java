@@ -0,0 +1,169 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.connector.source.Source;
+import org.apache.flink.api.connector.source.SourceReaderContext;
+import org.apache.flink.api.connector.source.util.ratelimit.RateLimiterStrategy;
+import org.apache.flink.connector.datagen.source.DataGeneratorSource;
+import org.apache.flink.connector.datagen.source.GeneratorFunction;
+import org.apache.flink.connector.dynamodb.source.DynamoDbStreamsSourceBuilder;
+import org.apache.flink.connector.dynamodb.source.config.DynamodbStreamsSourceConfigConstants;
+import org.apache.flink.connector.dynamodb.source.serialization.DynamoDbStreamsDeserializationSchema;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.connectors.kinesis.config.AWSConfigConstants;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.SimpleUserCodeClassLoader;
+import org.apache.flink.util.UserCodeClassLoader;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Creates the source of DynamoDB stream records selected by the {@code stream.source} property: {@code dynamodb}
+ * reads the stream {@code stream.arn}, from {@code stream.initial_position} ({@code LATEST} or {@code TRIM_HORIZON})
+ * when the job starts without state, {@code generator} generates {@link SyntheticRecords} as configured in the
+ * {@code generator} property group.  Either way the records are read with the given deserialization schema.
+ */
+public final class EventSources {
+    public static final String DYNAMODB = "dynamodb";
+    public static final String GENERATOR = "generator";
+
+    private EventSources() {
+    }
+
+    public static <T> Source<T, ?, ?> create(Map<String, Properties> config,
+                                             DynamoDbStreamsDeserializationSchema<T> deserializationSchema) {
+        String source = SOURCE.get(config).trim().toLowerCase(Locale.ROOT);
+        switch (source) {
+            case DYNAMODB: return dynamoDbStream(config, deserializationSchema);
+            case GENERATOR: return generator(config, deserializationSchema);
+            default: throw new IllegalArgumentException("Unknown source: " + source + ", expected " + DYNAMODB + " or " + GENERATOR);
+        }
+    }
+
+    private static <T> Source<T, ?, ?> dynamoDbStream(Map<String, Properties> config,
+                                                      DynamoDbStreamsDeserializationSchema<T> deserializationSchema) {
+        org.apache.flink.configuration.Configuration dynamodbStreamsConsumerConfig =
+                new org.apache.flink.configuration.Configuration();
+        dynamodbStreamsConsumerConfig.setString(AWSConfigConstants.AWS_REGION, AWS_REGION.get(config));
+        String initialPosition = STREAM_INITIAL_POSITION.get(config);
+        if (initialPosition != null) {
+            dynamodbStreamsConsumerConfig.setString(
+                    DynamodbStreamsSourceConfigConstants.STREAM_INITIAL_POSITION.key(), initialPosition.trim().toUpperCase(Locale.ROOT));
+        }
+
+        return new DynamoDbStreamsSourceBuilder<T>()
+                .setStreamArn(STREAM_ARN.get(config))
+                .setDeserializationSchema(deserializationSchema)
+                .setSourceConfig(dynamodbStreamsConsumerConfig)
+                .build();
+    }
+
+    /**
+     * Without {@code generator.records} the source runs until the job is cancelled, without
+     * {@code generator.records_per_second} as fast as the job can take the records.
+     */
+    private static <T> Source<T, ?, ?> generator(Map<String, Properties> config,
+                                                 DynamoDbStreamsDeserializationSchema<T> deserializationSchema) {
+        String records = GENERATOR_RECORDS.get(config);
+        String recordsPerSecond = GENERATOR_RECORDS_PER_SECOND.get(config);
+        return new DataGeneratorSource<>(
+                new DeserializingGenerator<>(SyntheticRecords.fromConfig(config), deserializationSchema),
+                records == null ? Long.MAX_VALUE : Long.parseLong(records),
+                recordsPerSecond == null ? RateLimiterStrategy.noOp() : RateLimiterStrategy.perSecond(Double.parseDouble(recordsPerSecond)),
+                deserializationSchema.getProducedType());
+    }
+
+    /**
+     * @return the context to open a deserialization schema with outside of the DynamoDB stream source.
+     */
+    static DeserializationSchema.InitializationContext initializationContext(MetricGroup metricGroup) {
+        return new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return metricGroup;
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return SimpleUserCodeClassLoader.create(Thread.currentThread().getContextClassLoader());
+            }
+        };
+    }
+
+    /**
+     * Passes the generated records through the deserialization schema, as the DynamoDB stream source does.
+     * <p>
+     * The generator only creates records of S3 object events, for which the schemas emit exactly one element.
+     */
+    static class DeserializingGenerator<T> implements GeneratorFunction<Long, T> {
+        private static final long serialVersionUID = 1L;
+
+        private final SyntheticRecords records;
+        private final DynamoDbStreamsDeserializationSchema<T> deserializationSchema;
+
+        private transient SingleElementCollector<T> collector;
+
+        DeserializingGenerator(SyntheticRecords records, DynamoDbStreamsDeserializationSchema<T> deserializationSchema) {
+            this.records = records;
+            this.deserializationSchema = deserializationSchema;
+        }
+
+        @Override
+        public void open(SourceReaderContext readerContext) throws Exception {
+            collector = new SingleElementCollector<>();
+            deserializationSchema.open(initializationContext(readerContext.metricGroup()));
+        }
+
+        @Override
+        public T map(Long index) throws Exception {
+            if (collector == null) {
+                collector = new SingleElementCollector<>();
+            }
+            deserializationSchema.deserialize(records.record(index), GENERATOR, GENERATOR, collector);
+            return collector.take();
+        }
+    }
+
+    private static class SingleElementCollector<T> implements Collector<T> {
+        private T element;
+
+        @Override
+        public void collect(T record) {
+            element = record;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        T take() {
+            if (element == null) {
+                throw new IllegalStateException("The deserialization schema emitted no element for a generated record");
+            }
+            T result = element;
+            element = null;
+            return result;
+        }
+    }
+}
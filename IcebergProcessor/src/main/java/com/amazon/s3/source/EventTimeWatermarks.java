@@ -0,0 +1,107 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import com.amazon.s3.extraction.ImageColumn;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.eventtime.SerializableTimestampAssigner;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.util.TimeUtils;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Creates the watermark strategy of the stream, from the {@code stream} property group.
+ * <p>
+ * The event time of a record is selected by {@code event_time}: {@code latest_event_time} is the time of the S3 event,
+ * as recorded in the item, and {@code approximate_creation_time} the time the item was written to the DynamoDB table,
+ * which the DynamoDB stream source stamps on each record.  A record without a readable {@code latest_event_time}, such
+ * as one that is sent to the dead letters, falls back to the time stamped by the source.  Watermarks trail the highest
+ * event time seen by {@code max_out_of_orderness}, and a shard that received no record for {@code idle_timeout} no
+ * longer holds them back.
+ */
+public final class EventTimeWatermarks {
+    public static final String LATEST_EVENT_TIME = "latest_event_time";
+    public static final String APPROXIMATE_CREATION_TIME = "approximate_creation_time";
+
+    private EventTimeWatermarks() {
+    }
+
+    public static WatermarkStrategy<ImageRecord> forImages(Map<String, Properties> config) {
+        if (!usesLatestEventTime(config)) {
+            return create(config, (image, recordTimestamp) -> recordTimestamp);
+        }
+        return create(config, (image, recordTimestamp) -> {
+            try {
+                TimestampData latestEventTime = (TimestampData) ImageColumn.LAST_MODIFIED.extract(image, null);
+                return latestEventTime == null ? recordTimestamp : latestEventTime.getMillisecond();
+            } catch (IllegalArgumentException e) {
+                return recordTimestamp;
+            }
+        });
+    }
+
+    public static WatermarkStrategy<RowData> forRows(Map<String, Properties> config, Schema tableSchema) {
+        if (!usesLatestEventTime(config)) {
+            return create(config, (row, recordTimestamp) -> recordTimestamp);
+        }
+        RowType rowType = TableSchemaGenerator.toRowType(tableSchema);
+        int lastModifiedIndex = rowType.getFieldIndex(ImageColumn.LAST_MODIFIED.columnName);
+        int lastModifiedPrecision = ((TimestampType) rowType.getTypeAt(lastModifiedIndex)).getPrecision();
+        return create(config, (row, recordTimestamp) -> row.isNullAt(lastModifiedIndex)
+                ? recordTimestamp
+                : row.getTimestamp(lastModifiedIndex, lastModifiedPrecision).getMillisecond());
+    }
+
+    /**
+     * @return the interval at which watermarks are emitted, from {@code stream.watermark_interval}.
+     */
+    public static Duration interval(Map<String, Properties> config) {
+        return TimeUtils.parseDuration(WATERMARK_INTERVAL.get(config));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the event time is unknown.
+     */
+    private static boolean usesLatestEventTime(Map<String, Properties> config) {
+        String eventTime = EVENT_TIME.get(config).trim().toLowerCase(Locale.ROOT);
+        switch (eventTime) {
+            case LATEST_EVENT_TIME: return true;
+            case APPROXIMATE_CREATION_TIME: return false;
+            default: throw new IllegalArgumentException("Unknown event time: " + eventTime + ", expected "
+                    + LATEST_EVENT_TIME + " or " + APPROXIMATE_CREATION_TIME);
+        }
+    }
+
+    private static <T> WatermarkStrategy<T> create(Map<String, Properties> config, SerializableTimestampAssigner<T> eventTime) {
+        return WatermarkStrategy.<T>forBoundedOutOfOrderness(TimeUtils.parseDuration(MAX_OUT_OF_ORDERNESS.get(config)))
+                .withTimestampAssigner(eventTime)
+                .withIdleness(TimeUtils.parseDuration(IDLE_TIMEOUT.get(config)));
+    }
+}
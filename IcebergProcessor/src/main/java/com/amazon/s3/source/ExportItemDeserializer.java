@@ -0,0 +1,93 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import org.apache.flink.api.common.functions.OpenContext;
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.connector.dynamodb.source.serialization.DynamoDbStreamsDeserializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.util.Map;
+
+/**
+ * Maps the lines of a {@link DynamoDbExport} to table rows with the same deserialization schema as the stream, by
+ * presenting each item as the stream record that inserted it.
+ * <p>
+ * An export holds the current state of every object, so only insertions are emitted: items of deleted objects are
+ * dropped, and counted as {@code deletedItemsSkipped}.
+ */
+public class ExportItemDeserializer extends RichFlatMapFunction<String, RowData> implements ResultTypeQueryable<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private final DynamoDbStreamsDeserializationSchema<RowData> deserializationSchema;
+
+    private transient Counter deletedItemsSkipped;
+
+    public ExportItemDeserializer(DynamoDbStreamsDeserializationSchema<RowData> deserializationSchema) {
+        this.deserializationSchema = deserializationSchema;
+    }
+
+    @Override
+    public void open(OpenContext openContext) throws Exception {
+        deserializationSchema.open(EventSources.initializationContext(getRuntimeContext().getMetricGroup()));
+        deletedItemsSkipped = getRuntimeContext().getMetricGroup().counter("deletedItemsSkipped");
+    }
+
+    @Override
+    public void flatMap(String line, Collector<RowData> output) throws Exception {
+        if (deletedItemsSkipped == null) {
+            deletedItemsSkipped = new SimpleCounter();
+        }
+        Map<String, AttributeValue> item = DynamoDbExport.parseItem(line);
+        if (item == null) {
+            return;
+        }
+        Record record = Record.builder()
+                .eventName(OperationType.INSERT)
+                .dynamodb(builder -> builder.newImage(item))
+                .build();
+        deserializationSchema.deserialize(record, "export", "export", new Collector<>() {
+            @Override
+            public void collect(RowData row) {
+                if (row.getRowKind() == RowKind.INSERT) {
+                    output.collect(row);
+                } else {
+                    deletedItemsSkipped.inc();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return deserializationSchema.getProducedType();
+    }
+}
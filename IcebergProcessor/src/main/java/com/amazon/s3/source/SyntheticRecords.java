@@ -0,0 +1,243 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static com.amazon.s3.configuration.ConfigurationProperties.*;
+
+/**
+ * Generates DynamoDB stream records shaped like the ones the extraction Lambdas produce, see the
+ * {@code sample_ddb_events}, for running the job without a DynamoDB stream.
+ * <p>
+ * Record {@code i} is an event of object {@code i % keys}, so every object is created once and then updated or deleted
+ * in every following round of {@code keys} records.  A fraction of the rounds are swapped pairwise for an object, so
+ * that the event with the higher sequencer arrives first, as happens when the stream is read out of order.  The
+ * record only depends on its index, which lets any number of parallel readers generate the same stream.
+ */
+public class SyntheticRecords implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final String BUCKET = "synthetic-bucket";
+    private static final int METADATA_VARIANTS = 64;
+    private static final DateTimeFormatter EVENT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx").withZone(ZoneOffset.UTC);
+    private static final String[] LABELS = {
+            "Animal", "Bird", "Pond", "Water", "Nature", "Outdoors", "Person", "Elephant", "Wildlife", "Table",
+            "Furniture", "Cup", "Coffee Cup", "Indoors", "Room", "Ball", "Soccer", "Sport", "Tree", "Plant",
+            "Landscape", "Mountain", "River", "Bridge", "Beach", "Sky", "Bicycle", "Vehicle", "Tiger", "Grapes"
+    };
+
+    private final int keys;
+    private final double deleteRatio;
+    private final double reorderRatio;
+    private final int labelCount;
+    private final int exifTagCount;
+
+    private transient String[] metadataVariants;
+
+    /**
+     * @param keys         number of distinct objects.
+     * @param deleteRatio  fraction of the events after an object's creation that delete it.
+     * @param reorderRatio fraction of an object's pairs of consecutive events that arrive in reverse order.
+     * @param labelCount   number of Rekognition labels in the metadata.
+     * @param exifTagCount number of EXIF tags in the metadata, besides the image size, camera and date.
+     */
+    public SyntheticRecords(int keys, double deleteRatio, double reorderRatio, int labelCount, int exifTagCount) {
+        if (keys < 1) {
+            throw new IllegalArgumentException("The generator needs at least one key: " + keys);
+        }
+        if (!(deleteRatio >= 0 && deleteRatio <= 1) || !(reorderRatio >= 0 && reorderRatio <= 1)) {
+            throw new IllegalArgumentException("Delete and reorder ratios must be between 0 and 1: " + deleteRatio + ", " + reorderRatio);
+        }
+        if (labelCount < 0 || exifTagCount < 0) {
+            throw new IllegalArgumentException("Label and EXIF tag counts must not be negative: " + labelCount + ", " + exifTagCount);
+        }
+        this.keys = keys;
+        this.deleteRatio = deleteRatio;
+        this.reorderRatio = reorderRatio;
+        this.labelCount = labelCount;
+        this.exifTagCount = exifTagCount;
+    }
+
+    public static SyntheticRecords fromConfig(Map<String, Properties> config) {
+        return new SyntheticRecords(
+                Integer.parseInt(GENERATOR_KEYS.get(config)),
+                Double.parseDouble(GENERATOR_DELETE_RATIO.get(config)),
+                Double.parseDouble(GENERATOR_REORDER_RATIO.get(config)),
+                Integer.parseInt(GENERATOR_LABELS.get(config)),
+                Integer.parseInt(GENERATOR_EXIF_TAGS.get(config)));
+    }
+
+    public Record record(long index) {
+        long key = index % keys;
+        long round = index / keys;
+        // Rounds 2n and 2n + 1 of an object are swapped together, so each of its versions is still emitted once.  The
+        // first pair is never swapped, so an object is always created by its first event.
+        long version = round > 1 && uniform(key, round / 2, 1) < reorderRatio ? round ^ 1 : round;
+        boolean isDelete = version > 0 && uniform(key, version, 2) < deleteRatio;
+
+        String userKey = String.format("synthetic/%08d.jpg", key);
+        String s3Key = Base64.getEncoder().encodeToString((BUCKET + "/" + userKey).getBytes(StandardCharsets.UTF_8)) + "-0";
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put("bucket", AttributeValue.fromS(BUCKET));
+        image.put("s3key", AttributeValue.fromS(s3Key));
+        image.put("key", AttributeValue.fromS(userKey));
+        image.put("version_id", AttributeValue.fromNul(true));
+        image.put("latest_event_time", AttributeValue.fromS(EVENT_TIME.format(now)));
+        image.put("sequencer", AttributeValue.fromS(String.format("%018X", version * keys + key)));
+        String metadata = isDelete ? null : metadata(key, version);
+        if (isDelete) {
+            image.put("deleted", AttributeValue.fromBool(true));
+        } else {
+            image.put("etag", AttributeValue.fromS(String.format("%016x%016x", mix(key), mix(version))));
+            image.put("metadata", AttributeValue.fromS(metadata));
+        }
+
+        return Record.builder()
+                .eventID(String.format("%032x", index))
+                .eventName(version == 0 ? "INSERT" : "MODIFY")
+                .eventVersion("1.1")
+                .eventSource("aws:dynamodb")
+                .awsRegion("us-east-1")
+                .dynamodb(builder -> builder
+                        .approximateCreationDateTime(now)
+                        .keys(Map.of("s3key", AttributeValue.fromS(s3Key)))
+                        .newImage(image)
+                        .sequenceNumber(Long.toString(index))
+                        .sizeBytes(512L + (metadata == null ? 0 : metadata.length()))
+                        .streamViewType("NEW_IMAGE"))
+                .build();
+    }
+
+    /**
+     * Metadata is drawn from a fixed set of documents, so that generating it does not dominate the cost of a record.
+     */
+    private String metadata(long key, long version) {
+        if (metadataVariants == null) {
+            Random random = new Random(42);
+            metadataVariants = new String[METADATA_VARIANTS];
+            for (int i = 0; i < METADATA_VARIANTS; i++) {
+                metadataVariants[i] = metadata(random);
+            }
+        }
+        return metadataVariants[(int) ((mix(key * 31 + version) >>> 1) % METADATA_VARIANTS)];
+    }
+
+    private String metadata(Random random) {
+        JsonArray labels = new JsonArray();
+        for (int i = 0; i < labelCount; i++) {
+            JsonObject label = new JsonObject();
+            label.addProperty("Name", LABELS[random.nextInt(LABELS.length)]);
+            label.addProperty("Confidence", 50 + random.nextDouble() * 50);
+
+            JsonArray instances = new JsonArray();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                JsonObject boundingBox = new JsonObject();
+                boundingBox.addProperty("Width", random.nextDouble());
+                boundingBox.addProperty("Height", random.nextDouble());
+                boundingBox.addProperty("Left", random.nextDouble());
+                boundingBox.addProperty("Top", random.nextDouble());
+                JsonObject instance = new JsonObject();
+                instance.add("BoundingBox", boundingBox);
+                instance.addProperty("Confidence", 50 + random.nextDouble() * 50);
+                instances.add(instance);
+            }
+            label.add("Instances", instances);
+
+            JsonArray parents = new JsonArray();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                JsonObject parent = new JsonObject();
+                parent.addProperty("Name", LABELS[random.nextInt(LABELS.length)]);
+                parents.add(parent);
+            }
+            label.add("Parents", parents);
+            label.add("Aliases", new JsonArray());
+
+            JsonArray categories = new JsonArray();
+            JsonObject category = new JsonObject();
+            category.addProperty("Name", "Nature and Outdoors");
+            categories.add(category);
+            label.add("Categories", categories);
+            labels.add(label);
+        }
+
+        JsonObject exif = new JsonObject();
+        exif.addProperty("ImageWidth", 1000 + random.nextInt(4000));
+        exif.addProperty("ImageLength", 1000 + random.nextInt(3000));
+        exif.addProperty("Make", "samsung");
+        exif.addProperty("Model", "SM-G998B");
+        exif.addProperty("DateTime", "2024:07:24 12:31:07");
+        for (int i = 0; i < exifTagCount; i++) {
+            String tag = String.format("Tag%03d", i);
+            switch (i % 3) {
+                case 0:
+                    exif.addProperty(tag, random.nextInt(10_000));
+                    break;
+                case 1:
+                    exif.addProperty(tag, Long.toHexString(random.nextLong()));
+                    break;
+                default:
+                    JsonObject rational = new JsonObject();
+                    rational.addProperty("type", "IFDRational");
+                    rational.addProperty("denominator", 1 + random.nextInt(1000));
+                    rational.addProperty("imag", 0);
+                    rational.addProperty("numerator", random.nextInt(1000));
+                    exif.add(tag, rational);
+            }
+        }
+
+        JsonObject metadata = new JsonObject();
+        metadata.add("labels", labels);
+        metadata.add("exif", exif);
+        return metadata.toString();
+    }
+
+    /**
+     * @return a value in [0, 1), uniformly distributed over keys and rounds, the same for the same arguments.
+     */
+    private static double uniform(long key, long round, long salt) {
+        return (mix(mix(key * 3 + salt) ^ round) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads consecutive inputs over the whole range.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.enrichment;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.model.ImageRecordSerializer;
+import org.apache.flink.streaming.api.datastream.AsyncDataStream;
+import org.apache.flink.streaming.api.operators.async.AsyncWaitOperatorFactory;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.Tag;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectEnricherTest {
+
+    @Test
+    public void testThatRecordsOfTheSameVersionAreLookedUpOnce() throws Exception {
+        FakeEnricher enricher = new FakeEnricher(CompletableFuture.completedFuture(Map.of("content_type", "image/jpeg")));
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        ImageRecord updated = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        updated.etag = "another-etag";
+
+        List<ImageRecord> output = run(enricher, image, image, updated);
+
+        assertEquals(List.of(image.etag, "another-etag"), enricher.lookedUp);
+        assertEquals(3, output.size());
+        output.forEach(x -> assertEquals(Map.of("content_type", "image/jpeg"), x.enrichment));
+        assertNull(image.enrichment);
+    }
+
+    @Test
+    public void testThatFailedLookupsPassTheRecordOnAndAreRetried() throws Exception {
+        FakeEnricher enricher = new FakeEnricher(CompletableFuture.failedFuture(new RuntimeException("Slow down")));
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+
+        List<ImageRecord> output = run(enricher, image, image);
+
+        assertEquals(2, enricher.lookedUp.size());
+        assertEquals(2, output.size());
+        output.forEach(x -> assertNull(x.enrichment));
+    }
+
+    @Test
+    public void testThatDeletesAreNotLookedUp() throws Exception {
+        FakeEnricher enricher = new FakeEnricher(CompletableFuture.completedFuture(Map.of()));
+        ImageRecord deleted = TestingHelpers.loadSampleEventAsImageRecord("DeleteEvent");
+
+        List<ImageRecord> output = run(enricher, deleted);
+
+        assertTrue(enricher.lookedUp.isEmpty());
+        assertEquals(1, output.size());
+        assertTrue(output.get(0).isDelete);
+    }
+
+    @Test
+    public void testThatAttributesAreExtractedFromTheResponses() {
+        HeadObjectResponse head = HeadObjectResponse.builder()
+                .contentType("image/jpeg")
+                .contentLength(1234L)
+                .metadata(Map.of("camera", "SM-G998B"))
+                .build();
+        List<Tag> tags = List.of(Tag.builder().key("project").value("birds").build());
+
+        Map<String, String> attributes = ObjectAttributes.extract(
+                List.of("content_type", "content_length", "storage_class", "cache_control", "metadata.camera",
+                        "tag.project", "tag.missing"),
+                head, tags);
+
+        assertEquals(Map.of(
+                "content_type", "image/jpeg",
+                "content_length", "1234",
+                "storage_class", "STANDARD",
+                "metadata.camera", "SM-G998B",
+                "tag.project", "birds"), attributes);
+    }
+
+    @Test
+    public void testThatUnknownAttributesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ObjectAttributes.validate("colour"));
+        assertThrows(IllegalArgumentException.class, () -> ObjectAttributes.validate("tag."));
+        assertDoesNotThrow(() -> ObjectAttributes.validate("tag.project"));
+    }
+
+    @Test
+    public void testThatTheCacheEvictsAndExpiresLookups() {
+        EnrichmentCache cache = new EnrichmentCache(2, 1000);
+        CompletableFuture<Map<String, String>> lookup = CompletableFuture.completedFuture(Map.of());
+        cache.put("a", lookup, 0);
+        cache.put("b", lookup, 0);
+        assertSame(lookup, cache.get("a", 10));
+        cache.put("c", lookup, 0);
+
+        assertNull(cache.get("b", 10));
+        assertSame(lookup, cache.get("a", 999));
+        assertNull(cache.get("a", 1000));
+        assertEquals(1, cache.size());
+    }
+
+    private static List<ImageRecord> run(ObjectEnricher enricher, ImageRecord... images) throws Exception {
+        try (OneInputStreamOperatorTestHarness<ImageRecord, ImageRecord> harness = new OneInputStreamOperatorTestHarness<>(
+                new AsyncWaitOperatorFactory<>(enricher, 10_000, 10, AsyncDataStream.OutputMode.ORDERED),
+                ImageRecordSerializer.INSTANCE)) {
+            harness.open();
+            for (ImageRecord image : images) {
+                harness.processElement(new StreamRecord<>(image));
+            }
+            harness.endInput();
+            return harness.extractOutputValues();
+        }
+    }
+
+    /**
+     * Answers every lookup with the same result, rather than calling S3.
+     */
+    private static class FakeEnricher extends ObjectEnricher {
+        private final CompletableFuture<Map<String, String>> result;
+        final List<String> lookedUp = new ArrayList<>();
+
+        FakeEnricher(CompletableFuture<Map<String, String>> result) {
+            super(List.of("content_type"), "us-east-1", "http://localhost:9090", 10, Duration.ofSeconds(10), 0, 100,
+                    Duration.ofHours(1));
+            this.result = result;
+        }
+
+        @Override
+        protected CompletableFuture<Map<String, String>> lookup(ImageRecord image) {
+            lookedUp.add(image.etag);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.util.InstantiationUtil;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionPlanTest {
+
+    @Test
+    public void testThatPlanSurvivesSerialization() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "labels, image_width");
+        properties.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        properties.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+        properties.get("schema").setProperty("field.image_width.type", "INTEGER");
+        properties.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+
+        ExtractionPlan plan = InstantiationUtil.clone(
+                ExtractionPlan.compile(TableSchemaGenerator.generate(properties, entries), entries));
+
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        GenericRowData row = new GenericRowData(plan.getArity());
+        plan.populate(image, true, row);
+
+        assertEquals("foo", row.getString(0).toString());
+        assertArrayEquals(
+                new Object[]{StringData.fromString("Pond"), StringData.fromString("Bird"), StringData.fromString("Waterfowl")},
+                ((GenericArrayData) row.getArray(7)).toObjectArray());
+        assertEquals(4000, row.getInt(8));
+    }
+
+    @Test
+    public void testThatMetadataColumnsAreLeftNullWhenNotRequested() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "image_width");
+        properties.get("schema").setProperty("field.image_width.type", "INTEGER");
+        properties.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        ExtractionPlan plan = ExtractionPlan.compile(TableSchemaGenerator.generate(properties, entries), entries);
+
+        GenericRowData row = new GenericRowData(plan.getArity());
+        plan.populate(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), false, row);
+
+        assertEquals("foo", row.getString(0).toString());
+        assertTrue(row.isNullAt(7));
+    }
+
+    @Test
+    public void testThatUnsupportedColumnTypesAreRejectedUpFront() throws Exception {
+        Schema schema = Schema.newBuilder().column("unsupported", DataTypes.MULTISET(DataTypes.STRING())).build();
+        List<TableSchemaGenerator.SchemaEntry> entries = List.of(
+                new TableSchemaGenerator.SchemaEntry("unsupported", DataTypes.MULTISET(DataTypes.STRING()), "$.foo"));
+
+        assertThrows(RuntimeException.class, () -> ExtractionPlan.compile(schema, entries));
+    }
+
+    @Test
+    public void testThatPathsCanBeReplacedAndColumnsRetired() {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "image_width");
+        properties.get("schema").setProperty("field.image_width.type", "INTEGER");
+        properties.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        Schema tableSchema = TableSchemaGenerator.generate(properties, entries);
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+
+        ExtractionPlan plan = ExtractionPlan.compile(tableSchema, entries)
+                .withJsonPaths(Map.of("image_width", "$.exif.ImageLength", "unknown", "$.unknown"));
+        GenericRowData row = new GenericRowData(plan.getArity());
+        plan.populate(image, true, row);
+        assertEquals(2252, row.getInt(7));
+        assertEquals("$.exif.ImageLength", plan.getJsonPath("image_width"));
+        assertEquals(List.of("image_width"), plan.getMetadataColumns());
+
+        ExtractionPlan retired = ExtractionPlan.compile(tableSchema, List.of(
+                new TableSchemaGenerator.SchemaEntry("image_width", DataTypes.INT(), null),
+                new TableSchemaGenerator.SchemaEntry("metadata", DataTypes.STRING(), null)));
+        retired.populate(image, true, row);
+        assertTrue(row.isNullAt(5));
+        assertTrue(row.isNullAt(7));
+        assertEquals("foo", row.getString(0).toString());
+    }
+
+    @Test
+    public void testThatEnrichedColumnsAreFilledFromTheEnrichment() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        Properties enrichment = new Properties();
+        enrichment.setProperty("columns", "size, storage_class");
+        enrichment.setProperty("column.size.attribute", "content_length");
+        enrichment.setProperty("column.size.type", "BIGINT");
+        enrichment.setProperty("column.storage_class.attribute", "storage_class");
+        properties.put("enrichment", enrichment);
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        Schema tableSchema = TableSchemaGenerator.generate(properties, entries);
+        ExtractionPlan plan = ExtractionPlan.compile(tableSchema, entries);
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+
+        GenericRowData row = new GenericRowData(plan.getArity());
+        plan.populate(image, true, row);
+        assertTrue(row.isNullAt(7));
+        assertTrue(row.isNullAt(8));
+
+        image.enrichment = Map.of("content_length", "1234", "storage_class", "GLACIER_IR");
+        plan.populate(image, true, row);
+        assertEquals(1234L, row.getLong(7));
+        assertEquals("GLACIER_IR", row.getString(8).toString());
+        assertTrue(plan.getMetadataColumns().isEmpty());
+    }
+
+    @Test
+    public void testThatRawMetadataIsPrunedAndCompressed() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "image_width");
+        properties.get("schema").setProperty("field.image_width.type", "INTEGER");
+        properties.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        properties.get("schema").setProperty("raw_metadata_include", "$.labels[*].Name, $.exif");
+        properties.get("schema").setProperty("raw_metadata_exclude", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+
+        ExtractionPlan pruned = ExtractionPlan.compile(
+                TableSchemaGenerator.generate(properties, entries), entries, RawMetadataFormat.fromConfig(properties));
+        GenericRowData row = new GenericRowData(pruned.getArity());
+        pruned.populate(image, true, row);
+        String json = row.getString(5).toString();
+        assertTrue(json.startsWith("{\"labels\":[{\"Name\":\"Pond\"},"), json);
+        assertFalse(json.contains("ImageWidth"), json);
+        assertTrue(json.contains("\"ImageLength\":2252"), json);
+        assertEquals(4000, row.getInt(7));
+
+        properties.get("schema").setProperty("raw_metadata_compression", "zstd");
+        Schema compressedSchema = TableSchemaGenerator.generate(properties, entries);
+        assertEquals(DataTypes.BYTES(), ((Schema.UnresolvedPhysicalColumn) compressedSchema.getColumns().get(5)).getDataType());
+        ExtractionPlan compressed = InstantiationUtil.clone(
+                ExtractionPlan.compile(compressedSchema, entries, RawMetadataFormat.fromConfig(properties)));
+        compressed.populate(image, true, row);
+        assertEquals(json, MetadataCompressor.decompress(row.getBinary(5), null));
+        assertEquals(4000, row.getInt(7));
+
+        properties.get("schema").setProperty("raw_metadata_compression", "snappy");
+        assertThrows(IllegalArgumentException.class, () -> RawMetadataFormat.fromConfig(properties));
+    }
+
+    @Test
+    public void testThatMalformedEventTimesAreNullOrRejected() {
+        assertNull(ImageColumn.LAST_MODIFIED.extract(Map.of("latest_event_time", AttributeValue.fromN("1731675000")), null));
+        assertNull(ImageColumn.LAST_MODIFIED.extract(Map.of("latest_event_time", AttributeValue.fromS(" ")), null));
+        assertEquals(TimestampData.fromLocalDateTime(LocalDateTime.of(2024, 11, 15, 12, 50)),
+                ImageColumn.LAST_MODIFIED.extract(Map.of("latest_event_time", AttributeValue.fromS("2024-11-15T12:50:00")), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ImageColumn.LAST_MODIFIED.extract(Map.of("latest_event_time", AttributeValue.fromS("yesterday")), null));
+    }
+}
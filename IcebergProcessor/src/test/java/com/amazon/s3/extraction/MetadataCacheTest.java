@@ -0,0 +1,102 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.table.data.GenericRowData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataCacheTest {
+
+    @Test
+    public void testThatCopiesOfAnImageAreExtractedOnce() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "image_width");
+        properties.get("schema").setProperty("field.image_width.type", "INTEGER");
+        properties.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        ExtractionPlan plan = ExtractionPlan.compile(TableSchemaGenerator.generate(properties, entries), entries);
+        MetadataCache cache = new MetadataCache(10, 1 << 20, new UnregisteredMetricsGroup());
+
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        ImageRecord copy = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        copy.userKey = "copies/" + copy.userKey;
+        copy.metadata = new String(image.metadata.toCharArray());
+        GenericRowData row = new GenericRowData(plan.getArity());
+        GenericRowData copyRow = new GenericRowData(plan.getArity());
+        plan.populate(image, true, row, cache);
+        plan.populate(copy, true, copyRow, cache);
+
+        assertEquals(1, cache.size());
+        assertEquals(4000, copyRow.getInt(7));
+        assertEquals(copy.userKey, copyRow.getString(1).toString());
+        assertNotEquals(row.getString(1), copyRow.getString(1));
+    }
+
+    @Test
+    public void testThatTheLeastRecentlyUsedDocumentIsEvicted() {
+        AtomicInteger extractions = new AtomicInteger();
+        Function<String, Object[]> extraction = x -> {
+            extractions.incrementAndGet();
+            return new Object[]{x};
+        };
+        MetadataCache cache = new MetadataCache(2, 1 << 20, new UnregisteredMetricsGroup());
+
+        cache.get("{\"a\":1}", extraction);
+        cache.get("{\"b\":2}", extraction);
+        cache.get("{\"a\":1}", extraction);
+        cache.get("{\"c\":3}", extraction);
+        assertEquals(3, extractions.get());
+
+        cache.get("{\"a\":1}", extraction);
+        assertEquals(3, extractions.get());
+        cache.get("{\"b\":2}", extraction);
+        assertEquals(4, extractions.get());
+    }
+
+    @Test
+    public void testThatTheCacheIsBoundedInBytes() {
+        Function<String, Object[]> extraction = x -> new Object[]{x};
+        String document = "{\"labels\":[\"Bird\",\"Pond\"]}";
+        long entrySize = MetadataCache.estimateSize(document, new Object[1]);
+        MetadataCache cache = new MetadataCache(100, 2 * entrySize, new UnregisteredMetricsGroup());
+
+        cache.get(document.replace("Bird", "Fish"), extraction);
+        cache.get(document.replace("Bird", "Frog"), extraction);
+        cache.get(document.replace("Bird", "Duck"), extraction);
+        assertEquals(2, cache.size());
+
+        cache.get(document + " ".repeat(200), extraction);
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new MetadataCache(0, 1, new UnregisteredMetricsGroup()));
+    }
+}
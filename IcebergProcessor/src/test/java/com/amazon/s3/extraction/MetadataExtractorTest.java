@@ -0,0 +1,200 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.TestingHelpers;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.ReadContext;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.ArrayData;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.types.DataType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataExtractorTest {
+
+    private static final String SAMPLE_METADATA =
+            TestingHelpers.loadSampleEventAsImageRecord("CreateEvent").metadata;
+
+    @Test
+    public void testThatSupportedExpressionsAreParsed() throws Exception {
+        assertEquals(2, PathExpression.parse("$.exif.ImageWidth").size());
+        assertEquals(3, PathExpression.parse("$.labels[*].Name").size());
+        assertEquals(3, PathExpression.parse("$['labels'][0]['Name']").size());
+        assertEquals(2, PathExpression.parse("$.exif.*").size());
+        assertTrue(PathExpression.parse("$").isEmpty());
+    }
+
+    @Test
+    public void testThatUnsupportedExpressionsAreRejected() throws Exception {
+        assertNull(PathExpression.parse("$..Name"));
+        assertNull(PathExpression.parse("$.labels[?(@.Confidence > 90)].Name"));
+        assertNull(PathExpression.parse("$.labels[0:2].Name"));
+        assertNull(PathExpression.parse("$.labels[-1].Name"));
+        assertNull(PathExpression.parse("$.labels[0,1].Name"));
+        assertNull(PathExpression.parse("$.labels.length()"));
+        assertNull(PathExpression.parse("labels[0]"));
+    }
+
+    @Test
+    public void testThatStreamingExtractionMatchesJsonPath() throws Exception {
+        assertMatchesJsonPath("$.exif.ImageWidth", DataTypes.INT());
+        assertMatchesJsonPath("$.exif.Make", DataTypes.STRING());
+        assertMatchesJsonPath("$.exif.XResolution.numerator", DataTypes.INT());
+        assertMatchesJsonPath("$.labels[1].Name", DataTypes.STRING());
+        assertMatchesJsonPath("$['labels'][2]['Confidence']", DataTypes.STRING());
+        assertMatchesJsonPath("$.labels[*].Name", DataTypes.ARRAY(DataTypes.STRING()));
+        assertMatchesJsonPath("$.labels[*].Parents[*].Name", DataTypes.ARRAY(DataTypes.STRING()));
+        assertMatchesJsonPath("$.labels[*].Missing", DataTypes.ARRAY(DataTypes.STRING()));
+        assertMatchesJsonPath("$.exif.Missing", DataTypes.INT());
+        assertMatchesJsonPath("$.labels[10].Name", DataTypes.STRING());
+        assertMatchesJsonPath("$.exif.ImageWidth.nested", DataTypes.INT());
+    }
+
+    @Test
+    public void testThatAllFieldsAreFilledInOnePass() throws Exception {
+        MetadataExtractor extractor = MetadataExtractor.compile(
+                List.of("$.labels[*].Name", "$.labels[0].Confidence", "$.exif.ImageWidth", "$.exif.ImageLength"),
+                List.of(
+                        ValueConverters.forType(DataTypes.ARRAY(DataTypes.STRING()).getLogicalType()),
+                        ValueConverters.forType(DataTypes.STRING().getLogicalType()),
+                        ValueConverters.forType(DataTypes.INT().getLogicalType()),
+                        ValueConverters.forType(DataTypes.INT().getLogicalType())));
+
+        Object[] values = extractor.extract(SAMPLE_METADATA);
+
+        assertArrayEquals(
+                new Object[]{StringData.fromString("Pond"), StringData.fromString("Bird"), StringData.fromString("Waterfowl")},
+                ((GenericArrayData) values[0]).toObjectArray());
+        assertEquals(StringData.fromString("96.9462661743164"), values[1]);
+        assertEquals(4000, values[2]);
+        assertEquals(2252, values[3]);
+    }
+
+    @Test
+    public void testThatFiltersAndOverlappingExpressionsFallBackToJsonPath() throws Exception {
+        MetadataExtractor extractor = MetadataExtractor.compile(
+                List.of("$.labels[?(@.Confidence > 96.5)].Name", "$.labels[0].Name", "$.labels[*].Name"),
+                List.of(
+                        ValueConverters.forType(DataTypes.ARRAY(DataTypes.STRING()).getLogicalType()),
+                        ValueConverters.forType(DataTypes.STRING().getLogicalType()),
+                        ValueConverters.forType(DataTypes.ARRAY(DataTypes.STRING()).getLogicalType())));
+
+        Object[] values = extractor.extract(SAMPLE_METADATA);
+
+        assertArrayEquals(new Object[]{StringData.fromString("Pond")}, ((GenericArrayData) values[0]).toObjectArray());
+        assertEquals(StringData.fromString("Pond"), values[1]);
+        assertEquals(3, ((GenericArrayData) values[2]).size());
+    }
+
+    @Test
+    public void testThatNullsAreExtracted() throws Exception {
+        MetadataExtractor extractor = MetadataExtractor.compile(
+                List.of("$.scalar", "$.array[*]"),
+                List.of(
+                        ValueConverters.forType(DataTypes.STRING().getLogicalType()),
+                        ValueConverters.forType(DataTypes.ARRAY(DataTypes.INT()).getLogicalType())));
+
+        Object[] values = extractor.extract("{\"scalar\": null, \"array\": [1, null, 3]}");
+
+        assertNull(values[0]);
+        assertArrayEquals(new Object[]{1, null, 3}, ((GenericArrayData) values[1]).toObjectArray());
+    }
+
+    @Test
+    public void testThatExcludedSubtreesArePrunedWhileFieldsAreExtracted() throws Exception {
+        MetadataExtractor extractor = MetadataExtractor.compile(
+                List.of("$.labels[*].Name", "$.labels[*].Parents[*].Name", "$.exif.ImageWidth"),
+                List.of(
+                        ValueConverters.forType(DataTypes.ARRAY(DataTypes.STRING()).getLogicalType()),
+                        ValueConverters.forType(DataTypes.ARRAY(DataTypes.STRING()).getLogicalType()),
+                        ValueConverters.forType(DataTypes.INT().getLogicalType())),
+                MetadataPruner.compile(List.of(), List.of("$.labels[*].Parents", "$.exif.*")));
+
+        Object[] values = extractor.extract(SAMPLE_METADATA);
+
+        assertEquals(4, values.length);
+        assertEquals(3, ((GenericArrayData) values[0]).size());
+        assertEquals(StringData.fromString("Nature"), ((GenericArrayData) values[1]).toObjectArray()[0]);
+        assertEquals(4000, values[2]);
+        JsonObject expected = JsonParser.parseString(SAMPLE_METADATA).getAsJsonObject();
+        expected.getAsJsonArray("labels").forEach(x -> x.getAsJsonObject().remove("Parents"));
+        expected.add("exif", new JsonObject());
+        assertEquals(expected, JsonParser.parseString((String) values[3]));
+    }
+
+    @Test
+    public void testThatOnlyIncludedSubtreesAreKept() throws Exception {
+        MetadataExtractor extractor = MetadataExtractor.compile(
+                List.of("$.labels[0].Confidence"),
+                List.of(ValueConverters.forType(DataTypes.STRING().getLogicalType())),
+                MetadataPruner.compile(List.of("$.labels[*].Name", "$.exif.ImageWidth"), List.of()));
+
+        Object[] values = extractor.extract(SAMPLE_METADATA);
+
+        assertEquals(StringData.fromString("96.9462661743164"), values[0]);
+        assertEquals(
+                JsonParser.parseString("{\"labels\": [{\"Name\": \"Pond\"}, {\"Name\": \"Bird\"}, {\"Name\": \"Waterfowl\"}],"
+                        + " \"exif\": {\"ImageWidth\": 4000}}"),
+                JsonParser.parseString((String) values[1]));
+    }
+
+    @Test
+    public void testThatExcludesInsideIncludesArePruned() throws Exception {
+        MetadataExtractor extractor = MetadataExtractor.compile(List.of(), List.of(),
+                MetadataPruner.compile(List.of("$.labels"), List.of("$.labels[*].Parents", "$.labels[*].Categories")));
+
+        Object[] values = extractor.extract("{\"labels\": [{\"Name\": \"Pond\", \"Confidence\": 96.50,"
+                + " \"Parents\": [{\"Name\": \"Water\"}], \"Categories\": []}], \"exif\": {\"Make\": \"samsung\"}}");
+
+        assertFalse(extractor.isEmpty());
+        assertEquals("{\"labels\":[{\"Name\":\"Pond\",\"Confidence\":96.50}]}", values[0]);
+    }
+
+    @Test
+    public void testThatInvalidPrunePathsAreRejected() {
+        assertNull(MetadataPruner.compile(List.of(), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> MetadataPruner.compile(List.of("$..Name"), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> MetadataPruner.compile(List.of(), List.of("$")));
+    }
+
+    private static void assertMatchesJsonPath(String jpath, DataType type) {
+        ValueConverter converter = ValueConverters.forType(type.getLogicalType());
+        ReadContext document = JsonPath.using(Configuration.defaultConfiguration().addOptions(Option.SUPPRESS_EXCEPTIONS))
+                .parse(SAMPLE_METADATA);
+        Object raw = document.read(JsonPath.compile(jpath));
+        Object expected = raw == null ? null : converter.convert(raw instanceof Double ? raw.toString() : raw);
+
+        Object actual = MetadataExtractor.compile(List.of(jpath), List.of(converter)).extract(SAMPLE_METADATA)[0];
+
+        if (expected instanceof ArrayData) {
+            assertArrayEquals(((GenericArrayData) expected).toObjectArray(), ((GenericArrayData) actual).toObjectArray(), jpath);
+        } else {
+            assertEquals(expected, actual, jpath);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.extraction;
+
+import com.amazon.s3.TestingHelpers;
+import com.google.gson.stream.JsonReader;
+import com.jayway.jsonpath.JsonPath;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.GenericMapData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.DataType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueConvertersTest {
+
+    @Test
+    public void testNumericConversions() {
+        assertConverts(DataTypes.INT(), "42", 42);
+        assertConverts(DataTypes.INT(), "42.0", 42);
+        assertConverts(DataTypes.INT(), "\"42\"", 42);
+        assertConverts(DataTypes.BIGINT(), "5000000000", 5_000_000_000L);
+        assertConverts(DataTypes.BIGINT(), "\"5000000000\"", 5_000_000_000L);
+        assertConverts(DataTypes.DOUBLE(), "96.9462661743164", 96.9462661743164);
+        assertConverts(DataTypes.DOUBLE(), "7", 7.0);
+        assertConverts(DataTypes.DOUBLE(), "\"0.5\"", 0.5);
+        assertConverts(DataTypes.DECIMAL(5, 2), "12.345", DecimalData.fromBigDecimal(new BigDecimal("12.35"), 5, 2));
+        assertConverts(DataTypes.DECIMAL(5, 2), "\"7\"", DecimalData.fromBigDecimal(new BigDecimal("7.00"), 5, 2));
+    }
+
+    @Test
+    public void testThatLossyOrMismatchedNumbersAreNull() {
+        assertConverts(DataTypes.INT(), "1.5", null);
+        assertConverts(DataTypes.INT(), "5000000000", null);
+        assertConverts(DataTypes.INT(), "\"large\"", null);
+        assertConverts(DataTypes.BIGINT(), "true", null);
+        assertConverts(DataTypes.BIGINT(), "{\"a\": 1}", null);
+        assertConverts(DataTypes.DOUBLE(), "[1, 2]", null);
+        assertConverts(DataTypes.DOUBLE(), "\"n/a\"", null);
+        assertConverts(DataTypes.DECIMAL(3, 0), "12345", null);
+    }
+
+    @Test
+    public void testBooleanAndStringCoercion() {
+        assertConverts(DataTypes.BOOLEAN(), "true", true);
+        assertConverts(DataTypes.BOOLEAN(), "\"FALSE\"", false);
+        assertConverts(DataTypes.BOOLEAN(), "\"yes\"", null);
+        assertConverts(DataTypes.BOOLEAN(), "1", null);
+        assertConverts(DataTypes.STRING(), "\"text\"", StringData.fromString("text"));
+        assertConverts(DataTypes.STRING(), "12", StringData.fromString("12"));
+        assertConverts(DataTypes.STRING(), "false", StringData.fromString("false"));
+        assertConverts(DataTypes.STRING(), "{\"a\":[1,\"b\"]}", StringData.fromString("{\"a\":[1,\"b\"]}"));
+    }
+
+    @Test
+    public void testTimestampConversions() {
+        TimestampData expected = TimestampData.fromLocalDateTime(LocalDateTime.of(2024, 7, 24, 12, 31, 7));
+        for (DataType type : List.of(DataTypes.TIMESTAMP(), DataTypes.TIMESTAMP_LTZ())) {
+            assertConverts(type, "\"2024:07:24 12:31:07\"", expected);
+            assertConverts(type, "\"2024-07-24T12:31:07\"", expected);
+            assertConverts(type, "\"2024-07-24T12:31:07Z\"", expected);
+            assertConverts(type, "\"2024-07-24T14:31:07+02:00\"", expected);
+            assertConverts(type, Long.toString(expected.getMillisecond()), expected);
+            assertConverts(type, "\"yesterday\"", null);
+            assertConverts(type, "false", null);
+        }
+    }
+
+    @Test
+    public void testRowConversions() {
+        DataType rational = DataTypes.ROW(
+                DataTypes.FIELD("numerator", DataTypes.BIGINT()),
+                DataTypes.FIELD("denominator", DataTypes.BIGINT()));
+        GenericRowData expected = GenericRowData.of(72L, 1L);
+        assertConverts(rational, "{\"type\": \"IFDRational\", \"numerator\": 72, \"denominator\": 1}", expected);
+        assertConverts(rational, "[72, 1, 0]", expected);
+        assertConverts(rational, "72", null);
+
+        DataType label = DataTypes.ROW(
+                DataTypes.FIELD("name", DataTypes.STRING()),
+                DataTypes.FIELD("confidence", DataTypes.DOUBLE()));
+        assertConverts(label, "{\"Name\": \"Pond\", \"Confidence\": 96.5, \"Parents\": [{\"Name\": \"Nature\"}]}",
+                GenericRowData.of(StringData.fromString("Pond"), 96.5));
+        assertConverts(label, "{\"Name\": \"Pond\", \"Confidence\": null}",
+                GenericRowData.of(StringData.fromString("Pond"), null));
+    }
+
+    @Test
+    public void testMapAndArrayConversions() {
+        assertConverts(DataTypes.MAP(DataTypes.STRING(), DataTypes.INT()), "{\"a\": 1, \"b\": \"2\", \"c\": null}",
+                new GenericMapData(mapOf(StringData.fromString("a"), 1, StringData.fromString("b"), 2, StringData.fromString("c"), null)));
+        assertConverts(DataTypes.MAP(DataTypes.STRING(), DataTypes.INT()), "[1]", null);
+        assertConverts(DataTypes.ARRAY(DataTypes.DOUBLE()), "[1, null, 2.5]", new GenericArrayData(new Object[]{1.0, null, 2.5}));
+        assertConverts(DataTypes.ARRAY(DataTypes.STRING()), "\"single\"", new GenericArrayData(new Object[]{StringData.fromString("single")}));
+    }
+
+    @Test
+    public void testThatLabelsCanBeExtractedAsRows() {
+        String metadata = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent").metadata;
+        ValueConverter converter = ValueConverters.forType(DataTypes.ARRAY(DataTypes.ROW(
+                DataTypes.FIELD("name", DataTypes.STRING()),
+                DataTypes.FIELD("confidence", DataTypes.DOUBLE()))).getLogicalType());
+
+        for (String jpath : List.of("$.labels", "$.labels[*]")) {
+            GenericArrayData labels = (GenericArrayData) MetadataExtractor.compile(List.of(jpath), List.of(converter)).extract(metadata)[0];
+            assertEquals(3, labels.size(), jpath);
+            assertEquals(GenericRowData.of(StringData.fromString("Pond"), 96.9462661743164), labels.getRow(0, 2), jpath);
+            assertEquals("Waterfowl", labels.getRow(2, 2).getString(0).toString(), jpath);
+        }
+    }
+
+    @Test
+    public void testThatUnsupportedMapKeysAreRejected() {
+        assertThrows(RuntimeException.class,
+                () -> ValueConverters.forType(DataTypes.MAP(DataTypes.INT(), DataTypes.STRING()).getLogicalType()));
+    }
+
+    /**
+     * Checks both the streaming and the JsonPath conversion of the JSON value, followed by another value to check that
+     * the streaming conversion consumes exactly one value.
+     */
+    private static void assertConverts(DataType type, String json, Object expected) {
+        ValueConverter converter = ValueConverters.forType(type.getLogicalType());
+        try (JsonReader reader = new JsonReader(new StringReader("[" + json + ", \"next\"]"))) {
+            reader.beginArray();
+            assertEquals(expected, converter.read(reader), "read " + json);
+            assertEquals("next", reader.nextString(), "read " + json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Object jsonValue = JsonPath.parse(json).read("$");
+        assertEquals(expected, converter.convert(jsonValue), "convert " + json);
+    }
+
+    private static Map<StringData, Object> mapOf(Object... keysAndValues) {
+        Map<StringData, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((StringData) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
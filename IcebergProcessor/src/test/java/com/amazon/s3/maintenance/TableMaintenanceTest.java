@@ -0,0 +1,270 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.maintenance;
+
+import com.amazon.s3.TestingHelpers;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.FileMetadata;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.data.parquet.GenericParquetWriter;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.DataWriter;
+import org.apache.iceberg.parquet.Parquet;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableMaintenanceTest {
+
+    private static final Schema SCHEMA = new Schema(
+            List.of(
+                    Types.NestedField.required(1, "bucket", Types.StringType.get()),
+                    Types.NestedField.required(2, "key", Types.StringType.get())),
+            Set.of(1, 2));
+
+    @TempDir
+    private Path tableLocation;
+
+    private Table table;
+    private Map<String, Properties> config;
+
+    @BeforeEach
+    public void setUp() {
+        table = new HadoopTables(new Configuration()).create(
+                SCHEMA,
+                PartitionSpec.unpartitioned(),
+                Map.of(TableProperties.FORMAT_VERSION, "2"),
+                tableLocation.toUri().toString());
+        config = TestingHelpers.defaultCorrectProperties();
+        config.put("maintenance", new Properties());
+        config.get("maintenance").setProperty("target_file_size_bytes", "1000");
+        config.get("maintenance").setProperty("min_input_files", "3");
+        config.get("maintenance").setProperty("delete_file_threshold", "2");
+    }
+
+    @Test
+    public void testThatCompactionIsNeededForSmallFiles() {
+        TableMaintenance maintenance = new TableMaintenance(table, config);
+        table.newAppend().appendFile(dataFile("a", 100)).appendFile(dataFile("b", 100)).appendFile(dataFile("c", 900)).commit();
+        assertFalse(maintenance.needsCompaction());
+
+        table.newAppend().appendFile(dataFile("d", 700)).commit();
+        assertTrue(maintenance.needsCompaction());
+    }
+
+    @Test
+    public void testThatCompactionIsNeededForDeleteFiles() {
+        TableMaintenance maintenance = new TableMaintenance(table, config);
+        table.newAppend().appendFile(dataFile("a", 1000)).commit();
+        table.newRowDelta().addDeletes(equalityDeleteFile("delete-1")).commit();
+        assertFalse(maintenance.needsCompaction());
+
+        table.newRowDelta().addDeletes(equalityDeleteFile("delete-2")).commit();
+        assertTrue(maintenance.needsCompaction());
+    }
+
+    @Test
+    public void testThatOnlyDanglingDeleteFilesAreRemoved() throws Exception {
+        DataFile original = dataFile("a", 100);
+        table.newAppend().appendFile(original).commit();
+        table.newRowDelta().addDeletes(equalityDeleteFile("delete-1")).commit();
+
+        // Compaction keeps the sequence number of the snapshot it read, so the delete no longer applies to its output.
+        Snapshot compacted = table.currentSnapshot();
+        table.newRewrite()
+                .validateFromSnapshot(compacted.snapshotId())
+                .rewriteFiles(Set.of(original), Set.of(dataFile("b", 100)), compacted.sequenceNumber())
+                .commit();
+        table.newAppend().appendFile(dataFile("c", 100)).commit();
+        table.newRowDelta().addDeletes(equalityDeleteFile("delete-2")).commit();
+
+        TableMaintenance maintenance = new TableMaintenance(table, config);
+        assertEquals(1, maintenance.removeDanglingDeleteFiles());
+        assertEquals(List.of("delete-2"), deleteFileNames());
+        assertEquals(0, maintenance.removeDanglingDeleteFiles());
+    }
+
+    @Test
+    public void testThatCompactionKeepsEqualityDeletesCommittedWhileItRuns() throws Exception {
+        table.updateProperties().set(TableProperties.SPLIT_OPEN_FILE_COST, "1").commit();
+        config.get("maintenance").setProperty("target_file_size_bytes", "1048576");
+        table.newAppend().appendFile(writeDataFile("a")).appendFile(writeDataFile("b")).commit();
+
+        // The streaming job commits an equality delete after the compaction planned its rewrite, before it commits it.
+        DeleteFile concurrentDelete = equalityDeleteFile("delete-1");
+        Table concurrentlyDeletedTable = (Table) Proxy.newProxyInstance(
+                Table.class.getClassLoader(),
+                new Class<?>[] {Table.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("newRewrite")) {
+                        table.newRowDelta().addDeletes(concurrentDelete).commit();
+                    }
+                    try {
+                        return method.invoke(table, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.setParallelism(1);
+        assertEquals(2, new TableMaintenance(concurrentlyDeletedTable, config).compact(env));
+
+        table.refresh();
+        List<FileScanTask> tasks = planFiles();
+        assertEquals(1, tasks.size());
+        assertEquals(List.of("delete-1"), deleteFileNames());
+    }
+
+    @Test
+    public void testThatSnapshotsAreExpiredByAge() {
+        config.get("maintenance").setProperty("snapshot_max_age", "1 h");
+        config.get("maintenance").setProperty("min_snapshots_to_keep", "2");
+        table.newAppend().appendFile(dataFile("a", 100)).commit();
+        table.newAppend().appendFile(dataFile("b", 100)).commit();
+        table.newAppend().appendFile(dataFile("c", 100)).commit();
+
+        TableMaintenance maintenance = new TableMaintenance(table, config);
+        assertEquals(0, maintenance.expireSnapshots(System.currentTimeMillis()));
+        assertEquals(1, maintenance.expireSnapshots(System.currentTimeMillis() + Duration.ofHours(2).toMillis()));
+        assertEquals(2, countSnapshots());
+    }
+
+    @Test
+    public void testThatOnlyOldUnreferencedFilesAreRemoved() throws Exception {
+        config.get("maintenance").setProperty("orphan_file_min_age", "1 h");
+        long now = System.currentTimeMillis() + Duration.ofHours(2).toMillis();
+        Files.createDirectories(tableLocation.resolve("data"));
+
+        File referenced = tableLocation.resolve("data/referenced.parquet").toFile();
+        Files.write(referenced.toPath(), new byte[100]);
+        table.newAppend().appendFile(dataFile(referenced.toURI().toString(), 100)).commit();
+        table.newAppend().appendFile(dataFile("missing", 100)).commit();
+
+        File orphan = tableLocation.resolve("data/orphan.parquet").toFile();
+        Files.write(orphan.toPath(), new byte[100]);
+        File recent = tableLocation.resolve("data/recent.parquet").toFile();
+        Files.write(recent.toPath(), new byte[100]);
+        assertTrue(recent.setLastModified(now - Duration.ofMinutes(30).toMillis()));
+
+        TableMaintenance maintenance = new TableMaintenance(table, config);
+        assertEquals(1, maintenance.removeOrphanFiles(now));
+        assertFalse(orphan.exists());
+        assertTrue(referenced.exists());
+        assertTrue(recent.exists());
+
+        table.refresh();
+        assertEquals(2, countSnapshots());
+        assertEquals(2, planFiles().size());
+    }
+
+    private DataFile dataFile(String name, long size) {
+        String path = name.contains(":") ? name : tableLocation.resolve("data/" + name + ".parquet").toUri().toString();
+        return DataFiles.builder(PartitionSpec.unpartitioned())
+                .withPath(path)
+                .withFileSizeInBytes(size)
+                .withRecordCount(1)
+                .withFormat(FileFormat.PARQUET)
+                .build();
+    }
+
+    /**
+     * @return a Parquet data file that was written to the table's location, with a single row.
+     */
+    private DataFile writeDataFile(String key) throws Exception {
+        DataWriter<Record> writer = Parquet.writeData(table.io().newOutputFile(tableLocation.resolve("data/" + key + ".parquet").toUri().toString()))
+                .schema(SCHEMA)
+                .createWriterFunc(GenericParquetWriter::buildWriter)
+                .withSpec(PartitionSpec.unpartitioned())
+                .build();
+        try (writer) {
+            Record record = GenericRecord.create(SCHEMA);
+            record.setField("bucket", "foo");
+            record.setField("key", key);
+            writer.write(record);
+        }
+        return writer.toDataFile();
+    }
+
+    private DeleteFile equalityDeleteFile(String name) {
+        return FileMetadata.deleteFileBuilder(PartitionSpec.unpartitioned())
+                .ofEqualityDeletes(1, 2)
+                .withPath(tableLocation.resolve("data/" + name + ".parquet").toUri().toString())
+                .withFileSizeInBytes(10)
+                .withRecordCount(1)
+                .withFormat(FileFormat.PARQUET)
+                .build();
+    }
+
+    private List<String> deleteFileNames() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (FileScanTask task : planFiles()) {
+            task.deletes().forEach(x -> {
+                String name = new File(x.location()).getName().replace(".parquet", "");
+                if (!names.contains(name)) {
+                    names.add(name);
+                }
+            });
+        }
+        return names;
+    }
+
+    private List<FileScanTask> planFiles() throws Exception {
+        List<FileScanTask> tasks = new ArrayList<>();
+        try (CloseableIterable<FileScanTask> planned = table.newScan().planFiles()) {
+            planned.forEach(tasks::add);
+        }
+        return tasks;
+    }
+
+    private int countSnapshots() {
+        int count = 0;
+        for (Snapshot ignored : table.snapshots()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.metrics;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.DeadLetterPolicy;
+import com.amazon.s3.model.EventDeserializationSchema;
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.util.UserCodeClassLoader;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeserializationMetricsTest {
+
+    @Test
+    public void testThatReceivedAndSkippedRecordsAreCounted() throws Exception {
+        RecordingMetricGroup group = new RecordingMetricGroup();
+        EventDeserializationSchema deserializationSchema = new EventDeserializationSchema();
+        deserializationSchema.open(context(group));
+
+        Record create = TestingHelpers.loadSampleEventAsRecord("CreateEvent");
+        Record remove = create.toBuilder().eventName(OperationType.REMOVE).build();
+        List<ImageRecord> results = new ArrayList<>();
+        deserializationSchema.deserialize(create, "TestStream", "TestShard", new ListCollector<>(results));
+        deserializationSchema.deserialize(remove, "TestStream", "TestShard", new ListCollector<>(results));
+
+        assertEquals(2, group.<Counter>get("recordsReceived").getCount());
+        assertEquals(1, group.<Counter>get("removeEventsSkipped").getCount());
+
+        Histogram metadataSize = group.get("metadataSize");
+        assertEquals(1, metadataSize.getCount());
+        assertEquals(results.get(0).metadata.length(), metadataSize.getStatistics().getMax());
+    }
+
+    @Test
+    public void testThatDeadLettersAreCountedByErrorClass() throws Exception {
+        RecordingMetricGroup group = new RecordingMetricGroup();
+        EventDeserializationSchema deserializationSchema = new EventDeserializationSchema(new DeadLetterPolicy(1, 100));
+        deserializationSchema.open(context(group));
+
+        Record create = TestingHelpers.loadSampleEventAsRecord("CreateEvent");
+        Record withoutImage = create.toBuilder().dynamodb(create.dynamodb().toBuilder().newImage(null).build()).build();
+        List<ImageRecord> results = new ArrayList<>();
+        deserializationSchema.deserialize(create, "TestStream", "TestShard", new ListCollector<>(results));
+        deserializationSchema.deserialize(withoutImage, "TestStream", "TestShard", new ListCollector<>(results));
+        deserializationSchema.deserialize(withoutImage, "TestStream", "TestShard", new ListCollector<>(results));
+
+        assertEquals(3, group.<Counter>get("recordsReceived").getCount());
+        assertEquals(2, group.<Counter>get("deadLetters").getCount());
+        assertEquals(2, group.<Counter>get("errorClass.NullPointerException.deadLetters").getCount());
+    }
+
+    @Test
+    public void testThatUnopenedSchemaStillDeserializes() throws Exception {
+        List<ImageRecord> results = new ArrayList<>();
+        new EventDeserializationSchema().deserialize(
+                TestingHelpers.loadSampleEventAsRecord("CreateEvent"), "TestStream", "TestShard", new ListCollector<>(results));
+        assertEquals(1, results.size());
+    }
+
+    static DeserializationSchema.InitializationContext context(MetricGroup group) {
+        return new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return group;
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.metrics;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.Metric;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A metric group that keeps every metric registered on it, or on its subgroups, by its dot separated name.
+ */
+class RecordingMetricGroup extends UnregisteredMetricsGroup {
+
+    private final Map<String, Metric> metrics;
+    private final String prefix;
+
+    RecordingMetricGroup() {
+        this(new HashMap<>(), "");
+    }
+
+    private RecordingMetricGroup(Map<String, Metric> metrics, String prefix) {
+        this.metrics = metrics;
+        this.prefix = prefix;
+    }
+
+    @SuppressWarnings("unchecked")
+    <M extends Metric> M get(String name) {
+        M metric = (M) metrics.get(name);
+        if (metric == null) {
+            throw new IllegalArgumentException("No metric registered as: " + name);
+        }
+        return metric;
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counter(name, new SimpleCounter());
+    }
+
+    @Override
+    public <C extends Counter> C counter(String name, C counter) {
+        metrics.put(prefix + name, counter);
+        return counter;
+    }
+
+    @Override
+    public <T, G extends Gauge<T>> G gauge(String name, G gauge) {
+        metrics.put(prefix + name, gauge);
+        return gauge;
+    }
+
+    @Override
+    public <H extends Histogram> H histogram(String name, H histogram) {
+        metrics.put(prefix + name, histogram);
+        return histogram;
+    }
+
+    @Override
+    public <M extends Meter> M meter(String name, M meter) {
+        metrics.put(prefix + name, meter);
+        return meter;
+    }
+
+    @Override
+    public MetricGroup addGroup(String name) {
+        return new RecordingMetricGroup(metrics, prefix + name + ".");
+    }
+
+    @Override
+    public MetricGroup addGroup(String key, String value) {
+        return addGroup(key).addGroup(value);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.metrics;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.RowDataDeserializationSchema;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowMetricsTest {
+
+    private final Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+    private final Schema tableSchema = TableSchemaGenerator.generate(properties, List.of());
+    private final RowType rowType = TableSchemaGenerator.toRowType(tableSchema);
+
+    @Test
+    public void testThatRowKindsAndNullsAreCounted() {
+        RecordingMetricGroup group = new RecordingMetricGroup();
+        RowMetrics metrics = new RowMetrics(group, rowType);
+
+        metrics.rowEmitted(row(RowKind.INSERT, "etag"), 10);
+        metrics.rowEmitted(row(RowKind.INSERT, null), 30);
+        metrics.rowEmitted(row(RowKind.DELETE, null), 20);
+
+        assertEquals(3, group.<Counter>get("rowsEmitted").getCount());
+        assertEquals(2, group.<Counter>get("insertRows").getCount());
+        assertEquals(1, group.<Counter>get("deleteRows").getCount());
+        assertEquals(30, group.<Histogram>get("conversionTimeNanos").getStatistics().getMax());
+
+        assertEquals(1, group.<Counter>get("column.etag.nulls").getCount());
+        assertEquals(0.5, group.<Gauge<Double>>get("column.etag.nullRate").getValue());
+        assertEquals(0.0, group.<Gauge<Double>>get("column.bucket.nullRate").getValue());
+    }
+
+    @Test
+    public void testEventFreshness() {
+        RecordingMetricGroup group = new RecordingMetricGroup();
+        RowMetrics metrics = new RowMetrics(group, rowType);
+        Gauge<Long> freshness = group.get("eventFreshnessMillis");
+        assertEquals(0L, freshness.getValue());
+
+        metrics.rowEmitted(row(RowKind.INSERT, "etag"), 0);
+        assertTrue(freshness.getValue() >= 60_000L);
+        assertTrue(freshness.getValue() < 120_000L);
+    }
+
+    @Test
+    public void testThatFusedDeserializerReportsRowMetrics() throws Exception {
+        RecordingMetricGroup group = new RecordingMetricGroup();
+        RowDataDeserializationSchema deserializationSchema = new RowDataDeserializationSchema(tableSchema, List.of());
+        deserializationSchema.open(DeserializationMetricsTest.context(group));
+
+        List<RowData> results = new ArrayList<>();
+        for (String event : List.of("CreateEvent", "DeleteEvent")) {
+            deserializationSchema.deserialize(TestingHelpers.loadSampleEventAsRecord(event), "TestStream", "TestShard", new ListCollector<>(results));
+        }
+
+        assertEquals(2, group.<Counter>get("recordsReceived").getCount());
+        assertEquals(2, group.<Counter>get("rowsEmitted").getCount());
+        assertEquals(1, group.<Counter>get("insertRows").getCount());
+        assertEquals(1, group.<Counter>get("deleteRows").getCount());
+    }
+
+    private GenericRowData row(RowKind kind, String etag) {
+        GenericRowData row = new GenericRowData(kind, rowType.getFieldCount());
+        row.setField(rowType.getFieldIndex("bucket"), StringData.fromString("bucket"));
+        row.setField(rowType.getFieldIndex("key"), StringData.fromString("key"));
+        row.setField(rowType.getFieldIndex("etag"), etag == null ? null : StringData.fromString(etag));
+        row.setField(rowType.getFieldIndex("lastModified"), TimestampData.fromEpochMillis(System.currentTimeMillis() - 60_000L));
+        return row;
+    }
+}
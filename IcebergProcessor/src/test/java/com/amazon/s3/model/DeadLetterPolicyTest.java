@@ -0,0 +1,94 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.ProcessFunctionTestHarnesses;
+import org.apache.flink.table.data.RowData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLetterPolicyTest {
+
+    @Test
+    public void testThatTooManyFailuresWithinAWindowFailTheJob() {
+        DeadLetterPolicy policy = new DeadLetterPolicy(0.2, 10);
+        DeadLetter deadLetter = new DeadLetter(DeadLetter.MAPPING, new IllegalStateException(), null, null, "{}");
+
+        // Two failures per window of ten records are allowed, and the count starts over with every window.
+        for (int window = 0; window < 3; window++) {
+            policy.failed(deadLetter, null);
+            for (int i = 0; i < 8; i++) {
+                policy.succeeded();
+            }
+            policy.failed(deadLetter, null);
+        }
+        policy.failed(deadLetter, null);
+        policy.failed(deadLetter, null);
+        assertThrows(IllegalStateException.class, () -> policy.failed(deadLetter, null));
+    }
+
+    @Test
+    public void testThatPolicyIsOnlyCreatedWithADestination() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        assertNull(DeadLetterPolicy.fromConfig(config));
+
+        config.put("dead_letters", new Properties());
+        config.get("dead_letters").setProperty("path", "file:///tmp/dead-letters");
+        assertNotNull(DeadLetterPolicy.fromConfig(config));
+
+        config.get("dead_letters").setProperty("table", "dead_letters");
+        assertThrows(IllegalArgumentException.class, () -> DeadLetterPolicy.fromConfig(config));
+        config.get("dead_letters").remove("path");
+        config.get("dead_letters").setProperty("max_failure_rate", "1.5");
+        assertThrows(IllegalArgumentException.class, () -> DeadLetterPolicy.fromConfig(config));
+    }
+
+    @Test
+    public void testThatRecordsThatCantBeMappedBecomeDeadLetters() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "image_width");
+        properties.get("schema").setProperty("field.image_width.type", "INTEGER");
+        properties.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        ImageToRowDataMapper mapper = new ImageToRowDataMapper(TableSchemaGenerator.generate(properties, entries), entries);
+
+        ImageRecord malformed = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        malformed.metadata = "{\"exif\": {\"ImageWidth\": ";
+        try (OneInputStreamOperatorTestHarness<ImageRecord, RowData> harness = ProcessFunctionTestHarnesses.forProcessFunction(
+                new DeadLetteringRowMapper(mapper, new DeadLetterPolicy(0.5, 10)))) {
+            harness.processElement(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), 0);
+            harness.processElement(malformed, 0);
+
+            assertEquals(1, harness.extractOutputValues().size());
+            assertEquals(4000, harness.extractOutputValues().get(0).getInt(7));
+            DeadLetter deadLetter = harness.getSideOutput(DeadLetter.OUTPUT_TAG).poll().getValue();
+            assertEquals(DeadLetter.MAPPING, deadLetter.stage);
+            assertNull(deadLetter.shardId);
+            assertTrue(deadLetter.record.contains("ImageWidth"), deadLetter.record);
+            assertTrue(deadLetter.toJson().contains("\"stage\":\"mapping\""), deadLetter.toJson());
+        }
+    }
+}
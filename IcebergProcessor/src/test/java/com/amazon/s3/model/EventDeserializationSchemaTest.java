@@ -18,13 +18,17 @@
 package com.amazon.s3.model;
 
 import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.source.DynamoDbExport;
 import org.apache.flink.api.common.functions.util.ListCollector;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.junit.jupiter.api.Test;
 
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.Record;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +48,52 @@ class EventDeserializationSchemaTest {
         assertEquals("foo", deserialized.bucket);
     }
 
+    @Test
+    public void testThatUnreadableRecordsBecomeDeadLetters() throws Exception {
+        Record record = TestingHelpers.loadSampleEventAsRecord("CreateEvent");
+        Map<String, AttributeValue> image = new HashMap<>(record.dynamodb().newImage());
+        image.remove("bucket");
+        Record unreadable = record.toBuilder().dynamodb(record.dynamodb().toBuilder().newImage(image).build()).build();
+
+        assertThrows(IllegalArgumentException.class, () -> new EventDeserializationSchema()
+                .deserialize(unreadable, "TestStream", "TestShard", new ListCollector<>(new ArrayList<>())));
+
+        List<ImageRecord> results = new ArrayList<>();
+        EventDeserializationSchema deserializationSchema = new EventDeserializationSchema(new DeadLetterPolicy(1, 10));
+        deserializationSchema.deserialize(unreadable, "TestStream", "TestShard", new ListCollector<>(results));
+        deserializationSchema.deserialize(record, "TestStream", "TestShard", new ListCollector<>(results));
+
+        assertEquals(2, results.size());
+        DeadLetter deadLetter = results.get(0).deadLetter;
+        assertNull(results.get(0).bucket);
+        assertEquals(DeadLetter.DESERIALIZATION, deadLetter.stage);
+        assertEquals(IllegalArgumentException.class.getName(), deadLetter.errorClass);
+        assertEquals("TestShard", deadLetter.shardId);
+        assertEquals(record.dynamodb().sequenceNumber(), deadLetter.sequenceNumber);
+        assertEquals(image, DynamoDbExport.parseItem(deadLetter.record));
+        assertNull(results.get(1).deadLetter);
+        assertEquals("foo", results.get(1).bucket);
+    }
+
+    @Test
+    public void testThatNullKeyAttributesBecomeDeadLetters() throws Exception {
+        Record record = TestingHelpers.loadSampleEventAsRecord("CreateEvent");
+        EventDeserializationSchema deserializationSchema = new EventDeserializationSchema(new DeadLetterPolicy(1, 10));
+        List<ImageRecord> results = new ArrayList<>();
+        for (String attribute : List.of("bucket", "key", "sequencer")) {
+            Map<String, AttributeValue> image = new HashMap<>(record.dynamodb().newImage());
+            image.put(attribute, AttributeValue.fromNul(true));
+            Record unreadable = record.toBuilder().dynamodb(record.dynamodb().toBuilder().newImage(image).build()).build();
+            deserializationSchema.deserialize(unreadable, "TestStream", "TestShard", new ListCollector<>(results));
+        }
+
+        assertEquals(3, results.size());
+        for (ImageRecord result : results) {
+            assertNotNull(result.deadLetter);
+            assertEquals(IllegalArgumentException.class.getName(), result.deadLetter.errorClass);
+        }
+    }
+
     @Test
     public void testProducedTypeOfDeserializer() throws Exception {
         EventDeserializationSchema deserializationSchema = new EventDeserializationSchema();
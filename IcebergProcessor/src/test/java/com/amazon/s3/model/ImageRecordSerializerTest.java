@@ -0,0 +1,142 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.TestingHelpers;
+import org.apache.flink.api.common.serialization.SerializerConfigImpl;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageRecordSerializerTest {
+
+    private final ImageRecordSerializer serializer = ImageRecordSerializer.INSTANCE;
+
+    @Test
+    public void testThatTypeInformationUsesDedicatedSerializer() throws Exception {
+        TypeInformation<ImageRecord> typeInfo = TypeInformation.of(ImageRecord.class);
+        assertEquals(ImageRecordTypeInfo.INSTANCE, typeInfo);
+        assertSame(serializer, typeInfo.createSerializer(new SerializerConfigImpl()));
+    }
+
+    @Test
+    public void testRoundTripOfCreateEvent() throws Exception {
+        ImageRecord original = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        assertRecordEquals(original, roundTrip(original));
+    }
+
+    @Test
+    public void testRoundTripOfDeleteEventWithMissingFields() throws Exception {
+        ImageRecord original = TestingHelpers.loadSampleEventAsImageRecord("DeleteEvent");
+        assertNull(original.metadata);
+        assertNull(original.etag);
+
+        ImageRecord copy = roundTrip(original);
+        assertRecordEquals(original, copy);
+        assertTrue(copy.isDelete);
+    }
+
+    @Test
+    public void testRoundTripOfEnrichedRecord() throws Exception {
+        ImageRecord original = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        Map<String, String> enrichment = new HashMap<>();
+        enrichment.put("content_type", "image/jpeg");
+        enrichment.put("tag.project", null);
+        original.enrichment = enrichment;
+
+        assertRecordEquals(original, roundTrip(original));
+        original.enrichment = Map.of();
+        assertRecordEquals(original, roundTrip(original));
+    }
+
+    @Test
+    public void testRoundTripOfDeadLetter() throws Exception {
+        ImageRecord original = new ImageRecord();
+        original.deadLetter = new DeadLetter(DeadLetter.DESERIALIZATION, new NullPointerException(), "shard-1", null, "{}");
+
+        ImageRecord copy = roundTrip(original);
+        assertRecordEquals(original, copy);
+        assertEquals(original.deadLetter.failedAt, copy.deadLetter.failedAt);
+        assertEquals(DeadLetter.DESERIALIZATION, copy.deadLetter.stage);
+        assertEquals(NullPointerException.class.getName(), copy.deadLetter.errorClass);
+        assertNull(copy.deadLetter.errorMessage);
+        assertEquals("shard-1", copy.deadLetter.shardId);
+        assertNull(copy.deadLetter.sequenceNumber);
+        assertEquals("{}", copy.deadLetter.record);
+
+        DataOutputSerializer first = new DataOutputSerializer(64);
+        serializer.serialize(original, first);
+        DataOutputSerializer second = new DataOutputSerializer(64);
+        serializer.copy(new DataInputDeserializer(first.getCopyOfBuffer()), second);
+        assertArrayEquals(first.getCopyOfBuffer(), second.getCopyOfBuffer());
+    }
+
+    @Test
+    public void testThatSerializedFormCanBeCopied() throws Exception {
+        ImageRecord original = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        original.enrichment = Map.of("content_type", "image/jpeg", "content_length", "1234");
+        DataOutputSerializer first = new DataOutputSerializer(256);
+        serializer.serialize(original, first);
+
+        DataOutputSerializer second = new DataOutputSerializer(256);
+        serializer.copy(new DataInputDeserializer(first.getCopyOfBuffer()), second);
+
+        assertArrayEquals(first.getCopyOfBuffer(), second.getCopyOfBuffer());
+    }
+
+    @Test
+    public void testThatSnapshotIsCompatibleWithItself() throws Exception {
+        DataOutputSerializer out = new DataOutputSerializer(64);
+        TypeSerializerSnapshot.writeVersionedSnapshot(out, serializer.snapshotConfiguration());
+        TypeSerializerSnapshot<ImageRecord> restored = TypeSerializerSnapshot.readVersionedSnapshot(
+                new DataInputDeserializer(out.getCopyOfBuffer()), getClass().getClassLoader());
+
+        TypeSerializerSchemaCompatibility<ImageRecord> compatibility =
+                serializer.snapshotConfiguration().resolveSchemaCompatibility(restored);
+        assertTrue(compatibility.isCompatibleAsIs());
+        assertSame(serializer, restored.restoreSerializer());
+    }
+
+    private ImageRecord roundTrip(ImageRecord record) throws Exception {
+        DataOutputSerializer out = new DataOutputSerializer(256);
+        serializer.serialize(record, out);
+        return serializer.deserialize(new DataInputDeserializer(out.getCopyOfBuffer()));
+    }
+
+    private static void assertRecordEquals(ImageRecord expected, ImageRecord actual) {
+        assertEquals(expected.bucket, actual.bucket);
+        assertEquals(expected.userKey, actual.userKey);
+        assertEquals(expected.etag, actual.etag);
+        assertEquals(expected.versionId, actual.versionId);
+        assertEquals(expected.sequencer, actual.sequencer);
+        assertEquals(expected.latestEventTime, actual.latestEventTime);
+        assertEquals(expected.isDelete, actual.isDelete);
+        assertEquals(expected.isDeleteMarker, actual.isDeleteMarker);
+        assertEquals(expected.metadata, actual.metadata);
+        assertEquals(expected.enrichment, actual.enrichment);
+        assertEquals(expected.deadLetter == null, actual.deadLetter == null);
+    }
+}
@@ -19,9 +19,14 @@ package com.amazon.s3.model;
 
 import com.amazon.s3.TestingHelpers;
 import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.serialization.SerializerConfigImpl;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.table.data.GenericArrayData;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.types.RowKind;
 import org.junit.jupiter.api.Test;
 
@@ -106,4 +111,29 @@ class ImageToRowMapperTest {
 
         assertEquals(RowKind.DELETE, row.getRowKind());
     }
+
+    @Test
+    public void testThatProducedTypeIsDerivedFromSchema() throws Exception {
+        Map<String, Properties> defaultProperties = TestingHelpers.defaultCorrectProperties();
+        defaultProperties.get("schema").setProperty("custom_metadata_fields", "string_array, integer");
+        defaultProperties.get("schema").setProperty("field.string_array.jpath", "$.metadata.array.string");
+        defaultProperties.get("schema").setProperty("field.string_array.type", "ARRAY<STRING>");
+        defaultProperties.get("schema").setProperty("field.integer.jpath", "$.metadata.scalar.integer");
+        defaultProperties.get("schema").setProperty("field.integer.type", "INTEGER");
+
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(defaultProperties);
+        ImageToRowDataMapper mapper = new ImageToRowDataMapper(TableSchemaGenerator.generate(defaultProperties, schemaEntries), schemaEntries);
+        assertInstanceOf(InternalTypeInfo.class, mapper.getProducedType());
+
+        RowData row = mapper.map(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent_AllMetadataTypes"));
+        TypeSerializer<RowData> serializer = mapper.getProducedType().createSerializer(new SerializerConfigImpl());
+        DataOutputSerializer out = new DataOutputSerializer(256);
+        serializer.serialize(row, out);
+        RowData copy = serializer.deserialize(new DataInputDeserializer(out.getCopyOfBuffer()));
+
+        assertEquals(RowKind.INSERT, copy.getRowKind());
+        assertEquals("foo", copy.getString(0).toString());
+        assertEquals(3, copy.getArray(7).size());
+        assertEquals(12, copy.getInt(8));
+    }
 }
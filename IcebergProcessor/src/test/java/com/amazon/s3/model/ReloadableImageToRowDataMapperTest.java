@@ -0,0 +1,95 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.operators.co.CoBroadcastWithNonKeyedOperator;
+import org.apache.flink.streaming.util.BroadcastOperatorTestHarness;
+import org.apache.flink.streaming.util.ProcessFunctionTestHarnesses;
+import org.apache.flink.table.data.RowData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReloadableImageToRowDataMapperTest {
+
+    private static final String FIELDS_FILE = "{\n" +
+            "  \"custom_metadata_fields\": \"image_width, labels\",\n" +
+            "  \"field.image_width.type\": \"INTEGER\",\n" +
+            "  \"field.image_width.jpath\": \"$.exif.ImageLength\",\n" +
+            "  \"field.labels.type\": \"ARRAY<STRING>\",\n" +
+            "  \"field.labels.jpath\": \"$.labels[*].Name\"\n" +
+            "}";
+
+    @Test
+    public void testThatBroadcastFieldsChangeTheExtractedValues() throws Exception {
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+
+        try (BroadcastOperatorTestHarness<ImageRecord, String, RowData> harness =
+                     ProcessFunctionTestHarnesses.forBroadcastProcessFunction(mapper(), ReloadableImageToRowDataMapper.FIELDS_FILE_STATE)) {
+            harness.processElement(image, 0);
+            harness.processBroadcastElement(FIELDS_FILE, 0);
+            harness.processElement(image, 0);
+
+            List<RowData> rows = harness.extractOutputValues();
+            assertEquals(4000, rows.get(0).getInt(6));
+            assertEquals(2252, rows.get(1).getInt(6));
+            assertEquals(7, rows.get(1).getArity());
+            assertEquals(FIELDS_FILE, harness.getBroadcastState(ReloadableImageToRowDataMapper.FIELDS_FILE_STATE).get("current"));
+        }
+    }
+
+    @Test
+    public void testThatARestoredVersionDoesntOverrideTheFileReadAtStartup() throws Exception {
+        OperatorSubtaskState snapshot;
+        try (BroadcastOperatorTestHarness<ImageRecord, String, RowData> harness =
+                     ProcessFunctionTestHarnesses.forBroadcastProcessFunction(mapper(), ReloadableImageToRowDataMapper.FIELDS_FILE_STATE)) {
+            harness.processBroadcastElement(FIELDS_FILE, 0);
+            snapshot = harness.snapshot(1, 0);
+        }
+
+        try (BroadcastOperatorTestHarness<ImageRecord, String, RowData> harness = new BroadcastOperatorTestHarness<>(
+                new CoBroadcastWithNonKeyedOperator<>(mapper(), List.of(ReloadableImageToRowDataMapper.FIELDS_FILE_STATE)), 1, 1, 0)) {
+            harness.setup();
+            harness.initializeState(snapshot);
+            harness.open();
+            harness.processElement(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), 0);
+
+            assertEquals(4000, harness.extractOutputValues().get(0).getInt(6));
+        }
+    }
+
+    /**
+     * @return a mapper that started with the image width read from {@code $.exif.ImageWidth}.
+     */
+    private static ReloadableImageToRowDataMapper mapper() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("include_raw_metadata", "false");
+        config.get("schema").setProperty("custom_metadata_fields", "image_width");
+        config.get("schema").setProperty("field.image_width.type", "INTEGER");
+        config.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        return new ReloadableImageToRowDataMapper(new ImageToRowDataMapper(TableSchemaGenerator.generate(config, entries), entries));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.model;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowDataDeserializationSchemaTest {
+
+    @Test
+    public void testThatFusedDeserializationMatchesMapper() throws Exception {
+        for (String includeRawMetadata : List.of("true", "false")) {
+            Map<String, Properties> properties = allMetadataTypesProperties();
+            properties.get("schema").setProperty("include_raw_metadata", includeRawMetadata);
+            List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+            Schema tableSchema = TableSchemaGenerator.generate(properties, schemaEntries);
+
+            RowDataDeserializationSchema deserializationSchema = new RowDataDeserializationSchema(tableSchema, schemaEntries);
+            ImageToRowDataMapper mapper = new ImageToRowDataMapper(tableSchema, schemaEntries);
+
+            for (String event : List.of("CreateEvent", "CreateEvent_AllMetadataTypes", "DeleteEvent")) {
+                List<RowData> results = new ArrayList<>();
+                deserializationSchema.deserialize(TestingHelpers.loadSampleEventAsRecord(event), "TestStream", "TestShard", new ListCollector<>(results));
+                assertEquals(1, results.size());
+                assertEquals(mapper.map(TestingHelpers.loadSampleEventAsImageRecord(event)), results.get(0), event);
+            }
+        }
+    }
+
+    @Test
+    public void testThatRawMetadataIsOnlyReadWhenProjected() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("include_raw_metadata", "false");
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        RowDataDeserializationSchema deserializationSchema =
+                new RowDataDeserializationSchema(TableSchemaGenerator.generate(properties, schemaEntries), schemaEntries);
+
+        List<RowData> results = new ArrayList<>();
+        deserializationSchema.deserialize(TestingHelpers.loadSampleEventAsRecord("CreateEvent"), "TestStream", "TestShard", new ListCollector<>(results));
+
+        RowData row = results.get(0);
+        assertEquals(RowKind.INSERT, row.getRowKind());
+        assertEquals(6, row.getArity());
+        assertEquals("foo", row.getString(0).toString());
+        assertEquals("20240724_123107.jpg", row.getString(1).toString());
+        assertTrue(row.isNullAt(2));
+    }
+
+    @Test
+    public void testThatRemoveEventsAreSkipped() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        RowDataDeserializationSchema deserializationSchema =
+                new RowDataDeserializationSchema(TableSchemaGenerator.generate(properties, schemaEntries), schemaEntries);
+        Record remove = TestingHelpers.loadSampleEventAsRecord("CreateEvent").toBuilder().eventName(OperationType.REMOVE).build();
+
+        List<RowData> results = new ArrayList<>();
+        deserializationSchema.deserialize(remove, "TestStream", "TestShard", new ListCollector<>(results));
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testProducedTypeOfDeserializer() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(properties);
+        Schema tableSchema = TableSchemaGenerator.generate(properties, schemaEntries);
+
+        RowDataDeserializationSchema deserializationSchema = new RowDataDeserializationSchema(tableSchema, schemaEntries);
+        assertEquals(InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema)), deserializationSchema.getProducedType());
+    }
+
+    private static Map<String, Properties> allMetadataTypesProperties() {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("custom_metadata_fields", "string_array, integer, boolean, labels");
+        properties.get("schema").setProperty("field.string_array.jpath", "$.metadata.array.string");
+        properties.get("schema").setProperty("field.string_array.type", "ARRAY<STRING>");
+        properties.get("schema").setProperty("field.integer.jpath", "$.metadata.scalar.integer");
+        properties.get("schema").setProperty("field.integer.type", "INTEGER");
+        properties.get("schema").setProperty("field.boolean.jpath", "$.metadata.scalar.boolean");
+        properties.get("schema").setProperty("field.boolean.type", "BOOLEAN");
+        properties.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+        properties.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        return properties;
+    }
+}
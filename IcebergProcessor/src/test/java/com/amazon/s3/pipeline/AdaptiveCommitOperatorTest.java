@@ -0,0 +1,224 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.serialization.SerializerConfigImpl;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.util.AbstractStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveCommitOperatorTest {
+    private static final CommitPolicy POLICY = new CommitPolicy(0, 1000, 100, 10_000, 3, Long.MAX_VALUE);
+    private static final int MAX_PARALLELISM = 128;
+
+    private Schema tableSchema;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("include_raw_metadata", "false");
+        tableSchema = TableSchemaGenerator.generate(properties, TableSchemaGenerator.parseCustomMetadataFields(properties));
+    }
+
+    @Test
+    public void testThatRowsAreReleasedAtEveryCheckpointWhileKeepingUp() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(null)) {
+            harness.setProcessingTime(1000);
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01", 950), 1);
+            harness.processElement(row(RowKind.DELETE, "b.jpg", "02", 990), 2);
+            assertTrue(harness.extractOutputValues().isEmpty());
+
+            harness.prepareSnapshotPreBarrier(1);
+            assertEquals(List.of("+I a.jpg 01", "-D b.jpg 02"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatRowsAreHeldWhileCatchingUp() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(null)) {
+            harness.setProcessingTime(5000);
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01", 0), 1);
+            harness.prepareSnapshotPreBarrier(1);
+            assertTrue(harness.extractOutputValues().isEmpty());
+
+            // Below the catch up lag, but still above the steady lag.
+            harness.setProcessingTime(6000);
+            harness.processElement(row(RowKind.INSERT, "b.jpg", "02", 5500), 2);
+            harness.prepareSnapshotPreBarrier(2);
+            assertTrue(harness.extractOutputValues().isEmpty());
+
+            harness.setProcessingTime(10_000);
+            harness.processElement(row(RowKind.INSERT, "c.jpg", "03", 6000), 3);
+            harness.prepareSnapshotPreBarrier(3);
+            assertEquals(List.of("+I a.jpg 01", "+I b.jpg 02", "+I c.jpg 03"), describe(harness.extractOutputValues()));
+
+            // An idle source has caught up.
+            harness.setProcessingTime(11_000);
+            harness.prepareSnapshotPreBarrier(4);
+            harness.processElement(row(RowKind.INSERT, "d.jpg", "04", 11_000), 4);
+            harness.prepareSnapshotPreBarrier(5);
+            assertEquals(4, harness.extractOutputValues().size());
+        }
+    }
+
+    @Test
+    public void testThatAFullBufferIsReleasedEarly() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(null)) {
+            harness.setProcessingTime(5000);
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01", 0), 1);
+            harness.processElement(row(RowKind.INSERT, "b.jpg", "02", 0), 2);
+            assertTrue(harness.extractOutputValues().isEmpty());
+
+            harness.processElement(row(RowKind.INSERT, "c.jpg", "03", 0), 3);
+            assertEquals(3, harness.extractOutputValues().size());
+
+            // The rows held since are committed along with the released ones.
+            harness.processElement(row(RowKind.INSERT, "d.jpg", "04", 0), 4);
+            harness.prepareSnapshotPreBarrier(1);
+            assertEquals(4, harness.extractOutputValues().size());
+        }
+    }
+
+    @Test
+    public void testThatHeldRowsAreRestored() throws Exception {
+        OperatorSubtaskState snapshot;
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(null)) {
+            harness.setProcessingTime(5000);
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01", 0), 1);
+            harness.processElement(row(RowKind.DELETE, "b.jpg", "02", 0), 2);
+            snapshot = harness.snapshot(1, 5000);
+            assertTrue(harness.extractOutputValues().isEmpty());
+        }
+
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(snapshot)) {
+            harness.endInput();
+            assertEquals(List.of("+I a.jpg 01", "-D b.jpg 02"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatThePolicyIsConfigured() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        assertNull(CommitPolicy.fromConfig(config));
+
+        config.put("sink", new Properties());
+        config.get("sink").setProperty("commit_policy", "Adaptive");
+        config.get("sink").setProperty("commit_steady_lag", "2 min");
+        config.get("sink").setProperty("commit_catch_up_lag", "3 min");
+        CommitPolicy policy = CommitPolicy.fromConfig(config);
+        assertTrue(policy.isCatchingUp(false, 180_001));
+        assertTrue(policy.isCatchingUp(true, 120_001));
+        assertFalse(policy.isCatchingUp(true, 120_000));
+        assertTrue(policy.shouldCommit(false, 1, 1, 0));
+        assertFalse(policy.shouldCommit(true, 1, 1, 599_999));
+        assertTrue(policy.shouldCommit(true, 1, 134_217_728, 0));
+
+        config.get("sink").setProperty("commit_steady_lag", "4 min");
+        assertThrows(IllegalArgumentException.class, () -> CommitPolicy.fromConfig(config));
+        config.get("sink").setProperty("commit_policy", "never");
+        assertThrows(IllegalArgumentException.class, () -> CommitPolicy.fromConfig(config));
+    }
+
+    @Test
+    public void testThatRescaledSubtasksOnlyRestoreTheRowsOfTheirKeys() throws Exception {
+        OperatorSubtaskState snapshot;
+        CommitPolicy unbounded = new CommitPolicy(0, 1000, 100, 10_000, Long.MAX_VALUE, Long.MAX_VALUE);
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(null, unbounded, 1, 0)) {
+            harness.setProcessingTime(5000);
+            for (int i = 0; i < 20; i++) {
+                harness.processElement(row(RowKind.INSERT, i + ".jpg", "01", 0), i);
+            }
+            snapshot = harness.snapshot(1, 5000);
+        }
+
+        List<String> restored = new ArrayList<>();
+        for (int subtask = 0; subtask < 2; subtask++) {
+            try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(
+                    AbstractStreamOperatorTestHarness.repartitionOperatorState(snapshot, MAX_PARALLELISM, 1, 2, subtask), unbounded, 2, subtask)) {
+                harness.endInput();
+                List<String> rows = describe(harness.extractOutputValues());
+                assertTrue(rows.size() < 20, "Subtask " + subtask + " restored every row");
+                restored.addAll(rows);
+            }
+        }
+        assertEquals(20, restored.size());
+        assertEquals(20, restored.stream().distinct().count());
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness(OperatorSubtaskState snapshot) throws Exception {
+        return harness(snapshot, POLICY, 1, 0);
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness(OperatorSubtaskState snapshot, CommitPolicy policy,
+                                                                                     int parallelism, int subtask) throws Exception {
+        KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = new KeyedOneInputStreamOperatorTestHarness<>(
+                new AdaptiveCommitOperator(tableSchema, policy),
+                new PrimaryKeySelector(tableSchema),
+                Types.STRING,
+                MAX_PARALLELISM,
+                parallelism,
+                subtask);
+        harness.setup(InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema)).createSerializer(new SerializerConfigImpl()));
+        if (snapshot != null) {
+            harness.initializeState(snapshot);
+        }
+        harness.open();
+        return harness;
+    }
+
+    /**
+     * @return the rows in the order of their keys, as the rows of different keys are released in no particular order.
+     */
+    private static List<String> describe(List<RowData> rows) {
+        return rows.stream()
+                .map(x -> x.getRowKind().shortString() + " " + x.getString(1) + " " + x.getString(3))
+                .sorted(Comparator.comparing(x -> x.substring(3)))
+                .collect(Collectors.toList());
+    }
+
+    private static GenericRowData row(RowKind kind, String key, String sequencer, long lastModifiedMillis) {
+        return GenericRowData.ofKind(kind,
+                StringData.fromString("foo"),
+                StringData.fromString(key),
+                null,
+                StringData.fromString(sequencer),
+                null,
+                TimestampData.fromEpochMillis(lastModifiedMillis));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.LabelTable;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.ProcessFunctionTestHarnesses;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelIndexerTest {
+
+    @Test
+    public void testThatEveryLabelAndParentGetsARow() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness = harness(Duration.ofDays(1))) {
+            harness.processElement(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), 0);
+
+            List<RowData> rows = harness.extractOutputValues().stream()
+                    .filter(x -> x.getRowKind() == RowKind.INSERT)
+                    .collect(Collectors.toList());
+            assertEquals(
+                    Set.of("+I Pond/Nature", "+I Pond/Outdoors", "+I Pond/Water", "+I Bird/Animal", "+I Waterfowl/Animal", "+I Waterfowl/Bird"),
+                    describe(rows));
+            RowData bird = rows.stream().filter(x -> x.getString(2).toString().equals("Bird")).findFirst().orElseThrow();
+            assertEquals("foo", bird.getString(0).toString());
+            assertEquals("20240724_123107.jpg", bird.getString(1).toString());
+            assertEquals(96.28910827636719, bird.getDouble(4), 1e-9);
+        }
+    }
+
+    @Test
+    public void testThatUpdatesAndDeletesReplaceTheObjectsRows() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness = harness(Duration.ofDays(1))) {
+            harness.processElement(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), 0);
+            harness.getOutput().clear();
+
+            ImageRecord updated = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            updated.sequencer = "00673743A054CE73CD";
+            updated.metadata = "{\"labels\": [" +
+                    "{\"Name\": \"Pond\", \"Confidence\": 96.9462661743164, \"Parents\": [{\"Name\": \"Nature\"}, {\"Name\": \"Water\"}]}," +
+                    "{\"Name\": \"Bird\", \"Confidence\": 80.0, \"Parents\": [{\"Name\": \"Animal\"}]}," +
+                    "{\"Name\": \"Duck\", \"Confidence\": 90.0, \"Parents\": []}]}";
+            harness.processElement(updated, 0);
+            assertEquals(
+                    Set.of("-D Pond/Outdoors", "-D Waterfowl/Animal", "-D Waterfowl/Bird", "-U Bird/Animal", "+U Bird/Animal", "+I Duck/"),
+                    describe(harness.extractOutputValues()));
+            harness.getOutput().clear();
+
+            ImageRecord deleted = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            deleted.sequencer = "00673743A054CE73CE";
+            deleted.isDelete = true;
+            deleted.metadata = null;
+            harness.processElement(deleted, 0);
+            assertEquals(Set.of("-D Pond/Nature", "-D Pond/Water", "-D Bird/Animal", "-D Duck/"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatStaleAndUnchangedEventsWriteNothing() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness = harness(Duration.ofDays(1))) {
+            ImageRecord newer = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            newer.sequencer = "00673743A054CE73CD";
+            harness.processElement(newer, 0);
+            harness.getOutput().clear();
+
+            ImageRecord stale = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            stale.isDelete = true;
+            harness.processElement(stale, 0);
+            ImageRecord unchanged = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            unchanged.sequencer = "00673743A054CE73CE";
+            harness.processElement(unchanged, 0);
+
+            assertTrue(harness.extractOutputValues().isEmpty());
+        }
+    }
+
+    @Test
+    public void testThatUpdatesAndDeletesLongAfterTheLastChangeReplaceTheObjectsRows() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness = harness(Duration.ofMinutes(1))) {
+            harness.setStateTtlProcessingTime(0);
+            harness.processElement(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), 0);
+            assertEquals(6, harness.extractOutputValues().size());
+            harness.getOutput().clear();
+
+            harness.setStateTtlProcessingTime(Duration.ofMinutes(2).toMillis());
+            ImageRecord updated = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            updated.sequencer = "00673743A054CE73CD";
+            updated.metadata = "{\"labels\": [{\"Name\": \"Duck\", \"Confidence\": 90.0, \"Parents\": []}]}";
+            harness.processElement(updated, 0);
+            assertEquals(
+                    Set.of("-D Pond/Nature", "-D Pond/Outdoors", "-D Pond/Water", "-D Bird/Animal", "-D Waterfowl/Animal", "-D Waterfowl/Bird", "+I Duck/"),
+                    describe(harness.extractOutputValues()));
+            harness.getOutput().clear();
+
+            harness.setStateTtlProcessingTime(Duration.ofMinutes(4).toMillis());
+            ImageRecord deleted = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            deleted.sequencer = "00673743A054CE73CE";
+            deleted.isDelete = true;
+            deleted.metadata = null;
+            harness.processElement(deleted, 0);
+            assertEquals(Set.of("-D Duck/"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatRowsOfObjectsWhoseStateExpiredReplaceThoseInTheTable() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness = harness(Duration.ofMinutes(1), Duration.ofMinutes(1))) {
+            harness.setStateTtlProcessingTime(0);
+            harness.processElement(TestingHelpers.loadSampleEventAsImageRecord("CreateEvent"), 0);
+            assertEquals(12, harness.extractOutputValues().size());
+            harness.getOutput().clear();
+
+            harness.setStateTtlProcessingTime(Duration.ofMinutes(2).toMillis());
+            ImageRecord updated = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+            updated.metadata = "{\"labels\": [{\"Name\": \"Duck\", \"Confidence\": 90.0, \"Parents\": []}]}";
+            harness.processElement(updated, 0);
+
+            List<RowData> rows = harness.extractOutputValues();
+            assertEquals(List.of("-D Duck/", "+I Duck/"), rows.stream().map(LabelIndexerTest::describe).collect(Collectors.toList()));
+            assertEquals(LabelTable.NO_PARENT, rows.get(1).getString(3).toString());
+        }
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness(Duration sequencerStateTtl) throws Exception {
+        return harness(sequencerStateTtl, null);
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<String, ImageRecord, RowData> harness(Duration sequencerStateTtl, Duration labelStateTtl)
+            throws Exception {
+        return ProcessFunctionTestHarnesses.forKeyedProcessFunction(
+                new LabelIndexer("$.labels", sequencerStateTtl, labelStateTtl), new ObjectKeySelector(), Types.STRING);
+    }
+
+    private static Set<String> describe(List<RowData> rows) {
+        return rows.stream().map(LabelIndexerTest::describe).collect(Collectors.toSet());
+    }
+
+    private static String describe(RowData row) {
+        return row.getRowKind().shortString() + " " + row.getString(2) + "/" + row.getString(3);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.ProcessFunctionTestHarnesses;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LateEventSplitterTest {
+
+    @Test
+    public void testThatEventsBehindTheWatermarkAreAlsoSentToTheLateOutput() throws Exception {
+        try (OneInputStreamOperatorTestHarness<String, String> harness =
+                     ProcessFunctionTestHarnesses.forProcessFunction(new LateEventSplitter<>(Types.STRING))) {
+            harness.processElement("before watermark", 100);
+            harness.processWatermark(1000);
+            harness.processElement("on time", 1001);
+            harness.processElement("at watermark", 1000);
+            harness.processElement("far behind", 10);
+
+            assertEquals(List.of("before watermark", "on time", "at watermark", "far behind"), harness.extractOutputValues());
+            assertEquals(List.of("at watermark", "far behind"), harness.getSideOutput(LateEventSplitter.outputTag(Types.STRING))
+                    .stream()
+                    .map(StreamRecord::getValue)
+                    .collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.ProcessFunctionTestHarnesses;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteSplitterTest {
+
+    @Test
+    public void testThatRecordsGoToTheFirstMatchingRoute() throws Exception {
+        Route jpegs = new Route("jpegs", Set.of(), null, ".jpg");
+        Route foo = new Route("foo", Set.of("foo"), null, null);
+        Route bar = new Route("bar", Set.of("bar"), null, null);
+
+        try (OneInputStreamOperatorTestHarness<ImageRecord, ImageRecord> harness =
+                     ProcessFunctionTestHarnesses.forProcessFunction(new RouteSplitter(List.of(jpegs, foo, bar)))) {
+            harness.processElement(image("foo", "20240724_123107.jpg"), 0);
+            harness.processElement(image("foo", "document.pdf"), 0);
+            harness.processElement(image("baz", "document.pdf"), 0);
+
+            assertEquals(List.of("20240724_123107.jpg"), keys(harness, jpegs));
+            assertEquals(List.of("document.pdf"), keys(harness, foo));
+            assertNull(harness.getSideOutput(RouteSplitter.outputTag(bar)));
+            assertTrue(harness.extractOutputValues().isEmpty());
+        }
+    }
+
+    private static ImageRecord image(String bucket, String key) {
+        ImageRecord image = TestingHelpers.loadSampleEventAsImageRecord("CreateEvent");
+        image.bucket = bucket;
+        image.userKey = key;
+        return image;
+    }
+
+    private static List<String> keys(OneInputStreamOperatorTestHarness<ImageRecord, ImageRecord> harness, Route route) {
+        return harness.getSideOutput(RouteSplitter.outputTag(route))
+                .stream()
+                .map(x -> x.getValue().userKey)
+                .collect(Collectors.toList());
+    }
+}
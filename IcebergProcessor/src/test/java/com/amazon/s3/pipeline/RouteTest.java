@@ -0,0 +1,112 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.configuration.MissingConfigurationParameter;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTest {
+
+    private Map<String, Properties> config;
+
+    @BeforeEach
+    public void setUp() {
+        config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("include_raw_metadata", "false");
+        config.get("schema").setProperty("custom_metadata_fields", "labels");
+        config.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        config.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+
+        Properties routes = new Properties();
+        routes.setProperty("names", "images, documents");
+        routes.setProperty("images.buckets", "photos, uploads");
+        routes.setProperty("images.key_suffix", ".jpg");
+        routes.setProperty("images.table", "image_metadata");
+        routes.setProperty("documents.key_prefix", "docs/");
+        routes.setProperty("documents.table", "document_metadata");
+        routes.setProperty("documents.custom_metadata_fields", "page_count");
+        routes.setProperty("documents.field.page_count.type", "INTEGER");
+        routes.setProperty("documents.field.page_count.jpath", "$.pages");
+        routes.setProperty("documents.include_raw_metadata", "true");
+        config.put("routes", routes);
+    }
+
+    @Test
+    public void testThatRoutesMatchByBucketAndKey() {
+        List<Route> routes = Route.fromConfig(config);
+
+        assertEquals(List.of("images", "documents"), routes.stream().map(Route::getName).collect(Collectors.toList()));
+        Route images = routes.get(0);
+        Route documents = routes.get(1);
+        assertTrue(images.matches("photos", "2024/beach.jpg"));
+        assertTrue(images.matches("uploads", "beach.jpg"));
+        assertFalse(images.matches("other", "beach.jpg"));
+        assertFalse(images.matches("photos", "beach.png"));
+        assertTrue(documents.matches("any-bucket", "docs/report.pdf"));
+        assertFalse(documents.matches("any-bucket", "report.pdf"));
+    }
+
+    @Test
+    public void testThatRoutesOverrideTheTableAndSchema() {
+        List<Route> routes = Route.fromConfig(config);
+
+        Map<String, Properties> images = routes.get(0).tableConfig(config);
+        assertEquals("image_metadata", images.get("catalog").getProperty("table"));
+        assertEquals("labels", images.get("schema").getProperty("custom_metadata_fields"));
+
+        Map<String, Properties> documents = routes.get(1).tableConfig(config);
+        assertEquals("document_metadata", documents.get("catalog").getProperty("table"));
+        assertEquals("default", documents.get("catalog").getProperty("database"));
+        assertEquals("true", documents.get("schema").getProperty("include_raw_metadata"));
+        assertNull(documents.get("schema").getProperty("key_prefix"));
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(documents);
+        assertEquals(1, entries.size());
+        assertEquals("page_count", entries.get(0).name);
+
+        assertEquals("s3_content_metadata", config.get("catalog").getProperty("table"));
+        assertEquals("false", config.get("schema").getProperty("include_raw_metadata"));
+    }
+
+    @Test
+    public void testThatNoRoutesMeansASingleTable() {
+        config.remove("routes");
+        assertTrue(Route.fromConfig(config).isEmpty());
+    }
+
+    @Test
+    public void testThatInvalidRoutesAreRejected() {
+        config.get("routes").setProperty("documents.table", "image_metadata");
+        assertThrows(IllegalArgumentException.class, () -> Route.fromConfig(config));
+
+        config.get("routes").setProperty("names", "images, images");
+        assertThrows(IllegalArgumentException.class, () -> Route.fromConfig(config));
+
+        config.get("routes").setProperty("names", "images, videos");
+        assertThrows(MissingConfigurationParameter.class, () -> Route.fromConfig(config));
+    }
+}
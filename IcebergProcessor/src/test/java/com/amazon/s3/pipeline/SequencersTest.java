@@ -0,0 +1,55 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequencersTest {
+
+    @Test
+    public void testThatEncodingPacksTwoDigitsPerByte() {
+        assertArrayEquals(new byte[]{0x00, 0x67, 0x37, 0x43, (byte) 0xA0, 0x54, (byte) 0xCE, 0x73, (byte) 0xCC},
+                Sequencers.encode("00673743A054CE73CC"));
+        assertArrayEquals(new byte[]{(byte) 0xAB, (byte) 0xC0}, Sequencers.encode("abc"));
+    }
+
+    @Test
+    public void testThatEncodingRejectsNonHexCharacters() {
+        assertThrows(IllegalArgumentException.class, () -> Sequencers.encode("00673743G0"));
+    }
+
+    @Test
+    public void testThatOrderMatchesRightPaddedComparison() {
+        String[] ordered = {"00673743A054CE73CC", "00673743A054CE73CC01", "00673B17D652EE0D14", "0067A", "FF"};
+        for (int i = 0; i < ordered.length; i++) {
+            for (int j = 0; j < ordered.length; j++) {
+                int expected = Integer.signum(Integer.compare(i, j));
+                int actual = Integer.signum(Sequencers.compare(Sequencers.encode(ordered[i]), Sequencers.encode(ordered[j])));
+                assertEquals(expected, actual, ordered[i] + " vs " + ordered[j]);
+            }
+        }
+    }
+
+    @Test
+    public void testThatTrailingZerosDoNotAffectOrder() {
+        assertEquals(0, Sequencers.compare(Sequencers.encode("0067A"), Sequencers.encode("0067A000")));
+        assertEquals(0, Sequencers.compare(Sequencers.encode("0067A"), Sequencers.encode("0067a")));
+    }
+}
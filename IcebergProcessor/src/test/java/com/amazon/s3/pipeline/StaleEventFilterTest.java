@@ -0,0 +1,147 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.serialization.SerializerConfigImpl;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.operators.StreamFilter;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaleEventFilterTest {
+
+    private Schema tableSchema;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("include_raw_metadata", "false");
+        tableSchema = TableSchemaGenerator.generate(properties, TableSchemaGenerator.parseCustomMetadataFields(properties));
+    }
+
+    @Test
+    public void testThatOlderAndReplayedEventsAreDropped() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Duration.ofDays(1))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374300"), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.DELETE, "a.jpg", null, "0067374200"), 2));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374300"), 3));
+            harness.processElement(new StreamRecord<>(row(RowKind.DELETE, "a.jpg", null, "006737430001"), 4));
+
+            assertEquals(List.of("0067374300", "006737430001"), sequencers(harness));
+        }
+    }
+
+    @Test
+    public void testThatKeysAreFilteredIndependently() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Duration.ofDays(1))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374300"), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "b.jpg", null, "0067374200"), 2));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "b.jpg", null, "0067374250"), 3));
+
+            assertEquals(List.of("0067374300", "0067374200", "0067374250"), sequencers(harness));
+        }
+    }
+
+    @Test
+    public void testThatVersionsOfAnObjectShareTheirSequencer() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Duration.ofDays(1))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "v2", "0067374300"), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "v1", "0067374100"), 2));
+
+            assertEquals(List.of("0067374300"), sequencers(harness));
+        }
+    }
+
+    @Test
+    public void testThatSequencersAreForgottenAfterTheirTtl() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Duration.ofMinutes(1))) {
+            harness.setStateTtlProcessingTime(0);
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374300"), 1));
+            harness.setStateTtlProcessingTime(Duration.ofMinutes(2).toMillis());
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374200"), 2));
+
+            assertEquals(List.of("0067374300", "0067374200"), sequencers(harness));
+        }
+    }
+
+    @Test
+    public void testThatStateIsRestoredFromSnapshot() throws Exception {
+        KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Duration.ofDays(1));
+        harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374300"), 1));
+        OperatorSubtaskState snapshot = harness.snapshot(1, 1);
+        harness.close();
+
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> restored = harness(Duration.ofDays(1), false)) {
+            restored.initializeState(snapshot);
+            restored.open();
+            restored.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", null, "0067374200"), 2));
+            assertTrue(restored.extractOutputValues().isEmpty());
+        }
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness(Duration ttl) throws Exception {
+        return harness(ttl, true);
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness(Duration ttl, boolean open) throws Exception {
+        KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = new KeyedOneInputStreamOperatorTestHarness<>(
+                new StreamFilter<>(new StaleEventFilter(tableSchema, ttl)),
+                new PrimaryKeySelector(tableSchema),
+                Types.STRING);
+        harness.setup(InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema)).createSerializer(new SerializerConfigImpl()));
+        if (open) {
+            harness.open();
+        }
+        return harness;
+    }
+
+    private static List<String> sequencers(KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness) {
+        return harness.extractOutputValues().stream().map(x -> x.getString(3).toString()).collect(Collectors.toList());
+    }
+
+    private static RowData row(RowKind kind, String key, String versionId, String sequencer) {
+        return GenericRowData.ofKind(kind,
+                StringData.fromString("foo"),
+                StringData.fromString(key),
+                StringData.fromString(versionId),
+                StringData.fromString(sequencer),
+                null,
+                TimestampData.fromLocalDateTime(LocalDateTime.of(2024, 11, 15, 12, 50)));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.serialization.SerializerConfigImpl;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.streaming.api.operators.StreamFilter;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnchangedRowFilterTest {
+
+    private Schema tableSchema;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("include_raw_metadata", "false");
+        tableSchema = TableSchemaGenerator.generate(properties, TableSchemaGenerator.parseCustomMetadataFields(properties));
+    }
+
+    @Test
+    public void testThatRewritesOfTheSameRowAreDropped() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Set.of(), Duration.ofDays(1))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1"), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1"), 2));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "b.jpg", "01", "etag1"), 3));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "02", "etag1"), 4));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "02", "etag2"), 5));
+
+            assertEquals(List.of("+I a.jpg 01", "+I b.jpg 01", "+I a.jpg 02", "+I a.jpg 02"), describe(harness));
+        }
+    }
+
+    @Test
+    public void testThatIgnoredColumnsDontMakeARowChanged() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Set.of("sequencer"), Duration.ofDays(1))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1"), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "02", "etag1"), 2));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "03", "etag2"), 3));
+
+            assertEquals(List.of("+I a.jpg 01", "+I a.jpg 03"), describe(harness));
+        }
+    }
+
+    @Test
+    public void testThatARecreatedObjectIsWrittenAgain() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Set.of("sequencer"), Duration.ofDays(1))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1"), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.DELETE, "a.jpg", "02", null), 2));
+            harness.processElement(new StreamRecord<>(row(RowKind.DELETE, "a.jpg", "03", null), 3));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "04", "etag1"), 4));
+
+            assertEquals(List.of("+I a.jpg 01", "-D a.jpg 02", "-D a.jpg 03", "+I a.jpg 04"), describe(harness));
+        }
+    }
+
+    @Test
+    public void testThatBinaryRowsHaveTheSameFingerprint() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Set.of(), Duration.ofDays(1))) {
+            GenericRowData row = row(RowKind.INSERT, "a.jpg", "01", "etag1");
+            harness.processElement(new StreamRecord<>(row, 1));
+            RowData binary = InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema)).toRowSerializer().toBinaryRow(row).copy();
+            harness.processElement(new StreamRecord<>(binary, 2));
+
+            assertEquals(1, harness.extractOutputValues().size());
+        }
+    }
+
+    @Test
+    public void testThatFingerprintsAreForgottenAfterTheirTtl() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(Set.of(), Duration.ofMinutes(1))) {
+            harness.setStateTtlProcessingTime(0);
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1"), 1));
+            harness.setStateTtlProcessingTime(Duration.ofMinutes(2).toMillis());
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1"), 2));
+
+            assertEquals(2, harness.extractOutputValues().size());
+        }
+    }
+
+    @Test
+    public void testThatObjectsNotifiedAgainAreDroppedByDefault() throws Exception {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.get("stream").setProperty("unchanged_row_filter", "true");
+        LocalDateTime lastModified = LocalDateTime.of(2024, 11, 15, 12, 50);
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(UnchangedRowFilter.fromConfig(config, tableSchema))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1", lastModified), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "02", "etag1", lastModified.plusMinutes(5)), 2));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "03", "etag2", lastModified.plusMinutes(10)), 3));
+
+            assertEquals(List.of("+I a.jpg 01", "+I a.jpg 03"), describe(harness));
+        }
+
+        config.get("stream").setProperty("unchanged_row_ignored_columns", "");
+        try (KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = harness(UnchangedRowFilter.fromConfig(config, tableSchema))) {
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "01", "etag1", lastModified), 1));
+            harness.processElement(new StreamRecord<>(row(RowKind.INSERT, "a.jpg", "02", "etag1", lastModified.plusMinutes(5)), 2));
+
+            assertEquals(List.of("+I a.jpg 01", "+I a.jpg 02"), describe(harness));
+        }
+    }
+
+    @Test
+    public void testThatTheFilterIsConfigured() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        assertNull(UnchangedRowFilter.fromConfig(config, tableSchema));
+
+        config.get("stream").setProperty("unchanged_row_filter", "true");
+        config.get("stream").setProperty("unchanged_row_ignored_columns", "sequencer, lastModified");
+        assertNotNull(UnchangedRowFilter.fromConfig(config, tableSchema));
+
+        config.get("stream").setProperty("unchanged_row_ignored_columns", "sequencer, labels");
+        assertThrows(IllegalArgumentException.class, () -> UnchangedRowFilter.fromConfig(config, tableSchema));
+    }
+
+    @Test
+    public void testThatHashesDependOnEveryByte() {
+        byte[] bytes = new byte[19];
+        long hash = UnchangedRowFilter.hash(bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = 1;
+            assertNotEquals(hash, UnchangedRowFilter.hash(bytes));
+            bytes[i] = 0;
+        }
+        assertNotEquals(hash, UnchangedRowFilter.hash(new byte[20]));
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness(Set<String> ignoredColumns, Duration ttl)
+            throws Exception {
+        return harness(new UnchangedRowFilter(tableSchema, ignoredColumns, ttl));
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness(UnchangedRowFilter filter) throws Exception {
+        KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness = new KeyedOneInputStreamOperatorTestHarness<>(
+                new StreamFilter<>(filter),
+                new PrimaryKeySelector(tableSchema),
+                Types.STRING);
+        harness.setup(InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema)).createSerializer(new SerializerConfigImpl()));
+        harness.open();
+        return harness;
+    }
+
+    private static List<String> describe(KeyedOneInputStreamOperatorTestHarness<String, RowData, RowData> harness) {
+        return harness.extractOutputValues().stream()
+                .map(x -> x.getRowKind().shortString() + " " + x.getString(1) + " " + x.getString(3))
+                .collect(Collectors.toList());
+    }
+
+    private static GenericRowData row(RowKind kind, String key, String sequencer, String etag) {
+        return row(kind, key, sequencer, etag, LocalDateTime.of(2024, 11, 15, 12, 50));
+    }
+
+    private static GenericRowData row(RowKind kind, String key, String sequencer, String etag, LocalDateTime lastModified) {
+        return GenericRowData.ofKind(kind,
+                StringData.fromString("foo"),
+                StringData.fromString(key),
+                null,
+                StringData.fromString(sequencer),
+                StringData.fromString(etag),
+                TimestampData.fromLocalDateTime(lastModified));
+    }
+}
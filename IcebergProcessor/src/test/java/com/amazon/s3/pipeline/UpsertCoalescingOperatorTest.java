@@ -0,0 +1,136 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.pipeline;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.serialization.SerializerConfigImpl;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpsertCoalescingOperatorTest {
+
+    private Schema tableSchema;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Map<String, Properties> properties = TestingHelpers.defaultCorrectProperties();
+        properties.get("schema").setProperty("include_raw_metadata", "false");
+        tableSchema = TableSchemaGenerator.generate(properties, TableSchemaGenerator.parseCustomMetadataFields(properties));
+    }
+
+    @Test
+    public void testThatOnlyTheLatestRowPerKeyIsEmittedAtCheckpoint() throws Exception {
+        try (OneInputStreamOperatorTestHarness<RowData, RowData> harness = harness(100, false)) {
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01"), 1);
+            harness.processElement(row(RowKind.INSERT, "b.jpg", "02"), 2);
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "03"), 3);
+            harness.processElement(row(RowKind.DELETE, "a.jpg", "04"), 4);
+            assertTrue(harness.extractOutputValues().isEmpty());
+
+            harness.prepareSnapshotPreBarrier(1);
+            assertEquals(List.of("+I b.jpg 02", "-D a.jpg 04"), describe(harness.extractOutputValues()));
+
+            harness.prepareSnapshotPreBarrier(2);
+            assertEquals(2, harness.extractOutputValues().size());
+        }
+    }
+
+    @Test
+    public void testThatAFullBufferIsFlushedEarly() throws Exception {
+        try (OneInputStreamOperatorTestHarness<RowData, RowData> harness = harness(2, false)) {
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01"), 1);
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "02"), 2);
+            assertTrue(harness.extractOutputValues().isEmpty());
+
+            harness.processElement(row(RowKind.INSERT, "b.jpg", "03"), 3);
+            assertEquals(List.of("+I a.jpg 02", "+I b.jpg 03"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatBufferIsFlushedAtEndOfInput() throws Exception {
+        try (OneInputStreamOperatorTestHarness<RowData, RowData> harness = harness(100, false)) {
+            harness.processElement(row(RowKind.INSERT, "a.jpg", "01"), 1);
+            harness.endInput();
+            assertEquals(List.of("+I a.jpg 01"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatBufferedRowsAreCopiedWhenObjectsAreReused() throws Exception {
+        try (OneInputStreamOperatorTestHarness<RowData, RowData> harness = harness(100, true)) {
+            GenericRowData reused = row(RowKind.INSERT, "a.jpg", "01");
+            harness.processElement(reused, 1);
+            reused.setField(1, StringData.fromString("b.jpg"));
+            reused.setField(3, StringData.fromString("02"));
+            harness.processElement(reused, 2);
+
+            harness.prepareSnapshotPreBarrier(1);
+            assertEquals(List.of("+I a.jpg 01", "+I b.jpg 02"), describe(harness.extractOutputValues()));
+        }
+    }
+
+    @Test
+    public void testThatBufferSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new UpsertCoalescingOperator(tableSchema, 0));
+    }
+
+    private OneInputStreamOperatorTestHarness<RowData, RowData> harness(int maxBufferedRows, boolean objectReuse) throws Exception {
+        OneInputStreamOperatorTestHarness<RowData, RowData> harness =
+                new OneInputStreamOperatorTestHarness<>(new UpsertCoalescingOperator(tableSchema, maxBufferedRows));
+        if (objectReuse) {
+            harness.getExecutionConfig().enableObjectReuse();
+        }
+        harness.setup(InternalTypeInfo.of(TableSchemaGenerator.toRowType(tableSchema)).createSerializer(new SerializerConfigImpl()));
+        harness.open();
+        return harness;
+    }
+
+    private static List<String> describe(List<RowData> rows) {
+        return rows.stream()
+                .map(x -> x.getRowKind().shortString() + " " + x.getString(1) + " " + x.getString(3))
+                .collect(Collectors.toList());
+    }
+
+    private static GenericRowData row(RowKind kind, String key, String sequencer) {
+        return GenericRowData.ofKind(kind,
+                StringData.fromString("foo"),
+                StringData.fromString(key),
+                null,
+                StringData.fromString(sequencer),
+                null,
+                TimestampData.fromLocalDateTime(LocalDateTime.of(2024, 11, 15, 12, 50)));
+    }
+}
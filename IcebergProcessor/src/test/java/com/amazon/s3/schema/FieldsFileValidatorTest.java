@@ -0,0 +1,92 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.amazon.s3.TestingHelpers;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.flink.FlinkSchemaUtil;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldsFileValidatorTest {
+
+    @TempDir
+    private Path tableLocation;
+
+    private FieldsFileValidator validator;
+
+    @BeforeEach
+    public void setUp() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("custom_metadata_fields", "image_width");
+        config.get("schema").setProperty("field.image_width.type", "INTEGER");
+        config.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        org.apache.flink.table.api.Schema configuredSchema = TableSchemaGenerator.generate(config, entries);
+
+        // The job writes the columns as the table has them, whose types differ in precision and nullability.
+        Schema schema = new Schema(FlinkSchemaUtil.convert(TableSchemaGenerator.toRowType(configuredSchema)).asStructType().fields());
+        Table table = new HadoopTables(new Configuration()).create(
+                schema,
+                PartitionSpec.unpartitioned(),
+                Map.of(TableProperties.FORMAT_VERSION, "2"),
+                tableLocation.toUri().toString());
+        validator = new FieldsFileValidator(config, SchemaEvolution.apply(table, configuredSchema, entries).getTableSchema());
+    }
+
+    @Test
+    public void testThatNewExpressionsAreAccepted() {
+        assertDoesNotThrow(() -> validator.validate("{\"field.image_width.jpath\": \"$.exif.ImageLength\"}"));
+    }
+
+    @Test
+    public void testThatNewFieldsAreRejectedUntilRestart() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> validator.validate("{\n" +
+                "  \"custom_metadata_fields\": \"image_width, labels\",\n" +
+                "  \"field.labels.type\": \"ARRAY<STRING>\",\n" +
+                "  \"field.labels.jpath\": \"$.labels[*].Name\"\n" +
+                "}"));
+        assertTrue(e.getMessage().contains("adds labels"), e.getMessage());
+    }
+
+    @Test
+    public void testThatTypeChangesAreRejectedUntilRestart() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validator.validate("{\"field.image_width.type\": \"BIGINT\"}"));
+        assertTrue(e.getMessage().contains("changes image_width from INT to BIGINT"), e.getMessage());
+    }
+
+    @Test
+    public void testThatInvalidVersionsAreRejected() {
+        assertThrows(RuntimeException.class, () -> validator.validate("[]"));
+        assertThrows(RuntimeException.class, () -> validator.validate("{\"field.image_width.jpath\": \"$.exif[\"}"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.amazon.s3.TestingHelpers;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaEvolutionTest {
+
+    private static final org.apache.iceberg.Schema SCHEMA = new org.apache.iceberg.Schema(
+            List.of(
+                    Types.NestedField.required(1, "bucket", Types.StringType.get()),
+                    Types.NestedField.required(2, "key", Types.StringType.get()),
+                    Types.NestedField.optional(3, "versionId", Types.StringType.get()),
+                    Types.NestedField.required(4, "sequencer", Types.StringType.get()),
+                    Types.NestedField.optional(5, "etag", Types.StringType.get()),
+                    Types.NestedField.optional(6, "metadata", Types.StringType.get()),
+                    Types.NestedField.optional(7, "lastModified", Types.TimestampType.withoutZone()),
+                    Types.NestedField.optional(8, "retired", Types.StringType.get()),
+                    Types.NestedField.optional(9, "image_width", Types.IntegerType.get())),
+            Set.of(1, 2));
+
+    @TempDir
+    private Path tableLocation;
+
+    private Table table;
+    private Map<String, Properties> config;
+
+    @BeforeEach
+    public void setUp() {
+        table = new HadoopTables(new Configuration()).create(
+                SCHEMA,
+                PartitionSpec.unpartitioned(),
+                Map.of(TableProperties.FORMAT_VERSION, "2"),
+                tableLocation.toUri().toString());
+        config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("custom_metadata_fields", "labels, image_width");
+        config.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        config.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+        config.get("schema").setProperty("field.image_width.type", "BIGINT");
+        config.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+    }
+
+    @Test
+    public void testThatColumnsAreAddedAndPromoted() {
+        SchemaEvolution evolution = apply();
+        table.refresh();
+
+        assertEquals(2, evolution.getChanges().size());
+        assertEquals(Types.LongType.get(), table.schema().findField("image_width").type());
+        assertEquals("list<string>", table.schema().findField("labels").type().toString());
+        assertTrue(table.schema().findField("labels").isOptional());
+        assertEquals(9, table.schema().findField("image_width").fieldId());
+
+        assertTrue(apply().getChanges().isEmpty());
+    }
+
+    @Test
+    public void testThatRowsFollowTheTableColumns() {
+        SchemaEvolution evolution = apply();
+
+        List<String> columns = evolution.getTableSchema().getColumns().stream()
+                .map(Schema.UnresolvedColumn::getName)
+                .collect(Collectors.toList());
+        assertEquals(List.of("bucket", "key", "versionId", "sequencer", "etag", "metadata", "lastModified", "retired", "image_width", "labels"), columns);
+        assertEquals("BIGINT", ((Schema.UnresolvedPhysicalColumn) evolution.getTableSchema().getColumns().get(8)).getDataType().toString());
+
+        Map<String, String> jpaths = evolution.getCustomMetadataEntries().stream()
+                .collect(Collectors.toMap(x -> x.name, x -> String.valueOf(x.jpath)));
+        assertEquals(Map.of("labels", "$.labels[*].Name", "image_width", "$.exif.ImageWidth", "retired", "null"), jpaths);
+    }
+
+    @Test
+    public void testThatTheRawMetadataColumnIsLeftNullWhenNotIncluded() {
+        config.get("schema").setProperty("include_raw_metadata", "false");
+
+        SchemaEvolution evolution = apply();
+
+        assertTrue(evolution.getCustomMetadataEntries().stream().anyMatch(x -> x.name.equals("metadata") && x.jpath == null));
+        assertNotNull(table.schema().findField("metadata"));
+    }
+
+    @Test
+    public void testThatIncompatibleTypeChangesAreRejected() {
+        config.get("schema").setProperty("field.image_width.type", "STRING");
+        assertThrows(ValidationException.class, this::apply);
+
+        config.get("schema").setProperty("field.image_width.type", "INTEGER");
+        config.get("schema").setProperty("custom_metadata_fields", "retired");
+        config.get("schema").setProperty("field.retired.type", "ARRAY<STRING>");
+        config.get("schema").setProperty("field.retired.jpath", "$.retired");
+        assertThrows(ValidationException.class, this::apply);
+        table.refresh();
+        assertNull(table.schema().findField("labels"));
+    }
+
+    private SchemaEvolution apply() {
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        return SchemaEvolution.apply(table, TableSchemaGenerator.generate(config, entries), entries);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.amazon.s3.TestingHelpers;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.HasTableOperations;
+import org.apache.iceberg.NullOrder;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.SortDirection;
+import org.apache.iceberg.SortOrder;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableLayoutTest {
+
+    private static final Schema SCHEMA = new Schema(
+            List.of(
+                    Types.NestedField.required(1, "bucket", Types.StringType.get()),
+                    Types.NestedField.required(2, "key", Types.StringType.get()),
+                    Types.NestedField.optional(3, "lastModified", Types.TimestampType.withoutZone())),
+            Set.of(1, 2));
+
+    @TempDir
+    private Path tableLocation;
+
+    private Table table;
+    private Map<String, Properties> config;
+
+    @BeforeEach
+    public void setUp() {
+        table = new HadoopTables(new Configuration()).create(
+                SCHEMA,
+                PartitionSpec.unpartitioned(),
+                Map.of(TableProperties.FORMAT_VERSION, "2"),
+                tableLocation.toUri().toString());
+        config = TestingHelpers.defaultCorrectProperties();
+    }
+
+    @Test
+    public void testThatPartitionSpecAndSortOrderAreApplied() {
+        config.get("schema").setProperty("partition_spec", "bucket, bucket(16, key)");
+        config.get("schema").setProperty("sort_order", "key, lastModified DESC NULLS LAST");
+        TableLayout.fromConfig(config).apply(table);
+        table.refresh();
+
+        assertEquals(2, table.spec().fields().size());
+        assertEquals("identity", table.spec().fields().get(0).transform().toString());
+        assertEquals(1, table.spec().fields().get(0).sourceId());
+        assertEquals("bucket[16]", table.spec().fields().get(1).transform().toString());
+        assertEquals(2, table.spec().fields().get(1).sourceId());
+        assertTrue(table.sortOrder().sameOrder(SortOrder.builderFor(SCHEMA)
+                .asc("key", NullOrder.NULLS_FIRST)
+                .desc("lastModified", NullOrder.NULLS_LAST)
+                .build()));
+    }
+
+    @Test
+    public void testThatUnchangedLayoutIsNotCommittedAgain() {
+        config.get("schema").setProperty("partition_spec", "identity(bucket)");
+        config.get("schema").setProperty("sort_order", "bucket");
+        TableLayout.fromConfig(config).apply(table);
+        table.refresh();
+        String metadataLocation = ((HasTableOperations) table).operations().current().metadataFileLocation();
+
+        TableLayout.fromConfig(config).apply(table);
+        table.refresh();
+        assertEquals(metadataLocation, ((HasTableOperations) table).operations().current().metadataFileLocation());
+    }
+
+    @Test
+    public void testThatPartitionSpecIsEvolved() {
+        config.get("schema").setProperty("partition_spec", "bucket");
+        TableLayout.fromConfig(config).apply(table);
+
+        config.get("schema").setProperty("partition_spec", "bucket(8, key)");
+        TableLayout.fromConfig(config).apply(table);
+        table.refresh();
+
+        assertEquals(1, table.spec().fields().size());
+        assertEquals("bucket[8]", table.spec().fields().get(0).transform().toString());
+        // The replaced spec remains, for the files written with it.
+        assertEquals(3, table.specs().size());
+
+        config.get("schema").setProperty("partition_spec", "");
+        TableLayout.fromConfig(config).apply(table);
+        table.refresh();
+        assertTrue(table.spec().isUnpartitioned());
+    }
+
+    @Test
+    public void testThatUnsetPropertiesLeaveTheTableAsIs() {
+        table.replaceSortOrder().asc("bucket").commit();
+        TableLayout.fromConfig(config).apply(table);
+        table.refresh();
+
+        assertEquals(SortDirection.ASC, table.sortOrder().fields().get(0).direction());
+        assertTrue(table.spec().isUnpartitioned());
+    }
+
+    @Test
+    public void testThatInvalidLayoutsAreRejected() {
+        config.get("schema").setProperty("partition_spec", "days(lastModified)");
+        assertThrows(ValidationException.class, () -> TableLayout.fromConfig(config));
+        config.get("schema").setProperty("partition_spec", "bucket(key)");
+        assertThrows(ValidationException.class, () -> TableLayout.fromConfig(config));
+        config.get("schema").setProperty("partition_spec", "key DESC");
+        assertThrows(ValidationException.class, () -> TableLayout.fromConfig(config));
+        config.get("schema").setProperty("partition_spec", "reverse(key)");
+        assertThrows(ValidationException.class, () -> TableLayout.fromConfig(config));
+    }
+
+    @Test
+    public void testTermParsing() {
+        List<TableLayout.Field> fields = TableLayout.parse("bucket(16, key), truncate(4,key) DESC, days(lastModified) NULLS LAST", true);
+
+        assertEquals(3, fields.size());
+        assertEquals("bucket(16, key)", fields.get(0).toString());
+        assertEquals("truncate(4, key)", fields.get(1).toString());
+        assertTrue(fields.get(1).descending);
+        assertEquals(NullOrder.NULLS_LAST, fields.get(1).nullOrder);
+        assertEquals("days(lastModified)", fields.get(2).toString());
+        assertEquals(NullOrder.NULLS_LAST, fields.get(2).nullOrder);
+    }
+}
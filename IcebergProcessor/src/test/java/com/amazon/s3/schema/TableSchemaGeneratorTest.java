@@ -22,6 +22,8 @@ import com.amazon.s3.configuration.MissingConfigurationParameter;
 import org.apache.flink.table.api.DataTypes;
 import org.apache.flink.table.api.Schema;
 import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.RowType;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -76,7 +78,7 @@ class TableSchemaGeneratorTest {
     public void testThatParsingThrowsWhenUnsupportedType() throws Exception {
         Properties props = new Properties();
         props.setProperty("custom_metadata_fields", "foo");
-        props.setProperty("field.foo.type", "MAP<STRING, STRING>");
+        props.setProperty("field.foo.type", "MULTISET<STRING>");
         props.setProperty("field.foo.jpath", "$.labels[0].label");
         Map<String, Properties> properties = Map.of("schema", props);
 
@@ -117,4 +119,111 @@ class TableSchemaGeneratorTest {
         String sql = TableSchemaGenerator.generateTableSQL(props, tableSchema);
         assertTrue(sql.contains("`foo` STRING"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testThatRicherTypesAreSupported() throws Exception {
+        Map<String, Properties> props = TestingHelpers.defaultCorrectProperties();
+        props.get("schema").setProperty("custom_metadata_fields", "labels, size, ratio, price, taken, resolution, tags");
+        props.get("schema").setProperty("field.labels.type", "ARRAY<ROW<name STRING, confidence DOUBLE>>");
+        props.get("schema").setProperty("field.labels.jpath", "$.labels");
+        props.get("schema").setProperty("field.size.type", "BIGINT");
+        props.get("schema").setProperty("field.size.jpath", "$.size");
+        props.get("schema").setProperty("field.ratio.type", "DOUBLE");
+        props.get("schema").setProperty("field.ratio.jpath", "$.ratio");
+        props.get("schema").setProperty("field.price.type", "DECIMAL(10, 2)");
+        props.get("schema").setProperty("field.price.jpath", "$.price");
+        props.get("schema").setProperty("field.taken.type", "TIMESTAMP_LTZ(3)");
+        props.get("schema").setProperty("field.taken.jpath", "$.exif.DateTime");
+        props.get("schema").setProperty("field.resolution.type", "ROW<numerator BIGINT, denominator BIGINT>");
+        props.get("schema").setProperty("field.resolution.jpath", "$.exif.XResolution");
+        props.get("schema").setProperty("field.tags.type", "MAP<STRING, STRING>");
+        props.get("schema").setProperty("field.tags.jpath", "$.tags");
+
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(props);
+        String sql = TableSchemaGenerator.generateTableSQL(props, TableSchemaGenerator.generate(props, schemaEntries));
+
+        assertTrue(sql.contains("`labels` ARRAY<ROW<`name` STRING, `confidence` DOUBLE>>"), sql);
+        assertTrue(sql.contains("`price` DECIMAL(10, 2)"), sql);
+        assertTrue(sql.contains("`taken` TIMESTAMP_LTZ(3)"), sql);
+        assertTrue(sql.contains("`tags` MAP<STRING, STRING>"), sql);
+    }
+
+    @Test
+    public void testThatMapsWithNonStringKeysAreRejected() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("custom_metadata_fields", "foo");
+        props.setProperty("field.foo.type", "MAP<INT, STRING>");
+        props.setProperty("field.foo.jpath", "$.foo");
+
+        assertThrows(ValidationException.class, () -> TableSchemaGenerator.parseCustomMetadataFields(Map.of("schema", props)));
+    }
+
+    @Test
+    public void testThatMapsWithCharKeysAreAccepted() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("custom_metadata_fields", "foo");
+        props.setProperty("field.foo.type", "MAP<CHAR(8), STRING>");
+        props.setProperty("field.foo.jpath", "$.foo");
+
+        assertEquals(1, TableSchemaGenerator.parseCustomMetadataFields(Map.of("schema", props)).size());
+    }
+
+    @Test
+    public void testRowTypeGeneration() throws Exception {
+        Map<String, Properties> props = TestingHelpers.defaultCorrectProperties();
+        props.get("schema").setProperty("custom_metadata_fields", "foo");
+        props.get("schema").setProperty("field.foo.type", "ARRAY<STRING>");
+        props.get("schema").setProperty("field.foo.jpath", "$.labels[*].label");
+
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(props);
+        RowType rowType = TableSchemaGenerator.toRowType(TableSchemaGenerator.generate(props, schemaEntries));
+
+        assertEquals(8, rowType.getFieldCount());
+        assertEquals("bucket", rowType.getFieldNames().get(0));
+        assertFalse(rowType.getTypeAt(0).isNullable());
+        assertEquals("foo", rowType.getFieldNames().get(7));
+        assertEquals(LogicalTypeRoot.ARRAY, rowType.getTypeAt(7).getTypeRoot());
+    }
+
+    @Test
+    public void testThatEnrichedColumnsFollowTheCustomFields() throws Exception {
+        Map<String, Properties> props = TestingHelpers.defaultCorrectProperties();
+        props.get("schema").setProperty("custom_metadata_fields", "foo");
+        props.get("schema").setProperty("field.foo.type", "STRING");
+        props.get("schema").setProperty("field.foo.jpath", "$.labels[0].label");
+        Properties enrichment = new Properties();
+        enrichment.setProperty("columns", "content_type, project");
+        enrichment.setProperty("column.content_type.attribute", "content_type");
+        enrichment.setProperty("column.project.attribute", "tag.project");
+        props.put("enrichment", enrichment);
+
+        List<TableSchemaGenerator.SchemaEntry> schemaEntries = TableSchemaGenerator.parseCustomMetadataFields(props);
+
+        assertEquals(3, schemaEntries.size());
+        assertNull(schemaEntries.get(0).enrichment);
+        assertEquals("content_type", schemaEntries.get(1).name);
+        assertEquals("content_type", schemaEntries.get(1).enrichment);
+        assertEquals(DataTypes.STRING(), schemaEntries.get(1).type);
+        assertEquals("tag.project", schemaEntries.get(2).enrichment);
+        assertNull(schemaEntries.get(2).jpath);
+    }
+
+    @Test
+    public void testThatInvalidEnrichedColumnsAreRejected() throws Exception {
+        Map<String, Properties> props = TestingHelpers.defaultCorrectProperties();
+        props.get("schema").setProperty("custom_metadata_fields", "foo");
+        props.get("schema").setProperty("field.foo.type", "STRING");
+        props.get("schema").setProperty("field.foo.jpath", "$.labels[0].label");
+        Properties enrichment = new Properties();
+        enrichment.setProperty("columns", "size");
+        enrichment.setProperty("column.size.attribute", "size");
+        props.put("enrichment", enrichment);
+
+        assertThrows(IllegalArgumentException.class, () -> TableSchemaGenerator.parseCustomMetadataFields(props));
+
+        enrichment.setProperty("columns", "foo");
+        enrichment.setProperty("column.foo.attribute", "content_type");
+        assertThrows(IllegalArgumentException.class, () -> TableSchemaGenerator.parseCustomMetadataFields(props));
+    }
+}
+
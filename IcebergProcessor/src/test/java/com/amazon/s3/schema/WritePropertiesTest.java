@@ -0,0 +1,138 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.schema;
+
+import com.amazon.s3.TestingHelpers;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WritePropertiesTest {
+
+    private Map<String, Properties> config;
+    private Schema tableSchema;
+
+    @BeforeEach
+    public void setUp() {
+        config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("custom_metadata_fields", "labels");
+        config.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        config.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+        tableSchema = TableSchemaGenerator.generate(config, TableSchemaGenerator.parseCustomMetadataFields(config));
+    }
+
+    @Test
+    public void testThatSettingsAreMappedToTableProperties() {
+        config.get("catalog").setProperty("compression_codec", "ZSTD");
+        config.get("catalog").setProperty("compression_level", "9");
+        config.get("catalog").setProperty("row_group_size_bytes", "67108864");
+        config.get("catalog").setProperty("page_size_bytes", "1048576");
+        config.get("catalog").setProperty("target_file_size_bytes", "268435456");
+        config.get("schema").setProperty("metrics_mode", "counts");
+        config.get("schema").setProperty("column.key.metrics_mode", "truncate(64)");
+        config.get("schema").setProperty("column.metadata.metrics_mode", "none");
+        config.get("schema").setProperty("column.key.bloom_filter", "true");
+        config.get("schema").setProperty("column.etag.bloom_filter", "true");
+        config.get("schema").setProperty("column.etag.bloom_filter_fpp", "0.001");
+
+        Map<String, String> properties = WriteProperties.fromConfig(config, tableSchema);
+
+        assertEquals("zstd", properties.get(TableProperties.PARQUET_COMPRESSION));
+        assertEquals("9", properties.get(TableProperties.PARQUET_COMPRESSION_LEVEL));
+        assertEquals("67108864", properties.get(TableProperties.PARQUET_ROW_GROUP_SIZE_BYTES));
+        assertEquals("1048576", properties.get(TableProperties.PARQUET_PAGE_SIZE_BYTES));
+        assertEquals("268435456", properties.get(TableProperties.WRITE_TARGET_FILE_SIZE_BYTES));
+        assertEquals("counts", properties.get(TableProperties.DEFAULT_WRITE_METRICS_MODE));
+        assertEquals("truncate(64)", properties.get("write.metadata.metrics.column.key"));
+        assertEquals("none", properties.get("write.metadata.metrics.column.metadata"));
+        assertEquals("true", properties.get("write.parquet.bloom-filter-enabled.column.key"));
+        assertEquals("true", properties.get("write.parquet.bloom-filter-enabled.column.etag"));
+        assertEquals("0.001", properties.get("write.parquet.bloom-filter-fpp.column.etag"));
+        assertEquals(11, properties.size());
+
+        String sql = TableSchemaGenerator.generateTableSQL(config, tableSchema);
+        assertTrue(sql.contains("  'write.upsert.enabled'='true',\n  'write.parquet.compression-codec'='zstd',\n"), sql);
+        assertTrue(sql.endsWith("  'write.parquet.bloom-filter-fpp.column.etag'='0.001'\n);"), sql);
+    }
+
+    @Test
+    public void testThatNoSettingsKeepTheDefaultTableProperties() {
+        assertTrue(WriteProperties.fromConfig(config, tableSchema).isEmpty());
+        assertTrue(TableSchemaGenerator.generateTableSQL(config, tableSchema).endsWith("  'write.upsert.enabled'='true'\n);"));
+    }
+
+    @Test
+    public void testThatInvalidSettingsAreRejected() {
+        assertRejected("catalog", "compression_codec", "zip");
+        assertRejected("catalog", "row_group_size_bytes", "0");
+        assertRejected("catalog", "page_size_bytes", "1.5");
+        assertRejected("schema", "metrics_mode", "truncate(x)");
+        assertRejected("schema", "column.missing.bloom_filter", "true");
+        assertRejected("schema", "column.labels.bloom_filter", "true");
+        assertRejected("schema", "column.key.bloom_filter", "yes");
+        assertRejected("schema", "column.key.bloom_filter", "ture");
+        assertRejected("schema", "column.etag.bloom_filter_fpp", "0.01");
+
+        config.get("schema").setProperty("column.etag.bloom_filter", "TRUE");
+        assertRejected("schema", "column.etag.bloom_filter_fpp", "1.5");
+        assertEquals("true", WriteProperties.fromConfig(config, tableSchema).get("write.parquet.bloom-filter-enabled.column.etag"));
+    }
+
+    @Test
+    public void testThatChangedPropertiesAreAppliedToExistingTables(@TempDir Path tableLocation) {
+        Table table = new HadoopTables(new Configuration()).create(
+                new org.apache.iceberg.Schema(List.of(Types.NestedField.required(1, "key", Types.StringType.get()))),
+                PartitionSpec.unpartitioned(),
+                Map.of(TableProperties.PARQUET_COMPRESSION, "snappy", TableProperties.PARQUET_PAGE_SIZE_BYTES, "1024"),
+                tableLocation.toUri().toString());
+        int propertyCount = table.properties().size();
+
+        WriteProperties.apply(table, Map.of(TableProperties.PARQUET_COMPRESSION, "zstd", TableProperties.PARQUET_PAGE_SIZE_BYTES, "1024"));
+        table.refresh();
+
+        assertEquals("zstd", table.properties().get(TableProperties.PARQUET_COMPRESSION));
+        assertEquals("1024", table.properties().get(TableProperties.PARQUET_PAGE_SIZE_BYTES));
+        assertEquals(propertyCount, table.properties().size());
+    }
+
+    private void assertRejected(String group, String property, String value) {
+        String previous = config.get(group).getProperty(property);
+        config.get(group).setProperty(property, value);
+        assertThrows(ValidationException.class, () -> WriteProperties.fromConfig(config, tableSchema), property + "=" + value);
+        if (previous == null) {
+            config.get(group).remove(property);
+        } else {
+            config.get(group).setProperty(property, previous);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.RowDataDeserializationSchema;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamoDbExportTest {
+    private static final String CREATED_ITEM = "{\"Item\":{\"bucket\":{\"S\":\"foo\"},\"key\":{\"S\":\"20240724_123107.jpg\"},"
+            + "\"s3key\":{\"S\":\"Zm9vLzIwMjQwNzI0XzEyMzEwNy5qcGc=-0\"},\"etag\":{\"S\":\"86cfe4562a912649058b0fb7824e1d11\"},"
+            + "\"version_id\":{\"NULL\":true},\"sequencer\":{\"S\":\"00673743A054CE73CC\"},"
+            + "\"latest_event_time\":{\"S\":\"2024-11-15T12:50:40+00:00\"},"
+            + "\"metadata\":{\"S\":\"{\\\"labels\\\": [{\\\"Name\\\": \\\"Pond\\\"}, {\\\"Name\\\": \\\"Bird\\\"}], \\\"exif\\\": {\\\"ImageWidth\\\": 4000}}\"}}}";
+    private static final String DELETED_ITEM = "{\"Item\":{\"bucket\":{\"S\":\"foo\"},\"key\":{\"S\":\"deleted.jpg\"},"
+            + "\"s3key\":{\"S\":\"Zm9vL2RlbGV0ZWQuanBn-0\"},\"deleted\":{\"BOOL\":true},\"version_id\":{\"NULL\":true},"
+            + "\"sequencer\":{\"S\":\"00673B17D652EE0D14\"},\"latest_event_time\":{\"S\":\"2024-11-18T10:32:54+00:00\"}}}";
+
+    @Test
+    public void testThatItemsAreParsed() {
+        Map<String, AttributeValue> item = DynamoDbExport.parseItem(
+                "{\"Item\":{\"s\":{\"S\":\"a\"},\"n\":{\"N\":\"1.5\"},\"b\":{\"B\":\"AQI=\"},\"bool\":{\"BOOL\":false},"
+                        + "\"null\":{\"NULL\":true},\"m\":{\"M\":{\"x\":{\"N\":\"2\"}}},\"l\":{\"L\":[{\"S\":\"y\"},{\"N\":\"3\"}]},"
+                        + "\"ss\":{\"SS\":[\"p\",\"q\"]},\"ns\":{\"NS\":[\"4\"]},\"bs\":{\"BS\":[\"AQ==\"]}}}");
+
+        assertEquals(AttributeValue.fromS("a"), item.get("s"));
+        assertEquals(AttributeValue.fromN("1.5"), item.get("n"));
+        assertArrayEquals(new byte[]{1, 2}, item.get("b").b().asByteArray());
+        assertEquals(AttributeValue.fromBool(false), item.get("bool"));
+        assertEquals(AttributeValue.fromNul(true), item.get("null"));
+        assertEquals(AttributeValue.fromM(Map.of("x", AttributeValue.fromN("2"))), item.get("m"));
+        assertEquals(AttributeValue.fromL(List.of(AttributeValue.fromS("y"), AttributeValue.fromN("3"))), item.get("l"));
+        assertEquals(List.of("p", "q"), item.get("ss").ss());
+        assertEquals(List.of("4"), item.get("ns").ns());
+        assertArrayEquals(new byte[]{1}, item.get("bs").bs().get(0).asByteArray());
+
+        assertEquals(item, DynamoDbExport.parseItem(DynamoDbExport.formatItem(item)));
+
+        assertNull(DynamoDbExport.parseItem("  "));
+        assertThrows(IllegalArgumentException.class, () -> DynamoDbExport.parseItem("{\"NotAnItem\":{}}"));
+    }
+
+    @Test
+    public void testThatExportedItemsAreInsertedAndDeletedObjectsSkipped() throws Exception {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("custom_metadata_fields", "labels, image_width");
+        config.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        config.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+        config.get("schema").setProperty("field.image_width.type", "INTEGER");
+        config.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        Schema tableSchema = TableSchemaGenerator.generate(config, entries);
+        ExportItemDeserializer deserializer = new ExportItemDeserializer(new RowDataDeserializationSchema(tableSchema, entries));
+
+        List<RowData> rows = new ArrayList<>();
+        for (String line : List.of(CREATED_ITEM, "", DELETED_ITEM)) {
+            deserializer.flatMap(line, new ListCollector<>(rows));
+        }
+
+        assertEquals(1, rows.size());
+        RowData row = rows.get(0);
+        assertEquals(RowKind.INSERT, row.getRowKind());
+        assertEquals("20240724_123107.jpg", row.getString(1).toString());
+        assertEquals("00673743A054CE73CC", row.getString(3).toString());
+        assertEquals(2, row.getArray(7).size());
+        assertEquals(4000, row.getInt(8));
+    }
+
+    @Test
+    public void testThatOnlyJsonExportsAreRead() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.put("backfill", new Properties());
+        config.get("backfill").setProperty("export_path", "/tmp/export/AWSDynamoDB/01234567890123-abcdefgh/data/");
+        assertNotNull(DynamoDbExport.createSource(config));
+
+        config.get("backfill").setProperty("export_format", "ION");
+        assertThrows(IllegalArgumentException.class, () -> DynamoDbExport.createSource(config));
+    }
+
+    @Test
+    public void testThatManifestsAreSkipped() {
+        DynamoDbExport.ExportFileFilter filter = new DynamoDbExport.ExportFileFilter();
+
+        assertTrue(filter.test(new Path("/export/AWSDynamoDB/01234567890123-abcdefgh/data")));
+        assertTrue(filter.test(new Path("/export/AWSDynamoDB/01234567890123-abcdefgh/data/abcdefghijklmnop.json.gz")));
+        assertFalse(filter.test(new Path("/export/AWSDynamoDB/01234567890123-abcdefgh/manifest-files.json")));
+        assertFalse(filter.test(new Path("/export/AWSDynamoDB/01234567890123-abcdefgh/manifest-summary.md5")));
+        assertFalse(filter.test(new Path("/export/AWSDynamoDB/01234567890123-abcdefgh/_started")));
+    }
+}
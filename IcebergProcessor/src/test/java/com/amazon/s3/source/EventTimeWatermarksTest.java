@@ -0,0 +1,72 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.api.common.eventtime.TimestampAssigner;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventTimeWatermarksTest {
+    private static final long EVENT_TIME = Instant.parse("2024-11-18T10:32:54Z").toEpochMilli();
+
+    @Test
+    public void testThatImagesAreTimestampedWithTheirEventTime() {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        TimestampAssigner<ImageRecord> assigner = EventTimeWatermarks.forImages(config).createTimestampAssigner(null);
+
+        assertEquals(EVENT_TIME, assigner.extractTimestamp(TestingHelpers.loadSampleEventAsImageRecord("DeleteEvent"), 42));
+        assertEquals(42, assigner.extractTimestamp(new ImageRecord(), 42));
+        ImageRecord unreadable = TestingHelpers.loadSampleEventAsImageRecord("DeleteEvent");
+        unreadable.latestEventTime = "yesterday";
+        assertEquals(42, assigner.extractTimestamp(unreadable, 42));
+
+        config.get("stream").setProperty("event_time", "APPROXIMATE_CREATION_TIME");
+        assigner = EventTimeWatermarks.forImages(config).createTimestampAssigner(null);
+        assertEquals(42, assigner.extractTimestamp(TestingHelpers.loadSampleEventAsImageRecord("DeleteEvent"), 42));
+
+        config.get("stream").setProperty("event_time", "arrival_time");
+        assertThrows(IllegalArgumentException.class, () -> EventTimeWatermarks.forImages(config));
+    }
+
+    @Test
+    public void testThatRowsAreTimestampedWithTheirLastModifiedColumn() throws Exception {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("include_raw_metadata", "false");
+        Schema tableSchema = TableSchemaGenerator.generate(config, TableSchemaGenerator.parseCustomMetadataFields(config));
+        TimestampAssigner<RowData> assigner = EventTimeWatermarks.forRows(config, tableSchema).createTimestampAssigner(null);
+
+        GenericRowData row = GenericRowData.of(
+                StringData.fromString("foo"), StringData.fromString("a.jpg"), null, null, null, TimestampData.fromEpochMillis(EVENT_TIME));
+        assertEquals(EVENT_TIME, assigner.extractTimestamp(row, 42));
+        row.setField(5, null);
+        assertEquals(42, assigner.extractTimestamp(row, 42));
+    }
+}
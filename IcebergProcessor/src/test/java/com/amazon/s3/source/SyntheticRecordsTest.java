@@ -0,0 +1,116 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: MIT-0
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazon.s3.source;
+
+import com.amazon.s3.TestingHelpers;
+import com.amazon.s3.model.ImageRecord;
+import com.amazon.s3.model.RowDataDeserializationSchema;
+import com.amazon.s3.schema.TableSchemaGenerator;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticRecordsTest {
+
+    @Test
+    public void testThatEveryObjectIsCreatedThenUpdated() {
+        SyntheticRecords generator = new SyntheticRecords(10, 0, 0, 5, 10);
+
+        Set<String> keys = new HashSet<>();
+        for (long i = 0; i < 30; i++) {
+            Record record = generator.record(i);
+            ImageRecord image = new ImageRecord(record.dynamodb().newImage());
+            keys.add(image.userKey);
+            assertEquals(i < 10 ? OperationType.INSERT : OperationType.MODIFY, record.eventName());
+            assertEquals("synthetic-bucket", image.bucket);
+            assertEquals(String.format("%018X", i), image.sequencer);
+            assertFalse(image.isDelete);
+            assertNotNull(image.etag);
+            assertTrue(image.metadata.startsWith("{\"labels\":["), image.metadata);
+        }
+        assertEquals(10, keys.size());
+        assertEquals(generator.record(17).dynamodb().newImage().get("metadata"), generator.record(17).dynamodb().newImage().get("metadata"));
+    }
+
+    @Test
+    public void testThatReorderedEventsAreEachEmittedOnce() {
+        SyntheticRecords generator = new SyntheticRecords(1, 0, 1, 0, 0);
+
+        List<String> sequencers = List.of(
+                generator.record(0).dynamodb().newImage().get("sequencer").s(),
+                generator.record(1).dynamodb().newImage().get("sequencer").s(),
+                generator.record(2).dynamodb().newImage().get("sequencer").s(),
+                generator.record(3).dynamodb().newImage().get("sequencer").s());
+        assertEquals(List.of("000000000000000000", "000000000000000001", "000000000000000003", "000000000000000002"), sequencers);
+    }
+
+    @Test
+    public void testThatDeletesCarryNoMetadata() {
+        SyntheticRecords generator = new SyntheticRecords(4, 1, 0, 5, 10);
+
+        assertFalse(new ImageRecord(generator.record(3).dynamodb().newImage()).isDelete);
+        ImageRecord deleted = new ImageRecord(generator.record(4).dynamodb().newImage());
+        assertTrue(deleted.isDelete);
+        assertNull(deleted.metadata);
+        assertNull(deleted.etag);
+    }
+
+    @Test
+    public void testThatInvalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticRecords(0, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticRecords(1, 1.5, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticRecords(1, 0, -0.1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticRecords(1, 0, 0, -1, 0));
+    }
+
+    @Test
+    public void testThatGeneratedRecordsAreDeserialized() throws Exception {
+        Map<String, Properties> config = TestingHelpers.defaultCorrectProperties();
+        config.get("schema").setProperty("custom_metadata_fields", "labels, image_width");
+        config.get("schema").setProperty("field.labels.type", "ARRAY<STRING>");
+        config.get("schema").setProperty("field.labels.jpath", "$.labels[*].Name");
+        config.get("schema").setProperty("field.image_width.type", "INTEGER");
+        config.get("schema").setProperty("field.image_width.jpath", "$.exif.ImageWidth");
+        config.put("generator", new Properties());
+        config.get("generator").setProperty("keys", "2");
+        config.get("generator").setProperty("delete_ratio", "1");
+        List<TableSchemaGenerator.SchemaEntry> entries = TableSchemaGenerator.parseCustomMetadataFields(config);
+        Schema tableSchema = TableSchemaGenerator.generate(config, entries);
+
+        EventSources.DeserializingGenerator<RowData> generator = new EventSources.DeserializingGenerator<>(
+                SyntheticRecords.fromConfig(config), new RowDataDeserializationSchema(tableSchema, entries));
+
+        RowData created = generator.map(0L);
+        assertEquals(RowKind.INSERT, created.getRowKind());
+        assertEquals("synthetic/00000000.jpg", created.getString(1).toString());
+        assertEquals(10, created.getArray(7).size());
+        assertFalse(created.isNullAt(8));
+        assertEquals(RowKind.DELETE, generator.map(2L).getRowKind());
+    }
+}